@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules;
+
+import com.ververica.field.dynamicrules.functions.TransactionsGenerator;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/** Deterministic transactions and rules shared by the microbenchmarks. */
+public final class BenchmarkData {
+
+  /* Number of distinct transactions the benchmarks cycle through, a power of two. */
+  public static final int TRANSACTIONS = 1024;
+
+  private static final long SEED = 42;
+
+  /* Event time of the first transaction, 2013-01-01 00:00:00 UTC, the others are a second apart. */
+  private static final long START_TIME = 1_356_998_400_000L;
+
+  private static final String[] KEY_SETS = {
+    "payeeId", "beneficiaryId", "paymentType", "payeeId&beneficiaryId", "paymentType&payeeId"
+  };
+
+  private static final DateTimeFormatter TIME_FORMATTER =
+      DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+          .withLocale(Locale.US)
+          .withZone(ZoneOffset.UTC);
+
+  private BenchmarkData() {}
+
+  public static Transaction[] transactions() {
+    TransactionsGenerator generator = new TransactionsGenerator(1);
+    SplittableRandom rnd = new SplittableRandom(SEED);
+    Transaction[] transactions = new Transaction[TRANSACTIONS];
+    for (int i = 0; i < TRANSACTIONS; i++) {
+      Transaction transaction = generator.randomEvent(rnd, i);
+      // The generator stamps transactions with the current time.
+      transaction.setEventTime(START_TIME + i * 1000L);
+      transaction.setIngestionTimestamp(transaction.getEventTime());
+      transactions[i] = transaction;
+    }
+    return transactions;
+  }
+
+  /** Renders a transaction in the format of {@link Transaction#fromString(String)}. */
+  public static String toCsv(Transaction transaction) {
+    Long ingestionTimestamp = transaction.getIngestionTimestamp();
+    return transaction.getTransactionId()
+        + ","
+        + TIME_FORMATTER.format(Instant.ofEpochMilli(transaction.getEventTime()))
+        + ","
+        + transaction.getPayeeId()
+        + ","
+        + transaction.getBeneficiaryId()
+        + ","
+        + transaction.getPaymentType()
+        + ","
+        + FixedPoint.toBigDecimal(transaction.getPaymentAmount()).toPlainString()
+        + ","
+        + (ingestionTimestamp == null ? transaction.getEventTime() : ingestionTimestamp);
+  }
+
+  /**
+   * Returns the given number of active rules with a mix of grouping keys, aggregate functions,
+   * limit operators and the given window size.
+   */
+  public static List<Rule> rules(int count, int windowMinutes) throws IOException {
+    Rule.AggregatorFunctionType[] functions = Rule.AggregatorFunctionType.values();
+    Rule.LimitOperatorType[] operators = Rule.LimitOperatorType.values();
+    SplittableRandom rnd = new SplittableRandom(SEED);
+    RuleParser parser = new RuleParser();
+    List<Rule> rules = new ArrayList<>(count);
+    for (int id = 1; id <= count; id++) {
+      Rule.AggregatorFunctionType function = functions[rnd.nextInt(functions.length)];
+      String aggregateField =
+          function == Rule.AggregatorFunctionType.SUM && rnd.nextBoolean()
+              ? RuleHelper.COUNT
+              : "paymentAmount";
+      rules.add(
+          parser.fromString(
+              id
+                  + ",(active),("
+                  + KEY_SETS[rnd.nextInt(KEY_SETS.length)]
+                  + "),,("
+                  + aggregateField
+                  + "),("
+                  + function
+                  + "),("
+                  + operators[rnd.nextInt(operators.length)].operator
+                  + "),("
+                  + rnd.nextInt(1, 1000)
+                  + "),("
+                  + windowMinutes
+                  + ")"));
+    }
+    return rules;
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Extraction of grouping keys and aggregated values from a transaction: the reflective {@link
+ * KeysExtractor} and {@link FieldsExtractor} next to the pre-resolved {@link FieldAccessor}s.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FieldExtractionBenchmark {
+
+  @Param({"payeeId", "payeeId&beneficiaryId", "paymentType&payeeId&beneficiaryId"})
+  public String keyFields;
+
+  private Transaction[] transactions;
+  private List<String> keyNames;
+  private FieldAccessor[] keyAccessors;
+  private RuleFieldAccessors ruleAccessors;
+  private FieldAccessor amountAccessor;
+  private int next;
+
+  @Setup
+  public void setup() throws Exception {
+    transactions = BenchmarkData.transactions();
+    keyNames = Arrays.asList(keyFields.split("&"));
+    keyAccessors = new FieldAccessor[keyNames.size()];
+    for (int i = 0; i < keyAccessors.length; i++) {
+      keyAccessors[i] = FieldAccessor.of(Transaction.class, keyNames.get(i));
+    }
+    Rule rule =
+        new RuleParser()
+            .fromString("1,(active),(" + keyFields + "),,(paymentAmount),(SUM),(>),(50),(20)");
+    ruleAccessors = rule.getFieldAccessors(Transaction.class);
+    amountAccessor = FieldAccessor.of(Transaction.class, "paymentAmount");
+  }
+
+  private Transaction nextTransaction() {
+    return transactions[next++ & (BenchmarkData.TRANSACTIONS - 1)];
+  }
+
+  @Benchmark
+  public String reflectiveKey() throws Exception {
+    return KeysExtractor.getKey(keyNames, nextTransaction());
+  }
+
+  @Benchmark
+  public String accessorKey() {
+    return KeysExtractor.getKey(keyAccessors, nextTransaction());
+  }
+
+  @Benchmark
+  public GroupingKey binaryKey() {
+    return ruleAccessors.getKey(nextTransaction());
+  }
+
+  @Benchmark
+  public BigDecimal reflectiveAmount() throws Exception {
+    return FieldsExtractor.getBigDecimalByName("paymentAmount", nextTransaction());
+  }
+
+  @Benchmark
+  public long accessorAmount() {
+    return amountAccessor.getFixedPoint(nextTransaction());
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules;
+
+import com.ververica.field.dynamicrules.serialization.AlertSerializationSchema;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Parsing and rendering of the pipeline's text formats at its edges. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParsingBenchmark {
+
+  private Transaction[] transactions;
+  private String[] csvLines;
+  private String[] jsonLines;
+  private Alert<Transaction, BigDecimal>[] alerts;
+  private JsonMapper<Transaction> transactionMapper;
+  private JsonMapper<Alert> alertMapper;
+  private AlertSerializationSchema<Transaction, BigDecimal> alertSchema;
+  private AlertSerializationSchema<Transaction, BigDecimal> alertSchemaWithRuleReferences;
+  private int next;
+
+  @Setup
+  @SuppressWarnings("unchecked")
+  public void setup() throws Exception {
+    transactions = BenchmarkData.transactions();
+    transactionMapper = new JsonMapper<>(Transaction.class);
+    alertMapper = new JsonMapper<>(Alert.class);
+    alertSchema = new AlertSerializationSchema<>(false);
+    alertSchemaWithRuleReferences = new AlertSerializationSchema<>(true);
+    Rule rule = BenchmarkData.rules(1, 20).get(0);
+    csvLines = new String[BenchmarkData.TRANSACTIONS];
+    jsonLines = new String[BenchmarkData.TRANSACTIONS];
+    alerts = new Alert[BenchmarkData.TRANSACTIONS];
+    for (int i = 0; i < BenchmarkData.TRANSACTIONS; i++) {
+      Transaction transaction = transactions[i];
+      csvLines[i] = BenchmarkData.toCsv(transaction);
+      jsonLines[i] = transactionMapper.toString(transaction);
+      alerts[i] =
+          new Alert<>(
+              rule.getRuleId(),
+              rule,
+              rule.getFieldAccessors(Transaction.class).renderKey(transaction),
+              transaction,
+              BigDecimal.TEN);
+    }
+  }
+
+  private int nextIndex() {
+    return next++ & (BenchmarkData.TRANSACTIONS - 1);
+  }
+
+  @Benchmark
+  public Transaction transactionFromCsv() {
+    return Transaction.fromString(csvLines[nextIndex()]);
+  }
+
+  @Benchmark
+  public Transaction transactionFromJson() throws Exception {
+    return transactionMapper.fromString(jsonLines[nextIndex()]);
+  }
+
+  @Benchmark
+  public String transactionToJson() throws Exception {
+    return transactionMapper.toString(transactions[nextIndex()]);
+  }
+
+  @Benchmark
+  public Transaction transactionJsonRoundTrip() throws Exception {
+    return transactionMapper.fromString(transactionMapper.toString(transactions[nextIndex()]));
+  }
+
+  @Benchmark
+  public String alertToJson() throws Exception {
+    return alertMapper.toString(alerts[nextIndex()]);
+  }
+
+  @Benchmark
+  public byte[] alertToJsonBytes() throws Exception {
+    return alertMapper.toString(alerts[nextIndex()]).getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public byte[] alertSerializationSchema() {
+    return alertSchema.serializeValue(alerts[nextIndex()]);
+  }
+
+  @Benchmark
+  public byte[] alertSerializationSchemaWithRuleReferences() {
+    return alertSchemaWithRuleReferences.serializeValue(alerts[nextIndex()]);
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules;
+
+import com.ververica.field.dynamicrules.windows.PartialAggregate;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.flink.api.common.accumulators.SimpleAccumulator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Per-event work done for every active rule: extracting the rule's key and aggregated value,
+ * creating its accumulator and comparing the aggregate with the rule's limit. Each invocation
+ * handles one transaction against all rules. Benchmarks ending in {@code Baseline} measure the
+ * legacy BigDecimal accumulators, for comparison with the fixed-point ones.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RuleEvaluationBenchmark {
+
+  @Param({"1", "10", "100"})
+  public int ruleCount;
+
+  private Transaction[] transactions;
+  private Rule[] rules;
+  private BigDecimal[] decimalValues;
+  private long[] fixedPointValues;
+  private int next;
+
+  @Setup
+  public void setup() throws Exception {
+    transactions = BenchmarkData.transactions();
+    List<Rule> ruleList = BenchmarkData.rules(ruleCount, 20);
+    rules = ruleList.toArray(new Rule[0]);
+    for (Rule rule : rules) {
+      rule.getFieldAccessors(Transaction.class);
+    }
+    decimalValues = new BigDecimal[BenchmarkData.TRANSACTIONS];
+    fixedPointValues = new long[BenchmarkData.TRANSACTIONS];
+    for (int i = 0; i < BenchmarkData.TRANSACTIONS; i++) {
+      fixedPointValues[i] = transactions[i].getPaymentAmount() * 10;
+      decimalValues[i] = FixedPoint.toBigDecimal(fixedPointValues[i]);
+    }
+  }
+
+  private int nextIndex() {
+    return next++ & (BenchmarkData.TRANSACTIONS - 1);
+  }
+
+  @Benchmark
+  public void applyDecimal(Blackhole blackhole) {
+    BigDecimal value = decimalValues[nextIndex()];
+    for (Rule rule : rules) {
+      blackhole.consume(rule.apply(value));
+    }
+  }
+
+  @Benchmark
+  public void applyFixedPoint(Blackhole blackhole) {
+    long value = fixedPointValues[nextIndex()];
+    for (Rule rule : rules) {
+      blackhole.consume(rule.apply(value));
+    }
+  }
+
+  /** Baseline: creates the legacy BigDecimal accumulator of each rule. */
+  @Benchmark
+  public void getAggregatorBaseline(Blackhole blackhole) {
+    for (Rule rule : rules) {
+      blackhole.consume(RuleHelper.getAggregator(rule));
+    }
+  }
+
+  /** Baseline: aggregates and evaluates each rule with the legacy BigDecimal accumulators. */
+  @Benchmark
+  public void aggregateAndApplyBaseline(Blackhole blackhole) throws Exception {
+    Transaction transaction = transactions[nextIndex()];
+    for (Rule rule : rules) {
+      SimpleAccumulator<BigDecimal> aggregator = RuleHelper.getAggregator(rule);
+      aggregator.add(FixedPoint.toBigDecimal(RuleHelper.getAggregatedValue(rule, transaction)));
+      blackhole.consume(rule.apply(aggregator.getLocalValue()));
+    }
+  }
+
+  /** Aggregates and evaluates each rule in fixed point, as the window stores do. */
+  @Benchmark
+  public void aggregateAndApply(Blackhole blackhole) throws Exception {
+    Transaction transaction = transactions[nextIndex()];
+    for (Rule rule : rules) {
+      PartialAggregate aggregate = PartialAggregate.forFunction(rule.getAggregatorFunctionType());
+      aggregate.add(RuleHelper.getAggregatedValue(rule, transaction));
+      blackhole.consume(rule.apply(aggregate.getResult(rule.getAggregatorFunctionType())));
+    }
+  }
+
+  @Benchmark
+  public void extractKeys(Blackhole blackhole) throws Exception {
+    Transaction transaction = transactions[nextIndex()];
+    for (Rule rule : rules) {
+      blackhole.consume(rule.getFieldAccessors(Transaction.class).getKey(transaction));
+    }
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules.accumulators;
+
+import com.ververica.field.dynamicrules.BenchmarkData;
+import com.ververica.field.dynamicrules.FixedPoint;
+import com.ververica.field.dynamicrules.Transaction;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import org.apache.flink.api.common.accumulators.SimpleAccumulator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Baseline: aggregation of a whole window with each legacy BigDecimal {@link SimpleAccumulator}, as
+ * done when a rule's window was rescanned before the window stores aggregated in fixed point. Each
+ * invocation aggregates {@code windowSize} values. See {@link
+ * com.ververica.field.dynamicrules.windows.WindowAggregatesBenchmark} for the fixed-point
+ * counterparts with the same parameters.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccumulatorsBenchmark {
+
+  @Param({"SUM", "AVG", "MIN", "MAX"})
+  public String function;
+
+  @Param({"10", "1000", "100000"})
+  public int windowSize;
+
+  private BigDecimal[] values;
+
+  @Setup
+  public void setup() {
+    Transaction[] transactions = BenchmarkData.transactions();
+    values = new BigDecimal[windowSize];
+    for (int i = 0; i < windowSize; i++) {
+      values[i] =
+          FixedPoint.toBigDecimal(transactions[i % BenchmarkData.TRANSACTIONS].getPaymentAmount());
+    }
+  }
+
+  private SimpleAccumulator<BigDecimal> newAccumulator() {
+    switch (function) {
+      case "SUM":
+        return new BigDecimalCounter();
+      case "AVG":
+        return new AverageAccumulator();
+      case "MIN":
+        return new BigDecimalMinimum();
+      case "MAX":
+        return new BigDecimalMaximum();
+      default:
+        throw new IllegalArgumentException("Unknown function: " + function);
+    }
+  }
+
+  @Benchmark
+  public BigDecimal aggregateWindow() {
+    SimpleAccumulator<BigDecimal> accumulator = newAccumulator();
+    for (BigDecimal value : values) {
+      accumulator.add(value);
+    }
+    return accumulator.getLocalValue();
+  }
+
+  @Benchmark
+  public BigDecimal mergeHalves() {
+    SimpleAccumulator<BigDecimal> first = newAccumulator();
+    SimpleAccumulator<BigDecimal> second = newAccumulator();
+    int half = values.length / 2;
+    for (int i = 0; i < half; i++) {
+      first.add(values[i]);
+    }
+    for (int i = half; i < values.length; i++) {
+      second.add(values[i]);
+    }
+    first.merge(second);
+    return first.getLocalValue();
+  }
+}
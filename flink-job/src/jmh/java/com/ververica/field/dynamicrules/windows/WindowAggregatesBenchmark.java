@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules.windows;
+
+import com.ververica.field.dynamicrules.BenchmarkData;
+import com.ververica.field.dynamicrules.Rule;
+import com.ververica.field.dynamicrules.Rule.AggregatorFunctionType;
+import com.ververica.field.dynamicrules.RuleParser;
+import com.ververica.field.dynamicrules.Transaction;
+import com.ververica.field.dynamicrules.windows.ContributionSeries.Contributions;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Aggregation of fixed-point values as done by the window stores, the counterpart of the BigDecimal
+ * baseline in {@link com.ververica.field.dynamicrules.accumulators.AccumulatorsBenchmark}:
+ * rescanning a window of {@code windowSize} values into a {@link PartialAggregate}, merging two
+ * halves of it, and sliding a {@link SlidingWindowSum} or {@link SlidingWindowExtremum} holding
+ * {@code windowSize} values on by one event.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WindowAggregatesBenchmark {
+
+  @Param({"SUM", "AVG", "MIN", "MAX"})
+  public String function;
+
+  @Param({"10", "1000", "100000"})
+  public int windowSize;
+
+  private AggregatorFunctionType functionType;
+  private long[] values;
+
+  private Rule rule;
+  private long eventSpacingMillis;
+  private SlidingWindowAggregate slidingAggregate;
+  private ContributionSeries series;
+  private long nextTimestamp;
+  private int next;
+
+  @Setup
+  public void setup() throws Exception {
+    functionType = AggregatorFunctionType.valueOf(function);
+    Transaction[] transactions = BenchmarkData.transactions();
+    values = new long[windowSize];
+    for (int i = 0; i < windowSize; i++) {
+      values[i] = transactions[i % BenchmarkData.TRANSACTIONS].getPaymentAmount();
+    }
+
+    rule =
+        new RuleParser()
+            .fromString(
+                "1,(active),(paymentType),,(paymentAmount),(" + function + "),(>),(0),(60)");
+    // Spaces events so that the window holds about windowSize of them.
+    eventSpacingMillis = rule.getWindowMillis() / windowSize;
+    slidingAggregate = SlidingWindowAggregate.forRule(rule);
+    series = ContributionSeries.create(functionType, new HeapContributions());
+    for (int i = 0; i < windowSize; i++) {
+      slide();
+    }
+  }
+
+  @Benchmark
+  public long aggregateWindow() {
+    PartialAggregate aggregate = PartialAggregate.forFunction(functionType);
+    for (long value : values) {
+      aggregate.add(value);
+    }
+    return aggregate.getResult(functionType);
+  }
+
+  @Benchmark
+  public long mergeHalves() {
+    PartialAggregate first = PartialAggregate.forFunction(functionType);
+    PartialAggregate second = PartialAggregate.forFunction(functionType);
+    int half = values.length / 2;
+    for (int i = 0; i < half; i++) {
+      first.add(values[i]);
+    }
+    for (int i = half; i < values.length; i++) {
+      second.add(values[i]);
+    }
+    first.merge(second);
+    return first.getResult(functionType);
+  }
+
+  /**
+   * Adds the next in-order event to the series and the sliding aggregate, evicts the oldest one and
+   * evaluates.
+   */
+  @Benchmark
+  public long slideWindow() throws Exception {
+    return slide();
+  }
+
+  private long slide() throws Exception {
+    long timestamp = nextTimestamp;
+    nextTimestamp += eventSpacingMillis;
+    long windowStart = rule.getWindowStartFor(timestamp);
+    PartialAggregate partial = PartialAggregate.of(values[next++ % values.length]);
+    slidingAggregate.add(timestamp, partial, series.add(timestamp, partial));
+    slidingAggregate.slideTo(series, timestamp, windowStart);
+    series.evictBefore(windowStart);
+    return slidingAggregate.getResult();
+  }
+
+  /** Contributions on the heap, leaving out the cost of the state backend. */
+  private static class HeapContributions implements Contributions {
+
+    private final Map<Long, Contribution> values = new HashMap<>();
+
+    @Override
+    public Contribution get(long timestamp) {
+      return values.get(timestamp);
+    }
+
+    @Override
+    public void put(long timestamp, Contribution contribution) {
+      values.put(timestamp, contribution);
+    }
+
+    @Override
+    public void remove(long timestamp) {
+      values.remove(timestamp);
+    }
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ververica.field.config;
+
+import java.util.concurrent.TimeUnit;
+import org.apache.flink.util.Preconditions;
+
+/** Parses the durations of parameters such as {@link Parameters#PANE_LEVELS}. */
+public final class Durations {
+
+  private Durations() {}
+
+  /**
+   * Parses a duration in milliseconds, a number followed by one of the units {@code ms}, {@code s},
+   * {@code m}, {@code h} or {@code d}, e.g. {@code "10s"}. Surrounding whitespace and the case of
+   * the unit are ignored.
+   */
+  public static long parseMillis(String duration) {
+    String size = duration.trim().toLowerCase();
+    int unitStart = 0;
+    while (unitStart < size.length() && Character.isDigit(size.charAt(unitStart))) {
+      unitStart++;
+    }
+    Preconditions.checkArgument(unitStart > 0, "Invalid duration: %s", duration);
+    long amount = Long.parseLong(size.substring(0, unitStart));
+    String unit = size.substring(unitStart);
+    switch (unit) {
+      case "ms":
+        return amount;
+      case "s":
+        return TimeUnit.SECONDS.toMillis(amount);
+      case "m":
+        return TimeUnit.MINUTES.toMillis(amount);
+      case "h":
+        return TimeUnit.HOURS.toMillis(amount);
+      case "d":
+        return TimeUnit.DAYS.toMillis(amount);
+      default:
+        throw new IllegalArgumentException("Invalid duration unit: " + duration);
+    }
+  }
+}
@@ -62,6 +62,7 @@ public class Parameters {
   public static final Param<String> ALERTS_TOPIC = Param.string("alerts-topic", "alerts");
   public static final Param<String> RULES_TOPIC = Param.string("rules-topic", "rules");
   public static final Param<String> LATENCY_TOPIC = Param.string("latency-topic", "latency");
+  public static final Param<String> TRACES_TOPIC = Param.string("traces-topic", "traces");
   public static final Param<String> RULES_EXPORT_TOPIC =
       Param.string("current-rules-topic", "current-rules");
 
@@ -82,16 +83,40 @@ public class Parameters {
   public static final Param<Integer> SOCKET_PORT = Param.integer("pubsub-rules-export", 9999);
 
   // General:
-  //    source/sink types: kafka / pubsub / socket
+  //    source types: kafka / pubsub / socket (rules only) / static (rules only)
+  //    sink types: kafka / pubsub / stdout / discard
   public static final Param<String> RULES_SOURCE = Param.string("rules-source", "SOCKET");
   public static final Param<String> TRANSACTIONS_SOURCE = Param.string("data-source", "GENERATOR");
+  //    formats of transaction records on Kafka: json / binary
+  public static final Param<String> TRANSACTIONS_FORMAT = Param.string("data-format", "JSON");
   public static final Param<String> ALERTS_SINK = Param.string("alerts-sink", "STDOUT");
+  //    reference violated rules in alerts by id and version instead of embedding them
+  public static final Param<Boolean> ALERTS_RULE_REFERENCES =
+      Param.bool("alerts-rule-references", false);
+  //    suppression windows of repeated alerts per rule and key, e.g. "10m,3:1h,5:0ms" for ten
+  //    minutes, an hour for rule 3 and none for rule 5; empty to emit every alert
+  public static final Param<String> ALERT_SUPPRESSION = Param.string("alert-suppression", "");
   public static final Param<String> LATENCY_SINK = Param.string("latency-sink", "STDOUT");
   public static final Param<String> RULES_EXPORT_SINK = Param.string("rules-export-sink", "STDOUT");
+  //    evaluation traces sink types: kafka (binary records) / stdout / discard
+  public static final Param<String> TRACES_SINK = Param.string("traces-sink", "DISCARD");
+  //    traces every n-th rule evaluation per subtask, 0 for none; optionally only of the given
+  //    comma-separated rule ids and keys, as rendered in alerts, e.g. "{payeeId=1001}"
+  public static final Param<Integer> TRACE_SAMPLE_RATE = Param.integer("trace-sample-rate", 0);
+  public static final Param<String> TRACE_RULES = Param.string("trace-rules", "");
+  public static final Param<String> TRACE_KEYS = Param.string("trace-keys", "");
+
+  //    rules of the static rules source, separated by ';'
+  public static final Param<String> STATIC_RULES = Param.string("static-rules", "");
 
   public static final Param<Integer> RECORDS_PER_SECOND = Param.integer("records-per-second", 2);
 
   public static final Param<Boolean> LOCAL_EXECUTION = Param.bool("local", false);
+  //    prints alerts and current rules to stdout besides the configured sinks
+  public static final Param<Boolean> DEBUG_OUTPUT = Param.bool("debug-output", true);
+  //    latency histograms are recorded per subtask and merged into percentiles per interval
+  public static final Param<Integer> LATENCY_INTERVAL_MILLIS =
+      Param.integer("latency-interval-millis", 10_000);
 
   public static final Param<Integer> SOURCE_PARALLELISM = Param.integer("source-parallelism", 2);
   public static final Param<Integer> CHECKPOINT_INTERVAL =
@@ -100,6 +125,44 @@ public class Parameters {
       Param.integer("min-pause-btwn-checkpoints", 60_000_0);
   public static final Param<Integer> OUT_OF_ORDERNESS = Param.integer("out-of-orderdness", 500);
 
+  // Rules evaluation:
+  //    fan-out of events to rules: rule / key_set
+  public static final Param<String> FAN_OUT = Param.string("fan-out", "KEY_SET");
+  //    evaluation modes: rescan / incremental
+  public static final Param<String> EVALUATION_MODE =
+      Param.string("evaluation-mode", "INCREMENTAL");
+  //    window stores: events / ordered_events / panes / hierarchical
+  public static final Param<String> WINDOW_STORE = Param.string("window-store", "EVENTS");
+  public static final Param<Integer> EVENT_BUCKET_MILLIS =
+      Param.integer("event-bucket-millis", 10_000);
+  public static final Param<Integer> PANE_SIZE_MILLIS = Param.integer("pane-size-millis", 1000);
+  //    pane sizes of the hierarchical store, from fine to coarse (units: ms / s / m / h / d);
+  //    windows start at a pane boundary one level finer than the coarsest level fitting into
+  //    them, so windows of days start at a full hour with the default levels
+  public static final Param<String> PANE_LEVELS = Param.string("pane-levels", "1s,1m,1h,1d");
+  //    window state of each key is evicted at most once per this many milliseconds
+  public static final Param<Integer> CLEANUP_GRANULARITY_MILLIS =
+      Param.integer("cleanup-granularity-millis", 10_000);
+
+  // State backend:
+  //    backends: default (from the cluster configuration) / heap / filesystem / rocksdb
+  public static final Param<String> STATE_BACKEND = Param.string("state-backend", "DEFAULT");
+  public static final Param<String> CHECKPOINT_DIR =
+      Param.string("checkpoint-dir", "file:///tmp/fraud-detection/checkpoints");
+  public static final Param<Boolean> INCREMENTAL_CHECKPOINTS =
+      Param.bool("incremental-checkpoints", false);
+  //    local recovery and managed memory only apply to local execution
+  public static final Param<Boolean> LOCAL_RECOVERY = Param.bool("local-recovery", false);
+  //    memory sizes with units (e.g. 64mb), empty for the defaults
+  public static final Param<String> MANAGED_MEMORY_SIZE = Param.string("managed-memory-size", "");
+  //    RocksDB options profiles: default / spinning_disk_optimized /
+  //    spinning_disk_optimized_high_mem / flash_ssd_optimized
+  public static final Param<String> ROCKSDB_OPTIONS = Param.string("rocksdb-options", "DEFAULT");
+  public static final Param<String> ROCKSDB_BLOCK_CACHE_SIZE =
+      Param.string("rocksdb-block-cache-size", "");
+  public static final Param<String> ROCKSDB_WRITE_BUFFER_SIZE =
+      Param.string("rocksdb-write-buffer-size", "");
+
   //  List<Param> list = Arrays.asList(new String[]{"foo", "bar"});
 
   public static final List<Param<String>> STRING_PARAMS =
@@ -109,6 +172,7 @@ public class Parameters {
           ALERTS_TOPIC,
           RULES_TOPIC,
           LATENCY_TOPIC,
+          TRACES_TOPIC,
           RULES_EXPORT_TOPIC,
           OFFSET,
           GCP_PROJECT_NAME,
@@ -118,9 +182,25 @@ public class Parameters {
           GCP_PUBSUB_RULES_EXPORT_SUBSCRIPTION,
           RULES_SOURCE,
           TRANSACTIONS_SOURCE,
+          TRANSACTIONS_FORMAT,
           ALERTS_SINK,
+          ALERT_SUPPRESSION,
           LATENCY_SINK,
-          RULES_EXPORT_SINK);
+          RULES_EXPORT_SINK,
+          TRACES_SINK,
+          TRACE_RULES,
+          TRACE_KEYS,
+          STATIC_RULES,
+          FAN_OUT,
+          EVALUATION_MODE,
+          WINDOW_STORE,
+          PANE_LEVELS,
+          STATE_BACKEND,
+          CHECKPOINT_DIR,
+          MANAGED_MEMORY_SIZE,
+          ROCKSDB_OPTIONS,
+          ROCKSDB_BLOCK_CACHE_SIZE,
+          ROCKSDB_WRITE_BUFFER_SIZE);
 
   public static final List<Param<Integer>> INT_PARAMS =
       Arrays.asList(
@@ -130,7 +210,18 @@ public class Parameters {
           SOURCE_PARALLELISM,
           CHECKPOINT_INTERVAL,
           MIN_PAUSE_BETWEEN_CHECKPOINTS,
-          OUT_OF_ORDERNESS);
-
-  public static final List<Param<Boolean>> BOOL_PARAMS = Arrays.asList(LOCAL_EXECUTION);
+          OUT_OF_ORDERNESS,
+          EVENT_BUCKET_MILLIS,
+          PANE_SIZE_MILLIS,
+          CLEANUP_GRANULARITY_MILLIS,
+          LATENCY_INTERVAL_MILLIS,
+          TRACE_SAMPLE_RATE);
+
+  public static final List<Param<Boolean>> BOOL_PARAMS =
+      Arrays.asList(
+          LOCAL_EXECUTION,
+          DEBUG_OUTPUT,
+          ALERTS_RULE_REFERENCES,
+          INCREMENTAL_CHECKPOINTS,
+          LOCAL_RECOVERY);
 }
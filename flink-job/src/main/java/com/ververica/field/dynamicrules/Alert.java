@@ -18,13 +18,16 @@
 
 package com.ververica.field.dynamicrules;
 
+import com.ververica.field.dynamicrules.serialization.AlertTypeInfo;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.apache.flink.api.common.typeinfo.TypeInfo;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@TypeInfo(AlertTypeInfo.Factory.class)
 public class Alert<Event, Value> {
   private Integer ruleId;
   private Rule violatedRule;
@@ -32,4 +35,16 @@ public class Alert<Event, Value> {
 
   private Event triggeringEvent;
   private Value triggeringValue;
+
+  /**
+   * Null for alerts raised by an event. For summaries of suppressed alerts, the number of alerts of
+   * the same rule and key suppressed since the previous alert or summary, the last of which this
+   * summary carries.
+   */
+  private Integer suppressedCount;
+
+  public Alert(
+      Integer ruleId, Rule violatedRule, String key, Event triggeringEvent, Value triggeringValue) {
+    this(ruleId, violatedRule, key, triggeringEvent, triggeringValue, null);
+  }
 }
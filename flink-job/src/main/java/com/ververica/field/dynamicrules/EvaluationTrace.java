@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Trace of the evaluation of a rule for an event: the aggregate of the rule's window ending at the
+ * event and whether it violated the rule's limit. Being a POJO of primitives and a string, it is
+ * shipped and written to Kafka in Flink's binary format.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EvaluationTrace {
+  private int ruleId;
+  private String key;
+  private long transactionId;
+  private long eventTime;
+  /* A FixedPoint number. */
+  private long aggregate;
+  private boolean violated;
+
+  @Override
+  public String toString() {
+    return "Rule "
+        + ruleId
+        + " | "
+        + key
+        + " : "
+        + FixedPoint.toString(aggregate)
+        + " -> "
+        + violated;
+  }
+}
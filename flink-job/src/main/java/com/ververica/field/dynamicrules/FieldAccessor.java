@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules;
+
+import static java.lang.invoke.MethodType.methodType;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import org.apache.flink.util.Preconditions;
+
+/**
+ * Accessor of a public field, resolved once into method handles so that reading the field needs
+ * neither a reflective lookup nor a round-trip through {@code toString()}. Reading fixed-point
+ * amounts does not allocate at all.
+ */
+public final class FieldAccessor {
+
+  private static final MethodHandle LONG_TO_FIXED_POINT;
+  private static final MethodHandle DOUBLE_TO_FIXED_POINT;
+  private static final MethodHandle DECIMAL_TO_FIXED_POINT;
+  private static final MethodHandle PARSE_FIXED_POINT;
+  private static final MethodHandle FIXED_POINT_TO_DECIMAL;
+
+  static {
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.lookup();
+      LONG_TO_FIXED_POINT =
+          lookup.findStatic(FixedPoint.class, "of", methodType(long.class, long.class));
+      DOUBLE_TO_FIXED_POINT =
+          lookup.findStatic(FixedPoint.class, "of", methodType(long.class, double.class));
+      DECIMAL_TO_FIXED_POINT =
+          lookup.findStatic(FixedPoint.class, "of", methodType(long.class, BigDecimal.class));
+      PARSE_FIXED_POINT =
+          lookup.findStatic(
+              FieldAccessor.class, "parseFixedPoint", methodType(long.class, Object.class));
+      FIXED_POINT_TO_DECIMAL =
+          lookup.findStatic(
+              FixedPoint.class, "toBigDecimal", methodType(BigDecimal.class, long.class));
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  private final String fieldName;
+  private final Class<?> fieldType;
+  private final boolean isAmount;
+  private final KeyEncoding keyEncoding;
+  /* (Object) -> Object */
+  private final MethodHandle getter;
+  /* (Object) -> long, double or boolean, depending on the key encoding; null otherwise */
+  private final MethodHandle primitiveGetter;
+  /* (Object) -> long */
+  private final MethodHandle fixedPointGetter;
+
+  private FieldAccessor(String fieldName, MethodHandle getter, Field field) {
+    Class<?> fieldType = field.getType();
+    boolean isAmount =
+        fieldType == long.class && field.isAnnotationPresent(FixedPoint.Amount.class);
+    this.fieldName = fieldName;
+    this.fieldType = fieldType;
+    this.isAmount = isAmount;
+    this.keyEncoding = KeyEncoding.of(fieldType);
+    this.getter =
+        (isAmount ? MethodHandles.filterReturnValue(getter, FIXED_POINT_TO_DECIMAL) : getter)
+            .asType(methodType(Object.class, Object.class));
+    this.primitiveGetter =
+        keyEncoding.primitiveType == null
+            ? null
+            : getter.asType(methodType(keyEncoding.primitiveType, Object.class));
+    this.fixedPointGetter =
+        (isAmount ? getter : toFixedPoint(getter, fieldType))
+            .asType(methodType(long.class, Object.class));
+  }
+
+  /** Resolves the public field with the given name of the given class. */
+  public static FieldAccessor of(Class<?> type, String fieldName)
+      throws NoSuchFieldException, IllegalAccessException {
+    Field field = type.getField(fieldName);
+    return new FieldAccessor(fieldName, MethodHandles.publicLookup().unreflectGetter(field), field);
+  }
+
+  private static MethodHandle toFixedPoint(MethodHandle getter, Class<?> fieldType) {
+    if (fieldType == long.class
+        || fieldType == int.class
+        || fieldType == short.class
+        || fieldType == byte.class) {
+      return MethodHandles.filterReturnValue(
+          getter.asType(getter.type().changeReturnType(long.class)), LONG_TO_FIXED_POINT);
+    }
+    if (fieldType == double.class || fieldType == float.class) {
+      return MethodHandles.filterReturnValue(
+          getter.asType(getter.type().changeReturnType(double.class)), DOUBLE_TO_FIXED_POINT);
+    }
+    if (fieldType == BigDecimal.class) {
+      return MethodHandles.filterReturnValue(getter, DECIMAL_TO_FIXED_POINT);
+    }
+    return MethodHandles.filterReturnValue(
+        getter.asType(getter.type().changeReturnType(Object.class)), PARSE_FIXED_POINT);
+  }
+
+  private static long parseFixedPoint(Object value) {
+    return FixedPoint.parse(value.toString());
+  }
+
+  public String getFieldName() {
+    return fieldName;
+  }
+
+  public Object get(Object object) {
+    try {
+      return getter.invokeExact(object);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  /**
+   * Returns the field's value of the given object as a {@link FixedPoint} number. Fields marked as
+   * {@link FixedPoint.Amount} are taken as they are, other numbers are converted.
+   */
+  public long getFixedPoint(Object object) {
+    try {
+      return (long) fixedPointGetter.invokeExact(object);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  /** Appends the field's value of the given object to a grouping key, without boxing it. */
+  public void writeKey(Object object, GroupingKey.Builder key) {
+    try {
+      switch (keyEncoding) {
+        case INTEGRAL:
+          key.writeLong((long) primitiveGetter.invokeExact(object));
+          break;
+        case FLOATING:
+          key.writeDouble((double) primitiveGetter.invokeExact(object));
+          break;
+        case BOOLEAN:
+          key.writeBoolean((boolean) primitiveGetter.invokeExact(object));
+          break;
+        case ENUM:
+          key.writeEnum((Enum<?>) (Object) getter.invokeExact(object));
+          break;
+        default:
+          Object value = getter.invokeExact(object);
+          key.writeString(value == null ? null : value.toString());
+      }
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  /**
+   * Appends a value of the field as rendered by {@link #get(Object)} to a grouping key, encoded as
+   * {@link #writeKey(Object, GroupingKey.Builder)} encodes the field's value.
+   *
+   * @throws IllegalArgumentException if no value of the field is rendered this way
+   */
+  public void writeRenderedKey(String value, GroupingKey.Builder key) {
+    switch (keyEncoding) {
+      case INTEGRAL:
+        if (isAmount) {
+          key.writeLong(parseAmount(value));
+        } else if (fieldType == char.class) {
+          Preconditions.checkArgument(value.length() == 1, "Not a character: %s", value);
+          key.writeLong(value.charAt(0));
+        } else {
+          key.writeLong(Long.parseLong(value));
+        }
+        break;
+      case FLOATING:
+        key.writeDouble(
+            fieldType == float.class ? Float.parseFloat(value) : Double.parseDouble(value));
+        break;
+      case BOOLEAN:
+        Preconditions.checkArgument(
+            value.equals("true") || value.equals("false"), "Not a boolean: %s", value);
+        key.writeBoolean(Boolean.parseBoolean(value));
+        break;
+      case ENUM:
+        key.writeEnum(parseEnum(value));
+        break;
+      default:
+        key.writeString(value);
+    }
+  }
+
+  private static long parseAmount(String value) {
+    try {
+      return FixedPoint.parse(value);
+    } catch (ArithmeticException e) {
+      throw new IllegalArgumentException("Not an amount: " + value, e);
+    }
+  }
+
+  private Enum<?> parseEnum(String value) {
+    if (value.equals("null")) {
+      return null;
+    }
+    for (Object constant : fieldType.getEnumConstants()) {
+      if (constant.toString().equals(value)) {
+        return (Enum<?>) constant;
+      }
+    }
+    throw new IllegalArgumentException("Not a constant of " + fieldType.getName() + ": " + value);
+  }
+
+  private static RuntimeException rethrow(Throwable t) {
+    if (t instanceof Error) {
+      throw (Error) t;
+    }
+    return t instanceof RuntimeException ? (RuntimeException) t : new RuntimeException(t);
+  }
+
+  /** How values of a field are written to a {@link GroupingKey}. */
+  private enum KeyEncoding {
+    INTEGRAL(long.class),
+    FLOATING(double.class),
+    BOOLEAN(boolean.class),
+    ENUM(null),
+    OBJECT(null);
+
+    private final Class<?> primitiveType;
+
+    KeyEncoding(Class<?> primitiveType) {
+      this.primitiveType = primitiveType;
+    }
+
+    static KeyEncoding of(Class<?> fieldType) {
+      if (fieldType == long.class
+          || fieldType == int.class
+          || fieldType == short.class
+          || fieldType == byte.class
+          || fieldType == char.class) {
+        return INTEGRAL;
+      } else if (fieldType == double.class || fieldType == float.class) {
+        return FLOATING;
+      } else if (fieldType == boolean.class) {
+        return BOOLEAN;
+      } else if (fieldType.isEnum()) {
+        return ENUM;
+      } else {
+        return OBJECT;
+      }
+    }
+  }
+}
@@ -36,9 +36,13 @@ public class FieldsExtractor {
     return (double) field.get(object);
   }
 
+  /** Returns a number as a decimal, converting {@link FixedPoint.Amount} fields from minor units. */
   public static BigDecimal getBigDecimalByName(String fieldName, Object object)
       throws NoSuchFieldException, IllegalAccessException {
     Field field = object.getClass().getField(fieldName);
+    if (field.getType() == long.class && field.isAnnotationPresent(FixedPoint.Amount.class)) {
+      return FixedPoint.toBigDecimal(field.getLong(object));
+    }
     return new BigDecimal(field.get(object).toString());
   }
 
@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules;
+
+import java.io.IOException;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.core.JsonGenerator;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.core.JsonParser;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.core.JsonToken;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.DeserializationContext;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.JsonDeserializer;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.JsonSerializer;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.SerializerProvider;
+
+/**
+ * Fixed-point arithmetic on {@code long} values in minor units of {@code 10^-SCALE}, used for
+ * monetary amounts, rule limits and all aggregates.
+ *
+ * <p>Decimals with more than {@link #SCALE} digits after the decimal point are rejected rather than
+ * rounded, only doubles are rounded half-even. All arithmetic detects overflows and fails with an
+ * {@link ArithmeticException} instead of wrapping around, which limits values to about +/-922
+ * trillion.
+ */
+public final class FixedPoint {
+
+  /** Number of decimal digits after the decimal point. */
+  public static final int SCALE = 4;
+
+  /** The value 1. */
+  public static final long ONE = 10_000L;
+
+  private FixedPoint() {}
+
+  /**
+   * Converts a decimal exactly.
+   *
+   * @throws ArithmeticException if the decimal has more than {@link #SCALE} significant digits
+   *     after the decimal point, or is out of range
+   */
+  public static long of(BigDecimal value) {
+    BigDecimal scaled;
+    try {
+      scaled = value.setScale(SCALE, RoundingMode.UNNECESSARY);
+    } catch (ArithmeticException e) {
+      throw new ArithmeticException(
+          "More than " + SCALE + " decimal places: " + value.toPlainString());
+    }
+    try {
+      return scaled.unscaledValue().longValueExact();
+    } catch (ArithmeticException e) {
+      throw new ArithmeticException("Fixed-point overflow: " + value.toPlainString());
+    }
+  }
+
+  public static long of(long value) {
+    try {
+      return Math.multiplyExact(value, ONE);
+    } catch (ArithmeticException e) {
+      throw new ArithmeticException("Fixed-point overflow: " + value);
+    }
+  }
+
+  public static long of(double value) {
+    double scaled = Math.rint(value * ONE);
+    if (Double.isNaN(scaled) || scaled >= 0x1p63 || scaled < -0x1p63) {
+      throw new ArithmeticException("Fixed-point overflow: " + value);
+    }
+    return (long) scaled;
+  }
+
+  public static long parse(String value) {
+    return of(new BigDecimal(value.trim()));
+  }
+
+  /** Converts back to a decimal with {@link #SCALE} digits after the decimal point. */
+  public static BigDecimal toBigDecimal(long value) {
+    return BigDecimal.valueOf(value, SCALE);
+  }
+
+  /**
+   * Converts back to a decimal without trailing zeros after the decimal point, e.g. {@code 22}
+   * rather than {@code 22.0000}, as amounts are written by producers.
+   */
+  public static BigDecimal toStrippedBigDecimal(long value) {
+    BigDecimal decimal = toBigDecimal(value).stripTrailingZeros();
+    return decimal.scale() < 0 ? decimal.setScale(0) : decimal;
+  }
+
+  /** Formats as a plain decimal with {@link #SCALE} digits after the decimal point. */
+  public static String toString(long value) {
+    return toBigDecimal(value).toPlainString();
+  }
+
+  public static long add(long a, long b) {
+    long result = a + b;
+    if (((a ^ result) & (b ^ result)) < 0) {
+      throw overflow(a, "+", b);
+    }
+    return result;
+  }
+
+  public static long subtract(long a, long b) {
+    long result = a - b;
+    if (((a ^ b) & (a ^ result)) < 0) {
+      throw overflow(a, "-", b);
+    }
+    return result;
+  }
+
+  /** Average of {@code count} values adding up to {@code sum}, rounded half-even. */
+  public static long average(long sum, long count) {
+    if (count == 0) {
+      return 0;
+    }
+    long quotient = sum / count;
+    long remainder = sum % count;
+    long twiceRemainder = Math.abs(remainder) * 2;
+    if (twiceRemainder > count || (twiceRemainder == count && (quotient & 1) != 0)) {
+      quotient += Long.signum(remainder);
+    }
+    return quotient;
+  }
+
+  private static ArithmeticException overflow(long a, String operator, long b) {
+    return new ArithmeticException(
+        "Fixed-point overflow: " + toString(a) + " " + operator + " " + toString(b));
+  }
+
+  /** Marks a {@code long} field which holds a fixed-point amount in minor units. */
+  @Retention(RetentionPolicy.RUNTIME)
+  @Target(ElementType.FIELD)
+  public @interface Amount {}
+
+  /** Writes a fixed-point amount as a JSON decimal number. */
+  public static class DecimalSerializer extends JsonSerializer<Long> {
+
+    @Override
+    public void serialize(Long value, JsonGenerator gen, SerializerProvider serializers)
+        throws IOException {
+      gen.writeNumber(toBigDecimal(value));
+    }
+  }
+
+  /** Reads a fixed-point amount from a JSON number or decimal string. */
+  public static class DecimalDeserializer extends JsonDeserializer<Long> {
+
+    @Override
+    public Long deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+      JsonToken token = p.getCurrentToken();
+      try {
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+          return of(p.getLongValue());
+        } else if (token == JsonToken.VALUE_NUMBER_FLOAT) {
+          return of(p.getDecimalValue());
+        }
+      } catch (ArithmeticException e) {
+        return (Long) ctxt.handleWeirdNumberValue(Long.class, p.getNumberValue(), e.getMessage());
+      }
+      if (token == JsonToken.VALUE_STRING) {
+        try {
+          return parse(p.getText());
+        } catch (NumberFormatException | ArithmeticException e) {
+          return (Long) ctxt.handleWeirdStringValue(Long.class, p.getText(), "not a decimal");
+        }
+      }
+      return (Long) ctxt.handleUnexpectedToken(Long.class, p);
+    }
+  }
+}
@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules;
+
+import com.ververica.field.dynamicrules.serialization.GroupingKeyTypeInfo;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.flink.api.common.typeinfo.TypeInfo;
+
+/**
+ * Compact binary key of the events grouped by a rule.
+ *
+ * <p>The key starts with the 64-bit id of its set of grouping fields, see {@link
+ * #keySetId(List)}, followed by their values encoded as primitives in the order of the sorted field
+ * names. Rules with the same set of grouping fields thus produce identical keys regardless of the
+ * order the fields are listed in, while rules with different sets of fields do not share keyed
+ * state, unless their ids collide, which is logged when the rules are registered, see {@link
+ * com.ververica.field.dynamicrules.windows.WindowRetention}. A human-readable rendering is
+ * produced from the event instead, see {@link RuleFieldAccessors#renderKey(Object)}.
+ */
+@TypeInfo(GroupingKeyTypeInfo.Factory.class)
+public final class GroupingKey {
+
+  private static final int KEY_SET_ID_BYTES = 8;
+
+  private final byte[] bytes;
+  private transient int hash;
+
+  public GroupingKey(byte[] bytes) {
+    this.bytes = bytes;
+  }
+
+  /** The encoded key; must not be modified. */
+  public byte[] getBytes() {
+    return bytes;
+  }
+
+  /** The id of the set of grouping fields the key starts with, see {@link #keySetId(List)}. */
+  public long getKeySetId() {
+    long id = 0;
+    for (int i = 0; i < KEY_SET_ID_BYTES; i++) {
+      id = (id << 8) | (bytes[i] & 0xFF);
+    }
+    return id;
+  }
+
+  /**
+   * Fingerprints the sorted names of a set of grouping fields. The id only depends on the names,
+   * so that keys in state and on the wire stay valid across restarts and rule changes.
+   */
+  public static long keySetId(List<String> fieldNames) {
+    // 64-bit FNV-1a over the length-prefixed names, followed by the MurmurHash3 finalizer.
+    long hash = 0xcbf29ce484222325L;
+    for (String fieldName : fieldNames) {
+      byte[] utf8 = fieldName.getBytes(StandardCharsets.UTF_8);
+      for (int shift = 24; shift >= 0; shift -= 8) {
+        hash = fnv1a(hash, utf8.length >>> shift);
+      }
+      for (byte b : utf8) {
+        hash = fnv1a(hash, b);
+      }
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    return hash ^ (hash >>> 33);
+  }
+
+  private static long fnv1a(long hash, int value) {
+    return (hash ^ (value & 0xFF)) * 0x100000001b3L;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return this == o || (o instanceof GroupingKey && Arrays.equals(bytes, ((GroupingKey) o).bytes));
+  }
+
+  @Override
+  public int hashCode() {
+    int h = hash;
+    if (h == 0) {
+      h = Arrays.hashCode(bytes);
+      hash = h;
+    }
+    return h;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("GroupingKey(");
+    for (byte b : bytes) {
+      sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return sb.append(")").toString();
+  }
+
+  /** Encodes the values of a key's grouping fields. */
+  public static class Builder {
+
+    private byte[] buffer = new byte[16];
+    private int length;
+
+    /** Starts a key with the id of its set of grouping fields, see {@link #keySetId(List)}. */
+    public Builder(long keySetId) {
+      for (int shift = 56; shift >= 0; shift -= 8) {
+        buffer[length++] = (byte) (keySetId >>> shift);
+      }
+    }
+
+    /** Writes a zig-zag encoded variable-length integer, so that small ids take few bytes. */
+    public Builder writeLong(long value) {
+      long zigZag = (value << 1) ^ (value >> 63);
+      ensureCapacity(10);
+      while ((zigZag & ~0x7FL) != 0) {
+        buffer[length++] = (byte) ((zigZag & 0x7F) | 0x80);
+        zigZag >>>= 7;
+      }
+      buffer[length++] = (byte) zigZag;
+      return this;
+    }
+
+    public Builder writeDouble(double value) {
+      long bits = Double.doubleToLongBits(value);
+      ensureCapacity(8);
+      for (int shift = 56; shift >= 0; shift -= 8) {
+        buffer[length++] = (byte) (bits >>> shift);
+      }
+      return this;
+    }
+
+    public Builder writeBoolean(boolean value) {
+      ensureCapacity(1);
+      buffer[length++] = (byte) (value ? 1 : 0);
+      return this;
+    }
+
+    /** Writes the enum's ordinal, or a marker for {@code null}. */
+    public Builder writeEnum(Enum<?> value) {
+      return writeLong(value == null ? -1 : value.ordinal());
+    }
+
+    /** Writes the value as a length-prefixed UTF-8 string, or a marker for {@code null}. */
+    public Builder writeString(String value) {
+      if (value == null) {
+        return writeLong(-1);
+      }
+      byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+      writeLong(utf8.length);
+      ensureCapacity(utf8.length);
+      System.arraycopy(utf8, 0, buffer, length, utf8.length);
+      length += utf8.length;
+      return this;
+    }
+
+    public GroupingKey build() {
+      return new GroupingKey(Arrays.copyOf(buffer, length));
+    }
+
+    private void ensureCapacity(int additionalBytes) {
+      if (length + additionalBytes > buffer.length) {
+        buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + additionalBytes));
+      }
+    }
+  }
+}
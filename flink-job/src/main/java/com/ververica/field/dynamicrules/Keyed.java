@@ -18,13 +18,16 @@
 
 package com.ververica.field.dynamicrules;
 
+import com.ververica.field.dynamicrules.serialization.KeyedTypeInfo;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.apache.flink.api.common.typeinfo.TypeInfo;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@TypeInfo(KeyedTypeInfo.Factory.class)
 public class Keyed<IN, KEY, ID> {
   private IN wrapped;
   private KEY key;
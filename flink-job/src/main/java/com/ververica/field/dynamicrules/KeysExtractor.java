@@ -47,6 +47,28 @@ public class KeysExtractor {
     return sb.toString();
   }
 
+  /**
+   * Extracts and concatenates field values with pre-resolved accessors, in the same format as
+   * {@link #getKey(List, Object)}.
+   *
+   * @param keyFields accessors of the key fields
+   * @param object target for values extraction
+   */
+  public static String getKey(FieldAccessor[] keyFields, Object object) {
+    StringBuilder sb = new StringBuilder();
+    sb.append("{");
+    for (int i = 0; i < keyFields.length; i++) {
+      if (i > 0) {
+        sb.append(";");
+      }
+      sb.append(keyFields[i].getFieldName());
+      sb.append("=");
+      sb.append(keyFields[i].get(object));
+    }
+    sb.append("}");
+    return sb.toString();
+  }
+
   private static void appendKeyValue(StringBuilder sb, Object object, String fieldName)
       throws IllegalAccessException, NoSuchFieldException {
     sb.append(fieldName);
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules;
+
+import lombok.Data;
+
+/**
+ * Mergeable histogram of latencies in milliseconds, in the style of HdrHistogram.
+ *
+ * <p>Values below {@code 2 * SUB_BUCKETS} are counted exactly; larger values fall into one of
+ * {@link #SUB_BUCKETS} linear buckets per power of two, which bounds the relative error of
+ * percentiles to {@code 1 / SUB_BUCKETS}, about 3%. Values are clamped to {@code [0, MAX_VALUE]};
+ * the maximum is tracked exactly.
+ *
+ * <p>Histograms are recorded per subtask and interval, starting at {@link #getIntervalStart()}, and
+ * merged downstream. Being a POJO, they are shipped without Kryo.
+ */
+@Data
+public class LatencyHistogram {
+
+  /** Number of buckets per power of two. */
+  public static final int SUB_BUCKETS = 32;
+
+  /** Largest value that is counted as it is, about 795 days. */
+  public static final long MAX_VALUE = (1L << 36) - 1;
+
+  private static final int SUB_BUCKET_BITS = Integer.numberOfTrailingZeros(SUB_BUCKETS);
+  private static final int BUCKETS = index(MAX_VALUE) + 1;
+
+  private long intervalStart;
+  private long totalCount;
+  private long max;
+  private long[] counts = new long[BUCKETS];
+
+  public LatencyHistogram() {}
+
+  public LatencyHistogram(long intervalStart) {
+    this.intervalStart = intervalStart;
+  }
+
+  private static int index(long value) {
+    if (value < 2 * SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+  }
+
+  /* The largest value counted in the bucket with the given index. */
+  private static long highestValue(int index) {
+    if (index < 2 * SUB_BUCKETS) {
+      return index;
+    }
+    int shift = (index >>> SUB_BUCKET_BITS) - 1;
+    long subBucket = index - ((long) shift << SUB_BUCKET_BITS);
+    return ((subBucket + 1) << shift) - 1;
+  }
+
+  public void record(long value) {
+    long clamped = Math.max(0, Math.min(value, MAX_VALUE));
+    counts[index(clamped)]++;
+    totalCount++;
+    max = Math.max(max, clamped);
+  }
+
+  /** Adds the counts of the other histogram to this one. */
+  public LatencyHistogram merge(LatencyHistogram other) {
+    if (isEmpty()) {
+      intervalStart = other.intervalStart;
+    } else if (!other.isEmpty()) {
+      intervalStart = Math.min(intervalStart, other.intervalStart);
+    }
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] += other.counts[i];
+    }
+    totalCount += other.totalCount;
+    max = Math.max(max, other.max);
+    return this;
+  }
+
+  public boolean isEmpty() {
+    return totalCount == 0;
+  }
+
+  /**
+   * Returns the value below or at which the given quantile of all values lies, as the largest value
+   * of its bucket but at most the maximum; 0 if the histogram is empty.
+   */
+  public long getValueAtQuantile(double quantile) {
+    long rank = Math.max(1, (long) Math.ceil(quantile * totalCount));
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return Math.min(highestValue(i), max);
+      }
+    }
+    return isEmpty() ? 0 : max;
+  }
+
+  public long getMin() {
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] > 0) {
+        return i < 2 * SUB_BUCKETS ? i : highestValue(i - 1) + 1;
+      }
+    }
+    return 0;
+  }
+
+  public double getMean() {
+    if (isEmpty()) {
+      return 0;
+    }
+    double sum = 0;
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] > 0) {
+        sum += (double) counts[i] * midValue(i);
+      }
+    }
+    return sum / totalCount;
+  }
+
+  public double getStdDev() {
+    if (totalCount < 2) {
+      return 0;
+    }
+    double mean = getMean();
+    double squares = 0;
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] > 0) {
+        double deviation = midValue(i) - mean;
+        squares += counts[i] * deviation * deviation;
+      }
+    }
+    return Math.sqrt(squares / (totalCount - 1));
+  }
+
+  private static double midValue(int index) {
+    long lowest = index < 2 * SUB_BUCKETS ? index : highestValue(index - 1) + 1;
+    return (lowest + highestValue(index)) / 2.0;
+  }
+
+  /** Renders count, p50, p95, p99 and max as a JSON object. */
+  public String toSummaryJson() {
+    return "{\"intervalStart\":"
+        + intervalStart
+        + ",\"count\":"
+        + totalCount
+        + ",\"p50\":"
+        + getValueAtQuantile(0.5)
+        + ",\"p95\":"
+        + getValueAtQuantile(0.95)
+        + ",\"p99\":"
+        + getValueAtQuantile(0.99)
+        + ",\"max\":"
+        + max
+        + "}";
+  }
+}
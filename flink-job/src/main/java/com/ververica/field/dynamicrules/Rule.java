@@ -18,17 +18,24 @@
 
 package com.ververica.field.dynamicrules;
 
+import com.ververica.field.dynamicrules.serialization.RuleTypeInfo;
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Objects;
+import lombok.AccessLevel;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.ToString;
 import org.apache.flink.api.common.time.Time;
+import org.apache.flink.api.common.typeinfo.TypeInfo;
 
 /** Rules representation. */
 @EqualsAndHashCode
 @ToString
 @Data
+@TypeInfo(RuleTypeInfo.Factory.class)
 public class Rule {
 
   private Integer ruleId;
@@ -42,29 +49,115 @@ public class Rule {
   private Integer windowMinutes;
   private ControlType controlType;
 
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  @ToString.Exclude
+  private transient RuleFieldAccessors fieldAccessors;
+
+  /* The limit as a fixed-point number, valid while fixedPointLimitOf is the current limit. */
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  @ToString.Exclude
+  private transient long fixedPointLimit;
+
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  @ToString.Exclude
+  private transient BigDecimal fixedPointLimitOf;
+
+  /* False if the limit cannot be represented as a fixed-point number. */
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  @ToString.Exclude
+  private transient boolean fixedPointLimitExact;
+
+  /**
+   * Returns accessors of this rule's fields in events of the given class, resolving them on first
+   * use.
+   */
+  public RuleFieldAccessors getFieldAccessors(Class<?> eventClass)
+      throws NoSuchFieldException, IllegalAccessException {
+    RuleFieldAccessors accessors = fieldAccessors;
+    if (accessors == null || !accessors.isFor(eventClass)) {
+      accessors = RuleFieldAccessors.compile(this, eventClass);
+      fieldAccessors = accessors;
+    }
+    return accessors;
+  }
+
   public Long getWindowMillis() {
     return Time.minutes(this.windowMinutes).toMilliseconds();
   }
 
+  /**
+   * Returns the version of this rule's definition, a hash of all its fields which changes whenever
+   * the rule is updated. Unlike {@link #hashCode()}, it is the same in every JVM, so that alerts
+   * can reference rules by id and version.
+   */
+  public int getVersion() {
+    int version = Objects.hashCode(ruleId);
+    version = 31 * version + hash(ruleState);
+    version = 31 * version + Objects.hashCode(groupingKeyNames);
+    version = 31 * version + Objects.hashCode(unique);
+    version = 31 * version + Objects.hashCode(aggregateFieldName);
+    version = 31 * version + hash(aggregatorFunctionType);
+    version = 31 * version + hash(limitOperatorType);
+    version = 31 * version + Objects.hashCode(limit);
+    version = 31 * version + Objects.hashCode(windowMinutes);
+    version = 31 * version + hash(controlType);
+    return version;
+  }
+
+  private static int hash(Enum<?> value) {
+    return value == null ? 0 : value.name().hashCode();
+  }
+
   /**
    * Evaluates this rule by comparing provided value with rules' limit based on limit operator type.
    *
    * @param comparisonValue value to be compared with the limit
    */
   public boolean apply(BigDecimal comparisonValue) {
+    return applyComparison(comparisonValue.compareTo(limit));
+  }
+
+  /**
+   * Evaluates this rule by comparing a {@link FixedPoint} value with the rule's limit, without
+   * allocating. Limits beyond the range or precision of fixed-point numbers are compared as
+   * decimals instead.
+   *
+   * @param comparisonValue fixed-point value to be compared with the limit
+   */
+  public boolean apply(long comparisonValue) {
+    if (fixedPointLimitOf != limit) {
+      try {
+        fixedPointLimit = FixedPoint.of(limit);
+        fixedPointLimitExact = true;
+      } catch (ArithmeticException e) {
+        fixedPointLimitExact = false;
+      }
+      fixedPointLimitOf = limit;
+    }
+    if (!fixedPointLimitExact) {
+      return apply(FixedPoint.toBigDecimal(comparisonValue));
+    }
+    return applyComparison(Long.compare(comparisonValue, fixedPointLimit));
+  }
+
+  private boolean applyComparison(int comparison) {
     switch (limitOperatorType) {
       case EQUAL:
-        return comparisonValue.compareTo(limit) == 0;
+        return comparison == 0;
       case NOT_EQUAL:
-        return comparisonValue.compareTo(limit) != 0;
+        return comparison != 0;
       case GREATER:
-        return comparisonValue.compareTo(limit) > 0;
+        return comparison > 0;
       case LESS:
-        return comparisonValue.compareTo(limit) < 0;
+        return comparison < 0;
       case LESS_EQUAL:
-        return comparisonValue.compareTo(limit) <= 0;
+        return comparison <= 0;
       case GREATER_EQUAL:
-        return comparisonValue.compareTo(limit) >= 0;
+        return comparison >= 0;
       default:
         throw new RuntimeException("Unknown limit operator type: " + limitOperatorType);
     }
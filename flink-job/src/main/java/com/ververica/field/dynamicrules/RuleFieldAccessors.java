@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Accessors of all fields a {@link Rule} reads from events of one class. They are resolved once
+ * when the rule is broadcast, so that extracting keys and aggregated values of an event does not
+ * involve any reflection.
+ */
+public final class RuleFieldAccessors {
+
+  private final Class<?> eventClass;
+  /* In the order the rule lists them, for rendering keys. */
+  private final FieldAccessor[] renderedKeyFields;
+  /* Sorted by field name, so that the order of the rule's grouping fields does not matter. */
+  private final FieldAccessor[] groupingKeyFields;
+  private final List<String> groupingKeyNames;
+  private final long keySetId;
+  /* Null for rules counting events instead of aggregating a field. */
+  private final String aggregateFieldName;
+  private final FieldAccessor aggregateField;
+  /* Set if the aggregate field does not exist in the event class. */
+  private final NoSuchFieldException missingAggregateField;
+
+  private RuleFieldAccessors(
+      Class<?> eventClass,
+      FieldAccessor[] renderedKeyFields,
+      String aggregateFieldName,
+      FieldAccessor aggregateField,
+      NoSuchFieldException missingAggregateField) {
+    this.eventClass = eventClass;
+    this.renderedKeyFields = renderedKeyFields;
+    this.groupingKeyFields = renderedKeyFields.clone();
+    Arrays.sort(groupingKeyFields, Comparator.comparing(FieldAccessor::getFieldName));
+    List<String> groupingKeyNames = new ArrayList<>(groupingKeyFields.length);
+    for (FieldAccessor field : groupingKeyFields) {
+      groupingKeyNames.add(field.getFieldName());
+    }
+    this.groupingKeyNames = Collections.unmodifiableList(groupingKeyNames);
+    this.keySetId = GroupingKey.keySetId(groupingKeyNames);
+    this.aggregateFieldName = aggregateFieldName;
+    this.aggregateField = aggregateField;
+    this.missingAggregateField = missingAggregateField;
+  }
+
+  static RuleFieldAccessors compile(Rule rule, Class<?> eventClass)
+      throws NoSuchFieldException, IllegalAccessException {
+    List<String> keyNames = rule.getGroupingKeyNames();
+    FieldAccessor[] keyFields = new FieldAccessor[keyNames == null ? 0 : keyNames.size()];
+    for (int i = 0; i < keyFields.length; i++) {
+      keyFields[i] = FieldAccessor.of(eventClass, keyNames.get(i));
+    }
+
+    String aggregateFieldName = rule.getAggregateFieldName();
+    if (RuleHelper.countsEvents(aggregateFieldName)) {
+      return new RuleFieldAccessors(eventClass, keyFields, null, null, null);
+    }
+    try {
+      return new RuleFieldAccessors(
+          eventClass,
+          keyFields,
+          aggregateFieldName,
+          FieldAccessor.of(eventClass, aggregateFieldName),
+          null);
+    } catch (NoSuchFieldException e) {
+      // Only the rule's evaluation needs the aggregate field, so fail there instead of on keying.
+      return new RuleFieldAccessors(eventClass, keyFields, aggregateFieldName, null, e);
+    }
+  }
+
+  /** Names of the rule's grouping fields, sorted so that equal key sets have equal lists. */
+  public List<String> getGroupingKeyNames() {
+    return groupingKeyNames;
+  }
+
+  /**
+   * The id of the rule's set of grouping fields, which all {@link GroupingKey}s of the rule start
+   * with, see {@link GroupingKey#keySetId(List)}.
+   */
+  public long getKeySetId() {
+    return keySetId;
+  }
+
+  public boolean isFor(Class<?> eventClass) {
+    return this.eventClass == eventClass;
+  }
+
+  /** Extracts the binary key of the rule's grouping fields. */
+  public GroupingKey getKey(Object event) {
+    GroupingKey.Builder key = new GroupingKey.Builder(keySetId);
+    for (FieldAccessor field : groupingKeyFields) {
+      field.writeKey(event, key);
+    }
+    return key.build();
+  }
+
+  /**
+   * Encodes a grouping key rendered by {@link #renderKey(Object)}, e.g. {@code
+   * "{paymentType=CSH;payeeId=1001}"}, into the binary key of the rule's grouping fields. The
+   * fields may be listed in any order, like the grouping fields of rules sharing the key.
+   *
+   * @return the key, or {@code null} if no event has a key of the rule rendered this way
+   */
+  public GroupingKey parseKey(String renderedKey) {
+    if (!renderedKey.startsWith("{") || !renderedKey.endsWith("}")) {
+      return null;
+    }
+    String body = renderedKey.substring(1, renderedKey.length() - 1);
+    String[] fields = body.isEmpty() ? new String[0] : body.split(";", -1);
+    if (fields.length != groupingKeyFields.length) {
+      return null;
+    }
+    Map<String, String> values = new HashMap<>();
+    for (String field : fields) {
+      int separator = field.indexOf('=');
+      if (separator < 0) {
+        return null;
+      }
+      values.put(field.substring(0, separator), field.substring(separator + 1));
+    }
+    GroupingKey.Builder key = new GroupingKey.Builder(keySetId);
+    for (FieldAccessor field : groupingKeyFields) {
+      String value = values.get(field.getFieldName());
+      if (value == null) {
+        return null;
+      }
+      try {
+        field.writeRenderedKey(value, key);
+      } catch (IllegalArgumentException e) {
+        return null;
+      }
+    }
+    return key.build();
+  }
+
+  /**
+   * Renders the rule's grouping key of the event in a human-readable form, with the fields in the
+   * order the rule lists them, see {@link KeysExtractor#getKey(FieldAccessor[], Object)}.
+   */
+  public String renderKey(Object event) {
+    return KeysExtractor.getKey(renderedKeyFields, event);
+  }
+
+  /** Name of the field the rule aggregates, or {@code null} if the rule counts events. */
+  public String getAggregateFieldName() {
+    return aggregateFieldName;
+  }
+
+  /** Returns the {@link FixedPoint} value the event contributes to the rule's aggregate. */
+  public long getAggregatedValue(Object event) throws NoSuchFieldException {
+    if (missingAggregateField != null) {
+      throw missingAggregateField;
+    }
+    return aggregateField == null ? FixedPoint.ONE : aggregateField.getFixedPoint(event);
+  }
+}
@@ -28,6 +28,18 @@ import org.apache.flink.api.common.accumulators.SimpleAccumulator;
 /* Collection of helper methods for Rules. */
 public class RuleHelper {
 
+  /* Aggregate field name of rules counting events instead of aggregating a field. */
+  public static final String COUNT = "COUNT_FLINK";
+  /* Same as COUNT, but all state of the key is cleared once the rule fires. */
+  public static final String COUNT_WITH_RESET = "COUNT_WITH_RESET_FLINK";
+
+  /* Whether rules of the given aggregate field name count events instead of aggregating one. */
+  public static boolean countsEvents(String aggregateFieldName) {
+    return aggregateFieldName == null
+        || COUNT.equals(aggregateFieldName)
+        || COUNT_WITH_RESET.equals(aggregateFieldName);
+  }
+
   /* Picks and returns a new accumulator, based on the Rule's aggregator function type. */
   public static SimpleAccumulator<BigDecimal> getAggregator(Rule rule) {
     switch (rule.getAggregatorFunctionType()) {
@@ -44,4 +56,10 @@ public class RuleHelper {
             "Unsupported aggregation function type: " + rule.getAggregatorFunctionType());
     }
   }
+
+  /* Returns the fixed-point value an event contributes to the Rule's aggregate. */
+  public static long getAggregatedValue(Rule rule, Object event)
+      throws NoSuchFieldException, IllegalAccessException {
+    return rule.getFieldAccessors(event.getClass()).getAggregatedValue(event);
+  }
 }
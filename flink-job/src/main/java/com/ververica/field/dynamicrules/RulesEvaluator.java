@@ -18,23 +18,45 @@
 
 package com.ververica.field.dynamicrules;
 
+import static com.ververica.field.config.Parameters.ALERT_SUPPRESSION;
 import static com.ververica.field.config.Parameters.CHECKPOINT_INTERVAL;
+import static com.ververica.field.config.Parameters.CLEANUP_GRANULARITY_MILLIS;
+import static com.ververica.field.config.Parameters.DEBUG_OUTPUT;
+import static com.ververica.field.config.Parameters.EVALUATION_MODE;
+import static com.ververica.field.config.Parameters.EVENT_BUCKET_MILLIS;
+import static com.ververica.field.config.Parameters.FAN_OUT;
+import static com.ververica.field.config.Parameters.LATENCY_INTERVAL_MILLIS;
 import static com.ververica.field.config.Parameters.LOCAL_EXECUTION;
 import static com.ververica.field.config.Parameters.MIN_PAUSE_BETWEEN_CHECKPOINTS;
 import static com.ververica.field.config.Parameters.OUT_OF_ORDERNESS;
+import static com.ververica.field.config.Parameters.PANE_LEVELS;
+import static com.ververica.field.config.Parameters.PANE_SIZE_MILLIS;
 import static com.ververica.field.config.Parameters.RULES_SOURCE;
 import static com.ververica.field.config.Parameters.SOURCE_PARALLELISM;
+import static com.ververica.field.config.Parameters.TRACES_SINK;
+import static com.ververica.field.config.Parameters.TRACE_KEYS;
+import static com.ververica.field.config.Parameters.TRACE_RULES;
+import static com.ververica.field.config.Parameters.TRACE_SAMPLE_RATE;
+import static com.ververica.field.config.Parameters.WINDOW_STORE;
 
 import com.ververica.field.config.Config;
-import com.ververica.field.dynamicrules.functions.AverageAggregate;
+import com.ververica.field.dynamicrules.functions.AlertSuppressionFunction;
 import com.ververica.field.dynamicrules.functions.DynamicAlertFunction;
 import com.ververica.field.dynamicrules.functions.DynamicKeyFunction;
+import com.ververica.field.dynamicrules.functions.EvaluationTraceSampler;
+import com.ververica.field.dynamicrules.functions.LatencyHistogramMerger;
+import com.ververica.field.dynamicrules.serialization.GroupingKeyTypeInfo;
 import com.ververica.field.dynamicrules.sinks.AlertsSink;
 import com.ververica.field.dynamicrules.sinks.CurrentRulesSink;
 import com.ververica.field.dynamicrules.sinks.LatencySink;
+import com.ververica.field.dynamicrules.sinks.TracesSink;
 import com.ververica.field.dynamicrules.sources.RulesSource;
 import com.ververica.field.dynamicrules.sources.TransactionsSource;
+import com.ververica.field.dynamicrules.windows.HierarchicalPaneWindowStore;
+import com.ververica.field.dynamicrules.windows.WindowStore;
+import com.ververica.field.dynamicrules.windows.WindowStoreFactory;
 import java.io.IOException;
+import java.math.BigDecimal;
 import java.util.concurrent.TimeUnit;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.flink.api.common.restartstrategy.RestartStrategies;
@@ -43,6 +65,7 @@ import org.apache.flink.api.common.typeinfo.BasicTypeInfo;
 import org.apache.flink.api.common.typeinfo.TypeInformation;
 import org.apache.flink.configuration.ConfigConstants;
 import org.apache.flink.configuration.Configuration;
+import org.apache.flink.runtime.state.StateBackend;
 import org.apache.flink.streaming.api.TimeCharacteristic;
 import org.apache.flink.streaming.api.datastream.BroadcastStream;
 import org.apache.flink.streaming.api.datastream.DataStream;
@@ -64,12 +87,28 @@ public class RulesEvaluator {
 
   public void run() throws Exception {
 
+    // Environment setup
+    StreamExecutionEnvironment env = createExecutionEnvironment();
+
+    buildPipeline(env);
+
+    env.execute("Fraud Detection Engine");
+  }
+
+  StreamExecutionEnvironment createExecutionEnvironment() throws IOException {
     RulesSource.Type rulesSourceType = getRulesSourceType();
 
     boolean isLocal = config.get(LOCAL_EXECUTION);
 
-    // Environment setup
-    StreamExecutionEnvironment env = configureStreamExecutionEnvironment(rulesSourceType, isLocal);
+    return configureStreamExecutionEnvironment(rulesSourceType, isLocal);
+  }
+
+  /**
+   * Sets up sources, rule evaluation and sinks in the given environment and returns the stream of
+   * alerts, which also carries the evaluation side outputs from {@link Descriptors}.
+   */
+  SingleOutputStreamOperator<Alert<Transaction, BigDecimal>> buildPipeline(
+      StreamExecutionEnvironment env) throws IOException {
 
     // Streams setup
     DataStream<Rule> rulesUpdateStream = getRulesUpdateStream(env);
@@ -78,61 +117,83 @@ public class RulesEvaluator {
     BroadcastStream<Rule> rulesStream = rulesUpdateStream.broadcast(Descriptors.rulesDescriptor);
 
     // Processing pipeline setup
-    DataStream<Alert> alerts =
+    SingleOutputStreamOperator<Alert<Transaction, BigDecimal>> alerts =
         transactions
             .connect(rulesStream)
-            .process(new DynamicKeyFunction())
+            .process(new DynamicKeyFunction(getFanOut()))
             .uid("DynamicKeyFunction")
             .name("Dynamic Partitioning Function")
-            .keyBy((keyed) -> keyed.getKey())
+            .keyBy((keyed) -> keyed.getKey(), GroupingKeyTypeInfo.INSTANCE)
             .connect(rulesStream)
-            .process(new DynamicAlertFunction())
+            .process(
+                new DynamicAlertFunction(
+                    getEvaluationMode(),
+                    getWindowStoreFactory(),
+                    config.get(CLEANUP_GRANULARITY_MILLIS),
+                    config.get(LATENCY_INTERVAL_MILLIS),
+                    getTraceSampler()))
             .uid("DynamicAlertFunction")
             .name("Dynamic Rule Evaluation Function");
 
-    DataStream<String> allRuleEvaluations =
-        ((SingleOutputStreamOperator<Alert>) alerts).getSideOutput(Descriptors.demoSinkTag);
-
-    DataStream<Long> latency =
-        ((SingleOutputStreamOperator<Alert>) alerts).getSideOutput(Descriptors.latencySinkTag);
+    DataStream<EvaluationTrace> evaluationTraces =
+        alerts.getSideOutput(Descriptors.evaluationTraceTag);
 
-    DataStream<Rule> currentRules =
-        ((SingleOutputStreamOperator<Alert>) alerts).getSideOutput(Descriptors.currentRulesSinkTag);
+    DataStream<LatencyHistogram> latency = alerts.getSideOutput(Descriptors.latencySinkTag);
 
-    alerts.print().name("Alert STDOUT Sink");
-    allRuleEvaluations.print().setParallelism(1).name("Rule Evaluation Sink");
+    DataStream<Rule> currentRules = alerts.getSideOutput(Descriptors.currentRulesSinkTag);
 
-    DataStream<String> alertsJson = AlertsSink.alertsStreamToJson(alerts);
     DataStream<String> currentRulesJson = CurrentRulesSink.rulesStreamToJson(currentRules);
 
-    currentRulesJson.print();
+    if (config.get(DEBUG_OUTPUT)) {
+      alerts.print().name("Alert STDOUT Sink");
+      currentRulesJson.print();
+    }
 
-    alertsJson
-        .addSink(AlertsSink.createAlertsSink(config))
-        .setParallelism(1)
-        .name("Alerts JSON Sink");
+    AlertsSink.addAlertsSink(suppressRepeatedAlerts(alerts), config);
     currentRulesJson.addSink(CurrentRulesSink.createRulesSink(config)).setParallelism(1);
+    evaluationTraces
+        .addSink(TracesSink.createTracesSink(config, env.getConfig()))
+        .name(getTracesSinkType().getName());
 
+    // Subtasks complete their interval histograms at each interval's end, and those of the same
+    // interval are merged by its start.
     DataStream<String> latencies =
         latency
-            .timeWindowAll(Time.seconds(10))
-            .aggregate(new AverageAggregate())
-            .map(String::valueOf);
+            .keyBy(LatencyHistogram::getIntervalStart, BasicTypeInfo.LONG_TYPE_INFO)
+            .process(new LatencyHistogramMerger(config.get(LATENCY_INTERVAL_MILLIS)))
+            .uid("LatencyHistogramMerger")
+            .name("Latency Percentiles");
     latencies.addSink(LatencySink.createLatencySink(config));
 
-    env.execute("Fraud Detection Engine");
+    return alerts;
+  }
+
+  /**
+   * Partitions alerts by rule and key to suppress repeated ones, if suppression windows are
+   * configured.
+   */
+  private DataStream<Alert<Transaction, BigDecimal>> suppressRepeatedAlerts(
+      DataStream<Alert<Transaction, BigDecimal>> alerts) {
+    String windows = config.get(ALERT_SUPPRESSION);
+    if (windows.isEmpty()) {
+      return alerts;
+    }
+    return alerts
+        .keyBy(AlertSuppressionFunction.keySelector(), AlertSuppressionFunction.KEY_TYPE)
+        .process(AlertSuppressionFunction.of(alerts.getType(), windows))
+        .uid("AlertSuppressionFunction")
+        .name("Alert Suppression");
   }
 
   private DataStream<Transaction> getTransactionsStream(StreamExecutionEnvironment env) {
     // Data stream setup
-    SourceFunction<String> transactionSource = TransactionsSource.createTransactionsSource(config);
+    SourceFunction<Transaction> transactionSource =
+        TransactionsSource.createTransactionsSource(config);
     int sourceParallelism = config.get(SOURCE_PARALLELISM);
-    DataStream<String> transactionsStringsStream =
+    DataStream<Transaction> transactionsStream =
         env.addSource(transactionSource)
             .name("Transactions Source")
             .setParallelism(sourceParallelism);
-    DataStream<Transaction> transactionsStream =
-        TransactionsSource.stringsStreamToTransactions(transactionsStringsStream);
     return transactionsStream.assignTimestampsAndWatermarks(
         new SimpleBoundedOutOfOrdernessTimestampExtractor<>(config.get(OUT_OF_ORDERNESS)));
   }
@@ -152,10 +213,47 @@ public class RulesEvaluator {
     return RulesSource.Type.valueOf(rulesSource.toUpperCase());
   }
 
+  private DynamicKeyFunction.FanOut getFanOut() {
+    String fanOut = config.get(FAN_OUT);
+    return DynamicKeyFunction.FanOut.valueOf(fanOut.toUpperCase());
+  }
+
+  DynamicAlertFunction.EvaluationMode getEvaluationMode() {
+    String evaluationMode = config.get(EVALUATION_MODE);
+    return DynamicAlertFunction.EvaluationMode.valueOf(evaluationMode.toUpperCase());
+  }
+
+  EvaluationTraceSampler getTraceSampler() {
+    return EvaluationTraceSampler.of(
+        config.get(TRACE_SAMPLE_RATE), config.get(TRACE_RULES), config.get(TRACE_KEYS));
+  }
+
+  private TracesSink.Type getTracesSinkType() {
+    String tracesSink = config.get(TRACES_SINK);
+    return TracesSink.Type.valueOf(tracesSink.toUpperCase());
+  }
+
+  WindowStoreFactory getWindowStoreFactory() {
+    String windowStore = config.get(WINDOW_STORE);
+    switch (WindowStore.Type.valueOf(windowStore.toUpperCase())) {
+      case ORDERED_EVENTS:
+        return WindowStoreFactory.orderedEvents(config.get(EVENT_BUCKET_MILLIS));
+      case PANES:
+        return WindowStoreFactory.panes(config.get(PANE_SIZE_MILLIS));
+      case HIERARCHICAL:
+        return WindowStoreFactory.hierarchicalPanes(
+            HierarchicalPaneWindowStore.parseLevels(config.get(PANE_LEVELS)));
+      case EVENTS:
+      default:
+        return WindowStoreFactory.events();
+    }
+  }
+
   private StreamExecutionEnvironment configureStreamExecutionEnvironment(
-      RulesSource.Type rulesSourceEnumType, boolean isLocal) {
+      RulesSource.Type rulesSourceEnumType, boolean isLocal) throws IOException {
     Configuration flinkConfig = new Configuration();
     flinkConfig.setBoolean(ConfigConstants.LOCAL_START_WEBSERVER, true);
+    StateBackends.configureLocalCluster(flinkConfig, config);
 
     StreamExecutionEnvironment env =
         isLocal
@@ -167,6 +265,12 @@ public class RulesEvaluator {
     env.getCheckpointConfig()
         .setMinPauseBetweenCheckpoints(config.get(MIN_PAUSE_BETWEEN_CHECKPOINTS));
 
+    StateBackend stateBackend = StateBackends.createStateBackend(config);
+    if (stateBackend != null) {
+      env.setStateBackend(stateBackend);
+    }
+    log.info(StateBackends.report(config, stateBackend, env.getCheckpointConfig(), isLocal));
+
     configureRestartStrategy(env, rulesSourceEnumType);
     return env;
   }
@@ -203,8 +307,10 @@ public class RulesEvaluator {
         new MapStateDescriptor<>(
             "rules", BasicTypeInfo.INT_TYPE_INFO, TypeInformation.of(Rule.class));
 
-    public static final OutputTag<String> demoSinkTag = new OutputTag<String>("demo-sink") {};
-    public static final OutputTag<Long> latencySinkTag = new OutputTag<Long>("latency-sink") {};
+    public static final OutputTag<EvaluationTrace> evaluationTraceTag =
+        new OutputTag<EvaluationTrace>("evaluation-traces") {};
+    public static final OutputTag<LatencyHistogram> latencySinkTag =
+        new OutputTag<LatencyHistogram>("latency-sink") {};
     public static final OutputTag<Rule> currentRulesSinkTag =
         new OutputTag<Rule>("current-rules-sink") {};
   }
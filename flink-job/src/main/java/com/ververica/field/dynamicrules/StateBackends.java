@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ververica.field.dynamicrules;
+
+import static com.ververica.field.config.Parameters.CHECKPOINT_DIR;
+import static com.ververica.field.config.Parameters.INCREMENTAL_CHECKPOINTS;
+import static com.ververica.field.config.Parameters.LOCAL_RECOVERY;
+import static com.ververica.field.config.Parameters.MANAGED_MEMORY_SIZE;
+import static com.ververica.field.config.Parameters.ROCKSDB_BLOCK_CACHE_SIZE;
+import static com.ververica.field.config.Parameters.ROCKSDB_OPTIONS;
+import static com.ververica.field.config.Parameters.ROCKSDB_WRITE_BUFFER_SIZE;
+import static com.ververica.field.config.Parameters.STATE_BACKEND;
+
+import com.ververica.field.config.Config;
+import java.io.IOException;
+import org.apache.flink.configuration.CheckpointingOptions;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.MemorySize;
+import org.apache.flink.configuration.TaskManagerOptions;
+import org.apache.flink.contrib.streaming.state.DefaultConfigurableOptionsFactory;
+import org.apache.flink.contrib.streaming.state.PredefinedOptions;
+import org.apache.flink.contrib.streaming.state.RocksDBStateBackend;
+import org.apache.flink.runtime.state.StateBackend;
+import org.apache.flink.runtime.state.filesystem.FsStateBackend;
+import org.apache.flink.runtime.state.memory.MemoryStateBackend;
+import org.apache.flink.streaming.api.environment.CheckpointConfig;
+
+/**
+ * Creates the state backend holding the rules and windows from the job parameters, so that backends
+ * can be switched and tuned without rebuilding the job.
+ */
+public class StateBackends {
+
+  /**
+   * Sets the cluster-wide options of a local execution. On a cluster, managed memory and local
+   * recovery are configured in its {@code flink-conf.yaml} instead.
+   */
+  public static void configureLocalCluster(Configuration flinkConfig, Config config) {
+    String managedMemorySize = config.get(MANAGED_MEMORY_SIZE);
+    if (!managedMemorySize.isEmpty()) {
+      flinkConfig.setString(
+          TaskManagerOptions.MANAGED_MEMORY_SIZE, MemorySize.parse(managedMemorySize).toString());
+    }
+    flinkConfig.setBoolean(CheckpointingOptions.LOCAL_RECOVERY, config.get(LOCAL_RECOVERY));
+  }
+
+  /**
+   * Creates the configured state backend, or returns {@code null} to keep the backend of the
+   * cluster's configuration.
+   */
+  public static StateBackend createStateBackend(Config config) throws IOException {
+    String checkpointDir = config.get(CHECKPOINT_DIR);
+    switch (getType(config)) {
+      case HEAP:
+        return new MemoryStateBackend();
+      case FILESYSTEM:
+        return new FsStateBackend(checkpointDir);
+      case ROCKSDB:
+        RocksDBStateBackend rocksDb =
+            new RocksDBStateBackend(checkpointDir, config.get(INCREMENTAL_CHECKPOINTS));
+        rocksDb.setPredefinedOptions(getPredefinedOptions(config));
+        DefaultConfigurableOptionsFactory options = new DefaultConfigurableOptionsFactory();
+        // Sizes are checked here rather than when RocksDB opens its first column family.
+        String blockCacheSize = config.get(ROCKSDB_BLOCK_CACHE_SIZE);
+        if (!blockCacheSize.isEmpty()) {
+          options.setBlockCacheSize(MemorySize.parse(blockCacheSize).toString());
+        }
+        String writeBufferSize = config.get(ROCKSDB_WRITE_BUFFER_SIZE);
+        if (!writeBufferSize.isEmpty()) {
+          options.setWriteBufferSize(MemorySize.parse(writeBufferSize).toString());
+        }
+        if (!options.getConfiguredOptions().isEmpty()) {
+          rocksDb.setOptions(options);
+        }
+        return rocksDb;
+      case DEFAULT:
+      default:
+        return null;
+    }
+  }
+
+  /** Describes the effective state and checkpoint settings, for logging them at startup. */
+  public static String report(
+      Config config,
+      StateBackend stateBackend,
+      CheckpointConfig checkpointConfig,
+      boolean isLocal) {
+    StringBuilder report = new StringBuilder("State backend settings:");
+    Type type = getType(config);
+    appendSetting(
+        report,
+        "state backend",
+        stateBackend == null
+            ? "from the cluster configuration (state.backend)"
+            : stateBackend.getClass().getSimpleName());
+    appendSetting(report, "checkpoint interval", checkpointConfig.getCheckpointInterval() + " ms");
+    appendSetting(
+        report,
+        "min pause between checkpoints",
+        checkpointConfig.getMinPauseBetweenCheckpoints() + " ms");
+    if (type == Type.FILESYSTEM || type == Type.ROCKSDB) {
+      appendSetting(report, "checkpoint directory", config.get(CHECKPOINT_DIR));
+    }
+    if (stateBackend instanceof RocksDBStateBackend) {
+      RocksDBStateBackend rocksDb = (RocksDBStateBackend) stateBackend;
+      appendSetting(report, "incremental checkpoints", rocksDb.isIncrementalCheckpointsEnabled());
+      appendSetting(report, "RocksDB predefined options", rocksDb.getPredefinedOptions());
+      appendSetting(
+          report, "RocksDB block cache size", orDefault(config.get(ROCKSDB_BLOCK_CACHE_SIZE)));
+      appendSetting(
+          report, "RocksDB write buffer size", orDefault(config.get(ROCKSDB_WRITE_BUFFER_SIZE)));
+    }
+    if (isLocal) {
+      appendSetting(report, "managed memory size", orDefault(config.get(MANAGED_MEMORY_SIZE)));
+      appendSetting(report, "local recovery", config.get(LOCAL_RECOVERY));
+    } else {
+      appendSetting(report, "managed memory size", "from the cluster configuration");
+      appendSetting(report, "local recovery", "from the cluster configuration");
+    }
+    return report.toString();
+  }
+
+  private static void appendSetting(StringBuilder report, String name, Object value) {
+    report.append(System.lineSeparator()).append("  ").append(name).append(": ").append(value);
+  }
+
+  private static String orDefault(String size) {
+    return size.isEmpty() ? "default" : MemorySize.parse(size).toString();
+  }
+
+  private static Type getType(Config config) {
+    return Type.valueOf(config.get(STATE_BACKEND).toUpperCase());
+  }
+
+  private static PredefinedOptions getPredefinedOptions(Config config) {
+    return PredefinedOptions.valueOf(config.get(ROCKSDB_OPTIONS).toUpperCase());
+  }
+
+  public enum Type {
+    /** Whatever the cluster configures. */
+    DEFAULT,
+    /** Working state on the heap, checkpoints in the JobManager's memory. */
+    HEAP,
+    /** Working state on the heap, checkpoints in a file system. */
+    FILESYSTEM,
+    /** Working state in embedded RocksDB instances, checkpoints in a file system. */
+    ROCKSDB
+  }
+}
@@ -18,7 +18,7 @@
 
 package com.ververica.field.dynamicrules;
 
-import java.math.BigDecimal;
+import com.ververica.field.dynamicrules.serialization.TransactionTypeInfo;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
@@ -30,17 +30,34 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.apache.flink.api.common.typeinfo.TypeInfo;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.annotation.JsonSerialize;
 
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@TypeInfo(TransactionTypeInfo.Factory.class)
 public class Transaction implements TimestampAssignable<Long> {
   public long transactionId;
   public long eventTime;
   public long payeeId;
   public long beneficiaryId;
-  public BigDecimal paymentAmount;
+
+  @FixedPoint.Amount
+  @JsonSerialize(using = FixedPoint.DecimalSerializer.class)
+  @JsonDeserialize(using = FixedPoint.DecimalDeserializer.class)
+  @ToString.Exclude
+  public long paymentAmount;
+
+  /* Prints the amount as a decimal instead of its fixed-point minor units. */
+  @ToString.Include(name = "paymentAmount")
+  private String paymentAmountToString() {
+    return FixedPoint.toStrippedBigDecimal(paymentAmount).toPlainString();
+  }
+
   public PaymentType paymentType;
   private Long ingestionTimestamp;
 
@@ -92,10 +109,11 @@ public class Transaction implements TimestampAssignable<Long> {
       transaction.payeeId = Long.parseLong(iter.next());
       transaction.beneficiaryId = Long.parseLong(iter.next());
       transaction.paymentType = PaymentType.fromString(iter.next());
-      transaction.paymentAmount = new BigDecimal(iter.next());
+      transaction.paymentAmount = FixedPoint.parse(iter.next());
       transaction.ingestionTimestamp = Long.parseLong(iter.next());
-    } catch (NumberFormatException nfe) {
-      throw new RuntimeException("Invalid record: " + line, nfe);
+    } catch (NumberFormatException | ArithmeticException e) {
+      // Amounts out of the fixed-point range or precision are as invalid as malformed numbers.
+      throw new RuntimeException("Invalid record: " + line, e);
     }
 
     return transaction;
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules.functions;
+
+import com.ververica.field.config.Durations;
+import com.ververica.field.dynamicrules.Alert;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeinfo.BasicTypeInfo;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.common.typeinfo.Types;
+import org.apache.flink.api.java.functions.KeySelector;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.streaming.api.functions.KeyedProcessFunction;
+import org.apache.flink.util.Collector;
+import org.apache.flink.util.Preconditions;
+
+/**
+ * Suppresses repeated alerts of the same rule and key, keyed by {@link #keySelector()}.
+ *
+ * <p>The first alert is emitted right away and opens a suppression window in event time. Alerts
+ * within the window are not emitted; at its end, a summary carrying the last of them and their
+ * {@link Alert#getSuppressedCount() count} is emitted instead, and the next window begins. Once a
+ * window passes without alerts, the next alert is emitted right away again. A rule which keeps
+ * firing for a key thus yields one alert per window instead of one per event.
+ *
+ * <p>Windows are configured per rule, with a default for all other rules; rules with a window of
+ * zero are not suppressed.
+ */
+public class AlertSuppressionFunction<Event, Value>
+    extends KeyedProcessFunction<
+        Tuple2<Integer, String>, Alert<Event, Value>, Alert<Event, Value>> {
+
+  private static final long serialVersionUID = 1L;
+
+  /** Type of the keys by rule id and alert key. */
+  public static final TypeInformation<Tuple2<Integer, String>> KEY_TYPE =
+      Types.TUPLE(Types.INT, Types.STRING);
+
+  private final TypeInformation<Alert<Event, Value>> alertType;
+  private final long defaultWindowMillis;
+  private final HashMap<Integer, Long> ruleWindowMillis;
+
+  private transient ValueState<Long> windowEndState;
+  private transient ValueState<Alert<Event, Value>> suppressedState;
+
+  private transient Counter alertsSuppressed;
+  private transient Counter summariesEmitted;
+
+  public AlertSuppressionFunction(
+      TypeInformation<Alert<Event, Value>> alertType,
+      long defaultWindowMillis,
+      Map<Integer, Long> ruleWindowMillis) {
+    this.alertType = alertType;
+    this.defaultWindowMillis = defaultWindowMillis;
+    this.ruleWindowMillis = new HashMap<>(ruleWindowMillis);
+  }
+
+  /**
+   * Creates a function with the given comma-separated suppression windows: a duration as parsed by
+   * {@link Durations#parseMillis(String)} sets the default, a rule id, a colon and a duration the
+   * window of that rule, e.g. {@code "10m,3:1h,5:0ms"}.
+   */
+  public static <Event, Value> AlertSuppressionFunction<Event, Value> of(
+      TypeInformation<Alert<Event, Value>> alertType, String windows) {
+    long defaultWindowMillis = 0;
+    Map<Integer, Long> ruleWindowMillis = new HashMap<>();
+    for (String window : windows.split(",")) {
+      String[] ruleAndWindow = window.split(":");
+      if (ruleAndWindow.length == 1) {
+        defaultWindowMillis = Durations.parseMillis(ruleAndWindow[0]);
+      } else if (ruleAndWindow.length == 2) {
+        ruleWindowMillis.put(
+            Integer.parseInt(ruleAndWindow[0].trim()), Durations.parseMillis(ruleAndWindow[1]));
+      } else {
+        throw new IllegalArgumentException("Invalid alert suppression window: " + window);
+      }
+    }
+    return new AlertSuppressionFunction<>(alertType, defaultWindowMillis, ruleWindowMillis);
+  }
+
+  @Override
+  public void open(Configuration parameters) {
+    windowEndState =
+        getRuntimeContext()
+            .getState(
+                new ValueStateDescriptor<>("suppressionWindowEnd", BasicTypeInfo.LONG_TYPE_INFO));
+    suppressedState =
+        getRuntimeContext().getState(new ValueStateDescriptor<>("suppressedAlert", alertType));
+    alertsSuppressed = getRuntimeContext().getMetricGroup().counter("alertsSuppressed");
+    summariesEmitted = getRuntimeContext().getMetricGroup().counter("alertSummariesEmitted");
+  }
+
+  @Override
+  public void processElement(
+      Alert<Event, Value> alert, Context ctx, Collector<Alert<Event, Value>> out) throws Exception {
+    long windowMillis = getWindowMillis(ctx.getCurrentKey().f0);
+    if (windowMillis <= 0) {
+      out.collect(alert);
+      return;
+    }
+    if (windowEndState.value() == null) {
+      // Suppression windows are in event time, so alerts must carry their event's timestamp.
+      Long timestamp =
+          Preconditions.checkNotNull(ctx.timestamp(), "Alerts to suppress need a timestamp");
+      out.collect(alert);
+      startWindow(timestamp + windowMillis, ctx);
+    } else {
+      Alert<Event, Value> previous = suppressedState.value();
+      alert.setSuppressedCount(previous == null ? 1 : previous.getSuppressedCount() + 1);
+      suppressedState.update(alert);
+      alertsSuppressed.inc();
+    }
+  }
+
+  @Override
+  public void onTimer(long timestamp, OnTimerContext ctx, Collector<Alert<Event, Value>> out)
+      throws Exception {
+    Alert<Event, Value> summary = suppressedState.value();
+    if (summary == null) {
+      windowEndState.clear();
+      return;
+    }
+    out.collect(summary);
+    summariesEmitted.inc();
+    suppressedState.clear();
+    long windowMillis = getWindowMillis(ctx.getCurrentKey().f0);
+    if (windowMillis > 0) {
+      startWindow(timestamp + windowMillis, ctx);
+    } else {
+      windowEndState.clear();
+    }
+  }
+
+  private void startWindow(long windowEnd, Context ctx) throws Exception {
+    windowEndState.update(windowEnd);
+    ctx.timerService().registerEventTimeTimer(windowEnd);
+  }
+
+  private long getWindowMillis(int ruleId) {
+    return ruleWindowMillis.getOrDefault(ruleId, defaultWindowMillis);
+  }
+
+  /** Keys alerts by rule id and alert key. */
+  public static <Event, Value>
+      KeySelector<Alert<Event, Value>, Tuple2<Integer, String>> keySelector() {
+    return new RuleAndKeySelector<>();
+  }
+
+  private static class RuleAndKeySelector<Event, Value>
+      implements KeySelector<Alert<Event, Value>, Tuple2<Integer, String>> {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public Tuple2<Integer, String> getKey(Alert<Event, Value> alert) {
+      return Tuple2.of(alert.getRuleId(), alert.getKey());
+    }
+  }
+}
@@ -1,48 +0,0 @@
-/*
- * Licensed to the Apache Software Foundation (ASF) under one
- * or more contributor license agreements.  See the NOTICE file
- * distributed with this work for additional information
- * regarding copyright ownership.  The ASF licenses this file
- * to you under the Apache License, Version 2.0 (the
- * "License"); you may not use this file except in compliance
- * with the License.  You may obtain a copy of the License at
- *
- *     http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-
-package com.ververica.field.dynamicrules.functions;
-
-import org.apache.flink.api.common.functions.AggregateFunction;
-import org.apache.flink.api.java.tuple.Tuple2;
-
-/**
- * The accumulator is used to keep a running sum and a count. The {@code getResult} method computes
- * the average.
- */
-public class AverageAggregate implements AggregateFunction<Long, Tuple2<Long, Long>, Double> {
-  @Override
-  public Tuple2<Long, Long> createAccumulator() {
-    return new Tuple2<>(0L, 0L);
-  }
-
-  @Override
-  public Tuple2<Long, Long> add(Long value, Tuple2<Long, Long> accumulator) {
-    return new Tuple2<>(accumulator.f0 + value, accumulator.f1 + 1L);
-  }
-
-  @Override
-  public Double getResult(Tuple2<Long, Long> accumulator) {
-    return ((double) accumulator.f0) / accumulator.f1;
-  }
-
-  @Override
-  public Tuple2<Long, Long> merge(Tuple2<Long, Long> a, Tuple2<Long, Long> b) {
-    return new Tuple2<>(a.f0 + b.f0, a.f1 + b.f1);
-  }
-}
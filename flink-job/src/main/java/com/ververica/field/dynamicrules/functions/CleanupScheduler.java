@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ververica.field.dynamicrules.functions;
+
+import com.ververica.field.dynamicrules.windows.WindowStore;
+import org.apache.flink.api.common.functions.RuntimeContext;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeinfo.BasicTypeInfo;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.streaming.api.TimerService;
+import org.apache.flink.util.Preconditions;
+
+/**
+ * Schedules the eviction of expired data from the window store of the current key.
+ *
+ * <p>Each key has at most one pending event-time timer, set for when the earliest data stored for
+ * the key leaves the retention horizon. Cleanup times are rounded up to a coarse granularity, so
+ * that data may outlive its retention by up to one granularity, but a key only needs a new timer
+ * once its pending one fired.
+ */
+public class CleanupScheduler {
+
+  private final long granularityMillis;
+
+  private final ValueState<Long> timerState;
+
+  private final Counter timersRegistered;
+  private final Counter entriesEvicted;
+
+  public CleanupScheduler(RuntimeContext runtimeContext, long granularityMillis) {
+    Preconditions.checkArgument(granularityMillis > 0, "Cleanup granularity must be positive");
+    this.granularityMillis = granularityMillis;
+    this.timerState =
+        runtimeContext.getState(
+            new ValueStateDescriptor<>("cleanupTimer", BasicTypeInfo.LONG_TYPE_INFO));
+    this.timersRegistered = runtimeContext.getMetricGroup().counter("cleanupTimersRegistered");
+    this.entriesEvicted = runtimeContext.getMetricGroup().counter("windowEntriesEvicted");
+  }
+
+  /**
+   * Makes sure that the data stored for the current key at the given timestamp is evicted once it
+   * is older than the given retention.
+   */
+  public void schedule(TimerService timerService, long timestamp, long retentionMillis)
+      throws Exception {
+    scheduleAt(timerService, getCleanupTime(timestamp, retentionMillis));
+  }
+
+  private void scheduleAt(TimerService timerService, long cleanupTime) throws Exception {
+    Long pendingTimer = timerState.value();
+    if (pendingTimer != null) {
+      if (pendingTimer <= cleanupTime) {
+        return;
+      }
+      // Out-of-order data, or the retention shrank.
+      timerService.deleteEventTimeTimer(pendingTimer);
+    }
+    timerService.registerEventTimeTimer(cleanupTime);
+    timerState.update(cleanupTime);
+    timersRegistered.inc();
+  }
+
+  /**
+   * Evicts everything older than the retention from the window store of the current key when a
+   * timer fires, and schedules the next cleanup for the data left.
+   *
+   * @return whether any data is left
+   */
+  public boolean onTimer(
+      TimerService timerService, long timestamp, long retentionMillis, WindowStore windowStore)
+      throws Exception {
+    clearFiredTimer(timestamp);
+    long earliestTimestamp = windowStore.evictBefore(timestamp - retentionMillis, entriesEvicted);
+    if (earliestTimestamp == Long.MAX_VALUE) {
+      return false;
+    }
+    // A timer at or before the fired one would fire again right away, for as long as the
+    // watermark stays, should the store keep data which expired by then.
+    scheduleAt(
+        timerService,
+        Math.max(
+            getCleanupTime(earliestTimestamp, retentionMillis), timestamp + granularityMillis));
+    return true;
+  }
+
+  /** Cancels the pending cleanup of the current key, after all its data was dropped. */
+  public void cancel(TimerService timerService) throws Exception {
+    Long pendingTimer = timerState.value();
+    if (pendingTimer != null) {
+      // Deleting the timer which is currently firing has no effect.
+      timerService.deleteEventTimeTimer(pendingTimer);
+      timerState.clear();
+    }
+  }
+
+  private void clearFiredTimer(long timestamp) throws Exception {
+    // Other timers may still fire, e.g. when restoring from before timers were coalesced.
+    Long pendingTimer = timerState.value();
+    if (pendingTimer != null && pendingTimer == timestamp) {
+      timerState.clear();
+    }
+  }
+
+  /** Rounds the first time at which the data is older than the retention up to the granularity. */
+  private long getCleanupTime(long timestamp, long retentionMillis) {
+    long expiry = timestamp + retentionMillis + 1;
+    return expiry + Math.floorMod(-expiry, granularityMillis);
+  }
+}
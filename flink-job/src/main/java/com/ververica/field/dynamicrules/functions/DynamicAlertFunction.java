@@ -18,32 +18,39 @@
 
 package com.ververica.field.dynamicrules.functions;
 
-import static com.ververica.field.dynamicrules.functions.ProcessingUtils.addToStateValuesSet;
 import static com.ververica.field.dynamicrules.functions.ProcessingUtils.handleRuleBroadcast;
 
 import com.ververica.field.dynamicrules.Alert;
-import com.ververica.field.dynamicrules.FieldsExtractor;
+import com.ververica.field.dynamicrules.EvaluationTrace;
+import com.ververica.field.dynamicrules.FixedPoint;
+import com.ververica.field.dynamicrules.GroupingKey;
 import com.ververica.field.dynamicrules.Keyed;
+import com.ververica.field.dynamicrules.LatencyHistogram;
 import com.ververica.field.dynamicrules.Rule;
 import com.ververica.field.dynamicrules.Rule.ControlType;
 import com.ververica.field.dynamicrules.Rule.RuleState;
+import com.ververica.field.dynamicrules.RuleFieldAccessors;
 import com.ververica.field.dynamicrules.RuleHelper;
 import com.ververica.field.dynamicrules.RulesEvaluator.Descriptors;
 import com.ververica.field.dynamicrules.Transaction;
+import com.ververica.field.dynamicrules.windows.PartialAggregate;
+import com.ververica.field.dynamicrules.windows.ReplayableWindowStore;
+import com.ververica.field.dynamicrules.windows.RunningAggregates;
+import com.ververica.field.dynamicrules.windows.SlidingWindowAggregate;
+import com.ververica.field.dynamicrules.windows.WindowRetention;
+import com.ververica.field.dynamicrules.windows.WindowStore;
+import com.ververica.field.dynamicrules.windows.WindowStoreFactory;
 import java.math.BigDecimal;
 import java.util.*;
 import java.util.Map.Entry;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.flink.api.common.accumulators.SimpleAccumulator;
 import org.apache.flink.api.common.state.BroadcastState;
-import org.apache.flink.api.common.state.MapState;
-import org.apache.flink.api.common.state.MapStateDescriptor;
-import org.apache.flink.api.common.typeinfo.BasicTypeInfo;
-import org.apache.flink.api.common.typeinfo.TypeHint;
-import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.common.state.ReadOnlyBroadcastState;
 import org.apache.flink.configuration.Configuration;
+import org.apache.flink.metrics.Counter;
 import org.apache.flink.metrics.Meter;
 import org.apache.flink.metrics.MeterView;
+import org.apache.flink.streaming.api.TimeDomain;
 import org.apache.flink.streaming.api.functions.co.KeyedBroadcastProcessFunction;
 import org.apache.flink.util.Collector;
 
@@ -51,27 +58,100 @@ import org.apache.flink.util.Collector;
 @Slf4j
 public class DynamicAlertFunction
     extends KeyedBroadcastProcessFunction<
-        String, Keyed<Transaction, String, Integer>, Rule, Alert> {
+        GroupingKey,
+        Keyed<Transaction, GroupingKey, List<Integer>>,
+        Rule,
+        Alert<Transaction, BigDecimal>> {
 
-  private static final String COUNT = "COUNT_FLINK";
-  private static final String COUNT_WITH_RESET = "COUNT_WITH_RESET_FLINK";
-
-  private static int WIDEST_RULE_KEY = Integer.MIN_VALUE;
   private static int CLEAR_STATE_COMMAND_KEY = Integer.MIN_VALUE + 1;
 
-  private transient MapState<Long, Set<Transaction>> windowState;
+  /** Default granularity of the cleanup timers of each key. */
+  public static final long DEFAULT_CLEANUP_GRANULARITY_MILLIS = 10_000;
+
+  /** Default interval of the latency histograms. */
+  public static final long DEFAULT_LATENCY_INTERVAL_MILLIS = 10_000;
+
+  private final EvaluationMode evaluationMode;
+  private final WindowStoreFactory windowStoreFactory;
+  private final long cleanupGranularityMillis;
+  private final long latencyIntervalMillis;
+  private final EvaluationTraceSampler traceSampler;
+
+  private transient WindowStore windowStore;
+  /* The window store if it supports running aggregates, null otherwise. */
+  private transient ReplayableWindowStore replayableWindowStore;
+  private transient CleanupScheduler cleanupScheduler;
+  private transient LatencyRecorder latencyRecorder;
+  private transient WindowRetention windowRetention;
+  /* False until the window store and retention learned about the rules, e.g. after a restore. */
+  private transient boolean rulesUpdated;
+  private transient RunningAggregates runningAggregates;
+  private transient Counter aggregateOverflows;
   private Meter alertMeter;
 
-  private MapStateDescriptor<Long, Set<Transaction>> windowStateDescriptor =
-      new MapStateDescriptor<>(
-          "windowState",
-          BasicTypeInfo.LONG_TYPE_INFO,
-          TypeInformation.of(new TypeHint<Set<Transaction>>() {}));
+  public DynamicAlertFunction() {
+    this(EvaluationMode.INCREMENTAL);
+  }
+
+  public DynamicAlertFunction(EvaluationMode evaluationMode) {
+    this(evaluationMode, WindowStoreFactory.events());
+  }
+
+  public DynamicAlertFunction(
+      EvaluationMode evaluationMode, WindowStoreFactory windowStoreFactory) {
+    this(evaluationMode, windowStoreFactory, DEFAULT_CLEANUP_GRANULARITY_MILLIS);
+  }
+
+  public DynamicAlertFunction(
+      EvaluationMode evaluationMode,
+      WindowStoreFactory windowStoreFactory,
+      long cleanupGranularityMillis) {
+    this(
+        evaluationMode,
+        windowStoreFactory,
+        cleanupGranularityMillis,
+        DEFAULT_LATENCY_INTERVAL_MILLIS);
+  }
+
+  public DynamicAlertFunction(
+      EvaluationMode evaluationMode,
+      WindowStoreFactory windowStoreFactory,
+      long cleanupGranularityMillis,
+      long latencyIntervalMillis) {
+    this(
+        evaluationMode,
+        windowStoreFactory,
+        cleanupGranularityMillis,
+        latencyIntervalMillis,
+        EvaluationTraceSampler.OFF);
+  }
+
+  public DynamicAlertFunction(
+      EvaluationMode evaluationMode,
+      WindowStoreFactory windowStoreFactory,
+      long cleanupGranularityMillis,
+      long latencyIntervalMillis,
+      EvaluationTraceSampler traceSampler) {
+    this.evaluationMode = evaluationMode;
+    this.windowStoreFactory = windowStoreFactory;
+    this.cleanupGranularityMillis = cleanupGranularityMillis;
+    this.latencyIntervalMillis = latencyIntervalMillis;
+    this.traceSampler = traceSampler;
+  }
 
   @Override
   public void open(Configuration parameters) {
 
-    windowState = getRuntimeContext().getMapState(windowStateDescriptor);
+    windowStore = windowStoreFactory.create(getRuntimeContext());
+    if (evaluationMode == EvaluationMode.INCREMENTAL
+        && windowStore instanceof ReplayableWindowStore) {
+      replayableWindowStore = (ReplayableWindowStore) windowStore;
+    }
+    cleanupScheduler = new CleanupScheduler(getRuntimeContext(), cleanupGranularityMillis);
+    latencyRecorder =
+        new LatencyRecorder(getRuntimeContext(), "eventLatency", latencyIntervalMillis);
+    runningAggregates = new RunningAggregates(getRuntimeContext());
+    aggregateOverflows = getRuntimeContext().getMetricGroup().counter("aggregateOverflows");
 
     alertMeter = new MeterView(60);
     getRuntimeContext().getMetricGroup().meter("alertsPerSecond", alertMeter);
@@ -79,72 +159,220 @@ public class DynamicAlertFunction
 
   @Override
   public void processElement(
-      Keyed<Transaction, String, Integer> value, ReadOnlyContext ctx, Collector<Alert> out)
+      Keyed<Transaction, GroupingKey, List<Integer>> value,
+      ReadOnlyContext ctx,
+      Collector<Alert<Transaction, BigDecimal>> out)
       throws Exception {
 
-    long currentEventTime = value.getWrapped().getEventTime();
+    long now = System.currentTimeMillis();
+    // In case the timer completing the previous interval is not through yet.
+    LatencyHistogram latencies = latencyRecorder.complete(now);
+    if (latencies != null) {
+      ctx.output(Descriptors.latencySinkTag, latencies);
+    }
+    if (latencyRecorder.record(now - value.getWrapped().getIngestionTimestamp(), now)) {
+      ctx.timerService().registerProcessingTimeTimer(latencyRecorder.getIntervalEnd());
+    }
 
-    addToStateValuesSet(windowState, currentEventTime, value.getWrapped());
+    ReadOnlyBroadcastState<Integer, Rule> rulesState =
+        ctx.getBroadcastState(Descriptors.rulesDescriptor);
+    if (!rulesUpdated) {
+      updateRules(rulesState.immutableEntries());
+    }
+    List<Rule> rules = new ArrayList<>(value.getId().size());
+    for (Integer ruleId : value.getId()) {
+      Rule rule = rulesState.get(ruleId);
+      if (noRuleAvailable(rule)) {
+        log.error("Rule with ID {} does not exist", ruleId);
+        continue;
+      }
+      rules.add(rule);
+    }
+    if (rules.isEmpty()) {
+      return;
+    }
 
-    long ingestionTime = value.getWrapped().getIngestionTimestamp();
-    ctx.output(Descriptors.latencySinkTag, System.currentTimeMillis() - ingestionTime);
+    Transaction event = value.getWrapped();
+    long retentionMillis = windowRetention.getRetentionMillis(ctx.getCurrentKey());
+    cleanupScheduler.schedule(
+        ctx.timerService(), event.getEventTime(), Math.max(retentionMillis, 0));
 
-    Rule rule = ctx.getBroadcastState(Descriptors.rulesDescriptor).get(value.getId());
+    List<Rule> activeRules = new ArrayList<>(rules.size());
+    for (Rule rule : rules) {
+      if (rule.getRuleState() == Rule.RuleState.ACTIVE) {
+        activeRules.add(rule);
+      }
+    }
 
-    if (noRuleAvailable(rule)) {
-      log.error("Rule with ID {} does not exist", value.getId());
+    try {
+      List<Rule> valueRules = windowStore.add(rules, event);
+      if (replayableWindowStore != null) {
+        runningAggregates.add(valueRules, event, windowStore.align(event.getEventTime()));
+      }
+    } catch (ArithmeticException e) {
+      // A value of the event itself is out of the fixed-point range, and cannot be stored.
+      aggregateOverflows.inc();
+      log.warn("Skipping transaction {}: {}", event.getTransactionId(), e.getMessage());
       return;
     }
+    if (activeRules.isEmpty()) {
+      return;
+    }
+    long[] aggregateResults = new long[activeRules.size()];
+    boolean[] hasResults = aggregate(activeRules, event, aggregateResults);
+    for (int i = 0; i < aggregateResults.length; i++) {
+      // Rules are not evaluated over windows without any values.
+      if (hasResults[i]) {
+        evaluateRule(activeRules.get(i), event, aggregateResults[i], ctx, out);
+      }
+    }
+  }
 
-    if (rule.getRuleState() == Rule.RuleState.ACTIVE) {
-      Long windowStartForEvent = rule.getWindowStartFor(currentEventTime);
+  private void evaluateRule(
+      Rule rule,
+      Transaction event,
+      long aggregateResult,
+      ReadOnlyContext ctx,
+      Collector<Alert<Transaction, BigDecimal>> out)
+      throws Exception {
+    boolean ruleResult = rule.apply(aggregateResult);
+    // Keys are only rendered for alerts and sampled traces.
+    String readableKey = null;
+    RuleFieldAccessors accessors = rule.getFieldAccessors(Transaction.class);
+    if (traceSampler.sample(rule.getRuleId(), accessors, ctx.getCurrentKey())) {
+      readableKey = accessors.renderKey(event);
+      ctx.output(
+          Descriptors.evaluationTraceTag,
+          new EvaluationTrace(
+              rule.getRuleId(),
+              readableKey,
+              event.getTransactionId(),
+              event.getEventTime(),
+              aggregateResult,
+              ruleResult));
+    }
 
-      long cleanupTime = (currentEventTime / 1000) * 1000;
-      ctx.timerService().registerEventTimeTimer(cleanupTime);
+    if (ruleResult) {
+      if (RuleHelper.COUNT_WITH_RESET.equals(rule.getAggregateFieldName())) {
+        evictAllStateElements();
+      }
+      alertMeter.markEvent();
+      if (readableKey == null) {
+        readableKey = accessors.renderKey(event);
+      }
+      out.collect(
+          new Alert<>(
+              rule.getRuleId(),
+              rule,
+              readableKey,
+              event,
+              FixedPoint.toStrippedBigDecimal(aggregateResult)));
+    }
+  }
 
-      SimpleAccumulator<BigDecimal> aggregator = RuleHelper.getAggregator(rule);
-      for (Long stateEventTime : windowState.keys()) {
-        if (isStateValueInWindow(stateEventTime, windowStartForEvent, currentEventTime)) {
-          aggregateValuesInState(stateEventTime, aggregator, rule);
+  /**
+   * Computes the aggregates of all given rules for the window ending at the event. Rules with a
+   * usable running aggregate are updated incrementally; all others are served by a single pass over
+   * the window store, regardless of their aggregate fields, functions and window lengths. Rules
+   * whose aggregate overflows are skipped, without affecting the others.
+   *
+   * @param results receives the aggregates, in the same order as the rules
+   * @return whether each rule has an aggregate, which it has not if its window holds no values or
+   *     the aggregate overflowed
+   */
+  private boolean[] aggregate(List<Rule> rules, Transaction event, long[] results)
+      throws Exception {
+    boolean[] hasResults = new boolean[rules.size()];
+    List<Rule> scannedRules = rules;
+    int[] scannedPositions = null;
+    if (replayableWindowStore != null) {
+      scannedRules = new ArrayList<>(rules.size());
+      scannedPositions = new int[rules.size()];
+      for (int i = 0; i < results.length; i++) {
+        Rule rule = rules.get(i);
+        if (SlidingWindowAggregate.supports(rule)) {
+          try {
+            if (aggregateIncrementally(rule, event, results, hasResults, i)) {
+              continue;
+            }
+          } catch (ArithmeticException e) {
+            // Rebuilt from the window store with the next event, since it may be half-updated.
+            runningAggregates.discard(rule.getRuleId());
+            skipOverflowingRule(rule, event, e);
+            continue;
+          }
         }
+        scannedPositions[scannedRules.size()] = i;
+        scannedRules.add(rule);
       }
-      BigDecimal aggregateResult = aggregator.getLocalValue();
-      boolean ruleResult = rule.apply(aggregateResult);
-
-      ctx.output(
-          Descriptors.demoSinkTag,
-          "Rule "
-              + rule.getRuleId()
-              + " | "
-              + value.getKey()
-              + " : "
-              + aggregateResult.toString()
-              + " -> "
-              + ruleResult);
-
-      if (ruleResult) {
-        if (COUNT_WITH_RESET.equals(rule.getAggregateFieldName())) {
-          evictAllStateElements();
+    }
+    if (!scannedRules.isEmpty()) {
+      PartialAggregate[] aggregates = windowStore.aggregate(scannedRules, event.getEventTime());
+      for (int i = 0; i < aggregates.length; i++) {
+        int position = scannedPositions == null ? i : scannedPositions[i];
+        if (!aggregates[i].isEmpty()) {
+          Rule rule = scannedRules.get(i);
+          try {
+            results[position] = aggregates[i].getResult(rule.getAggregatorFunctionType());
+            hasResults[position] = true;
+          } catch (ArithmeticException e) {
+            skipOverflowingRule(rule, event, e);
+          }
         }
-        alertMeter.markEvent();
-        out.collect(
-            new Alert<>(
-                rule.getRuleId(), rule, value.getKey(), value.getWrapped(), aggregateResult));
       }
     }
+    return hasResults;
+  }
+
+  private void skipOverflowingRule(Rule rule, Transaction event, ArithmeticException e) {
+    // Failing would restart the job into the same overflow, so the rule is not evaluated instead.
+    aggregateOverflows.inc();
+    log.warn(
+        "Skipping evaluation of rule {} for transaction {}: {}",
+        rule.getRuleId(),
+        event.getTransactionId(),
+        e.getMessage());
   }
 
   @Override
-  public void processBroadcastElement(Rule rule, Context ctx, Collector<Alert> out)
-      throws Exception {
+  public void processBroadcastElement(
+      Rule rule, Context ctx, Collector<Alert<Transaction, BigDecimal>> out) throws Exception {
     log.info("{}", rule);
     BroadcastState<Integer, Rule> broadcastState =
         ctx.getBroadcastState(Descriptors.rulesDescriptor);
-    handleRuleBroadcast(rule, broadcastState);
-    updateWidestWindowRule(rule, broadcastState);
+    if (!rulesUpdated) {
+      // Window stores decide what a rule change invalidates from the rules they know of.
+      updateRules(broadcastState.entries());
+    }
+    Rule previousRule =
+        rule.getRuleState() == RuleState.CONTROL ? null : broadcastState.get(rule.getRuleId());
+    if (!handleRuleBroadcast(rule, broadcastState)) {
+      return;
+    }
     if (rule.getRuleState() == RuleState.CONTROL) {
       handleControlCommand(rule, broadcastState, ctx);
+    } else {
+      Rule updatedRule = rule.getRuleState() == RuleState.DELETE ? null : rule;
+      windowStore.onRuleChange(previousRule, updatedRule, ctx);
+      // Rules are re-broadcast unchanged, which must not scan the aggregates of all keys.
+      if (RunningAggregates.invalidatedBy(previousRule, updatedRule)) {
+        runningAggregates.removeAll(ctx, rule.getRuleId());
+      }
     }
+    updateRules(broadcastState.entries());
+  }
+
+  private void updateRules(Iterable<Map.Entry<Integer, Rule>> rulesState) throws Exception {
+    List<Rule> rules = new ArrayList<>();
+    for (Map.Entry<Integer, Rule> entry : rulesState) {
+      // Skips the bookkeeping entry of the clear state command.
+      if (entry.getKey().equals(entry.getValue().getRuleId())) {
+        rules.add(entry.getValue());
+      }
+    }
+    windowStore.onRulesUpdate(rules);
+    windowRetention = WindowRetention.of(rules);
+    rulesUpdated = true;
   }
 
   private void handleControlCommand(
@@ -157,7 +385,8 @@ public class DynamicAlertFunction
         }
         break;
       case CLEAR_STATE_ALL:
-        ctx.applyToKeyedState(windowStateDescriptor, (key, state) -> state.clear());
+        windowStore.clearAll(ctx);
+        runningAggregates.clearAll(ctx);
         break;
       case CLEAR_STATE_ALL_STOP:
         rulesState.remove(CLEAR_STATE_COMMAND_KEY);
@@ -167,32 +396,46 @@ public class DynamicAlertFunction
         while (entriesIterator.hasNext()) {
           Entry<Integer, Rule> ruleEntry = entriesIterator.next();
           rulesState.remove(ruleEntry.getKey());
+          windowStore.onRuleChange(ruleEntry.getValue(), null, ctx);
           log.info("Removed Rule {}", ruleEntry.getValue());
         }
+        runningAggregates.clearAll(ctx);
         break;
     }
   }
 
-  private boolean isStateValueInWindow(
-      Long stateEventTime, Long windowStartForEvent, long currentEventTime) {
-    return stateEventTime >= windowStartForEvent && stateEventTime <= currentEventTime;
-  }
+  /**
+   * Evaluates the rule's aggregate from its running value for the current key, which already
+   * contains the event's values. Gives the same result as {@link WindowStore#aggregate}, but only
+   * touches the values leaving the window. Events arriving out of order are left to a scan of the
+   * window store, since the running value only covers the window ending at the latest event.
+   *
+   * @return whether the result, or its absence, was stored at the given position
+   */
+  private boolean aggregateIncrementally(
+      Rule rule, Transaction event, long[] results, boolean[] hasResults, int position)
+      throws Exception {
+    long currentEventTime = event.getEventTime();
+    long windowStartForEvent = rule.getWindowStartFor(currentEventTime);
+    long alignedEventTime = windowStore.align(currentEventTime);
+    long alignedWindowStart = windowStore.align(windowStartForEvent);
+    SlidingWindowAggregate aggregate = runningAggregates.get(rule.getRuleId());
+    if (aggregate == null || !aggregate.isFor(rule)) {
+      // The window store already contains the current event.
+      aggregate = runningAggregates.create(rule, alignedWindowStart, replayableWindowStore);
+    }
 
-  private void aggregateValuesInState(
-      Long stateEventTime, SimpleAccumulator<BigDecimal> aggregator, Rule rule) throws Exception {
-    Set<Transaction> inWindow = windowState.get(stateEventTime);
-    if (COUNT.equals(rule.getAggregateFieldName())
-        || COUNT_WITH_RESET.equals(rule.getAggregateFieldName())) {
-      for (Transaction event : inWindow) {
-        aggregator.add(BigDecimal.ONE);
-      }
-    } else {
-      for (Transaction event : inWindow) {
-        BigDecimal aggregatedValue =
-            FieldsExtractor.getBigDecimalByName(rule.getAggregateFieldName(), event);
-        aggregator.add(aggregatedValue);
+    boolean inOrder = alignedEventTime >= aggregate.getLatestTimestamp();
+    if (inOrder) {
+      aggregate.slideTo(
+          runningAggregates.getSeries(aggregate), alignedEventTime, alignedWindowStart);
+      if (!aggregate.isEmpty()) {
+        results[position] = aggregate.getResult();
+        hasResults[position] = true;
       }
     }
+    runningAggregates.put(rule.getRuleId(), aggregate);
+    return inOrder;
   }
 
   private boolean noRuleAvailable(Rule rule) {
@@ -204,53 +447,54 @@ public class DynamicAlertFunction
     return false;
   }
 
-  private void updateWidestWindowRule(Rule rule, BroadcastState<Integer, Rule> broadcastState)
-      throws Exception {
-    Rule widestWindowRule = broadcastState.get(WIDEST_RULE_KEY);
-    if (widestWindowRule != null && widestWindowRule.getRuleState() == Rule.RuleState.ACTIVE) {
-      if (widestWindowRule.getWindowMillis() < rule.getWindowMillis()) {
-        broadcastState.put(WIDEST_RULE_KEY, rule);
-      }
-    }
-  }
-
   @Override
-  public void onTimer(final long timestamp, final OnTimerContext ctx, final Collector<Alert> out)
+  public void onTimer(
+      final long timestamp,
+      final OnTimerContext ctx,
+      final Collector<Alert<Transaction, BigDecimal>> out)
       throws Exception {
-
-    Rule widestWindowRule = ctx.getBroadcastState(Descriptors.rulesDescriptor).get(WIDEST_RULE_KEY);
-
-    Optional<Long> cleanupEventTimeWindow =
-        Optional.ofNullable(widestWindowRule).map(Rule::getWindowMillis);
-    Optional<Long> cleanupEventTimeThreshold =
-        cleanupEventTimeWindow.map(window -> timestamp - window);
-
-    cleanupEventTimeThreshold.ifPresent(this::evictAgedElementsFromWindow);
-  }
-
-  private void evictAgedElementsFromWindow(Long threshold) {
-    try {
-      Iterator<Long> keys = windowState.keys().iterator();
-      while (keys.hasNext()) {
-        Long stateEventTime = keys.next();
-        if (stateEventTime < threshold) {
-          keys.remove();
-        }
+    if (ctx.timeDomain() == TimeDomain.PROCESSING_TIME) {
+      // Only latency intervals are completed in processing time, state is cleaned up in event time.
+      LatencyHistogram latencies = latencyRecorder.complete(timestamp);
+      if (latencies != null) {
+        ctx.output(Descriptors.latencySinkTag, latencies);
       }
-    } catch (Exception ex) {
-      throw new RuntimeException(ex);
+      return;
+    }
+    if (!rulesUpdated) {
+      updateRules(ctx.getBroadcastState(Descriptors.rulesDescriptor).immutableEntries());
+    }
+    long retentionMillis = windowRetention.getRetentionMillis(ctx.getCurrentKey());
+    if (retentionMillis < 0) {
+      // No active rule groups by this key's fields any more.
+      evictAllStateElements();
+      cleanupScheduler.cancel(ctx.timerService());
+    } else if (!cleanupScheduler.onTimer(
+        ctx.timerService(), timestamp, retentionMillis, windowStore)) {
+      // Also drops the running aggregates over the now empty windows.
+      evictAllStateElements();
+    } else if (replayableWindowStore != null) {
+      runningAggregates.evictBefore(windowStore.align(timestamp - retentionMillis));
     }
   }
 
   private void evictAllStateElements() {
     try {
-      Iterator<Long> keys = windowState.keys().iterator();
-      while (keys.hasNext()) {
-        keys.next();
-        keys.remove();
-      }
+      windowStore.clear();
+      runningAggregates.clear();
     } catch (Exception ex) {
       throw new RuntimeException(ex);
     }
   }
+
+  /** How rule aggregates are computed for each incoming event. */
+  public enum EvaluationMode {
+    /** Scan the key's window store on every event. */
+    RESCAN,
+    /**
+     * Maintain running aggregates per key and rule, if the window store is a {@link
+     * ReplayableWindowStore}; otherwise, rescan.
+     */
+    INCREMENTAL
+  }
 }
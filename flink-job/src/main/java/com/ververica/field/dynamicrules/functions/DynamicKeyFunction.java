@@ -20,19 +20,30 @@ package com.ververica.field.dynamicrules.functions;
 
 import static com.ververica.field.dynamicrules.functions.ProcessingUtils.handleRuleBroadcast;
 
+import com.ververica.field.dynamicrules.GroupingKey;
 import com.ververica.field.dynamicrules.Keyed;
-import com.ververica.field.dynamicrules.KeysExtractor;
 import com.ververica.field.dynamicrules.Rule;
 import com.ververica.field.dynamicrules.Rule.ControlType;
 import com.ververica.field.dynamicrules.Rule.RuleState;
+import com.ververica.field.dynamicrules.RuleFieldAccessors;
 import com.ververica.field.dynamicrules.RulesEvaluator.Descriptors;
 import com.ververica.field.dynamicrules.Transaction;
+import com.ververica.field.dynamicrules.serialization.GroupingKeyTypeInfo;
+import com.ververica.field.dynamicrules.serialization.KeyedTypeInfo;
+import com.ververica.field.dynamicrules.serialization.TransactionTypeInfo;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.flink.api.common.state.BroadcastState;
-import org.apache.flink.api.common.state.ReadOnlyBroadcastState;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.common.typeinfo.Types;
+import org.apache.flink.api.java.typeutils.ListTypeInfo;
+import org.apache.flink.api.java.typeutils.ResultTypeQueryable;
 import org.apache.flink.configuration.Configuration;
 import org.apache.flink.metrics.Gauge;
 import org.apache.flink.streaming.api.functions.co.BroadcastProcessFunction;
@@ -41,9 +52,22 @@ import org.apache.flink.util.Collector;
 /** Implements dynamic data partitioning based on a set of broadcasted rules. */
 @Slf4j
 public class DynamicKeyFunction
-    extends BroadcastProcessFunction<Transaction, Rule, Keyed<Transaction, String, Integer>> {
+    extends BroadcastProcessFunction<
+        Transaction, Rule, Keyed<Transaction, GroupingKey, List<Integer>>>
+    implements ResultTypeQueryable<Keyed<Transaction, GroupingKey, List<Integer>>> {
+
+  private final FanOut fanOut;
 
   private RuleCounterGauge ruleCounterGauge;
+  private transient ActiveRules activeRules;
+
+  public DynamicKeyFunction() {
+    this(FanOut.KEY_SET);
+  }
+
+  public DynamicKeyFunction(FanOut fanOut) {
+    this.fanOut = fanOut;
+  }
 
   @Override
   public void open(Configuration parameters) {
@@ -53,39 +77,42 @@ public class DynamicKeyFunction
 
   @Override
   public void processElement(
-      Transaction event, ReadOnlyContext ctx, Collector<Keyed<Transaction, String, Integer>> out)
-      throws Exception {
-    ReadOnlyBroadcastState<Integer, Rule> rulesState =
-        ctx.getBroadcastState(Descriptors.rulesDescriptor);
-    forkEventForEachGroupingKey(event, rulesState, out);
-  }
-
-  private void forkEventForEachGroupingKey(
       Transaction event,
-      ReadOnlyBroadcastState<Integer, Rule> rulesState,
-      Collector<Keyed<Transaction, String, Integer>> out)
+      ReadOnlyContext ctx,
+      Collector<Keyed<Transaction, GroupingKey, List<Integer>>> out)
       throws Exception {
-    int ruleCounter = 0;
-    for (Map.Entry<Integer, Rule> entry : rulesState.immutableEntries()) {
-      final Rule rule = entry.getValue();
-      out.collect(
-          new Keyed<>(
-              event, KeysExtractor.getKey(rule.getGroupingKeyNames(), event), rule.getRuleId()));
-      ruleCounter++;
+    if (activeRules == null) {
+      // The rules were restored from a checkpoint, without any broadcast element since.
+      updateActiveRules(ctx.getBroadcastState(Descriptors.rulesDescriptor).immutableEntries());
     }
-    ruleCounterGauge.setValue(ruleCounter);
+    activeRules.forkEvent(event, out);
   }
 
   @Override
   public void processBroadcastElement(
-      Rule rule, Context ctx, Collector<Keyed<Transaction, String, Integer>> out) throws Exception {
+      Rule rule, Context ctx, Collector<Keyed<Transaction, GroupingKey, List<Integer>>> out)
+      throws Exception {
     log.info("{}", rule);
     BroadcastState<Integer, Rule> broadcastState =
         ctx.getBroadcastState(Descriptors.rulesDescriptor);
-    handleRuleBroadcast(rule, broadcastState);
+    if (!handleRuleBroadcast(rule, broadcastState)) {
+      return;
+    }
     if (rule.getRuleState() == RuleState.CONTROL) {
       handleControlCommand(rule.getControlType(), broadcastState);
     }
+    updateActiveRules(broadcastState.entries());
+  }
+
+  @Override
+  public TypeInformation<Keyed<Transaction, GroupingKey, List<Integer>>> getProducedType() {
+    return new KeyedTypeInfo<>(
+        TransactionTypeInfo.INSTANCE, GroupingKeyTypeInfo.INSTANCE, new ListTypeInfo<>(Types.INT));
+  }
+
+  private void updateActiveRules(Iterable<Map.Entry<Integer, Rule>> rules) throws Exception {
+    activeRules = ActiveRules.compile(rules, fanOut, Transaction.class);
+    ruleCounterGauge.setValue(activeRules.getNumberOfRules());
   }
 
   private void handleControlCommand(
@@ -102,6 +129,72 @@ public class DynamicKeyFunction
     }
   }
 
+  /**
+   * Immutable snapshot of the active rules, compiled into one entry per emitted record: the
+   * accessors extracting the grouping key and the ids of the rules evaluated on it. Paused rules
+   * are left out, so that they cost nothing per event.
+   */
+  private static final class ActiveRules {
+    private final RuleFieldAccessors[] accessors;
+    /* Shared by all records emitted for the entry and never modified. */
+    private final List<Integer>[] ruleIds;
+    private final int numberOfRules;
+
+    private ActiveRules(
+        RuleFieldAccessors[] accessors, List<Integer>[] ruleIds, int numberOfRules) {
+      this.accessors = accessors;
+      this.ruleIds = ruleIds;
+      this.numberOfRules = numberOfRules;
+    }
+
+    @SuppressWarnings("unchecked")
+    static ActiveRules compile(
+        Iterable<Map.Entry<Integer, Rule>> rules, FanOut fanOut, Class<?> eventType)
+        throws ReflectiveOperationException {
+      List<Rule> activeRules = new ArrayList<>();
+      for (Map.Entry<Integer, Rule> entry : rules) {
+        if (entry.getValue().getRuleState() == RuleState.ACTIVE) {
+          activeRules.add(entry.getValue());
+        }
+      }
+      // Pane stores rely on records of an event reaching a key in the order of the rule ids.
+      activeRules.sort(Comparator.comparing(Rule::getRuleId));
+      Map<Object, RuleFieldAccessors> accessorsByGroup = new LinkedHashMap<>();
+      Map<Object, List<Integer>> ruleIdsByGroup = new LinkedHashMap<>();
+      int numberOfRules = 0;
+      for (Rule rule : activeRules) {
+        RuleFieldAccessors ruleAccessors = rule.getFieldAccessors(eventType);
+        Object group =
+            fanOut == FanOut.KEY_SET ? ruleAccessors.getGroupingKeyNames() : rule.getRuleId();
+        accessorsByGroup.putIfAbsent(group, ruleAccessors);
+        ruleIdsByGroup.computeIfAbsent(group, g -> new ArrayList<>()).add(rule.getRuleId());
+        numberOfRules++;
+      }
+      RuleFieldAccessors[] accessors = accessorsByGroup.values().toArray(new RuleFieldAccessors[0]);
+      List<Integer>[] ruleIds = ruleIdsByGroup.values().toArray(new List[0]);
+      return new ActiveRules(accessors, ruleIds, numberOfRules);
+    }
+
+    void forkEvent(
+        Transaction event, Collector<Keyed<Transaction, GroupingKey, List<Integer>>> out) {
+      for (int i = 0; i < accessors.length; i++) {
+        out.collect(new Keyed<>(event, accessors[i].getKey(event), ruleIds[i]));
+      }
+    }
+
+    int getNumberOfRules() {
+      return numberOfRules;
+    }
+  }
+
+  /** How events are forked to the rules evaluating them. */
+  public enum FanOut {
+    /** Emit one record per rule. */
+    RULE,
+    /** Emit one record per distinct set of grouping keys, carrying the ids of all its rules. */
+    KEY_SET
+  }
+
   private static class RuleCounterGauge implements Gauge<Integer> {
 
     private int value = 0;
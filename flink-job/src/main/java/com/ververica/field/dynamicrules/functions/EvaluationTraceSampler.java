@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules.functions;
+
+import com.ververica.field.dynamicrules.GroupingKey;
+import com.ververica.field.dynamicrules.RuleFieldAccessors;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Selects the rule evaluations to trace: every n-th evaluation of a subtask, optionally only of
+ * some rules and keys. Only evaluations of the selected rules and keys are counted for sampling.
+ * Keys are selected as rendered in alerts, but compared as {@link GroupingKey}s, which they are
+ * encoded into once per set of grouping fields, so that keys are only rendered for traces.
+ */
+public class EvaluationTraceSampler implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  /** Traces no evaluations at all. */
+  public static final EvaluationTraceSampler OFF = new EvaluationTraceSampler(0, null, null);
+
+  private final int sampleRate;
+  /* Null for all rules. */
+  private final Set<Integer> ruleIds;
+  /* Null for all keys. */
+  private final Set<String> keys;
+
+  private transient long evaluations;
+  /* The selected keys encoded for each set of grouping fields, by its id. */
+  private transient Map<Long, Set<GroupingKey>> encodedKeys;
+
+  public EvaluationTraceSampler(int sampleRate, Set<Integer> ruleIds, Set<String> keys) {
+    this.sampleRate = sampleRate;
+    this.ruleIds = ruleIds == null ? null : new HashSet<>(ruleIds);
+    this.keys = keys == null ? null : new HashSet<>(keys);
+  }
+
+  /**
+   * Creates a sampler of every n-th evaluation, 0 for none, of the given comma-separated rule ids
+   * and keys as rendered in alerts, e.g. {@code "{payeeId=1001}"}; empty for all rules or keys.
+   */
+  public static EvaluationTraceSampler of(int sampleRate, String ruleIds, String keys) {
+    return new EvaluationTraceSampler(
+        sampleRate,
+        ruleIds.trim().isEmpty()
+            ? null
+            : Arrays.stream(ruleIds.split(","))
+                .map(id -> Integer.valueOf(id.trim()))
+                .collect(Collectors.toSet()),
+        keys.trim().isEmpty()
+            ? null
+            : Arrays.stream(keys.split(",")).map(String::trim).collect(Collectors.toSet()));
+  }
+
+  public boolean isOff() {
+    return sampleRate <= 0;
+  }
+
+  /**
+   * Whether to trace this evaluation of the given rule for the key it is evaluated for.
+   *
+   * @param accessors the rule's field accessors, which encode the selected keys
+   */
+  public boolean sample(int ruleId, RuleFieldAccessors accessors, GroupingKey key) {
+    if (sampleRate <= 0 || (ruleIds != null && !ruleIds.contains(ruleId))) {
+      return false;
+    }
+    if (keys != null && !getEncodedKeys(accessors).contains(key)) {
+      return false;
+    }
+    return sampleRate == 1 || ++evaluations % sampleRate == 0;
+  }
+
+  private Set<GroupingKey> getEncodedKeys(RuleFieldAccessors accessors) {
+    if (encodedKeys == null) {
+      encodedKeys = new HashMap<>();
+    }
+    Set<GroupingKey> keySetKeys = encodedKeys.get(accessors.getKeySetId());
+    if (keySetKeys == null) {
+      keySetKeys = new HashSet<>();
+      for (String key : keys) {
+        GroupingKey encoded = accessors.parseKey(key);
+        if (encoded != null) {
+          keySetKeys.add(encoded);
+        }
+      }
+      encodedKeys.put(accessors.getKeySetId(), keySetKeys);
+    }
+    return keySetKeys;
+  }
+}
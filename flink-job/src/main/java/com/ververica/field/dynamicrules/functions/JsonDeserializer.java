@@ -42,7 +42,6 @@ public class JsonDeserializer<T> extends RichFlatMapFunction<String, T> {
 
   @Override
   public void flatMap(String value, Collector<T> out) throws Exception {
-    log.info("{}", value);
     try {
       T parsed = parser.fromString(value);
       out.collect(parsed);
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules.functions;
+
+import com.ververica.field.dynamicrules.LatencyHistogram;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.streaming.api.functions.KeyedProcessFunction;
+import org.apache.flink.util.Collector;
+import org.apache.flink.util.Preconditions;
+
+/**
+ * Merges the latency histograms of all subtasks, keyed by the start of their interval, into a
+ * summary of the percentiles.
+ *
+ * <p>Subtasks complete their intervals at the interval end, see {@link LatencyRecorder}. The merged
+ * histogram of an interval is emitted one more interval later, which leaves that much time for the
+ * histograms of all subtasks to arrive. Histograms arriving after that are counted as late and
+ * dropped.
+ */
+public class LatencyHistogramMerger extends KeyedProcessFunction<Long, LatencyHistogram, String> {
+
+  private static final long serialVersionUID = 1L;
+
+  private final long intervalMillis;
+
+  private transient ValueState<LatencyHistogram> mergedState;
+  private transient Counter lateHistograms;
+
+  public LatencyHistogramMerger(long intervalMillis) {
+    Preconditions.checkArgument(intervalMillis > 0, "Latency interval must be positive");
+    this.intervalMillis = intervalMillis;
+  }
+
+  @Override
+  public void open(Configuration parameters) {
+    mergedState =
+        getRuntimeContext()
+            .getState(
+                new ValueStateDescriptor<>(
+                    "mergedLatencies", TypeInformation.of(LatencyHistogram.class)));
+    lateHistograms = getRuntimeContext().getMetricGroup().counter("lateLatencyHistograms");
+  }
+
+  @Override
+  public void processElement(LatencyHistogram histogram, Context ctx, Collector<String> out)
+      throws Exception {
+    long emitTime = histogram.getIntervalStart() + 2 * intervalMillis;
+    if (ctx.timerService().currentProcessingTime() >= emitTime) {
+      lateHistograms.inc();
+      return;
+    }
+    LatencyHistogram merged = mergedState.value();
+    if (merged == null) {
+      merged = new LatencyHistogram(histogram.getIntervalStart());
+      ctx.timerService().registerProcessingTimeTimer(emitTime);
+    }
+    mergedState.update(merged.merge(histogram));
+  }
+
+  @Override
+  public void onTimer(long timestamp, OnTimerContext ctx, Collector<String> out) throws Exception {
+    LatencyHistogram merged = mergedState.value();
+    if (merged != null) {
+      out.collect(merged.toSummaryJson());
+      mergedState.clear();
+    }
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules.functions;
+
+import com.ververica.field.dynamicrules.LatencyHistogram;
+import org.apache.flink.api.common.functions.RuntimeContext;
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.util.Preconditions;
+
+/**
+ * Records latencies of a subtask into a {@link LatencyHistogram} per interval of processing time.
+ *
+ * <p>An interval starts with the first latency recorded in it, and is {@link #complete completed}
+ * by a processing-time timer at its {@link #getIntervalEnd() end}, so that its histogram is handed
+ * out right away even if the subtask becomes idle. Completed histograms are merged with those of
+ * the same interval of the other subtasks downstream. The last completed interval is also exposed
+ * as gauges of its count, percentiles and maximum.
+ */
+public class LatencyRecorder {
+
+  private final long intervalMillis;
+
+  private LatencyHistogram current;
+  private long intervalEnd;
+  private volatile LatencyHistogram lastInterval = new LatencyHistogram();
+
+  public LatencyRecorder(RuntimeContext runtimeContext, String metricName, long intervalMillis) {
+    Preconditions.checkArgument(intervalMillis > 0, "Latency interval must be positive");
+    this.intervalMillis = intervalMillis;
+    MetricGroup metrics = runtimeContext.getMetricGroup().addGroup(metricName);
+    metrics.gauge("count", (Gauge<Long>) () -> lastInterval.getTotalCount());
+    metrics.gauge("p50", (Gauge<Long>) () -> lastInterval.getValueAtQuantile(0.5));
+    metrics.gauge("p95", (Gauge<Long>) () -> lastInterval.getValueAtQuantile(0.95));
+    metrics.gauge("p99", (Gauge<Long>) () -> lastInterval.getValueAtQuantile(0.99));
+    metrics.gauge("max", (Gauge<Long>) () -> lastInterval.getMax());
+  }
+
+  /**
+   * Records a latency at the given processing time.
+   *
+   * @return {@code true} if the latency started a new interval, whose {@link #getIntervalEnd() end}
+   *     has to be scheduled to complete it
+   */
+  public boolean record(long latencyMillis, long now) {
+    boolean started = current == null;
+    if (started) {
+      long intervalStart = now - now % intervalMillis;
+      current = new LatencyHistogram(intervalStart);
+      intervalEnd = intervalStart + intervalMillis;
+    }
+    current.record(latencyMillis);
+    return started;
+  }
+
+  /** End of the current interval, exclusive. */
+  public long getIntervalEnd() {
+    return intervalEnd;
+  }
+
+  /**
+   * Completes the current interval if it ended by the given processing time.
+   *
+   * @return the histogram of the completed interval, null if no interval ended
+   */
+  public LatencyHistogram complete(long now) {
+    if (current == null || now < intervalEnd) {
+      return null;
+    }
+    LatencyHistogram completed = current;
+    current = null;
+    lastInterval = completed;
+    return completed;
+  }
+}
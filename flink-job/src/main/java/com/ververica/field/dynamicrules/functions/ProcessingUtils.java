@@ -19,38 +19,37 @@
 package com.ververica.field.dynamicrules.functions;
 
 import com.ververica.field.dynamicrules.Rule;
-import java.util.HashSet;
-import java.util.Set;
+import com.ververica.field.dynamicrules.Transaction;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.flink.api.common.state.BroadcastState;
-import org.apache.flink.api.common.state.MapState;
 
+@Slf4j
 class ProcessingUtils {
 
-  static void handleRuleBroadcast(Rule rule, BroadcastState<Integer, Rule> broadcastState)
+  /**
+   * Applies a broadcast rule to the broadcast state.
+   *
+   * @return whether the rule was applied, which it is not if it reads fields transactions lack
+   */
+  static boolean handleRuleBroadcast(Rule rule, BroadcastState<Integer, Rule> broadcastState)
       throws Exception {
     switch (rule.getRuleState()) {
       case ACTIVE:
       case PAUSE:
+        try {
+          // Resolve the rule's fields once here instead of for every event.
+          rule.getFieldAccessors(Transaction.class);
+        } catch (ReflectiveOperationException e) {
+          // Failing would restart the job into the same rule, so it is left out instead.
+          log.warn("Skipping rule {}: {}", rule.getRuleId(), e.toString());
+          return false;
+        }
         broadcastState.put(rule.getRuleId(), rule);
         break;
       case DELETE:
         broadcastState.remove(rule.getRuleId());
         break;
     }
-  }
-
-  static <K, V> Set<V> addToStateValuesSet(MapState<K, Set<V>> mapState, K key, V value)
-      throws Exception {
-
-    Set<V> valuesSet = mapState.get(key);
-
-    if (valuesSet != null) {
-      valuesSet.add(value);
-    } else {
-      valuesSet = new HashSet<>();
-      valuesSet.add(value);
-    }
-    mapState.put(key, valuesSet);
-    return valuesSet;
+    return true;
   }
 }
@@ -18,12 +18,11 @@
 
 package com.ververica.field.dynamicrules.functions;
 
+import com.ververica.field.dynamicrules.FixedPoint;
 import com.ververica.field.dynamicrules.Transaction;
 import com.ververica.field.dynamicrules.Transaction.PaymentType;
 import com.ververica.field.sources.BaseGenerator;
-import java.math.BigDecimal;
 import java.util.SplittableRandom;
-import java.util.concurrent.ThreadLocalRandom;
 
 public class TransactionsGenerator extends BaseGenerator<Transaction> {
 
@@ -42,10 +41,9 @@ public class TransactionsGenerator extends BaseGenerator<Transaction> {
     long transactionId = rnd.nextLong(Long.MAX_VALUE);
     long payeeId = rnd.nextLong(MAX_PAYEE_ID);
     long beneficiaryId = rnd.nextLong(MAX_BENEFICIARY_ID);
-    double paymentAmountDouble =
-        ThreadLocalRandom.current().nextDouble(MIN_PAYMENT_AMOUNT, MAX_PAYMENT_AMOUNT);
+    double paymentAmountDouble = rnd.nextDouble(MIN_PAYMENT_AMOUNT, MAX_PAYMENT_AMOUNT);
     paymentAmountDouble = Math.floor(paymentAmountDouble * 100) / 100;
-    BigDecimal paymentAmount = BigDecimal.valueOf(paymentAmountDouble);
+    long paymentAmount = FixedPoint.of(paymentAmountDouble);
 
     Transaction transaction =
         Transaction.builder()
@@ -0,0 +1,312 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules.serialization;
+
+import com.ververica.field.dynamicrules.Alert;
+import com.ververica.field.dynamicrules.FixedPoint;
+import com.ververica.field.dynamicrules.Rule;
+import com.ververica.field.dynamicrules.Transaction;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import org.apache.flink.api.common.serialization.SerializationSchema;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.core.JsonGenerator;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.core.SerializableString;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.core.io.SerializedString;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.flink.streaming.util.serialization.KeyedSerializationSchema;
+
+/**
+ * Writes {@link Alert}s as UTF-8 JSON straight into the bytes handed to the Kafka producer.
+ *
+ * <p>A single JSON generator and its buffer are reused for all alerts, and rules, transactions and
+ * fixed-point amounts are written field by field, so that neither an object mapper nor an
+ * intermediate string is involved. The only allocation per alert is the resulting byte array, which
+ * the producer keeps until the record is sent. Other events and values are written through an
+ * object mapper.
+ *
+ * <p>Violated rules are either embedded, as the object mapper would write them, or referenced by
+ * their id and {@link Rule#getVersion() version}, which keeps alerts small; rules can then be
+ * looked up from the current rules export.
+ */
+public class AlertSerializationSchema<Event, Value>
+    implements KeyedSerializationSchema<Alert<Event, Value>>,
+        SerializationSchema<Alert<Event, Value>> {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final SerializableString RULE_ID = new SerializedString("ruleId");
+  private static final SerializableString RULE_VERSION = new SerializedString("ruleVersion");
+  private static final SerializableString VIOLATED_RULE = new SerializedString("violatedRule");
+  private static final SerializableString KEY = new SerializedString("key");
+  private static final SerializableString TRIGGERING_EVENT =
+      new SerializedString("triggeringEvent");
+  private static final SerializableString TRIGGERING_VALUE =
+      new SerializedString("triggeringValue");
+  private static final SerializableString SUPPRESSED_COUNT =
+      new SerializedString("suppressedCount");
+
+  private static final SerializableString RULE_STATE = new SerializedString("ruleState");
+  private static final SerializableString GROUPING_KEY_NAMES =
+      new SerializedString("groupingKeyNames");
+  private static final SerializableString UNIQUE = new SerializedString("unique");
+  private static final SerializableString AGGREGATE_FIELD_NAME =
+      new SerializedString("aggregateFieldName");
+  private static final SerializableString AGGREGATOR_FUNCTION_TYPE =
+      new SerializedString("aggregatorFunctionType");
+  private static final SerializableString LIMIT_OPERATOR_TYPE =
+      new SerializedString("limitOperatorType");
+  private static final SerializableString LIMIT = new SerializedString("limit");
+  private static final SerializableString WINDOW_MINUTES = new SerializedString("windowMinutes");
+  private static final SerializableString CONTROL_TYPE = new SerializedString("controlType");
+  private static final SerializableString WINDOW_MILLIS = new SerializedString("windowMillis");
+  private static final SerializableString VERSION = new SerializedString("version");
+
+  private static final SerializableString TRANSACTION_ID = new SerializedString("transactionId");
+  private static final SerializableString EVENT_TIME = new SerializedString("eventTime");
+  private static final SerializableString PAYEE_ID = new SerializedString("payeeId");
+  private static final SerializableString BENEFICIARY_ID = new SerializedString("beneficiaryId");
+  private static final SerializableString PAYMENT_AMOUNT = new SerializedString("paymentAmount");
+  private static final SerializableString PAYMENT_TYPE = new SerializedString("paymentType");
+  private static final SerializableString INGESTION_TIMESTAMP =
+      new SerializedString("ingestionTimestamp");
+
+  private final boolean ruleReferences;
+
+  private transient ByteArrayOutputStream buffer;
+  private transient JsonGenerator generator;
+  /* Digits of fixed-point amounts, filled from the end. */
+  private transient char[] digits;
+
+  /** Creates a schema embedding violated rules in alerts. */
+  public AlertSerializationSchema() {
+    this(false);
+  }
+
+  /**
+   * Creates a schema either embedding violated rules in alerts or referencing them by id and
+   * version.
+   */
+  public AlertSerializationSchema(boolean ruleReferences) {
+    this.ruleReferences = ruleReferences;
+  }
+
+  @Override
+  public byte[] serializeKey(Alert<Event, Value> alert) {
+    return null;
+  }
+
+  @Override
+  public byte[] serializeValue(Alert<Event, Value> alert) {
+    return serialize(alert);
+  }
+
+  @Override
+  public String getTargetTopic(Alert<Event, Value> alert) {
+    return null;
+  }
+
+  @Override
+  public byte[] serialize(Alert<Event, Value> alert) {
+    try {
+      if (generator == null) {
+        open();
+      }
+      writeAlert(alert);
+      generator.flush();
+      return buffer.toByteArray();
+    } catch (IOException e) {
+      // the generator may be left in the middle of an object, start over with a new one
+      generator = null;
+      throw new RuntimeException("Failed serializing alert: " + alert, e);
+    } finally {
+      buffer.reset();
+    }
+  }
+
+  private void open() throws IOException {
+    if (buffer == null) {
+      buffer = new ByteArrayOutputStream(1024);
+      digits = new char[24];
+    }
+    generator = new ObjectMapper().getFactory().createGenerator(buffer);
+    // alerts are written one after another as root values, without separating whitespace
+    generator.setRootValueSeparator(null);
+  }
+
+  private void writeAlert(Alert<Event, Value> alert) throws IOException {
+    JsonGenerator gen = generator;
+    gen.writeStartObject();
+    gen.writeFieldName(RULE_ID);
+    writeInteger(alert.getRuleId());
+    Rule rule = alert.getViolatedRule();
+    if (ruleReferences) {
+      gen.writeFieldName(RULE_VERSION);
+      if (rule == null) {
+        gen.writeNull();
+      } else {
+        gen.writeNumber(rule.getVersion());
+      }
+    } else {
+      gen.writeFieldName(VIOLATED_RULE);
+      writeRule(rule);
+    }
+    gen.writeFieldName(KEY);
+    gen.writeString(alert.getKey());
+    gen.writeFieldName(TRIGGERING_EVENT);
+    Event event = alert.getTriggeringEvent();
+    if (event instanceof Transaction) {
+      writeTransaction((Transaction) event);
+    } else {
+      gen.writeObject(event);
+    }
+    gen.writeFieldName(TRIGGERING_VALUE);
+    Value value = alert.getTriggeringValue();
+    if (value instanceof BigDecimal) {
+      gen.writeNumber((BigDecimal) value);
+    } else {
+      gen.writeObject(value);
+    }
+    gen.writeFieldName(SUPPRESSED_COUNT);
+    writeInteger(alert.getSuppressedCount());
+    gen.writeEndObject();
+  }
+
+  private void writeRule(Rule rule) throws IOException {
+    JsonGenerator gen = generator;
+    if (rule == null) {
+      gen.writeNull();
+      return;
+    }
+    gen.writeStartObject();
+    gen.writeFieldName(RULE_ID);
+    writeInteger(rule.getRuleId());
+    gen.writeFieldName(RULE_STATE);
+    writeEnum(rule.getRuleState());
+    gen.writeFieldName(GROUPING_KEY_NAMES);
+    writeStrings(rule.getGroupingKeyNames());
+    gen.writeFieldName(UNIQUE);
+    writeStrings(rule.getUnique());
+    gen.writeFieldName(AGGREGATE_FIELD_NAME);
+    gen.writeString(rule.getAggregateFieldName());
+    gen.writeFieldName(AGGREGATOR_FUNCTION_TYPE);
+    writeEnum(rule.getAggregatorFunctionType());
+    gen.writeFieldName(LIMIT_OPERATOR_TYPE);
+    writeEnum(rule.getLimitOperatorType());
+    gen.writeFieldName(LIMIT);
+    if (rule.getLimit() == null) {
+      gen.writeNull();
+    } else {
+      gen.writeNumber(rule.getLimit());
+    }
+    gen.writeFieldName(WINDOW_MINUTES);
+    writeInteger(rule.getWindowMinutes());
+    gen.writeFieldName(CONTROL_TYPE);
+    writeEnum(rule.getControlType());
+    if (rule.getWindowMinutes() != null) {
+      gen.writeFieldName(WINDOW_MILLIS);
+      gen.writeNumber(rule.getWindowMillis());
+    }
+    gen.writeFieldName(VERSION);
+    gen.writeNumber(rule.getVersion());
+    gen.writeEndObject();
+  }
+
+  private void writeTransaction(Transaction transaction) throws IOException {
+    JsonGenerator gen = generator;
+    gen.writeStartObject();
+    gen.writeFieldName(TRANSACTION_ID);
+    gen.writeNumber(transaction.transactionId);
+    gen.writeFieldName(EVENT_TIME);
+    gen.writeNumber(transaction.eventTime);
+    gen.writeFieldName(PAYEE_ID);
+    gen.writeNumber(transaction.payeeId);
+    gen.writeFieldName(BENEFICIARY_ID);
+    gen.writeNumber(transaction.beneficiaryId);
+    gen.writeFieldName(PAYMENT_AMOUNT);
+    writeFixedPoint(transaction.paymentAmount);
+    gen.writeFieldName(PAYMENT_TYPE);
+    writeEnum(transaction.paymentType);
+    gen.writeFieldName(INGESTION_TIMESTAMP);
+    Long ingestionTimestamp = transaction.getIngestionTimestamp();
+    if (ingestionTimestamp == null) {
+      gen.writeNull();
+    } else {
+      gen.writeNumber(ingestionTimestamp);
+    }
+    gen.writeEndObject();
+  }
+
+  private void writeInteger(Integer value) throws IOException {
+    if (value == null) {
+      generator.writeNull();
+    } else {
+      generator.writeNumber(value);
+    }
+  }
+
+  private void writeEnum(Enum<?> value) throws IOException {
+    if (value == null) {
+      generator.writeNull();
+    } else {
+      generator.writeString(value.name());
+    }
+  }
+
+  private void writeStrings(List<String> values) throws IOException {
+    if (values == null) {
+      generator.writeNull();
+      return;
+    }
+    generator.writeStartArray();
+    for (int i = 0; i < values.size(); i++) {
+      generator.writeString(values.get(i));
+    }
+    generator.writeEndArray();
+  }
+
+  /**
+   * Writes a {@link FixedPoint} number as a plain decimal with {@link FixedPoint#SCALE} digits
+   * after the decimal point, as {@link FixedPoint#toBigDecimal(long)} would.
+   */
+  private void writeFixedPoint(long value) throws IOException {
+    if (value == Long.MIN_VALUE) {
+      generator.writeNumber(FixedPoint.toBigDecimal(value));
+      return;
+    }
+    char[] chars = digits;
+    int pos = chars.length;
+    long magnitude = Math.abs(value);
+    long fraction = magnitude % FixedPoint.ONE;
+    long integral = magnitude / FixedPoint.ONE;
+    for (int i = 0; i < FixedPoint.SCALE; i++) {
+      chars[--pos] = (char) ('0' + fraction % 10);
+      fraction /= 10;
+    }
+    chars[--pos] = '.';
+    do {
+      chars[--pos] = (char) ('0' + integral % 10);
+      integral /= 10;
+    } while (integral != 0);
+    if (value < 0) {
+      chars[--pos] = '-';
+    }
+    generator.writeRawValue(chars, pos, chars.length - pos);
+  }
+}
@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules.serialization;
+
+import com.ververica.field.dynamicrules.Alert;
+import com.ververica.field.dynamicrules.Rule;
+import java.io.IOException;
+import java.util.Objects;
+import org.apache.flink.api.common.typeutils.CompositeTypeSerializerSnapshot;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.TypeSerializerSnapshot;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.types.StringValue;
+
+/**
+ * Serializer of {@link Alert}s, writing a byte of flags marking the non-null fields, followed by
+ * these fields. The violated rule, the event and the value are written by their own serializers.
+ */
+public final class AlertSerializer<Event, Value> extends TypeSerializer<Alert<Event, Value>> {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final int RULE_ID = 1;
+  private static final int VIOLATED_RULE = 1 << 1;
+  private static final int KEY = 1 << 2;
+  private static final int TRIGGERING_EVENT = 1 << 3;
+  private static final int TRIGGERING_VALUE = 1 << 4;
+  private static final int SUPPRESSED_COUNT = 1 << 5;
+
+  private final TypeSerializer<Rule> ruleSerializer;
+  private final TypeSerializer<Event> eventSerializer;
+  private final TypeSerializer<Value> valueSerializer;
+
+  public AlertSerializer(
+      TypeSerializer<Rule> ruleSerializer,
+      TypeSerializer<Event> eventSerializer,
+      TypeSerializer<Value> valueSerializer) {
+    this.ruleSerializer = ruleSerializer;
+    this.eventSerializer = eventSerializer;
+    this.valueSerializer = valueSerializer;
+  }
+
+  @Override
+  public boolean isImmutableType() {
+    return false;
+  }
+
+  @Override
+  public TypeSerializer<Alert<Event, Value>> duplicate() {
+    TypeSerializer<Rule> rule = ruleSerializer.duplicate();
+    TypeSerializer<Event> event = eventSerializer.duplicate();
+    TypeSerializer<Value> value = valueSerializer.duplicate();
+    return rule == ruleSerializer && event == eventSerializer && value == valueSerializer
+        ? this
+        : new AlertSerializer<>(rule, event, value);
+  }
+
+  @Override
+  public Alert<Event, Value> createInstance() {
+    return new Alert<>();
+  }
+
+  @Override
+  public Alert<Event, Value> copy(Alert<Event, Value> from) {
+    return new Alert<>(
+        from.getRuleId(),
+        from.getViolatedRule() == null ? null : ruleSerializer.copy(from.getViolatedRule()),
+        from.getKey(),
+        from.getTriggeringEvent() == null ? null : eventSerializer.copy(from.getTriggeringEvent()),
+        from.getTriggeringValue() == null ? null : valueSerializer.copy(from.getTriggeringValue()),
+        from.getSuppressedCount());
+  }
+
+  @Override
+  public Alert<Event, Value> copy(Alert<Event, Value> from, Alert<Event, Value> reuse) {
+    return copy(from);
+  }
+
+  @Override
+  public int getLength() {
+    return -1;
+  }
+
+  @Override
+  public void serialize(Alert<Event, Value> record, DataOutputView target) throws IOException {
+    int fields =
+        (record.getRuleId() != null ? RULE_ID : 0)
+            | (record.getViolatedRule() != null ? VIOLATED_RULE : 0)
+            | (record.getKey() != null ? KEY : 0)
+            | (record.getTriggeringEvent() != null ? TRIGGERING_EVENT : 0)
+            | (record.getTriggeringValue() != null ? TRIGGERING_VALUE : 0)
+            | (record.getSuppressedCount() != null ? SUPPRESSED_COUNT : 0);
+    target.writeByte(fields);
+    if ((fields & RULE_ID) != 0) {
+      VarInts.writeInt(record.getRuleId(), target);
+    }
+    if ((fields & VIOLATED_RULE) != 0) {
+      ruleSerializer.serialize(record.getViolatedRule(), target);
+    }
+    if ((fields & KEY) != 0) {
+      StringValue.writeString(record.getKey(), target);
+    }
+    if ((fields & TRIGGERING_EVENT) != 0) {
+      eventSerializer.serialize(record.getTriggeringEvent(), target);
+    }
+    if ((fields & TRIGGERING_VALUE) != 0) {
+      valueSerializer.serialize(record.getTriggeringValue(), target);
+    }
+    if ((fields & SUPPRESSED_COUNT) != 0) {
+      VarInts.writeInt(record.getSuppressedCount(), target);
+    }
+  }
+
+  @Override
+  public Alert<Event, Value> deserialize(DataInputView source) throws IOException {
+    int fields = source.readByte();
+    Alert<Event, Value> alert = new Alert<>();
+    if ((fields & RULE_ID) != 0) {
+      alert.setRuleId(VarInts.readInt(source));
+    }
+    if ((fields & VIOLATED_RULE) != 0) {
+      alert.setViolatedRule(ruleSerializer.deserialize(source));
+    }
+    if ((fields & KEY) != 0) {
+      alert.setKey(StringValue.readString(source));
+    }
+    if ((fields & TRIGGERING_EVENT) != 0) {
+      alert.setTriggeringEvent(eventSerializer.deserialize(source));
+    }
+    if ((fields & TRIGGERING_VALUE) != 0) {
+      alert.setTriggeringValue(valueSerializer.deserialize(source));
+    }
+    if ((fields & SUPPRESSED_COUNT) != 0) {
+      alert.setSuppressedCount(VarInts.readInt(source));
+    }
+    return alert;
+  }
+
+  @Override
+  public Alert<Event, Value> deserialize(Alert<Event, Value> reuse, DataInputView source)
+      throws IOException {
+    return deserialize(source);
+  }
+
+  @Override
+  public void copy(DataInputView source, DataOutputView target) throws IOException {
+    int fields = source.readByte();
+    target.writeByte(fields);
+    if ((fields & RULE_ID) != 0) {
+      VarInts.copy(source, target);
+    }
+    if ((fields & VIOLATED_RULE) != 0) {
+      ruleSerializer.copy(source, target);
+    }
+    if ((fields & KEY) != 0) {
+      StringValue.copyString(source, target);
+    }
+    if ((fields & TRIGGERING_EVENT) != 0) {
+      eventSerializer.copy(source, target);
+    }
+    if ((fields & TRIGGERING_VALUE) != 0) {
+      valueSerializer.copy(source, target);
+    }
+    if ((fields & SUPPRESSED_COUNT) != 0) {
+      VarInts.copy(source, target);
+    }
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (!(obj instanceof AlertSerializer)) {
+      return false;
+    }
+    AlertSerializer<?, ?> other = (AlertSerializer<?, ?>) obj;
+    return ruleSerializer.equals(other.ruleSerializer)
+        && eventSerializer.equals(other.eventSerializer)
+        && valueSerializer.equals(other.valueSerializer);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(ruleSerializer, eventSerializer, valueSerializer);
+  }
+
+  @Override
+  public TypeSerializerSnapshot<Alert<Event, Value>> snapshotConfiguration() {
+    return new AlertSerializerSnapshot<>(this);
+  }
+
+  /** Serializer configuration snapshot, checking the compatibility of the nested serializers. */
+  public static final class AlertSerializerSnapshot<Event, Value>
+      extends CompositeTypeSerializerSnapshot<Alert<Event, Value>, AlertSerializer<Event, Value>> {
+
+    private static final int VERSION = 1;
+
+    @SuppressWarnings("unused")
+    public AlertSerializerSnapshot() {
+      super(AlertSerializer.class);
+    }
+
+    AlertSerializerSnapshot(AlertSerializer<Event, Value> serializer) {
+      super(serializer);
+    }
+
+    @Override
+    protected int getCurrentOuterSnapshotVersion() {
+      return VERSION;
+    }
+
+    @Override
+    protected TypeSerializer<?>[] getNestedSerializers(AlertSerializer<Event, Value> serializer) {
+      return new TypeSerializer<?>[] {
+        serializer.ruleSerializer, serializer.eventSerializer, serializer.valueSerializer
+      };
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected AlertSerializer<Event, Value> createOuterSerializerWithNestedSerializers(
+        TypeSerializer<?>[] nestedSerializers) {
+      return new AlertSerializer<>(
+          (TypeSerializer<Rule>) nestedSerializers[0],
+          (TypeSerializer<Event>) nestedSerializers[1],
+          (TypeSerializer<Value>) nestedSerializers[2]);
+    }
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules.serialization;
+
+import com.ververica.field.dynamicrules.Alert;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.typeinfo.TypeInfoFactory;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+
+/** Type information of {@link Alert}s, using the {@link AlertSerializer}. */
+public final class AlertTypeInfo<Event, Value> extends TypeInformation<Alert<Event, Value>> {
+
+  private static final long serialVersionUID = 1L;
+
+  private final TypeInformation<Event> eventType;
+  private final TypeInformation<Value> valueType;
+
+  public AlertTypeInfo(TypeInformation<Event> eventType, TypeInformation<Value> valueType) {
+    this.eventType = eventType;
+    this.valueType = valueType;
+  }
+
+  @Override
+  public boolean isBasicType() {
+    return false;
+  }
+
+  @Override
+  public boolean isTupleType() {
+    return false;
+  }
+
+  @Override
+  public int getArity() {
+    return 5;
+  }
+
+  @Override
+  public int getTotalFields() {
+    return 3 + eventType.getTotalFields() + valueType.getTotalFields();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Class<Alert<Event, Value>> getTypeClass() {
+    return (Class<Alert<Event, Value>>) (Class<?>) Alert.class;
+  }
+
+  @Override
+  public Map<String, TypeInformation<?>> getGenericParameters() {
+    Map<String, TypeInformation<?>> parameters = new HashMap<>();
+    parameters.put("Event", eventType);
+    parameters.put("Value", valueType);
+    return parameters;
+  }
+
+  @Override
+  public boolean isKeyType() {
+    return false;
+  }
+
+  @Override
+  public TypeSerializer<Alert<Event, Value>> createSerializer(ExecutionConfig config) {
+    return new AlertSerializer<>(
+        RuleSerializer.INSTANCE,
+        eventType.createSerializer(config),
+        valueType.createSerializer(config));
+  }
+
+  @Override
+  public String toString() {
+    return "Alert<" + eventType + ", " + valueType + ">";
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (!(obj instanceof AlertTypeInfo)) {
+      return false;
+    }
+    AlertTypeInfo<?, ?> other = (AlertTypeInfo<?, ?>) obj;
+    return other.canEqual(this)
+        && eventType.equals(other.eventType)
+        && valueType.equals(other.valueType);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(eventType, valueType);
+  }
+
+  @Override
+  public boolean canEqual(Object obj) {
+    return obj instanceof AlertTypeInfo;
+  }
+
+  /**
+   * Lets the type extraction create this type information from the extracted type arguments. Type
+   * arguments which could not be determined are serialized generically.
+   */
+  public static class Factory<Event, Value> extends TypeInfoFactory<Alert<Event, Value>> {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public TypeInformation<Alert<Event, Value>> createTypeInfo(
+        Type t, Map<String, TypeInformation<?>> genericParameters) {
+      return new AlertTypeInfo<>(
+          (TypeInformation<Event>) KeyedTypeInfo.genericParameter(genericParameters, "Event"),
+          (TypeInformation<Value>) KeyedTypeInfo.genericParameter(genericParameters, "Value"));
+    }
+  }
+}
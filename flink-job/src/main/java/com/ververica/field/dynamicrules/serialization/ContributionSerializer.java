@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules.serialization;
+
+import com.ververica.field.dynamicrules.windows.Contribution;
+import java.io.IOException;
+import org.apache.flink.api.common.typeutils.TypeSerializerSnapshot;
+import org.apache.flink.api.common.typeutils.base.TypeSerializerSingleton;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+
+/**
+ * Serializer of {@link Contribution}s, writing the timestamp, value and count followed by the
+ * timestamps of the previous and next contribution, all as variable-length integers.
+ */
+public final class ContributionSerializer extends TypeSerializerSingleton<Contribution> {
+
+  private static final long serialVersionUID = 1L;
+
+  public static final ContributionSerializer INSTANCE = new ContributionSerializer();
+
+  private static final int FORMAT_VERSION = 1;
+
+  @Override
+  public boolean isImmutableType() {
+    return false;
+  }
+
+  @Override
+  public Contribution createInstance() {
+    return new Contribution();
+  }
+
+  @Override
+  public Contribution copy(Contribution from) {
+    return new Contribution(
+        from.getTimestamp(), from.getValue(), from.getCount(), from.getPrevious(), from.getNext());
+  }
+
+  @Override
+  public Contribution copy(Contribution from, Contribution reuse) {
+    return copy(from);
+  }
+
+  @Override
+  public int getLength() {
+    return -1;
+  }
+
+  @Override
+  public void serialize(Contribution record, DataOutputView target) throws IOException {
+    VarInts.writeLong(record.getTimestamp(), target);
+    VarInts.writeLong(record.getValue(), target);
+    VarInts.writeLong(record.getCount(), target);
+    VarInts.writeLong(record.getPrevious(), target);
+    VarInts.writeLong(record.getNext(), target);
+  }
+
+  @Override
+  public Contribution deserialize(DataInputView source) throws IOException {
+    return new Contribution(
+        VarInts.readLong(source),
+        VarInts.readLong(source),
+        VarInts.readLong(source),
+        VarInts.readLong(source),
+        VarInts.readLong(source));
+  }
+
+  @Override
+  public Contribution deserialize(Contribution reuse, DataInputView source) throws IOException {
+    return deserialize(source);
+  }
+
+  @Override
+  public void copy(DataInputView source, DataOutputView target) throws IOException {
+    for (int i = 0; i < 5; i++) {
+      VarInts.copy(source, target);
+    }
+  }
+
+  @Override
+  public TypeSerializerSnapshot<Contribution> snapshotConfiguration() {
+    return new ContributionSerializerSnapshot();
+  }
+
+  /** Serializer configuration snapshot for compatibility and format evolution. */
+  public static final class ContributionSerializerSnapshot
+      extends VersionedSerializerSnapshot<Contribution> {
+
+    public ContributionSerializerSnapshot() {
+      super(() -> INSTANCE, FORMAT_VERSION);
+    }
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules.serialization;
+
+import com.ververica.field.dynamicrules.GroupingKey;
+import java.io.IOException;
+import org.apache.flink.api.common.typeutils.TypeSerializerSnapshot;
+import org.apache.flink.api.common.typeutils.base.TypeSerializerSingleton;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+
+/**
+ * Serializer writing a {@link GroupingKey} as its length followed by its encoded bytes. Keys are
+ * short, so their length is written as a variable-length integer.
+ */
+public final class GroupingKeySerializer extends TypeSerializerSingleton<GroupingKey> {
+
+  private static final long serialVersionUID = 1L;
+
+  public static final GroupingKeySerializer INSTANCE = new GroupingKeySerializer();
+
+  private static final int FORMAT_VERSION = 1;
+
+  private static final GroupingKey EMPTY = new GroupingKey(new byte[0]);
+
+  @Override
+  public boolean isImmutableType() {
+    return true;
+  }
+
+  @Override
+  public GroupingKey createInstance() {
+    return EMPTY;
+  }
+
+  @Override
+  public GroupingKey copy(GroupingKey from) {
+    return from;
+  }
+
+  @Override
+  public GroupingKey copy(GroupingKey from, GroupingKey reuse) {
+    return from;
+  }
+
+  @Override
+  public int getLength() {
+    return -1;
+  }
+
+  @Override
+  public void serialize(GroupingKey record, DataOutputView target) throws IOException {
+    byte[] bytes = record.getBytes();
+    VarInts.writeUnsignedInt(bytes.length, target);
+    target.write(bytes);
+  }
+
+  @Override
+  public GroupingKey deserialize(DataInputView source) throws IOException {
+    byte[] bytes = new byte[VarInts.readUnsignedInt(source)];
+    source.readFully(bytes);
+    return new GroupingKey(bytes);
+  }
+
+  @Override
+  public GroupingKey deserialize(GroupingKey reuse, DataInputView source) throws IOException {
+    return deserialize(source);
+  }
+
+  @Override
+  public void copy(DataInputView source, DataOutputView target) throws IOException {
+    int length = VarInts.readUnsignedInt(source);
+    VarInts.writeUnsignedInt(length, target);
+    target.write(source, length);
+  }
+
+  @Override
+  public TypeSerializerSnapshot<GroupingKey> snapshotConfiguration() {
+    return new GroupingKeySerializerSnapshot();
+  }
+
+  /** Serializer configuration snapshot for compatibility and format evolution. */
+  public static final class GroupingKeySerializerSnapshot
+      extends VersionedSerializerSnapshot<GroupingKey> {
+
+    public GroupingKeySerializerSnapshot() {
+      super(() -> INSTANCE, FORMAT_VERSION);
+    }
+  }
+}
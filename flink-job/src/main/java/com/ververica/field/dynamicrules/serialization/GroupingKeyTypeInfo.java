@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules.serialization;
+
+import com.ververica.field.dynamicrules.GroupingKey;
+import java.lang.reflect.Type;
+import java.util.Map;
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.typeinfo.TypeInfoFactory;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+
+/** Type information of {@link GroupingKey}, using the {@link GroupingKeySerializer}. */
+public final class GroupingKeyTypeInfo extends TypeInformation<GroupingKey> {
+
+  private static final long serialVersionUID = 1L;
+
+  public static final GroupingKeyTypeInfo INSTANCE = new GroupingKeyTypeInfo();
+
+  @Override
+  public boolean isBasicType() {
+    return false;
+  }
+
+  @Override
+  public boolean isTupleType() {
+    return false;
+  }
+
+  @Override
+  public int getArity() {
+    return 1;
+  }
+
+  @Override
+  public int getTotalFields() {
+    return 1;
+  }
+
+  @Override
+  public Class<GroupingKey> getTypeClass() {
+    return GroupingKey.class;
+  }
+
+  @Override
+  public boolean isKeyType() {
+    return true;
+  }
+
+  @Override
+  public TypeSerializer<GroupingKey> createSerializer(ExecutionConfig config) {
+    return GroupingKeySerializer.INSTANCE;
+  }
+
+  @Override
+  public String toString() {
+    return "GroupingKeyType";
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return obj instanceof GroupingKeyTypeInfo;
+  }
+
+  @Override
+  public int hashCode() {
+    return GroupingKeyTypeInfo.class.hashCode();
+  }
+
+  @Override
+  public boolean canEqual(Object obj) {
+    return obj instanceof GroupingKeyTypeInfo;
+  }
+
+  /** Lets the type extraction pick up this type information for {@link GroupingKey} fields. */
+  public static class Factory extends TypeInfoFactory<GroupingKey> {
+
+    @Override
+    public TypeInformation<GroupingKey> createTypeInfo(
+        Type t, Map<String, TypeInformation<?>> genericParameters) {
+      return INSTANCE;
+    }
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules.serialization;
+
+import com.ververica.field.dynamicrules.Keyed;
+import java.io.IOException;
+import java.util.Objects;
+import org.apache.flink.api.common.typeutils.CompositeTypeSerializerSnapshot;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.TypeSerializerSnapshot;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+
+/**
+ * Serializer of {@link Keyed} records, writing the wrapped event, the key and the id one after
+ * another with their own serializers, without any framing. None of them may be null.
+ */
+public final class KeyedSerializer<IN, KEY, ID> extends TypeSerializer<Keyed<IN, KEY, ID>> {
+
+  private static final long serialVersionUID = 1L;
+
+  private final TypeSerializer<IN> wrappedSerializer;
+  private final TypeSerializer<KEY> keySerializer;
+  private final TypeSerializer<ID> idSerializer;
+
+  public KeyedSerializer(
+      TypeSerializer<IN> wrappedSerializer,
+      TypeSerializer<KEY> keySerializer,
+      TypeSerializer<ID> idSerializer) {
+    this.wrappedSerializer = wrappedSerializer;
+    this.keySerializer = keySerializer;
+    this.idSerializer = idSerializer;
+  }
+
+  @Override
+  public boolean isImmutableType() {
+    return false;
+  }
+
+  @Override
+  public TypeSerializer<Keyed<IN, KEY, ID>> duplicate() {
+    TypeSerializer<IN> wrapped = wrappedSerializer.duplicate();
+    TypeSerializer<KEY> key = keySerializer.duplicate();
+    TypeSerializer<ID> id = idSerializer.duplicate();
+    return wrapped == wrappedSerializer && key == keySerializer && id == idSerializer
+        ? this
+        : new KeyedSerializer<>(wrapped, key, id);
+  }
+
+  @Override
+  public Keyed<IN, KEY, ID> createInstance() {
+    return new Keyed<>(
+        wrappedSerializer.createInstance(),
+        keySerializer.createInstance(),
+        idSerializer.createInstance());
+  }
+
+  @Override
+  public Keyed<IN, KEY, ID> copy(Keyed<IN, KEY, ID> from) {
+    return new Keyed<>(
+        wrappedSerializer.copy(from.getWrapped()),
+        keySerializer.copy(from.getKey()),
+        idSerializer.copy(from.getId()));
+  }
+
+  @Override
+  public Keyed<IN, KEY, ID> copy(Keyed<IN, KEY, ID> from, Keyed<IN, KEY, ID> reuse) {
+    reuse.setWrapped(wrappedSerializer.copy(from.getWrapped(), reuse.getWrapped()));
+    reuse.setKey(keySerializer.copy(from.getKey(), reuse.getKey()));
+    reuse.setId(idSerializer.copy(from.getId(), reuse.getId()));
+    return reuse;
+  }
+
+  @Override
+  public int getLength() {
+    return -1;
+  }
+
+  @Override
+  public void serialize(Keyed<IN, KEY, ID> record, DataOutputView target) throws IOException {
+    wrappedSerializer.serialize(record.getWrapped(), target);
+    keySerializer.serialize(record.getKey(), target);
+    idSerializer.serialize(record.getId(), target);
+  }
+
+  @Override
+  public Keyed<IN, KEY, ID> deserialize(DataInputView source) throws IOException {
+    return new Keyed<>(
+        wrappedSerializer.deserialize(source),
+        keySerializer.deserialize(source),
+        idSerializer.deserialize(source));
+  }
+
+  @Override
+  public Keyed<IN, KEY, ID> deserialize(Keyed<IN, KEY, ID> reuse, DataInputView source)
+      throws IOException {
+    reuse.setWrapped(wrappedSerializer.deserialize(reuse.getWrapped(), source));
+    reuse.setKey(keySerializer.deserialize(reuse.getKey(), source));
+    reuse.setId(idSerializer.deserialize(reuse.getId(), source));
+    return reuse;
+  }
+
+  @Override
+  public void copy(DataInputView source, DataOutputView target) throws IOException {
+    wrappedSerializer.copy(source, target);
+    keySerializer.copy(source, target);
+    idSerializer.copy(source, target);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (!(obj instanceof KeyedSerializer)) {
+      return false;
+    }
+    KeyedSerializer<?, ?, ?> other = (KeyedSerializer<?, ?, ?>) obj;
+    return wrappedSerializer.equals(other.wrappedSerializer)
+        && keySerializer.equals(other.keySerializer)
+        && idSerializer.equals(other.idSerializer);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(wrappedSerializer, keySerializer, idSerializer);
+  }
+
+  @Override
+  public TypeSerializerSnapshot<Keyed<IN, KEY, ID>> snapshotConfiguration() {
+    return new KeyedSerializerSnapshot<>(this);
+  }
+
+  /** Serializer configuration snapshot, checking the compatibility of the nested serializers. */
+  public static final class KeyedSerializerSnapshot<IN, KEY, ID>
+      extends CompositeTypeSerializerSnapshot<Keyed<IN, KEY, ID>, KeyedSerializer<IN, KEY, ID>> {
+
+    private static final int VERSION = 1;
+
+    @SuppressWarnings("unused")
+    public KeyedSerializerSnapshot() {
+      super(KeyedSerializer.class);
+    }
+
+    KeyedSerializerSnapshot(KeyedSerializer<IN, KEY, ID> serializer) {
+      super(serializer);
+    }
+
+    @Override
+    protected int getCurrentOuterSnapshotVersion() {
+      return VERSION;
+    }
+
+    @Override
+    protected TypeSerializer<?>[] getNestedSerializers(KeyedSerializer<IN, KEY, ID> serializer) {
+      return new TypeSerializer<?>[] {
+        serializer.wrappedSerializer, serializer.keySerializer, serializer.idSerializer
+      };
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected KeyedSerializer<IN, KEY, ID> createOuterSerializerWithNestedSerializers(
+        TypeSerializer<?>[] nestedSerializers) {
+      return new KeyedSerializer<>(
+          (TypeSerializer<IN>) nestedSerializers[0],
+          (TypeSerializer<KEY>) nestedSerializers[1],
+          (TypeSerializer<ID>) nestedSerializers[2]);
+    }
+  }
+}
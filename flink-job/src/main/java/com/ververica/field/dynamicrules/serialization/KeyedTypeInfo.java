@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules.serialization;
+
+import com.ververica.field.dynamicrules.Keyed;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.typeinfo.TypeInfoFactory;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.java.typeutils.GenericTypeInfo;
+
+/** Type information of {@link Keyed} records, using the {@link KeyedSerializer}. */
+public final class KeyedTypeInfo<IN, KEY, ID> extends TypeInformation<Keyed<IN, KEY, ID>> {
+
+  private static final long serialVersionUID = 1L;
+
+  private final TypeInformation<IN> wrappedType;
+  private final TypeInformation<KEY> keyType;
+  private final TypeInformation<ID> idType;
+
+  public KeyedTypeInfo(
+      TypeInformation<IN> wrappedType, TypeInformation<KEY> keyType, TypeInformation<ID> idType) {
+    this.wrappedType = wrappedType;
+    this.keyType = keyType;
+    this.idType = idType;
+  }
+
+  @Override
+  public boolean isBasicType() {
+    return false;
+  }
+
+  @Override
+  public boolean isTupleType() {
+    return false;
+  }
+
+  @Override
+  public int getArity() {
+    return 3;
+  }
+
+  @Override
+  public int getTotalFields() {
+    return wrappedType.getTotalFields() + keyType.getTotalFields() + idType.getTotalFields();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Class<Keyed<IN, KEY, ID>> getTypeClass() {
+    return (Class<Keyed<IN, KEY, ID>>) (Class<?>) Keyed.class;
+  }
+
+  @Override
+  public Map<String, TypeInformation<?>> getGenericParameters() {
+    Map<String, TypeInformation<?>> parameters = new HashMap<>();
+    parameters.put("IN", wrappedType);
+    parameters.put("KEY", keyType);
+    parameters.put("ID", idType);
+    return parameters;
+  }
+
+  @Override
+  public boolean isKeyType() {
+    return false;
+  }
+
+  @Override
+  public TypeSerializer<Keyed<IN, KEY, ID>> createSerializer(ExecutionConfig config) {
+    return new KeyedSerializer<>(
+        wrappedType.createSerializer(config),
+        keyType.createSerializer(config),
+        idType.createSerializer(config));
+  }
+
+  @Override
+  public String toString() {
+    return "Keyed<" + wrappedType + ", " + keyType + ", " + idType + ">";
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (!(obj instanceof KeyedTypeInfo)) {
+      return false;
+    }
+    KeyedTypeInfo<?, ?, ?> other = (KeyedTypeInfo<?, ?, ?>) obj;
+    return other.canEqual(this)
+        && wrappedType.equals(other.wrappedType)
+        && keyType.equals(other.keyType)
+        && idType.equals(other.idType);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(wrappedType, keyType, idType);
+  }
+
+  @Override
+  public boolean canEqual(Object obj) {
+    return obj instanceof KeyedTypeInfo;
+  }
+
+  /**
+   * Lets the type extraction create this type information from the extracted type arguments. Type
+   * arguments which could not be determined, e.g. when extracting the type of an instance, are
+   * serialized generically.
+   */
+  public static class Factory<IN, KEY, ID> extends TypeInfoFactory<Keyed<IN, KEY, ID>> {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public TypeInformation<Keyed<IN, KEY, ID>> createTypeInfo(
+        Type t, Map<String, TypeInformation<?>> genericParameters) {
+      return new KeyedTypeInfo<>(
+          (TypeInformation<IN>) genericParameter(genericParameters, "IN"),
+          (TypeInformation<KEY>) genericParameter(genericParameters, "KEY"),
+          (TypeInformation<ID>) genericParameter(genericParameters, "ID"));
+    }
+  }
+
+  static TypeInformation<?> genericParameter(
+      Map<String, TypeInformation<?>> genericParameters, String name) {
+    TypeInformation<?> typeInfo = genericParameters.get(name);
+    return typeInfo != null ? typeInfo : new GenericTypeInfo<>(Object.class);
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules.serialization;
+
+import com.ververica.field.dynamicrules.windows.Pane;
+import com.ververica.field.dynamicrules.windows.PartialAggregate;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.flink.api.common.typeutils.TypeSerializerSnapshot;
+import org.apache.flink.api.common.typeutils.base.TypeSerializerSingleton;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.types.StringValue;
+
+/**
+ * Serializer of {@link Pane}s, writing the number of aggregated fields and then each field's name
+ * followed by its {@link PartialAggregate}, and finally the partial aggregate of the counted
+ * events, if any.
+ */
+public final class PaneSerializer extends TypeSerializerSingleton<Pane> {
+
+  private static final long serialVersionUID = 1L;
+
+  public static final PaneSerializer INSTANCE = new PaneSerializer();
+
+  private static final int FORMAT_VERSION = 2;
+
+  @Override
+  public boolean isImmutableType() {
+    return false;
+  }
+
+  @Override
+  public Pane createInstance() {
+    return new Pane();
+  }
+
+  @Override
+  public Pane copy(Pane from) {
+    Map<String, PartialAggregate> partials = new HashMap<>(from.getFieldPartials().size() * 2);
+    for (Map.Entry<String, PartialAggregate> entry : from.getFieldPartials().entrySet()) {
+      partials.put(entry.getKey(), PartialAggregateSerializer.INSTANCE.copy(entry.getValue()));
+    }
+    PartialAggregate countPartial = from.getCountPartial();
+    return new Pane(
+        partials,
+        countPartial == null ? null : PartialAggregateSerializer.INSTANCE.copy(countPartial));
+  }
+
+  @Override
+  public Pane copy(Pane from, Pane reuse) {
+    return copy(from);
+  }
+
+  @Override
+  public int getLength() {
+    return -1;
+  }
+
+  @Override
+  public void serialize(Pane record, DataOutputView target) throws IOException {
+    VarInts.writeUnsignedInt(record.getFieldPartials().size(), target);
+    for (Map.Entry<String, PartialAggregate> entry : record.getFieldPartials().entrySet()) {
+      StringValue.writeString(entry.getKey(), target);
+      PartialAggregateSerializer.INSTANCE.serialize(entry.getValue(), target);
+    }
+    PartialAggregate countPartial = record.getCountPartial();
+    target.writeBoolean(countPartial != null);
+    if (countPartial != null) {
+      PartialAggregateSerializer.INSTANCE.serialize(countPartial, target);
+    }
+  }
+
+  @Override
+  public Pane deserialize(DataInputView source) throws IOException {
+    int size = VarInts.readUnsignedInt(source);
+    Map<String, PartialAggregate> partials = new HashMap<>(size * 2);
+    for (int i = 0; i < size; i++) {
+      String fieldName = StringValue.readString(source);
+      partials.put(fieldName, PartialAggregateSerializer.INSTANCE.deserialize(source));
+    }
+    PartialAggregate countPartial =
+        source.readBoolean() ? PartialAggregateSerializer.INSTANCE.deserialize(source) : null;
+    return new Pane(partials, countPartial);
+  }
+
+  @Override
+  public Pane deserialize(Pane reuse, DataInputView source) throws IOException {
+    return deserialize(source);
+  }
+
+  @Override
+  public void copy(DataInputView source, DataOutputView target) throws IOException {
+    long size = VarInts.copy(source, target);
+    for (long i = 0; i < size; i++) {
+      StringValue.copyString(source, target);
+      PartialAggregateSerializer.INSTANCE.copy(source, target);
+    }
+    boolean counted = source.readBoolean();
+    target.writeBoolean(counted);
+    if (counted) {
+      PartialAggregateSerializer.INSTANCE.copy(source, target);
+    }
+  }
+
+  @Override
+  public TypeSerializerSnapshot<Pane> snapshotConfiguration() {
+    return new PaneSerializerSnapshot();
+  }
+
+  /** Serializer configuration snapshot for compatibility and format evolution. */
+  public static final class PaneSerializerSnapshot extends VersionedSerializerSnapshot<Pane> {
+
+    public PaneSerializerSnapshot() {
+      super(() -> INSTANCE, FORMAT_VERSION);
+    }
+  }
+}
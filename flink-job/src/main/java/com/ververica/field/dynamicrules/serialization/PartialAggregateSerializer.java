@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules.serialization;
+
+import com.ververica.field.dynamicrules.windows.PartialAggregate;
+import java.io.IOException;
+import org.apache.flink.api.common.typeutils.TypeSerializerSnapshot;
+import org.apache.flink.api.common.typeutils.base.TypeSerializerSingleton;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+
+/**
+ * Serializer of {@link PartialAggregate}s, writing the sum, count, min and max as variable-length
+ * integers, followed by a byte of flags telling whether the sum is computed and overflowed.
+ */
+public final class PartialAggregateSerializer extends TypeSerializerSingleton<PartialAggregate> {
+
+  private static final long serialVersionUID = 1L;
+
+  public static final PartialAggregateSerializer INSTANCE = new PartialAggregateSerializer();
+
+  private static final int FORMAT_VERSION = 1;
+
+  private static final int SUMMING = 1;
+  private static final int SUM_OVERFLOWED = 2;
+
+  @Override
+  public boolean isImmutableType() {
+    return false;
+  }
+
+  @Override
+  public PartialAggregate createInstance() {
+    return new PartialAggregate();
+  }
+
+  @Override
+  public PartialAggregate copy(PartialAggregate from) {
+    return new PartialAggregate(
+        from.getSum(),
+        from.getCount(),
+        from.getMin(),
+        from.getMax(),
+        from.isSumming(),
+        from.isSumOverflowed());
+  }
+
+  @Override
+  public PartialAggregate copy(PartialAggregate from, PartialAggregate reuse) {
+    return copy(from);
+  }
+
+  @Override
+  public int getLength() {
+    return -1;
+  }
+
+  @Override
+  public void serialize(PartialAggregate record, DataOutputView target) throws IOException {
+    VarInts.writeLong(record.getSum(), target);
+    VarInts.writeLong(record.getCount(), target);
+    VarInts.writeLong(record.getMin(), target);
+    VarInts.writeLong(record.getMax(), target);
+    target.writeByte(
+        (record.isSumming() ? SUMMING : 0) | (record.isSumOverflowed() ? SUM_OVERFLOWED : 0));
+  }
+
+  @Override
+  public PartialAggregate deserialize(DataInputView source) throws IOException {
+    long sum = VarInts.readLong(source);
+    long count = VarInts.readLong(source);
+    long min = VarInts.readLong(source);
+    long max = VarInts.readLong(source);
+    int flags = source.readByte();
+    return new PartialAggregate(
+        sum, count, min, max, (flags & SUMMING) != 0, (flags & SUM_OVERFLOWED) != 0);
+  }
+
+  @Override
+  public PartialAggregate deserialize(PartialAggregate reuse, DataInputView source)
+      throws IOException {
+    return deserialize(source);
+  }
+
+  @Override
+  public void copy(DataInputView source, DataOutputView target) throws IOException {
+    for (int i = 0; i < 4; i++) {
+      VarInts.copy(source, target);
+    }
+    target.writeByte(source.readByte());
+  }
+
+  @Override
+  public TypeSerializerSnapshot<PartialAggregate> snapshotConfiguration() {
+    return new PartialAggregateSerializerSnapshot();
+  }
+
+  /** Serializer configuration snapshot for compatibility and format evolution. */
+  public static final class PartialAggregateSerializerSnapshot
+      extends VersionedSerializerSnapshot<PartialAggregate> {
+
+    public PartialAggregateSerializerSnapshot() {
+      super(() -> INSTANCE, FORMAT_VERSION);
+    }
+  }
+}
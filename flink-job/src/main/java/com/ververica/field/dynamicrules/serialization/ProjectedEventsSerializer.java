@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules.serialization;
+
+import com.ververica.field.dynamicrules.windows.ProjectedEvents;
+import java.io.IOException;
+import org.apache.flink.api.common.typeutils.TypeSerializerSnapshot;
+import org.apache.flink.api.common.typeutils.base.TypeSerializerSingleton;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.types.StringValue;
+
+/**
+ * Serializer of {@link ProjectedEvents}, writing the number of counted events and then each field's
+ * name and values, all numbers as variable-length integers.
+ */
+public final class ProjectedEventsSerializer extends TypeSerializerSingleton<ProjectedEvents> {
+
+  private static final long serialVersionUID = 1L;
+
+  public static final ProjectedEventsSerializer INSTANCE = new ProjectedEventsSerializer();
+
+  private static final int FORMAT_VERSION = 2;
+
+  @Override
+  public boolean isImmutableType() {
+    return false;
+  }
+
+  @Override
+  public ProjectedEvents createInstance() {
+    return new ProjectedEvents();
+  }
+
+  @Override
+  public ProjectedEvents copy(ProjectedEvents from) {
+    long[][] values = from.getFieldValues().clone();
+    for (int i = 0; i < values.length; i++) {
+      values[i] = values[i].clone();
+    }
+    return new ProjectedEvents(from.getCount(), from.getFieldNames().clone(), values);
+  }
+
+  @Override
+  public ProjectedEvents copy(ProjectedEvents from, ProjectedEvents reuse) {
+    return copy(from);
+  }
+
+  @Override
+  public int getLength() {
+    return -1;
+  }
+
+  @Override
+  public void serialize(ProjectedEvents record, DataOutputView target) throws IOException {
+    String[] fieldNames = record.getFieldNames();
+    long[][] values = record.getFieldValues();
+    VarInts.writeLong(record.getCount(), target);
+    VarInts.writeUnsignedInt(fieldNames.length, target);
+    for (int i = 0; i < fieldNames.length; i++) {
+      StringValue.writeString(fieldNames[i], target);
+      VarInts.writeUnsignedInt(values[i].length, target);
+      for (long value : values[i]) {
+        VarInts.writeLong(value, target);
+      }
+    }
+  }
+
+  @Override
+  public ProjectedEvents deserialize(DataInputView source) throws IOException {
+    long count = VarInts.readLong(source);
+    String[] fieldNames = new String[VarInts.readUnsignedInt(source)];
+    long[][] values = new long[fieldNames.length][];
+    for (int i = 0; i < fieldNames.length; i++) {
+      fieldNames[i] = StringValue.readString(source);
+      values[i] = new long[VarInts.readUnsignedInt(source)];
+      for (int j = 0; j < values[i].length; j++) {
+        values[i][j] = VarInts.readLong(source);
+      }
+    }
+    return new ProjectedEvents(count, fieldNames, values);
+  }
+
+  @Override
+  public ProjectedEvents deserialize(ProjectedEvents reuse, DataInputView source)
+      throws IOException {
+    return deserialize(source);
+  }
+
+  @Override
+  public void copy(DataInputView source, DataOutputView target) throws IOException {
+    VarInts.copy(source, target);
+    long numberOfFields = VarInts.copy(source, target);
+    for (long i = 0; i < numberOfFields; i++) {
+      StringValue.copyString(source, target);
+      long numberOfValues = VarInts.copy(source, target);
+      for (long j = 0; j < numberOfValues; j++) {
+        VarInts.copy(source, target);
+      }
+    }
+  }
+
+  @Override
+  public TypeSerializerSnapshot<ProjectedEvents> snapshotConfiguration() {
+    return new ProjectedEventsSerializerSnapshot();
+  }
+
+  /** Serializer configuration snapshot for compatibility and format evolution. */
+  public static final class ProjectedEventsSerializerSnapshot
+      extends VersionedSerializerSnapshot<ProjectedEvents> {
+
+    public ProjectedEventsSerializerSnapshot() {
+      super(() -> INSTANCE, FORMAT_VERSION);
+    }
+  }
+}
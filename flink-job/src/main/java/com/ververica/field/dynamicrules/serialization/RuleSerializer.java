@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules.serialization;
+
+import com.ververica.field.dynamicrules.Rule;
+import com.ververica.field.dynamicrules.Rule.AggregatorFunctionType;
+import com.ververica.field.dynamicrules.Rule.ControlType;
+import com.ververica.field.dynamicrules.Rule.LimitOperatorType;
+import com.ververica.field.dynamicrules.Rule.RuleState;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.flink.api.common.typeutils.TypeSerializerSnapshot;
+import org.apache.flink.api.common.typeutils.base.BigDecSerializer;
+import org.apache.flink.api.common.typeutils.base.TypeSerializerSingleton;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.types.StringValue;
+
+/**
+ * Serializer of {@link Rule}s, for the broadcast rules and the rules attached to alerts. A rule is
+ * written as a bit set of its non-null fields, followed by these fields. Enums are written by their
+ * ordinal, so new constants must be added last.
+ */
+public final class RuleSerializer extends TypeSerializerSingleton<Rule> {
+
+  private static final long serialVersionUID = 1L;
+
+  public static final RuleSerializer INSTANCE = new RuleSerializer();
+
+  private static final int FORMAT_VERSION = 1;
+
+  private static final int RULE_ID = 1;
+  private static final int RULE_STATE = 1 << 1;
+  private static final int GROUPING_KEY_NAMES = 1 << 2;
+  private static final int UNIQUE = 1 << 3;
+  private static final int AGGREGATE_FIELD_NAME = 1 << 4;
+  private static final int AGGREGATOR_FUNCTION_TYPE = 1 << 5;
+  private static final int LIMIT_OPERATOR_TYPE = 1 << 6;
+  private static final int LIMIT = 1 << 7;
+  private static final int WINDOW_MINUTES = 1 << 8;
+  private static final int CONTROL_TYPE = 1 << 9;
+
+  private static final RuleState[] RULE_STATES = RuleState.values();
+  private static final AggregatorFunctionType[] AGGREGATOR_FUNCTION_TYPES =
+      AggregatorFunctionType.values();
+  private static final LimitOperatorType[] LIMIT_OPERATOR_TYPES = LimitOperatorType.values();
+  private static final ControlType[] CONTROL_TYPES = ControlType.values();
+
+  @Override
+  public boolean isImmutableType() {
+    return false;
+  }
+
+  @Override
+  public Rule createInstance() {
+    return new Rule();
+  }
+
+  @Override
+  public Rule copy(Rule from) {
+    Rule copy = new Rule();
+    copy.setRuleId(from.getRuleId());
+    copy.setRuleState(from.getRuleState());
+    copy.setGroupingKeyNames(copyOf(from.getGroupingKeyNames()));
+    copy.setUnique(copyOf(from.getUnique()));
+    copy.setAggregateFieldName(from.getAggregateFieldName());
+    copy.setAggregatorFunctionType(from.getAggregatorFunctionType());
+    copy.setLimitOperatorType(from.getLimitOperatorType());
+    copy.setLimit(from.getLimit());
+    copy.setWindowMinutes(from.getWindowMinutes());
+    copy.setControlType(from.getControlType());
+    return copy;
+  }
+
+  @Override
+  public Rule copy(Rule from, Rule reuse) {
+    return copy(from);
+  }
+
+  private static List<String> copyOf(List<String> list) {
+    return list == null ? null : new ArrayList<>(list);
+  }
+
+  @Override
+  public int getLength() {
+    return -1;
+  }
+
+  @Override
+  public void serialize(Rule record, DataOutputView target) throws IOException {
+    int fields =
+        (record.getRuleId() != null ? RULE_ID : 0)
+            | (record.getRuleState() != null ? RULE_STATE : 0)
+            | (record.getGroupingKeyNames() != null ? GROUPING_KEY_NAMES : 0)
+            | (record.getUnique() != null ? UNIQUE : 0)
+            | (record.getAggregateFieldName() != null ? AGGREGATE_FIELD_NAME : 0)
+            | (record.getAggregatorFunctionType() != null ? AGGREGATOR_FUNCTION_TYPE : 0)
+            | (record.getLimitOperatorType() != null ? LIMIT_OPERATOR_TYPE : 0)
+            | (record.getLimit() != null ? LIMIT : 0)
+            | (record.getWindowMinutes() != null ? WINDOW_MINUTES : 0)
+            | (record.getControlType() != null ? CONTROL_TYPE : 0);
+    VarInts.writeUnsignedInt(fields, target);
+    if ((fields & RULE_ID) != 0) {
+      VarInts.writeInt(record.getRuleId(), target);
+    }
+    if ((fields & RULE_STATE) != 0) {
+      VarInts.writeUnsignedInt(record.getRuleState().ordinal(), target);
+    }
+    if ((fields & GROUPING_KEY_NAMES) != 0) {
+      writeStrings(record.getGroupingKeyNames(), target);
+    }
+    if ((fields & UNIQUE) != 0) {
+      writeStrings(record.getUnique(), target);
+    }
+    if ((fields & AGGREGATE_FIELD_NAME) != 0) {
+      StringValue.writeString(record.getAggregateFieldName(), target);
+    }
+    if ((fields & AGGREGATOR_FUNCTION_TYPE) != 0) {
+      VarInts.writeUnsignedInt(record.getAggregatorFunctionType().ordinal(), target);
+    }
+    if ((fields & LIMIT_OPERATOR_TYPE) != 0) {
+      VarInts.writeUnsignedInt(record.getLimitOperatorType().ordinal(), target);
+    }
+    if ((fields & LIMIT) != 0) {
+      BigDecSerializer.INSTANCE.serialize(record.getLimit(), target);
+    }
+    if ((fields & WINDOW_MINUTES) != 0) {
+      VarInts.writeInt(record.getWindowMinutes(), target);
+    }
+    if ((fields & CONTROL_TYPE) != 0) {
+      VarInts.writeUnsignedInt(record.getControlType().ordinal(), target);
+    }
+  }
+
+  @Override
+  public Rule deserialize(DataInputView source) throws IOException {
+    int fields = VarInts.readUnsignedInt(source);
+    Rule rule = new Rule();
+    if ((fields & RULE_ID) != 0) {
+      rule.setRuleId(VarInts.readInt(source));
+    }
+    if ((fields & RULE_STATE) != 0) {
+      rule.setRuleState(RULE_STATES[VarInts.readUnsignedInt(source)]);
+    }
+    if ((fields & GROUPING_KEY_NAMES) != 0) {
+      rule.setGroupingKeyNames(readStrings(source));
+    }
+    if ((fields & UNIQUE) != 0) {
+      rule.setUnique(readStrings(source));
+    }
+    if ((fields & AGGREGATE_FIELD_NAME) != 0) {
+      rule.setAggregateFieldName(StringValue.readString(source));
+    }
+    if ((fields & AGGREGATOR_FUNCTION_TYPE) != 0) {
+      rule.setAggregatorFunctionType(AGGREGATOR_FUNCTION_TYPES[VarInts.readUnsignedInt(source)]);
+    }
+    if ((fields & LIMIT_OPERATOR_TYPE) != 0) {
+      rule.setLimitOperatorType(LIMIT_OPERATOR_TYPES[VarInts.readUnsignedInt(source)]);
+    }
+    if ((fields & LIMIT) != 0) {
+      rule.setLimit(BigDecSerializer.INSTANCE.deserialize(source));
+    }
+    if ((fields & WINDOW_MINUTES) != 0) {
+      rule.setWindowMinutes(VarInts.readInt(source));
+    }
+    if ((fields & CONTROL_TYPE) != 0) {
+      rule.setControlType(CONTROL_TYPES[VarInts.readUnsignedInt(source)]);
+    }
+    return rule;
+  }
+
+  @Override
+  public Rule deserialize(Rule reuse, DataInputView source) throws IOException {
+    return deserialize(source);
+  }
+
+  @Override
+  public void copy(DataInputView source, DataOutputView target) throws IOException {
+    serialize(deserialize(source), target);
+  }
+
+  private static void writeStrings(List<String> strings, DataOutputView target) throws IOException {
+    VarInts.writeUnsignedInt(strings.size(), target);
+    for (String string : strings) {
+      StringValue.writeString(string, target);
+    }
+  }
+
+  private static List<String> readStrings(DataInputView source) throws IOException {
+    int size = VarInts.readUnsignedInt(source);
+    List<String> strings = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      strings.add(StringValue.readString(source));
+    }
+    return strings;
+  }
+
+  @Override
+  public TypeSerializerSnapshot<Rule> snapshotConfiguration() {
+    return new RuleSerializerSnapshot();
+  }
+
+  /** Serializer configuration snapshot for compatibility and format evolution. */
+  public static final class RuleSerializerSnapshot extends VersionedSerializerSnapshot<Rule> {
+
+    public RuleSerializerSnapshot() {
+      super(() -> INSTANCE, FORMAT_VERSION);
+    }
+  }
+}
@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules.serialization;
+
+import com.ververica.field.dynamicrules.Rule.AggregatorFunctionType;
+import com.ververica.field.dynamicrules.windows.SlidingWindowAggregate;
+import com.ververica.field.dynamicrules.windows.SlidingWindowExtremum;
+import com.ververica.field.dynamicrules.windows.SlidingWindowSum;
+import java.io.IOException;
+import org.apache.flink.api.common.typeutils.TypeSerializerSnapshot;
+import org.apache.flink.api.common.typeutils.base.TypeSerializerSingleton;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.types.StringValue;
+
+/**
+ * Serializer of {@link SlidingWindowAggregate}s, writing a tag for the kind of aggregate, the
+ * definition of the rule it was built for, its window's latest timestamp, start and oldest
+ * contribution, and then the running sum and count or the extremum. Function types are written by their ordinal.
+ */
+public final class SlidingWindowAggregateSerializer
+    extends TypeSerializerSingleton<SlidingWindowAggregate> {
+
+  private static final long serialVersionUID = 1L;
+
+  public static final SlidingWindowAggregateSerializer INSTANCE =
+      new SlidingWindowAggregateSerializer();
+
+  private static final int FORMAT_VERSION = 2;
+
+  private static final byte SUM = 0;
+  private static final byte EXTREMUM = 1;
+
+  private static final AggregatorFunctionType[] AGGREGATOR_FUNCTION_TYPES =
+      AggregatorFunctionType.values();
+
+  @Override
+  public boolean isImmutableType() {
+    return false;
+  }
+
+  @Override
+  public SlidingWindowAggregate createInstance() {
+    return new SlidingWindowSum();
+  }
+
+  @Override
+  public SlidingWindowAggregate copy(SlidingWindowAggregate from) {
+    if (from instanceof SlidingWindowSum) {
+      SlidingWindowSum sum = (SlidingWindowSum) from;
+      return new SlidingWindowSum(
+          from.getWindowMillis(),
+          from.getAggregateFieldName(),
+          from.getAggregatorFunctionType(),
+          from.getLatestTimestamp(),
+          from.getWindowStart(),
+          from.isEmpty(),
+          from.getHead(),
+          sum.getSum(),
+          sum.getCount());
+    }
+    return new SlidingWindowExtremum(
+        from.getWindowMillis(),
+        from.getAggregateFieldName(),
+        from.getAggregatorFunctionType(),
+        from.getLatestTimestamp(),
+        from.getWindowStart(),
+        from.isEmpty(),
+        from.getHead(),
+        ((SlidingWindowExtremum) from).getExtremum());
+  }
+
+  @Override
+  public SlidingWindowAggregate copy(SlidingWindowAggregate from, SlidingWindowAggregate reuse) {
+    return copy(from);
+  }
+
+  @Override
+  public int getLength() {
+    return -1;
+  }
+
+  @Override
+  public void serialize(SlidingWindowAggregate record, DataOutputView target) throws IOException {
+    boolean isSum = record instanceof SlidingWindowSum;
+    target.writeByte(isSum ? SUM : EXTREMUM);
+    VarInts.writeLong(record.getWindowMillis(), target);
+    StringValue.writeString(record.getAggregateFieldName(), target);
+    AggregatorFunctionType functionType = record.getAggregatorFunctionType();
+    VarInts.writeInt(functionType == null ? -1 : functionType.ordinal(), target);
+    VarInts.writeLong(record.getLatestTimestamp(), target);
+    VarInts.writeLong(record.getWindowStart(), target);
+    target.writeBoolean(record.isEmpty());
+    VarInts.writeLong(record.getHead(), target);
+    if (isSum) {
+      VarInts.writeLong(((SlidingWindowSum) record).getSum(), target);
+      VarInts.writeLong(((SlidingWindowSum) record).getCount(), target);
+    } else {
+      VarInts.writeLong(((SlidingWindowExtremum) record).getExtremum(), target);
+    }
+  }
+
+  @Override
+  public SlidingWindowAggregate deserialize(DataInputView source) throws IOException {
+    byte kind = source.readByte();
+    long windowMillis = VarInts.readLong(source);
+    String aggregateFieldName = StringValue.readString(source);
+    int functionType = VarInts.readInt(source);
+    AggregatorFunctionType aggregatorFunctionType =
+        functionType < 0 ? null : AGGREGATOR_FUNCTION_TYPES[functionType];
+    long latestTimestamp = VarInts.readLong(source);
+    long windowStart = VarInts.readLong(source);
+    boolean empty = source.readBoolean();
+    long head = VarInts.readLong(source);
+    switch (kind) {
+      case SUM:
+        return new SlidingWindowSum(
+            windowMillis,
+            aggregateFieldName,
+            aggregatorFunctionType,
+            latestTimestamp,
+            windowStart,
+            empty,
+            head,
+            VarInts.readLong(source),
+            VarInts.readLong(source));
+      case EXTREMUM:
+        return new SlidingWindowExtremum(
+            windowMillis,
+            aggregateFieldName,
+            aggregatorFunctionType,
+            latestTimestamp,
+            windowStart,
+            empty,
+            head,
+            VarInts.readLong(source));
+      default:
+        throw new IOException("Unknown kind of sliding window aggregate " + kind);
+    }
+  }
+
+  @Override
+  public SlidingWindowAggregate deserialize(SlidingWindowAggregate reuse, DataInputView source)
+      throws IOException {
+    return deserialize(source);
+  }
+
+  @Override
+  public void copy(DataInputView source, DataOutputView target) throws IOException {
+    byte kind = source.readByte();
+    target.writeByte(kind);
+    VarInts.copy(source, target);
+    StringValue.copyString(source, target);
+    // The function type, latest timestamp and window start.
+    for (int i = 0; i < 3; i++) {
+      VarInts.copy(source, target);
+    }
+    target.writeBoolean(source.readBoolean());
+    // The head and the sum or extremum.
+    VarInts.copy(source, target);
+    VarInts.copy(source, target);
+    if (kind == SUM) {
+      VarInts.copy(source, target);
+    }
+  }
+
+  @Override
+  public TypeSerializerSnapshot<SlidingWindowAggregate> snapshotConfiguration() {
+    return new SlidingWindowAggregateSerializerSnapshot();
+  }
+
+  /** Serializer configuration snapshot for compatibility and format evolution. */
+  public static final class SlidingWindowAggregateSerializerSnapshot
+      extends VersionedSerializerSnapshot<SlidingWindowAggregate> {
+
+    public SlidingWindowAggregateSerializerSnapshot() {
+      super(() -> INSTANCE, FORMAT_VERSION);
+    }
+  }
+}
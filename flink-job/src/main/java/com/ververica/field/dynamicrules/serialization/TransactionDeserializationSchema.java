@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules.serialization;
+
+import com.ververica.field.dynamicrules.FixedPoint;
+import com.ververica.field.dynamicrules.Transaction;
+import com.ververica.field.dynamicrules.Transaction.PaymentType;
+import java.io.IOException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.core.memory.DataInputDeserializer;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.core.JsonFactory;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.core.JsonParseException;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.core.JsonParser;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.core.JsonToken;
+import org.apache.flink.streaming.connectors.kafka.KafkaDeserializationSchema;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+/**
+ * Parses {@link Transaction}s straight from the bytes of Kafka records and stamps them with their
+ * ingestion time. Records are either UTF-8 JSON, whose fields are read with a streaming parser so
+ * that records are neither decoded to strings first nor bound through an object mapper, or in the
+ * {@link TransactionWireFormat}. Unknown fields are ignored, records which cannot be parsed are
+ * logged and skipped.
+ */
+@Slf4j
+public class TransactionDeserializationSchema implements KafkaDeserializationSchema<Transaction> {
+
+  private static final long serialVersionUID = 1L;
+
+  private final Format format;
+
+  private transient JsonFactory jsonFactory;
+  private transient DataInputDeserializer binaryInput;
+
+  public TransactionDeserializationSchema() {
+    this(Format.JSON);
+  }
+
+  public TransactionDeserializationSchema(Format format) {
+    this.format = format;
+  }
+
+  @Override
+  public boolean isEndOfStream(Transaction nextElement) {
+    return false;
+  }
+
+  @Override
+  public Transaction deserialize(ConsumerRecord<byte[], byte[]> record) {
+    byte[] message = record.value();
+    if (message == null) {
+      return null;
+    }
+    try {
+      Transaction transaction =
+          format == Format.BINARY ? readBinary(message) : parse(message, 0, message.length);
+      transaction.assignIngestionTimestamp(System.currentTimeMillis());
+      return transaction;
+    } catch (IOException | RuntimeException e) {
+      log.warn("Failed parsing transaction, dropping it:", e);
+      return null;
+    }
+  }
+
+  private Transaction readBinary(byte[] message) throws IOException {
+    if (binaryInput == null) {
+      binaryInput = new DataInputDeserializer();
+    }
+    binaryInput.setBuffer(message);
+    Transaction transaction = TransactionWireFormat.read(binaryInput);
+    binaryInput.releaseArrays();
+    return transaction;
+  }
+
+  /** Parses a transaction from the given JSON bytes, without an ingestion timestamp. */
+  public Transaction parse(byte[] bytes, int offset, int length) throws IOException {
+    if (jsonFactory == null) {
+      jsonFactory = new JsonFactory();
+    }
+    try (JsonParser parser = jsonFactory.createParser(bytes, offset, length)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new JsonParseException(parser, "Expected a transaction object");
+      }
+      Transaction transaction = new Transaction();
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String fieldName = parser.getCurrentName();
+        JsonToken token = parser.nextToken();
+        switch (fieldName) {
+          case "transactionId":
+            transaction.transactionId = readLong(parser, token);
+            break;
+          case "eventTime":
+            transaction.eventTime = readLong(parser, token);
+            break;
+          case "payeeId":
+            transaction.payeeId = readLong(parser, token);
+            break;
+          case "beneficiaryId":
+            transaction.beneficiaryId = readLong(parser, token);
+            break;
+          case "paymentAmount":
+            transaction.paymentAmount = readAmount(parser, token);
+            break;
+          case "paymentType":
+            transaction.paymentType =
+                token == JsonToken.VALUE_NULL ? null : PaymentType.valueOf(parser.getText());
+            break;
+          default:
+            // Also skips the ingestion timestamp of the producer, the record is stamped anew.
+            parser.skipChildren();
+        }
+      }
+      return transaction;
+    }
+  }
+
+  private static long readLong(JsonParser parser, JsonToken token) throws IOException {
+    switch (token) {
+      case VALUE_NUMBER_INT:
+        return parser.getLongValue();
+      case VALUE_STRING:
+        return Long.parseLong(parser.getText().trim());
+      case VALUE_NULL:
+        return 0;
+      default:
+        throw new JsonParseException(parser, "Expected an integer, not " + token);
+    }
+  }
+
+  /* Same conversions as FixedPoint.DecimalDeserializer. */
+  private static long readAmount(JsonParser parser, JsonToken token) throws IOException {
+    try {
+      switch (token) {
+        case VALUE_NUMBER_INT:
+          return FixedPoint.of(parser.getLongValue());
+        case VALUE_NUMBER_FLOAT:
+          return FixedPoint.of(parser.getDecimalValue());
+        case VALUE_STRING:
+          return FixedPoint.parse(parser.getText());
+        case VALUE_NULL:
+          return 0;
+        default:
+          throw new JsonParseException(parser, "Expected a decimal, not " + token);
+      }
+    } catch (ArithmeticException e) {
+      throw new JsonParseException(parser, e.getMessage(), e);
+    }
+  }
+
+  @Override
+  public TypeInformation<Transaction> getProducedType() {
+    return TransactionTypeInfo.INSTANCE;
+  }
+
+  /** Encodings of transaction records. */
+  public enum Format {
+    JSON,
+    BINARY
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules.serialization;
+
+import com.ververica.field.dynamicrules.Transaction;
+import com.ververica.field.dynamicrules.Transaction.PaymentType;
+import java.io.IOException;
+import org.apache.flink.api.common.typeutils.TypeSerializerSnapshot;
+import org.apache.flink.api.common.typeutils.base.TypeSerializerSingleton;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+
+/**
+ * Serializer of {@link Transaction}s, used both on the wire and in state. A transaction is written
+ * as a byte of flags marking its nullable fields, followed by its numbers as variable-length
+ * integers. Payment types are written by their ordinal, so new ones must be added last.
+ */
+public final class TransactionSerializer extends TypeSerializerSingleton<Transaction> {
+
+  private static final long serialVersionUID = 1L;
+
+  public static final TransactionSerializer INSTANCE = new TransactionSerializer();
+
+  private static final int FORMAT_VERSION = 1;
+
+  private static final int HAS_PAYMENT_TYPE = 1;
+  private static final int HAS_INGESTION_TIMESTAMP = 1 << 1;
+
+  private static final PaymentType[] PAYMENT_TYPES = PaymentType.values();
+
+  @Override
+  public boolean isImmutableType() {
+    return false;
+  }
+
+  @Override
+  public Transaction createInstance() {
+    return new Transaction();
+  }
+
+  @Override
+  public Transaction copy(Transaction from) {
+    return copy(from, new Transaction());
+  }
+
+  @Override
+  public Transaction copy(Transaction from, Transaction reuse) {
+    reuse.transactionId = from.transactionId;
+    reuse.eventTime = from.eventTime;
+    reuse.payeeId = from.payeeId;
+    reuse.beneficiaryId = from.beneficiaryId;
+    reuse.paymentAmount = from.paymentAmount;
+    reuse.paymentType = from.paymentType;
+    reuse.setIngestionTimestamp(from.getIngestionTimestamp());
+    return reuse;
+  }
+
+  @Override
+  public int getLength() {
+    return -1;
+  }
+
+  @Override
+  public void serialize(Transaction record, DataOutputView target) throws IOException {
+    Long ingestionTimestamp = record.getIngestionTimestamp();
+    int flags =
+        (record.paymentType != null ? HAS_PAYMENT_TYPE : 0)
+            | (ingestionTimestamp != null ? HAS_INGESTION_TIMESTAMP : 0);
+    target.writeByte(flags);
+    VarInts.writeLong(record.transactionId, target);
+    VarInts.writeLong(record.eventTime, target);
+    VarInts.writeLong(record.payeeId, target);
+    VarInts.writeLong(record.beneficiaryId, target);
+    VarInts.writeLong(record.paymentAmount, target);
+    if (record.paymentType != null) {
+      VarInts.writeUnsignedInt(record.paymentType.ordinal(), target);
+    }
+    if (ingestionTimestamp != null) {
+      VarInts.writeLong(ingestionTimestamp, target);
+    }
+  }
+
+  @Override
+  public Transaction deserialize(DataInputView source) throws IOException {
+    return deserialize(new Transaction(), source);
+  }
+
+  @Override
+  public Transaction deserialize(Transaction reuse, DataInputView source) throws IOException {
+    int flags = source.readByte();
+    reuse.transactionId = VarInts.readLong(source);
+    reuse.eventTime = VarInts.readLong(source);
+    reuse.payeeId = VarInts.readLong(source);
+    reuse.beneficiaryId = VarInts.readLong(source);
+    reuse.paymentAmount = VarInts.readLong(source);
+    reuse.paymentType =
+        (flags & HAS_PAYMENT_TYPE) != 0 ? PAYMENT_TYPES[VarInts.readUnsignedInt(source)] : null;
+    reuse.setIngestionTimestamp(
+        (flags & HAS_INGESTION_TIMESTAMP) != 0 ? VarInts.readLong(source) : null);
+    return reuse;
+  }
+
+  @Override
+  public void copy(DataInputView source, DataOutputView target) throws IOException {
+    int flags = source.readByte();
+    target.writeByte(flags);
+    int numberOfValues =
+        5
+            + ((flags & HAS_PAYMENT_TYPE) != 0 ? 1 : 0)
+            + ((flags & HAS_INGESTION_TIMESTAMP) != 0 ? 1 : 0);
+    for (int i = 0; i < numberOfValues; i++) {
+      VarInts.copy(source, target);
+    }
+  }
+
+  @Override
+  public TypeSerializerSnapshot<Transaction> snapshotConfiguration() {
+    return new TransactionSerializerSnapshot();
+  }
+
+  /** Serializer configuration snapshot for compatibility and format evolution. */
+  public static final class TransactionSerializerSnapshot
+      extends VersionedSerializerSnapshot<Transaction> {
+
+    public TransactionSerializerSnapshot() {
+      super(() -> INSTANCE, FORMAT_VERSION);
+    }
+  }
+}
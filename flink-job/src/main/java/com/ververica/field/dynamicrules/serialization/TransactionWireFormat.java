@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules.serialization;
+
+import com.ververica.field.dynamicrules.Transaction;
+import com.ververica.field.dynamicrules.Transaction.PaymentType;
+import java.io.IOException;
+import org.apache.flink.core.memory.DataInputDeserializer;
+import org.apache.flink.core.memory.DataOutputSerializer;
+import org.apache.flink.core.memory.DataOutputView;
+
+/**
+ * Compact binary encoding of {@link Transaction}s on the transactions topic, shared with the
+ * webapp's producer. A record is a version byte followed by tagged fields in the style of Protocol
+ * Buffers: each field starts with a variable-length tag of {@code fieldNumber << 3 | wireType},
+ * followed by a zig-zag encoded variable-length integer (wire type 0) or by a length and that many
+ * bytes (wire type 2). The fields are:
+ *
+ * <ol>
+ *   <li>transaction id
+ *   <li>event time, in epoch milliseconds
+ *   <li>payee id
+ *   <li>beneficiary id
+ *   <li>payment amount, as a fixed-point number with 4 decimal digits
+ *   <li>payment type: 1 for CSH, 2 for CRD
+ *   <li>ingestion timestamp, in epoch milliseconds
+ * </ol>
+ *
+ * <p>Fields holding zero or null are left out. Readers skip fields they do not know and keep the
+ * defaults of fields which are missing, so fields can be added and dropped without coordinating
+ * producers and consumers, as long as field numbers are never reused. Incompatible changes need a
+ * new version, which older readers reject.
+ */
+public final class TransactionWireFormat {
+
+  public static final int VERSION = 1;
+
+  private static final int VARINT = 0;
+  private static final int LENGTH_DELIMITED = 2;
+
+  private static final int TRANSACTION_ID = 1;
+  private static final int EVENT_TIME = 2;
+  private static final int PAYEE_ID = 3;
+  private static final int BENEFICIARY_ID = 4;
+  private static final int PAYMENT_AMOUNT = 5;
+  private static final int PAYMENT_TYPE = 6;
+  private static final int INGESTION_TIMESTAMP = 7;
+
+  private TransactionWireFormat() {}
+
+  public static byte[] encode(Transaction transaction) {
+    DataOutputSerializer out = new DataOutputSerializer(32);
+    try {
+      write(transaction, out);
+    } catch (IOException e) {
+      throw new IllegalStateException("Writing to memory failed", e);
+    }
+    return out.getCopyOfBuffer();
+  }
+
+  public static void write(Transaction transaction, DataOutputView target) throws IOException {
+    target.writeByte(VERSION);
+    writeField(TRANSACTION_ID, transaction.transactionId, target);
+    writeField(EVENT_TIME, transaction.eventTime, target);
+    writeField(PAYEE_ID, transaction.payeeId, target);
+    writeField(BENEFICIARY_ID, transaction.beneficiaryId, target);
+    writeField(PAYMENT_AMOUNT, transaction.paymentAmount, target);
+    if (transaction.paymentType != null) {
+      writeField(PAYMENT_TYPE, paymentTypeNumber(transaction.paymentType), target);
+    }
+    Long ingestionTimestamp = transaction.getIngestionTimestamp();
+    if (ingestionTimestamp != null) {
+      writeField(INGESTION_TIMESTAMP, ingestionTimestamp, target);
+    }
+  }
+
+  /** Reads a transaction from all remaining bytes of the given input. */
+  public static Transaction read(DataInputDeserializer source) throws IOException {
+    int version = source.readUnsignedByte();
+    if (version != VERSION) {
+      throw new IOException("Unsupported transaction wire format version " + version);
+    }
+    Transaction transaction = new Transaction();
+    while (source.available() > 0) {
+      int tag = VarInts.readUnsignedInt(source);
+      int wireType = tag & 0x7;
+      if (wireType == LENGTH_DELIMITED) {
+        // No known field is length-delimited yet.
+        source.skipBytesToRead(VarInts.readUnsignedInt(source));
+        continue;
+      } else if (wireType != VARINT) {
+        throw new IOException("Unknown wire type " + wireType + " of field " + (tag >>> 3));
+      }
+      long value = VarInts.readLong(source);
+      switch (tag >>> 3) {
+        case TRANSACTION_ID:
+          transaction.transactionId = value;
+          break;
+        case EVENT_TIME:
+          transaction.eventTime = value;
+          break;
+        case PAYEE_ID:
+          transaction.payeeId = value;
+          break;
+        case BENEFICIARY_ID:
+          transaction.beneficiaryId = value;
+          break;
+        case PAYMENT_AMOUNT:
+          transaction.paymentAmount = value;
+          break;
+        case PAYMENT_TYPE:
+          transaction.paymentType = paymentType(value);
+          break;
+        case INGESTION_TIMESTAMP:
+          transaction.setIngestionTimestamp(value);
+          break;
+        default:
+          // A field of a newer producer.
+      }
+    }
+    return transaction;
+  }
+
+  private static void writeField(int fieldNumber, long value, DataOutputView target)
+      throws IOException {
+    if (value != 0) {
+      VarInts.writeUnsignedInt(fieldNumber << 3 | VARINT, target);
+      VarInts.writeLong(value, target);
+    }
+  }
+
+  private static int paymentTypeNumber(PaymentType paymentType) {
+    switch (paymentType) {
+      case CSH:
+        return 1;
+      case CRD:
+        return 2;
+      default:
+        throw new IllegalArgumentException("Payment type without a number: " + paymentType);
+    }
+  }
+
+  /* Unknown payment types of newer producers are read as null. */
+  private static PaymentType paymentType(long number) {
+    if (number == 1) {
+      return PaymentType.CSH;
+    } else if (number == 2) {
+      return PaymentType.CRD;
+    }
+    return null;
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules.serialization;
+
+import java.io.IOException;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+
+/**
+ * Variable-length encoding of integers, seven bits per byte. Signed values are zig-zag encoded
+ * first, so that small negative numbers stay short as well.
+ */
+final class VarInts {
+
+  private VarInts() {}
+
+  static void writeUnsignedInt(int value, DataOutputView target) throws IOException {
+    while ((value & ~0x7F) != 0) {
+      target.writeByte((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    target.writeByte(value);
+  }
+
+  static int readUnsignedInt(DataInputView source) throws IOException {
+    int value = 0;
+    for (int shift = 0; ; shift += 7) {
+      byte b = source.readByte();
+      value |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+  }
+
+  static void writeInt(int value, DataOutputView target) throws IOException {
+    writeUnsignedInt((value << 1) ^ (value >> 31), target);
+  }
+
+  static int readInt(DataInputView source) throws IOException {
+    int value = readUnsignedInt(source);
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  static void writeLong(long value, DataOutputView target) throws IOException {
+    long zigZag = (value << 1) ^ (value >> 63);
+    while ((zigZag & ~0x7FL) != 0) {
+      target.writeByte(((int) zigZag & 0x7F) | 0x80);
+      zigZag >>>= 7;
+    }
+    target.writeByte((int) zigZag);
+  }
+
+  static long readLong(DataInputView source) throws IOException {
+    long zigZag = 0;
+    for (int shift = 0; ; shift += 7) {
+      byte b = source.readByte();
+      zigZag |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return (zigZag >>> 1) ^ -(zigZag & 1);
+      }
+    }
+  }
+
+  /** Copies one variable-length integer as it is, returning its unsigned value. */
+  static long copy(DataInputView source, DataOutputView target) throws IOException {
+    long value = 0;
+    for (int shift = 0; ; shift += 7) {
+      byte b = source.readByte();
+      target.writeByte(b);
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+  }
+}
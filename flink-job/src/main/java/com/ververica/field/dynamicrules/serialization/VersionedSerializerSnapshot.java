@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules.serialization;
+
+import java.io.IOException;
+import java.util.function.Supplier;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.TypeSerializerSchemaCompatibility;
+import org.apache.flink.api.common.typeutils.TypeSerializerSnapshot;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+
+/**
+ * Snapshot of a serializer without any configuration, recording the version of the binary format
+ * the state was written in.
+ *
+ * <p>State written in the current format is compatible as is. Serializers changing their format
+ * bump their format version, and state written in an older format is only migrated if the snapshot
+ * {@link #createSerializerForFormat creates} a serializer reading that format. Otherwise, the state
+ * is incompatible rather than read in the wrong format.
+ */
+public abstract class VersionedSerializerSnapshot<T> implements TypeSerializerSnapshot<T> {
+
+  private static final int CURRENT_VERSION = 1;
+
+  private final Supplier<? extends TypeSerializer<T>> serializerSupplier;
+  private final int currentFormatVersion;
+  private int formatVersion;
+
+  protected VersionedSerializerSnapshot(
+      Supplier<? extends TypeSerializer<T>> serializerSupplier, int currentFormatVersion) {
+    this.serializerSupplier = serializerSupplier;
+    this.currentFormatVersion = currentFormatVersion;
+    this.formatVersion = currentFormatVersion;
+  }
+
+  /** Version of the format of the state this snapshot was taken of. */
+  protected int getFormatVersion() {
+    return formatVersion;
+  }
+
+  @Override
+  public int getCurrentVersion() {
+    return CURRENT_VERSION;
+  }
+
+  @Override
+  public void writeSnapshot(DataOutputView out) throws IOException {
+    out.writeInt(formatVersion);
+  }
+
+  @Override
+  public void readSnapshot(int readVersion, DataInputView in, ClassLoader userCodeClassLoader)
+      throws IOException {
+    formatVersion = in.readInt();
+    if (formatVersion > currentFormatVersion) {
+      throw new IOException(
+          "Cannot read format version "
+              + formatVersion
+              + " of "
+              + getClass().getName()
+              + ", latest known version is "
+              + currentFormatVersion);
+    }
+  }
+
+  /**
+   * Creates a serializer reading state written in the given older format version, for the state to
+   * be migrated to the current format.
+   *
+   * @return {@code null} if there is none, the default, which makes such state incompatible
+   */
+  protected TypeSerializer<T> createSerializerForFormat(int formatVersion) {
+    return null;
+  }
+
+  @Override
+  public TypeSerializer<T> restoreSerializer() {
+    if (formatVersion == currentFormatVersion) {
+      return serializerSupplier.get();
+    }
+    TypeSerializer<T> serializer = createSerializerForFormat(formatVersion);
+    if (serializer == null) {
+      throw new UnsupportedOperationException(
+          "Cannot read format version "
+              + formatVersion
+              + " of "
+              + getClass().getName()
+              + ", there is no serializer for it");
+    }
+    return serializer;
+  }
+
+  @Override
+  public TypeSerializerSchemaCompatibility<T> resolveSchemaCompatibility(
+      TypeSerializer<T> newSerializer) {
+    if (newSerializer.getClass() != serializerSupplier.get().getClass()) {
+      return TypeSerializerSchemaCompatibility.incompatible();
+    }
+    if (formatVersion == currentFormatVersion) {
+      return TypeSerializerSchemaCompatibility.compatibleAsIs();
+    }
+    return createSerializerForFormat(formatVersion) == null
+        ? TypeSerializerSchemaCompatibility.incompatible()
+        : TypeSerializerSchemaCompatibility.compatibleAfterMigration();
+  }
+}
@@ -18,6 +18,7 @@
 
 package com.ververica.field.dynamicrules.sinks;
 
+import static com.ververica.field.config.Parameters.ALERTS_RULE_REFERENCES;
 import static com.ververica.field.config.Parameters.ALERTS_SINK;
 import static com.ververica.field.config.Parameters.ALERTS_TOPIC;
 import static com.ververica.field.config.Parameters.GCP_PROJECT_NAME;
@@ -26,50 +27,93 @@ import static com.ververica.field.config.Parameters.GCP_PUBSUB_ALERTS_SUBSCRIPTI
 import com.ververica.field.config.Config;
 import com.ververica.field.dynamicrules.Alert;
 import com.ververica.field.dynamicrules.KafkaUtils;
-import com.ververica.field.dynamicrules.functions.JsonSerializer;
+import com.ververica.field.dynamicrules.serialization.AlertSerializationSchema;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Properties;
-import org.apache.flink.api.common.serialization.SimpleStringSchema;
+import org.apache.flink.api.common.functions.MapFunction;
 import org.apache.flink.streaming.api.datastream.DataStream;
+import org.apache.flink.streaming.api.datastream.DataStreamSink;
+import org.apache.flink.streaming.api.functions.sink.DiscardingSink;
 import org.apache.flink.streaming.api.functions.sink.PrintSinkFunction;
-import org.apache.flink.streaming.api.functions.sink.SinkFunction;
 import org.apache.flink.streaming.connectors.gcp.pubsub.PubSubSink;
 import org.apache.flink.streaming.connectors.kafka.FlinkKafkaProducer011;
+import org.apache.flink.streaming.util.serialization.KeyedSerializationSchema;
 
 public class AlertsSink {
 
-  public static SinkFunction<String> createAlertsSink(Config config) throws IOException {
+  /**
+   * Adds the configured alerts sink. Kafka and Pub/Sub sinks encode alerts straight to bytes with
+   * an {@link AlertSerializationSchema} and run with the parallelism of the alerts, chained to the
+   * rule evaluation; alerts printed to stdout are converted to JSON strings first.
+   */
+  public static <Event, Value> DataStreamSink<?> addAlertsSink(
+      DataStream<Alert<Event, Value>> alerts, Config config) throws IOException {
 
     String sinkType = config.get(ALERTS_SINK);
     AlertsSink.Type alertsSinkType = AlertsSink.Type.valueOf(sinkType.toUpperCase());
+    AlertSerializationSchema<Event, Value> schema =
+        new AlertSerializationSchema<>(config.get(ALERTS_RULE_REFERENCES));
 
+    DataStreamSink<?> sink;
     switch (alertsSinkType) {
       case KAFKA:
         Properties kafkaProps = KafkaUtils.initProducerProperties(config);
         String alertsTopic = config.get(ALERTS_TOPIC);
-        return new FlinkKafkaProducer011<>(alertsTopic, new SimpleStringSchema(), kafkaProps);
+        KeyedSerializationSchema<Alert<Event, Value>> keyedSchema = schema;
+        sink = alerts.addSink(new FlinkKafkaProducer011<>(alertsTopic, keyedSchema, kafkaProps));
+        break;
       case PUBSUB:
-        return PubSubSink.<String>newBuilder()
-            .withSerializationSchema(new SimpleStringSchema())
-            .withProjectName(config.get(GCP_PROJECT_NAME))
-            .withTopicName(config.get(GCP_PUBSUB_ALERTS_SUBSCRIPTION))
-            .build();
+        sink =
+            alerts.addSink(
+                PubSubSink.<Alert<Event, Value>>newBuilder()
+                    .withSerializationSchema(schema)
+                    .withProjectName(config.get(GCP_PROJECT_NAME))
+                    .withTopicName(config.get(GCP_PUBSUB_ALERTS_SUBSCRIPTION))
+                    .build());
+        break;
       case STDOUT:
-        return new PrintSinkFunction<>(true);
+        sink =
+            alertsStreamToJson(alerts, schema)
+                .addSink(new PrintSinkFunction<>(true))
+                .setParallelism(1);
+        break;
+      case DISCARD:
+        sink = alerts.addSink(new DiscardingSink<>());
+        break;
       default:
         throw new IllegalArgumentException(
             "Source \"" + alertsSinkType + "\" unknown. Known values are:" + Type.values());
     }
+    return sink.name(alertsSinkType.getName());
   }
 
-  public static DataStream<String> alertsStreamToJson(DataStream<Alert> alerts) {
-    return alerts.flatMap(new JsonSerializer<>(Alert.class)).name("Alerts Deserialization");
+  public static <Event, Value> DataStream<String> alertsStreamToJson(
+      DataStream<Alert<Event, Value>> alerts, AlertSerializationSchema<Event, Value> schema) {
+    return alerts.map(new ToJson<>(schema)).name("Alerts Serialization");
+  }
+
+  private static class ToJson<Event, Value> implements MapFunction<Alert<Event, Value>, String> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final AlertSerializationSchema<Event, Value> schema;
+
+    ToJson(AlertSerializationSchema<Event, Value> schema) {
+      this.schema = schema;
+    }
+
+    @Override
+    public String map(Alert<Event, Value> alert) {
+      return new String(schema.serialize(alert), StandardCharsets.UTF_8);
+    }
   }
 
   public enum Type {
     KAFKA("Alerts Sink (Kafka)"),
     PUBSUB("Alerts Sink (Pub/Sub)"),
-    STDOUT("Alerts Sink (Std. Out)");
+    STDOUT("Alerts Sink (Std. Out)"),
+    DISCARD("Alerts Sink (Discard)");
 
     private String name;
 
@@ -31,6 +31,7 @@ import java.io.IOException;
 import java.util.Properties;
 import org.apache.flink.api.common.serialization.SimpleStringSchema;
 import org.apache.flink.streaming.api.datastream.DataStream;
+import org.apache.flink.streaming.api.functions.sink.DiscardingSink;
 import org.apache.flink.streaming.api.functions.sink.PrintSinkFunction;
 import org.apache.flink.streaming.api.functions.sink.SinkFunction;
 import org.apache.flink.streaming.connectors.gcp.pubsub.PubSubSink;
@@ -57,6 +58,8 @@ public class CurrentRulesSink {
             .build();
       case STDOUT:
         return new PrintSinkFunction<>(true);
+      case DISCARD:
+        return new DiscardingSink<>();
       default:
         throw new IllegalArgumentException(
             "Source \"" + currentRulesSinkType + "\" unknown. Known values are:" + Type.values());
@@ -70,7 +73,8 @@ public class CurrentRulesSink {
   public enum Type {
     KAFKA("Alerts Sink (Kafka)"),
     PUBSUB("Alerts Sink (Pub/Sub)"),
-    STDOUT("Alerts Sink (Std. Out)");
+    STDOUT("Alerts Sink (Std. Out)"),
+    DISCARD("Alerts Sink (Discard)");
 
     private String name;
 
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules.sinks;
+
+import static com.ververica.field.config.Parameters.TRACES_SINK;
+import static com.ververica.field.config.Parameters.TRACES_TOPIC;
+
+import com.ververica.field.config.Config;
+import com.ververica.field.dynamicrules.EvaluationTrace;
+import com.ververica.field.dynamicrules.KafkaUtils;
+import java.util.Properties;
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.serialization.SerializationSchema;
+import org.apache.flink.api.common.serialization.TypeInformationSerializationSchema;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.streaming.api.functions.sink.DiscardingSink;
+import org.apache.flink.streaming.api.functions.sink.PrintSinkFunction;
+import org.apache.flink.streaming.api.functions.sink.SinkFunction;
+import org.apache.flink.streaming.connectors.kafka.FlinkKafkaProducer011;
+
+public class TracesSink {
+
+  public static SinkFunction<EvaluationTrace> createTracesSink(
+      Config config, ExecutionConfig executionConfig) {
+
+    String sinkType = config.get(TRACES_SINK);
+    TracesSink.Type tracesSinkType = TracesSink.Type.valueOf(sinkType.toUpperCase());
+
+    switch (tracesSinkType) {
+      case KAFKA:
+        Properties kafkaProps = KafkaUtils.initProducerProperties(config);
+        String tracesTopic = config.get(TRACES_TOPIC);
+        // Binary records, readable with the same schema by Flink jobs.
+        SerializationSchema<EvaluationTrace> schema =
+            new TypeInformationSerializationSchema<>(
+                TypeInformation.of(EvaluationTrace.class), executionConfig);
+        return new FlinkKafkaProducer011<>(tracesTopic, schema, kafkaProps);
+      case STDOUT:
+        return new PrintSinkFunction<>(true);
+      case DISCARD:
+        return new DiscardingSink<>();
+      default:
+        throw new IllegalArgumentException(
+            "Source \"" + tracesSinkType + "\" unknown. Known values are:" + Type.values());
+    }
+  }
+
+  public enum Type {
+    KAFKA("Traces Sink (Kafka)"),
+    STDOUT("Traces Sink (Std. Out)"),
+    DISCARD("Traces Sink (Discard)");
+
+    private String name;
+
+    Type(String name) {
+      this.name = name;
+    }
+
+    public String getName() {
+      return name;
+    }
+  }
+}
@@ -23,12 +23,15 @@ import static com.ververica.field.config.Parameters.GCP_PUBSUB_RULES_SUBSCRIPTIO
 import static com.ververica.field.config.Parameters.RULES_SOURCE;
 import static com.ververica.field.config.Parameters.RULES_TOPIC;
 import static com.ververica.field.config.Parameters.SOCKET_PORT;
+import static com.ververica.field.config.Parameters.STATIC_RULES;
 
 import com.ververica.field.config.Config;
 import com.ververica.field.dynamicrules.KafkaUtils;
 import com.ververica.field.dynamicrules.Rule;
 import com.ververica.field.dynamicrules.functions.RuleDeserializer;
+import com.ververica.field.sources.StaticSource;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Properties;
 import java.util.concurrent.TimeUnit;
 import org.apache.flink.api.common.serialization.SimpleStringSchema;
@@ -65,6 +68,8 @@ public class RulesSource {
             .build();
       case SOCKET:
         return new SocketTextStreamFunction("localhost", config.get(SOCKET_PORT), "\n", -1);
+      case STATIC:
+        return new StaticSource(Arrays.asList(config.get(STATIC_RULES).split(";")));
       default:
         throw new IllegalArgumentException(
             "Source \"" + rulesSourceType + "\" unknown. Known values are:" + Type.values());
@@ -89,7 +94,8 @@ public class RulesSource {
   public enum Type {
     KAFKA("Rules Source (Kafka)"),
     PUBSUB("Rules Source (Pub/Sub)"),
-    SOCKET("Rules Source (Socket)");
+    SOCKET("Rules Source (Socket)"),
+    STATIC("Rules Source (Static)");
 
     private String name;
 
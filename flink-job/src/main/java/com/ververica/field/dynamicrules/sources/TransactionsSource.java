@@ -20,24 +20,25 @@ package com.ververica.field.dynamicrules.sources;
 
 import static com.ververica.field.config.Parameters.DATA_TOPIC;
 import static com.ververica.field.config.Parameters.RECORDS_PER_SECOND;
+import static com.ververica.field.config.Parameters.TRANSACTIONS_FORMAT;
 import static com.ververica.field.config.Parameters.TRANSACTIONS_SOURCE;
 
 import com.ververica.field.config.Config;
 import com.ververica.field.dynamicrules.KafkaUtils;
 import com.ververica.field.dynamicrules.Transaction;
-import com.ververica.field.dynamicrules.functions.JsonDeserializer;
-import com.ververica.field.dynamicrules.functions.JsonGeneratorWrapper;
-import com.ververica.field.dynamicrules.functions.TimeStamper;
 import com.ververica.field.dynamicrules.functions.TransactionsGenerator;
+import com.ververica.field.dynamicrules.serialization.TransactionDeserializationSchema;
 import java.util.Properties;
-import org.apache.flink.api.common.serialization.SimpleStringSchema;
-import org.apache.flink.streaming.api.datastream.DataStream;
 import org.apache.flink.streaming.api.functions.source.SourceFunction;
 import org.apache.flink.streaming.connectors.kafka.FlinkKafkaConsumer011;
 
 public class TransactionsSource {
 
-  public static SourceFunction<String> createTransactionsSource(Config config) {
+  /**
+   * Creates a source of transactions which are already parsed and stamped with their ingestion
+   * time.
+   */
+  public static SourceFunction<Transaction> createTransactionsSource(Config config) {
 
     String sourceType = config.get(TRANSACTIONS_SOURCE);
     TransactionsSource.Type transactionsSourceType =
@@ -49,25 +50,19 @@ public class TransactionsSource {
       case KAFKA:
         Properties kafkaProps = KafkaUtils.initConsumerProperties(config);
         String transactionsTopic = config.get(DATA_TOPIC);
-        FlinkKafkaConsumer011<String> kafkaConsumer =
-            new FlinkKafkaConsumer011<>(transactionsTopic, new SimpleStringSchema(), kafkaProps);
+        TransactionDeserializationSchema.Format format =
+            TransactionDeserializationSchema.Format.valueOf(
+                config.get(TRANSACTIONS_FORMAT).toUpperCase());
+        FlinkKafkaConsumer011<Transaction> kafkaConsumer =
+            new FlinkKafkaConsumer011<>(
+                transactionsTopic, new TransactionDeserializationSchema(format), kafkaProps);
         kafkaConsumer.setStartFromLatest();
         return kafkaConsumer;
       default:
-        return new JsonGeneratorWrapper<>(new TransactionsGenerator(transactionsPerSecond));
+        return new TransactionsGenerator(transactionsPerSecond);
     }
   }
 
-  public static DataStream<Transaction> stringsStreamToTransactions(
-      DataStream<String> transactionStrings) {
-    return transactionStrings
-        .flatMap(new JsonDeserializer<Transaction>(Transaction.class))
-        .returns(Transaction.class)
-        .flatMap(new TimeStamper<Transaction>())
-        .returns(Transaction.class)
-        .name("Transactions Deserialization");
-  }
-
   public enum Type {
     GENERATOR("Transactions Source (generated locally)"),
     KAFKA("Transactions Source (Kafka)");
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules.windows;
+
+import com.ververica.field.dynamicrules.FixedPoint;
+import com.ververica.field.dynamicrules.serialization.ContributionTypeInfo;
+import org.apache.flink.api.common.typeinfo.TypeInfo;
+
+/**
+ * What all values of one field and timestamp contribute to the {@link SlidingWindowAggregate}s
+ * over the field: their sum and count, or a candidate for the extremum. Contributions are kept in
+ * keyed state one by one, linked to the previous and next contribution of the same {@link
+ * ContributionSeries} by their timestamps, so that updating an aggregate only reads and writes the
+ * contributions at the ends of its window.
+ */
+@TypeInfo(ContributionTypeInfo.Factory.class)
+public class Contribution {
+
+  private long timestamp;
+  /* A FixedPoint sum, or the candidate extremum. */
+  private long value;
+  private long count;
+  private long previous;
+  private long next;
+
+  public Contribution() {}
+
+  public Contribution(long timestamp, long value, long count) {
+    this.timestamp = timestamp;
+    this.value = value;
+    this.count = count;
+  }
+
+  public Contribution(long timestamp, long value, long count, long previous, long next) {
+    this(timestamp, value, count);
+    this.previous = previous;
+    this.next = next;
+  }
+
+  void add(long sum, long count) {
+    value = FixedPoint.add(value, sum);
+    this.count += count;
+  }
+
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  public long getValue() {
+    return value;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  /** Timestamp of the previous contribution; undefined for the oldest one. */
+  public long getPrevious() {
+    return previous;
+  }
+
+  public void setPrevious(long previous) {
+    this.previous = previous;
+  }
+
+  /** Timestamp of the next contribution; undefined for the latest one. */
+  public long getNext() {
+    return next;
+  }
+
+  public void setNext(long next) {
+    this.next = next;
+  }
+}
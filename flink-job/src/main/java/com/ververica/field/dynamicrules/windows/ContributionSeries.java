@@ -0,0 +1,276 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ververica.field.dynamicrules.windows;
+
+import com.ververica.field.dynamicrules.Rule.AggregatorFunctionType;
+import com.ververica.field.dynamicrules.RuleHelper;
+
+/**
+ * The {@link Contribution}s of all values of one field stored for a key, in timestamp order, shared
+ * by the {@link SlidingWindowAggregate}s of all rules aggregating the field the same way, whatever
+ * their windows.
+ *
+ * <p>Series for SUM and AVG keep one contribution per timestamp. Series for MIN and MAX keep the
+ * candidates for the extremum as a monotonic deque: a value is only kept while no newer value is at
+ * least as extreme, so the values are strictly decreasing (MAX) or increasing (MIN). Whether a
+ * newer value dominates an older one does not depend on the window, so the aggregates of all
+ * windows find their extremum in the same deque, at the oldest candidate inside their window.
+ *
+ * <p>Aggregates only read the contributions of a series. Contributions are only removed once they
+ * are dominated, or older than the window store keeps values.
+ */
+public abstract class ContributionSeries {
+
+  private final Contributions contributions;
+
+  /* The timestamps of the oldest and latest contribution, undefined if there is none. */
+  private boolean empty = true;
+  private long head;
+  private long tail;
+
+  ContributionSeries(Contributions contributions) {
+    this.contributions = contributions;
+  }
+
+  /** Creates an empty series for aggregates of the given function type. */
+  public static ContributionSeries create(
+      AggregatorFunctionType aggregatorFunctionType, Contributions contributions) {
+    switch (aggregatorFunctionType) {
+      case SUM:
+      case AVG:
+        return new Sums(contributions);
+      case MIN:
+      case MAX:
+        return new Extrema(aggregatorFunctionType, contributions);
+      default:
+        throw new IllegalArgumentException(
+            "Unsupported incremental aggregation function type: " + aggregatorFunctionType);
+    }
+  }
+
+  /**
+   * Returns the name of the series shared by aggregates of the given function over the given field,
+   * such as {@code SUM(paymentAmount)}: AVG shares the series of SUM, and all counting rules count
+   * into {@code SUM(*)}.
+   */
+  public static String nameOf(
+      AggregatorFunctionType aggregatorFunctionType, String aggregateFieldName) {
+    AggregatorFunctionType seriesFunctionType =
+        aggregatorFunctionType == AggregatorFunctionType.AVG
+            ? AggregatorFunctionType.SUM
+            : aggregatorFunctionType;
+    String fieldName = RuleHelper.countsEvents(aggregateFieldName) ? "*" : aggregateFieldName;
+    return seriesFunctionType + "(" + fieldName + ")";
+  }
+
+  /** Returns the function type of aggregates sharing the series of the given name. */
+  public static AggregatorFunctionType functionTypeOf(String name) {
+    return AggregatorFunctionType.valueOf(name.substring(0, name.indexOf('(')));
+  }
+
+  /** Restores the ends of a non-empty series. */
+  public void restore(long head, long tail) {
+    this.empty = false;
+    this.head = head;
+    this.tail = tail;
+  }
+
+  /**
+   * Adds the partial aggregate of all values stored for the given timestamp.
+   *
+   * @return whether the values are part of the series now, which dominated extrema are not
+   */
+  public abstract boolean add(long timestamp, PartialAggregate partial) throws Exception;
+
+  /** Removes all contributions before the given timestamp. */
+  public void evictBefore(long timestamp) throws Exception {
+    while (!empty && head < timestamp) {
+      removeHead();
+    }
+  }
+
+  /** Removes all contributions. */
+  public void clear() throws Exception {
+    while (!empty) {
+      removeHead();
+    }
+  }
+
+  public boolean isEmpty() {
+    return empty;
+  }
+
+  /** Timestamp of the oldest contribution; undefined if there is none. */
+  public long getHead() {
+    return head;
+  }
+
+  /** Timestamp of the latest contribution; undefined if there is none. */
+  public long getTail() {
+    return tail;
+  }
+
+  public Contribution get(long timestamp) throws Exception {
+    return contributions.get(timestamp);
+  }
+
+  /** Returns the latest contribution, {@code null} if there is none. */
+  protected Contribution getLatest() throws Exception {
+    return empty ? null : contributions.get(tail);
+  }
+
+  /** Returns the contribution before the given one, {@code null} if it is the oldest one. */
+  protected Contribution getPrevious(Contribution contribution) throws Exception {
+    return contribution.getTimestamp() == head
+        ? null
+        : contributions.get(contribution.getPrevious());
+  }
+
+  /**
+   * Links a new contribution in between two others, replacing whatever was linked between them.
+   *
+   * @param older the contribution before the new one, {@code null} to make it the oldest one
+   * @param newer the contribution after the new one, {@code null} to make it the latest one
+   */
+  protected void link(Contribution older, Contribution added, Contribution newer)
+      throws Exception {
+    long timestamp = added.getTimestamp();
+    if (older == null) {
+      head = timestamp;
+    } else {
+      added.setPrevious(older.getTimestamp());
+      older.setNext(timestamp);
+      contributions.put(older.getTimestamp(), older);
+    }
+    if (newer == null) {
+      tail = timestamp;
+    } else {
+      added.setNext(newer.getTimestamp());
+      newer.setPrevious(timestamp);
+      contributions.put(newer.getTimestamp(), newer);
+    }
+    contributions.put(timestamp, added);
+    empty = false;
+  }
+
+  /** Writes back a changed contribution. */
+  protected void update(Contribution contribution) throws Exception {
+    contributions.put(contribution.getTimestamp(), contribution);
+  }
+
+  /**
+   * Removes a contribution without relinking its neighbours, which is left to a following {@link
+   * #link} between them.
+   */
+  protected void unlink(Contribution removed) throws Exception {
+    contributions.remove(removed.getTimestamp());
+    if (removed.getTimestamp() == tail) {
+      tail = removed.getPrevious();
+    }
+  }
+
+  private void removeHead() throws Exception {
+    Contribution oldest = contributions.get(head);
+    contributions.remove(head);
+    if (head == tail) {
+      empty = true;
+    } else {
+      head = oldest.getNext();
+    }
+  }
+
+  /** Series of the sums and counts of each timestamp's values, for SUM and AVG. */
+  private static class Sums extends ContributionSeries {
+
+    Sums(Contributions contributions) {
+      super(contributions);
+    }
+
+    @Override
+    public boolean add(long timestamp, PartialAggregate partial) throws Exception {
+      long partialSum = partial.getResult(AggregatorFunctionType.SUM);
+      // Out-of-order values are inserted further back, walking there from the latest contribution.
+      Contribution newer = null;
+      Contribution older = getLatest();
+      while (older != null && older.getTimestamp() > timestamp) {
+        newer = older;
+        older = getPrevious(older);
+      }
+      if (older != null && older.getTimestamp() == timestamp) {
+        older.add(partialSum, partial.getCount());
+        update(older);
+      } else {
+        link(older, new Contribution(timestamp, partialSum, partial.getCount()), newer);
+      }
+      return true;
+    }
+  }
+
+  /** Series of the candidates for the extremum, for MIN and MAX. */
+  private static class Extrema extends ContributionSeries {
+
+    private final AggregatorFunctionType aggregatorFunctionType;
+
+    Extrema(AggregatorFunctionType aggregatorFunctionType, Contributions contributions) {
+      super(contributions);
+      this.aggregatorFunctionType = aggregatorFunctionType;
+    }
+
+    @Override
+    public boolean add(long timestamp, PartialAggregate partial) throws Exception {
+      long value = partial.getResult(aggregatorFunctionType);
+      // Out-of-order values are inserted further back, walking there from the latest candidate.
+      Contribution newer = null;
+      Contribution older = getLatest();
+      while (older != null && older.getTimestamp() > timestamp) {
+        newer = older;
+        older = getPrevious(older);
+      }
+      // The oldest newer candidate is the most extreme one of all newer values.
+      if (newer != null && isAtLeastAsExtreme(newer.getValue(), value)) {
+        return false;
+      }
+      while (older != null && isAtLeastAsExtreme(value, older.getValue())) {
+        Contribution dominated = older;
+        older = getPrevious(dominated);
+        unlink(dominated);
+      }
+      // Unless a more extreme value of the same timestamp already is a candidate.
+      if (older != null && older.getTimestamp() == timestamp) {
+        return false;
+      }
+      link(older, new Contribution(timestamp, value, 1), newer);
+      return true;
+    }
+
+    private boolean isAtLeastAsExtreme(long value, long other) {
+      return SlidingWindowExtremum.isAtLeastAsExtreme(aggregatorFunctionType, value, other);
+    }
+  }
+
+  /** Keyed state holding the contributions of one series, by their timestamps. */
+  public interface Contributions {
+
+    Contribution get(long timestamp) throws Exception;
+
+    void put(long timestamp, Contribution contribution) throws Exception;
+
+    void remove(long timestamp) throws Exception;
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ververica.field.dynamicrules.windows;
+
+import com.ververica.field.dynamicrules.Rule;
+import com.ververica.field.dynamicrules.Transaction;
+import com.ververica.field.dynamicrules.serialization.ProjectedEventsSerializer;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import org.apache.flink.api.common.functions.RuntimeContext;
+import org.apache.flink.api.common.state.MapState;
+import org.apache.flink.api.common.state.MapStateDescriptor;
+import org.apache.flink.api.common.typeutils.base.LongSerializer;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.streaming.api.functions.co.KeyedBroadcastProcessFunction;
+
+/**
+ * Window store keeping all events of the current key, grouped by their event timestamp. Events are
+ * not stored as a whole, but projected onto the fields aggregated by the key's rules, see {@link
+ * Projection}. A rule aggregating a field no other rule of its keys needed before therefore only
+ * sees the events from its broadcast on, like with the pane stores.
+ */
+public class EventWindowStore implements ReplayableWindowStore {
+
+  private final MapStateDescriptor<Long, ProjectedEvents> windowStateDescriptor =
+      new MapStateDescriptor<>(
+          "windowState", LongSerializer.INSTANCE, ProjectedEventsSerializer.INSTANCE);
+
+  private final MapState<Long, ProjectedEvents> windowState;
+  private Projection projection = Projection.EMPTY;
+
+  public EventWindowStore(RuntimeContext runtimeContext) {
+    this.windowState = runtimeContext.getMapState(windowStateDescriptor);
+  }
+
+  @Override
+  public long align(long timestamp) {
+    return timestamp;
+  }
+
+  @Override
+  public List<Rule> add(List<Rule> rules, Transaction event) throws Exception {
+    List<Rule> valueRules = projection.getValueRules(rules);
+    if (valueRules.isEmpty()) {
+      return valueRules;
+    }
+    long eventTime = event.getEventTime();
+    ProjectedEvents events = windowState.get(eventTime);
+    if (events == null) {
+      events = new ProjectedEvents();
+    }
+    projection.addTo(events, valueRules, event);
+    windowState.put(eventTime, events);
+    return valueRules;
+  }
+
+  @Override
+  public void onRulesUpdate(Iterable<Rule> rules) throws Exception {
+    projection = Projection.of(rules);
+  }
+
+  private static String getAggregateFieldName(Rule rule) throws Exception {
+    return rule.getFieldAccessors(Transaction.class).getAggregateFieldName();
+  }
+
+  @Override
+  public PartialAggregate aggregate(Rule rule, long windowStart, long windowEnd) throws Exception {
+    String fieldName = getAggregateFieldName(rule);
+    PartialAggregate aggregate = PartialAggregate.forFunction(rule.getAggregatorFunctionType());
+    for (Map.Entry<Long, ProjectedEvents> entry : windowState.entries()) {
+      long stateEventTime = entry.getKey();
+      if (stateEventTime >= windowStart && stateEventTime <= windowEnd) {
+        entry.getValue().addTo(fieldName, aggregate);
+      }
+    }
+    return aggregate;
+  }
+
+  @Override
+  public PartialAggregate[] aggregate(List<Rule> rules, long windowEnd) throws Exception {
+    long[] windowStarts = new long[rules.size()];
+    String[] fieldNames = new String[rules.size()];
+    PartialAggregate[] aggregates = new PartialAggregate[rules.size()];
+    long firstWindowStart = windowEnd;
+    for (int i = 0; i < aggregates.length; i++) {
+      windowStarts[i] = rules.get(i).getWindowStartFor(windowEnd);
+      fieldNames[i] = getAggregateFieldName(rules.get(i));
+      aggregates[i] = PartialAggregate.forFunction(rules.get(i).getAggregatorFunctionType());
+      firstWindowStart = Math.min(firstWindowStart, windowStarts[i]);
+    }
+    for (Map.Entry<Long, ProjectedEvents> entry : windowState.entries()) {
+      long stateEventTime = entry.getKey();
+      if (stateEventTime >= firstWindowStart && stateEventTime <= windowEnd) {
+        for (int i = 0; i < aggregates.length; i++) {
+          if (stateEventTime >= windowStarts[i]) {
+            entry.getValue().addTo(fieldNames[i], aggregates[i]);
+          }
+        }
+      }
+    }
+    return aggregates;
+  }
+
+  @Override
+  public void replay(Rule rule, ContributionSeries series) throws Exception {
+    String fieldName = getAggregateFieldName(rule);
+    SortedMap<Long, PartialAggregate> partials = new TreeMap<>();
+    for (Map.Entry<Long, ProjectedEvents> entry : windowState.entries()) {
+      PartialAggregate partial = PartialAggregate.forFunction(rule.getAggregatorFunctionType());
+      entry.getValue().addTo(fieldName, partial);
+      if (partial.getCount() > 0) {
+        partials.put(entry.getKey(), partial);
+      }
+    }
+    for (Map.Entry<Long, PartialAggregate> entry : partials.entrySet()) {
+      series.add(entry.getKey(), entry.getValue());
+    }
+  }
+
+  @Override
+  public long evictBefore(long timestamp, Counter evicted) throws Exception {
+    long earliestTimestamp = Long.MAX_VALUE;
+    Iterator<Long> keys = windowState.keys().iterator();
+    while (keys.hasNext()) {
+      long stateEventTime = keys.next();
+      if (stateEventTime < timestamp) {
+        keys.remove();
+        evicted.inc();
+      } else {
+        earliestTimestamp = Math.min(earliestTimestamp, stateEventTime);
+      }
+    }
+    return earliestTimestamp;
+  }
+
+  @Override
+  public void clear() {
+    windowState.clear();
+  }
+
+  @Override
+  public void clearAll(KeyedBroadcastProcessFunction<?, ?, ?, ?>.Context ctx) throws Exception {
+    ctx.applyToKeyedState(windowStateDescriptor, (key, state) -> state.clear());
+  }
+
+  @Override
+  public void onRuleChange(
+      Rule previous, Rule updated, KeyedBroadcastProcessFunction<?, ?, ?, ?>.Context ctx) {
+    // Events do not depend on rules.
+  }
+}
@@ -0,0 +1,400 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules.windows;
+
+import com.ververica.field.config.Durations;
+import com.ververica.field.dynamicrules.Rule;
+import com.ververica.field.dynamicrules.Transaction;
+import com.ververica.field.dynamicrules.serialization.PaneTypeInfo;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.flink.api.common.functions.RuntimeContext;
+import org.apache.flink.api.common.state.MapState;
+import org.apache.flink.api.common.state.MapStateDescriptor;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeinfo.BasicTypeInfo;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.SimpleCounter;
+import org.apache.flink.streaming.api.functions.co.KeyedBroadcastProcessFunction;
+import org.apache.flink.util.Preconditions;
+
+/**
+ * Window store keeping partial aggregates of panes at several resolutions, e.g. seconds, minutes,
+ * hours and days, so that very long windows can be evaluated with a near-constant number of state
+ * accesses.
+ *
+ * <p>Each event is added to the pane containing it on every level. Finer levels keep their panes
+ * for the last two panes of the next coarser level, counted from the latest event of the key, and
+ * for the rule windows whose left edge they resolve, see below; older data is only left in the
+ * coarser panes it was rolled up into. The coarsest level keeps its panes until they are evicted
+ * from the window.
+ *
+ * <p>A window query covers its range with non-overlapping panes, always picking the coarsest pane
+ * which is retained, starts at the current position and ends within the range. The middle of the
+ * window is thus combined from coarse panes, and only its edges from fine ones. The exact edges of
+ * the window of an event at {@code t} are as follows:
+ *
+ * <ul>
+ *   <li>The left edge is resolved at the window's edge level: the level just finer than the
+ *       coarsest level whose panes fit into the window, or the finest level if there is none. The
+ *       window starts at the start of the pane of the edge level containing {@code t -
+ *       windowMillis}. With the default levels, a 30 second or 10 minute window starts at a full
+ *       second, a 2 hour window at a full minute and a 30 day window at a full hour, so it covers
+ *       at most an hour more than 30 days. Finer levels do not resolve the edge, since the panes
+ *       at the edge were filled a whole window ago: a level resolving it keeps its panes for the
+ *       whole window, e.g. 720 hour panes for a 30 day window.
+ *   <li>The window ends at the end of the finest pane containing {@code t}.
+ * </ul>
+ *
+ * <p>An event may be so late, or a rule window so recently widened, that the level resolving an
+ * edge no longer keeps panes for it. That edge is then resolved at the finest level which does. As
+ * with the {@link PaneWindowStore}, windows may thus include events slightly older than the window
+ * start or newer than {@code t}, and panes hold one partial aggregate per aggregated field.
+ */
+public class HierarchicalPaneWindowStore implements WindowStore {
+
+  /** Number of panes of the next coarser level for which a level keeps its own panes. */
+  private static final int RETAINED_COARSER_PANES = 2;
+
+  private final long[] levelMillis;
+
+  private final List<MapStateDescriptor<Long, Pane>> paneStateDescriptors = new ArrayList<>();
+
+  private final ValueStateDescriptor<Long> latestTimestampStateDescriptor =
+      new ValueStateDescriptor<>("paneLevelsLatestTimestamp", BasicTypeInfo.LONG_TYPE_INFO);
+
+  private final List<MapState<Long, Pane>> paneStates = new ArrayList<>();
+
+  private final ValueState<Long> latestTimestampState;
+  private Projection projection = Projection.EMPTY;
+  /* For each level, the widest window of active and paused rules whose left edge it resolves. */
+  private long[] edgeWindowMillis;
+
+  public HierarchicalPaneWindowStore(RuntimeContext runtimeContext, long[] levelMillis) {
+    checkLevels(levelMillis);
+    this.levelMillis = levelMillis.clone();
+    this.edgeWindowMillis = new long[levelMillis.length];
+    for (long paneMillis : levelMillis) {
+      MapStateDescriptor<Long, Pane> descriptor =
+          new MapStateDescriptor<>(
+              "paneState-" + paneMillis, BasicTypeInfo.LONG_TYPE_INFO, PaneTypeInfo.INSTANCE);
+      paneStateDescriptors.add(descriptor);
+      paneStates.add(runtimeContext.getMapState(descriptor));
+    }
+    this.latestTimestampState = runtimeContext.getState(latestTimestampStateDescriptor);
+  }
+
+  /**
+   * Parses a comma-separated list of pane sizes from fine to coarse, each a number followed by one
+   * of the units {@code ms}, {@code s}, {@code m}, {@code h} or {@code d}, e.g. {@code
+   * "1s,1m,1h,1d"}.
+   */
+  public static long[] parseLevels(String levels) {
+    String[] sizes = levels.split(",");
+    long[] levelMillis = new long[sizes.length];
+    for (int i = 0; i < sizes.length; i++) {
+      levelMillis[i] = Durations.parseMillis(sizes[i]);
+    }
+    checkLevels(levelMillis);
+    return levelMillis;
+  }
+
+  static void checkLevels(long[] levelMillis) {
+    Preconditions.checkArgument(levelMillis.length > 0, "At least one pane level is required");
+    for (int i = 0; i < levelMillis.length; i++) {
+      Preconditions.checkArgument(levelMillis[i] > 0, "Pane sizes must be positive");
+      Preconditions.checkArgument(
+          i == 0
+              || (levelMillis[i] > levelMillis[i - 1] && levelMillis[i] % levelMillis[i - 1] == 0),
+          "Each pane size must be a multiple of the previous one: %s, %s",
+          i == 0 ? null : levelMillis[i - 1],
+          levelMillis[i]);
+    }
+  }
+
+  @Override
+  public long align(long timestamp) {
+    return align(timestamp, 0);
+  }
+
+  private long align(long timestamp, int level) {
+    return timestamp - Math.floorMod(timestamp, levelMillis[level]);
+  }
+
+  /** First timestamp whose data the given level still keeps. */
+  private long retainedFrom(int level, long latestTimestamp) {
+    if (level == levelMillis.length - 1) {
+      return Long.MIN_VALUE;
+    }
+    long retainedFrom =
+        align(latestTimestamp, level + 1) - RETAINED_COARSER_PANES * levelMillis[level + 1];
+    if (edgeWindowMillis[level] > 0) {
+      // Also keeps the pane of the next coarser level before the edge, for late events.
+      retainedFrom =
+          Math.min(
+              retainedFrom,
+              align(latestTimestamp - edgeWindowMillis[level], level + 1)
+                  - levelMillis[level + 1]);
+    }
+    return retainedFrom;
+  }
+
+  /** The level resolving the left edge of windows of the given length, see the class comment. */
+  private int edgeLevel(long windowMillis) {
+    int coarsestFitting = 0;
+    while (coarsestFitting + 1 < levelMillis.length
+        && levelMillis[coarsestFitting + 1] <= windowMillis) {
+      coarsestFitting++;
+    }
+    return Math.max(coarsestFitting - 1, 0);
+  }
+
+  private int finestLevelRetaining(long timestamp, long latestTimestamp) {
+    int level = 0;
+    while (timestamp < retainedFrom(level, latestTimestamp)) {
+      level++;
+    }
+    return level;
+  }
+
+  private long getLatestTimestamp(long fallback) throws Exception {
+    Long latestTimestamp = latestTimestampState.value();
+    return latestTimestamp == null ? fallback : latestTimestamp;
+  }
+
+  @Override
+  public List<Rule> add(List<Rule> rules, Transaction event) throws Exception {
+    List<Rule> paneRules = projection.getValueRules(rules);
+    if (paneRules.isEmpty()) {
+      return paneRules;
+    }
+    String[] fieldNames = new String[paneRules.size()];
+    long[] values = PaneWindowStore.getPaneValues(paneRules, event, fieldNames);
+    long eventTime = event.getEventTime();
+    Long previousLatestTimestamp = latestTimestampState.value();
+    long latestTimestamp = eventTime;
+    if (previousLatestTimestamp == null) {
+      latestTimestampState.update(latestTimestamp);
+    } else if (previousLatestTimestamp < eventTime) {
+      latestTimestampState.update(latestTimestamp);
+      dropRolledUpPanes(previousLatestTimestamp, latestTimestamp);
+    } else {
+      latestTimestamp = previousLatestTimestamp;
+    }
+
+    for (int level = finestLevelRetaining(eventTime, latestTimestamp);
+        level < levelMillis.length;
+        level++) {
+      MapState<Long, Pane> paneState = paneStates.get(level);
+      long paneStart = align(eventTime, level);
+      Pane pane = paneState.get(paneStart);
+      if (pane == null) {
+        pane = new Pane();
+      }
+      for (int i = 0; i < values.length; i++) {
+        pane.add(fieldNames[i], values[i]);
+      }
+      paneState.put(paneStart, pane);
+    }
+    return paneRules;
+  }
+
+  /**
+   * Drops the panes which finer levels stopped retaining when the latest timestamp moved on. These
+   * are a contiguous range of pane starts per level, removed one by one instead of iterating over
+   * all panes of the level, unless the range is longer than a level ever keeps.
+   */
+  private void dropRolledUpPanes(long previousLatestTimestamp, long latestTimestamp)
+      throws Exception {
+    for (int level = 0; level < levelMillis.length - 1; level++) {
+      MapState<Long, Pane> paneState = paneStates.get(level);
+      long firstDropped = retainedFrom(level, previousLatestTimestamp);
+      long firstRetained = retainedFrom(level, latestTimestamp);
+      long maxRetainedMillis = (RETAINED_COARSER_PANES + 1) * levelMillis[level + 1];
+      if (firstRetained - firstDropped > maxRetainedMillis) {
+        PaneWindowStore.evictBefore(paneState, firstRetained, new SimpleCounter());
+      } else {
+        for (long paneStart = firstDropped;
+            paneStart < firstRetained;
+            paneStart += levelMillis[level]) {
+          paneState.remove(paneStart);
+        }
+      }
+    }
+  }
+
+  @Override
+  public PartialAggregate aggregate(Rule rule, long windowStart, long windowEnd) throws Exception {
+    PartialAggregate aggregate = PartialAggregate.forFunction(rule.getAggregatorFunctionType());
+    aggregate(
+        windowStart,
+        windowEnd,
+        getLatestTimestamp(windowEnd),
+        new String[] {PaneWindowStore.getAggregateFieldName(rule)},
+        new PartialAggregate[] {aggregate},
+        new ArrayList<>());
+    return aggregate;
+  }
+
+  /**
+   * Aggregates all rules in a single pass: rules with the same window share one walk over the
+   * panes, and the walks of different windows share the panes they read, which are mostly the same
+   * coarse panes and the same right edge.
+   */
+  @Override
+  public PartialAggregate[] aggregate(List<Rule> rules, long windowEnd) throws Exception {
+    long latestTimestamp = getLatestTimestamp(windowEnd);
+    PartialAggregate[] aggregates = new PartialAggregate[rules.size()];
+    Map<Long, List<Integer>> positionsByWindowStart = new HashMap<>();
+    for (int i = 0; i < aggregates.length; i++) {
+      Rule rule = rules.get(i);
+      aggregates[i] = PartialAggregate.forFunction(rule.getAggregatorFunctionType());
+      positionsByWindowStart
+          .computeIfAbsent(rule.getWindowStartFor(windowEnd), start -> new ArrayList<>())
+          .add(i);
+    }
+    List<Map<Long, Pane>> readPanes = new ArrayList<>(levelMillis.length);
+    for (Map.Entry<Long, List<Integer>> window : positionsByWindowStart.entrySet()) {
+      List<Integer> positions = window.getValue();
+      String[] fieldNames = new String[positions.size()];
+      PartialAggregate[] windowAggregates = new PartialAggregate[positions.size()];
+      for (int i = 0; i < fieldNames.length; i++) {
+        fieldNames[i] = PaneWindowStore.getAggregateFieldName(rules.get(positions.get(i)));
+        windowAggregates[i] = aggregates[positions.get(i)];
+      }
+      aggregate(
+          window.getKey(), windowEnd, latestTimestamp, fieldNames, windowAggregates, readPanes);
+    }
+    return aggregates;
+  }
+
+  /**
+   * Walks over the panes covering the window {@code [windowStart, windowEnd]}, merging the partial
+   * aggregates of the given fields into the aggregates at the same positions.
+   *
+   * @param readPanes the panes read so far, per level, which are read from state only once
+   */
+  private void aggregate(
+      long windowStart,
+      long windowEnd,
+      long latestTimestamp,
+      String[] fieldNames,
+      PartialAggregate[] aggregates,
+      List<Map<Long, Pane>> readPanes)
+      throws Exception {
+    while (readPanes.size() < levelMillis.length) {
+      readPanes.add(new HashMap<>());
+    }
+    long paneStart = align(windowStart, finestLevelRetaining(windowStart, latestTimestamp));
+    long rangeEnd = align(windowEnd) + levelMillis[0];
+    while (paneStart < rangeEnd) {
+      int level = coarsestLevelAt(paneStart, rangeEnd, latestTimestamp);
+      Map<Long, Pane> levelPanes = readPanes.get(level);
+      Pane pane;
+      if (levelPanes.containsKey(paneStart)) {
+        pane = levelPanes.get(paneStart);
+      } else {
+        pane = paneStates.get(level).get(paneStart);
+        levelPanes.put(paneStart, pane);
+      }
+      if (pane != null) {
+        for (int i = 0; i < fieldNames.length; i++) {
+          PartialAggregate partial = pane.get(fieldNames[i]);
+          if (partial != null) {
+            aggregates[i].merge(partial);
+          }
+        }
+      }
+      paneStart += levelMillis[level];
+    }
+  }
+
+  /**
+   * Picks the coarsest retained level with a pane starting at {@code paneStart} and ending within
+   * the range. If there is none, the pane of the finest retaining level extends beyond the range.
+   */
+  private int coarsestLevelAt(long paneStart, long rangeEnd, long latestTimestamp) {
+    for (int level = levelMillis.length - 1; level >= 0; level--) {
+      if (align(paneStart, level) == paneStart
+          && paneStart + levelMillis[level] <= rangeEnd
+          && paneStart >= retainedFrom(level, latestTimestamp)) {
+        return level;
+      }
+    }
+    return finestLevelRetaining(paneStart, latestTimestamp);
+  }
+
+  @Override
+  public long evictBefore(long timestamp, Counter evicted) throws Exception {
+    long latestTimestamp = getLatestTimestamp(timestamp);
+    long earliestTimestamp = Long.MAX_VALUE;
+    for (int level = 0; level < levelMillis.length; level++) {
+      long firstPane = Math.max(align(timestamp, level), retainedFrom(level, latestTimestamp));
+      earliestTimestamp =
+          Math.min(
+              earliestTimestamp,
+              PaneWindowStore.lastTimestampOf(
+                  PaneWindowStore.evictBefore(paneStates.get(level), firstPane, evicted),
+                  levelMillis[level]));
+    }
+    if (earliestTimestamp == Long.MAX_VALUE) {
+      latestTimestampState.clear();
+    }
+    return earliestTimestamp;
+  }
+
+  @Override
+  public void clear() {
+    for (MapState<Long, Pane> paneState : paneStates) {
+      paneState.clear();
+    }
+    latestTimestampState.clear();
+  }
+
+  @Override
+  public void clearAll(KeyedBroadcastProcessFunction<?, ?, ?, ?>.Context ctx) throws Exception {
+    for (MapStateDescriptor<Long, Pane> descriptor : paneStateDescriptors) {
+      ctx.applyToKeyedState(descriptor, (key, state) -> state.clear());
+    }
+    ctx.applyToKeyedState(latestTimestampStateDescriptor, (key, state) -> state.clear());
+  }
+
+  @Override
+  public void onRuleChange(
+      Rule previous, Rule updated, KeyedBroadcastProcessFunction<?, ?, ?, ?>.Context ctx)
+      throws Exception {
+    PaneWindowStore.removeDroppedField(projection, previous, updated, ctx, paneStateDescriptors);
+  }
+
+  @Override
+  public void onRulesUpdate(Iterable<Rule> rules) throws Exception {
+    projection = Projection.of(rules);
+    long[] edgeWindowMillis = new long[levelMillis.length];
+    for (Rule rule : rules) {
+      if (rule.getRuleState() == Rule.RuleState.ACTIVE
+          || rule.getRuleState() == Rule.RuleState.PAUSE) {
+        int level = edgeLevel(rule.getWindowMillis());
+        edgeWindowMillis[level] = Math.max(edgeWindowMillis[level], rule.getWindowMillis());
+      }
+    }
+    this.edgeWindowMillis = edgeWindowMillis;
+  }
+}
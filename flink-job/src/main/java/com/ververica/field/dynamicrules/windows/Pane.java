@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ververica.field.dynamicrules.windows;
+
+import com.ververica.field.dynamicrules.RuleFieldAccessors;
+import com.ververica.field.dynamicrules.serialization.PaneTypeInfo;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.flink.api.common.typeinfo.TypeInfo;
+
+/**
+ * Partial aggregates of all events of a pane, one for each field aggregated by the rules of the
+ * key, and one counting the events if any rule of the key counts them. Rules aggregating the same
+ * field share its partial aggregate.
+ */
+@TypeInfo(PaneTypeInfo.Factory.class)
+public class Pane {
+
+  private final Map<String, PartialAggregate> fieldPartials;
+  /* Null if no events are counted. */
+  private PartialAggregate countPartial;
+
+  public Pane() {
+    this(new HashMap<>(), null);
+  }
+
+  public Pane(Map<String, PartialAggregate> fieldPartials, PartialAggregate countPartial) {
+    this.fieldPartials = fieldPartials;
+    this.countPartial = countPartial;
+  }
+
+  /** Partial aggregates by field name. */
+  public Map<String, PartialAggregate> getFieldPartials() {
+    return fieldPartials;
+  }
+
+  /** Partial aggregate of the counted events, {@code null} if no events are counted. */
+  public PartialAggregate getCountPartial() {
+    return countPartial;
+  }
+
+  /**
+   * Returns the partial aggregate of the given field, or of the counted events if the field name is
+   * {@code null}, see {@link RuleFieldAccessors#getAggregateFieldName()}.
+   */
+  public PartialAggregate get(String fieldName) {
+    return fieldName == null ? countPartial : fieldPartials.get(fieldName);
+  }
+
+  public void add(String fieldName, long value) {
+    if (fieldName != null) {
+      fieldPartials.computeIfAbsent(fieldName, name -> new PartialAggregate()).add(value);
+    } else {
+      if (countPartial == null) {
+        countPartial = new PartialAggregate();
+      }
+      countPartial.add(value);
+    }
+  }
+
+  public boolean remove(String fieldName) {
+    if (fieldName != null) {
+      return fieldPartials.remove(fieldName) != null;
+    }
+    boolean removed = countPartial != null;
+    countPartial = null;
+    return removed;
+  }
+
+  public boolean isEmpty() {
+    return fieldPartials.isEmpty() && countPartial == null;
+  }
+}
@@ -0,0 +1,279 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ververica.field.dynamicrules.windows;
+
+import com.ververica.field.dynamicrules.GroupingKey;
+import com.ververica.field.dynamicrules.Rule;
+import com.ververica.field.dynamicrules.RuleFieldAccessors;
+import com.ververica.field.dynamicrules.RuleHelper;
+import com.ververica.field.dynamicrules.Transaction;
+import com.ververica.field.dynamicrules.serialization.PaneTypeInfo;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import org.apache.flink.api.common.functions.RuntimeContext;
+import org.apache.flink.api.common.state.MapState;
+import org.apache.flink.api.common.state.MapStateDescriptor;
+import org.apache.flink.api.common.typeinfo.BasicTypeInfo;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.streaming.api.functions.co.KeyedBroadcastProcessFunction;
+
+/**
+ * Window store keeping partial aggregates of fixed-size panes instead of single events.
+ *
+ * <p>Events are assigned to the pane {@code [p, p + paneMillis)} containing their timestamp, and
+ * each pane holds one {@link PartialAggregate} per field aggregated by the key's rules, plus one
+ * counting the events, see {@link Pane}. The state therefore grows with the number of panes in the
+ * window and the number of distinct fields rather than with the number of events or rules. Each
+ * field of an event is added once, however often the event is routed to the key, see {@link
+ * Projection}.
+ *
+ * <p>Rules combine all panes that overlap their window, so windows are aligned to pane boundaries:
+ * the window of an event at {@code t} contains all events of the panes from the one containing
+ * {@code t - windowMillis} up to the one containing {@code t}. This includes events of those two
+ * panes which are slightly older than the window start or newer than {@code t}. A pane size of one
+ * millisecond gives the same results as the {@link EventWindowStore}.
+ *
+ * <p>Since events are no longer kept, a rule only aggregates events that were routed to the key
+ * while a rule of the key aggregating the same field existed. Partial aggregates of a field are
+ * discarded once no rule of the key aggregates it any more.
+ */
+public class PaneWindowStore implements ReplayableWindowStore {
+
+  private final long paneMillis;
+
+  private final MapStateDescriptor<Long, Pane> paneStateDescriptor =
+      new MapStateDescriptor<>("paneState", BasicTypeInfo.LONG_TYPE_INFO, PaneTypeInfo.INSTANCE);
+
+  private final MapState<Long, Pane> paneState;
+  private Projection projection = Projection.EMPTY;
+
+  public PaneWindowStore(RuntimeContext runtimeContext, long paneMillis) {
+    this.paneMillis = paneMillis;
+    this.paneState = runtimeContext.getMapState(paneStateDescriptor);
+  }
+
+  @Override
+  public long align(long timestamp) {
+    return timestamp - Math.floorMod(timestamp, paneMillis);
+  }
+
+  @Override
+  public List<Rule> add(List<Rule> rules, Transaction event) throws Exception {
+    List<Rule> paneRules = projection.getValueRules(rules);
+    if (paneRules.isEmpty()) {
+      return paneRules;
+    }
+    String[] fieldNames = new String[paneRules.size()];
+    long[] values = getPaneValues(paneRules, event, fieldNames);
+    long paneStart = align(event.getEventTime());
+    Pane pane = paneState.get(paneStart);
+    if (pane == null) {
+      pane = new Pane();
+    }
+    for (int i = 0; i < values.length; i++) {
+      pane.add(fieldNames[i], values[i]);
+    }
+    paneState.put(paneStart, pane);
+    return paneRules;
+  }
+
+  /**
+   * Extracts the values an event adds to panes for the given rules of {@link
+   * Projection#getValueRules}, before any pane is changed.
+   *
+   * @param fieldNames receives the names of the fields the values are added to
+   */
+  static long[] getPaneValues(List<Rule> paneRules, Transaction event, String[] fieldNames)
+      throws Exception {
+    long[] values = new long[paneRules.size()];
+    for (int i = 0; i < values.length; i++) {
+      fieldNames[i] = getAggregateFieldName(paneRules.get(i));
+      values[i] = RuleHelper.getAggregatedValue(paneRules.get(i), event);
+    }
+    return values;
+  }
+
+  /** Name of the field whose partial aggregates the rule combines, {@code null} for counts. */
+  static String getAggregateFieldName(Rule rule) throws Exception {
+    return rule.getFieldAccessors(Transaction.class).getAggregateFieldName();
+  }
+
+  @Override
+  public void onRulesUpdate(Iterable<Rule> rules) throws Exception {
+    projection = Projection.of(rules);
+  }
+
+  @Override
+  public PartialAggregate aggregate(Rule rule, long windowStart, long windowEnd) throws Exception {
+    long firstPane = align(windowStart);
+    long lastPane = align(windowEnd);
+    String fieldName = getAggregateFieldName(rule);
+    PartialAggregate aggregate = PartialAggregate.forFunction(rule.getAggregatorFunctionType());
+    for (Map.Entry<Long, Pane> entry : paneState.entries()) {
+      if (entry.getKey() >= firstPane && entry.getKey() <= lastPane) {
+        PartialAggregate partial = entry.getValue().get(fieldName);
+        if (partial != null) {
+          aggregate.merge(partial);
+        }
+      }
+    }
+    return aggregate;
+  }
+
+  @Override
+  public PartialAggregate[] aggregate(List<Rule> rules, long windowEnd) throws Exception {
+    long[] firstPanes = new long[rules.size()];
+    String[] fieldNames = new String[rules.size()];
+    PartialAggregate[] aggregates = new PartialAggregate[rules.size()];
+    long firstPane = align(windowEnd);
+    long lastPane = firstPane;
+    for (int i = 0; i < aggregates.length; i++) {
+      firstPanes[i] = align(rules.get(i).getWindowStartFor(windowEnd));
+      fieldNames[i] = getAggregateFieldName(rules.get(i));
+      aggregates[i] = PartialAggregate.forFunction(rules.get(i).getAggregatorFunctionType());
+      firstPane = Math.min(firstPane, firstPanes[i]);
+    }
+    for (Map.Entry<Long, Pane> entry : paneState.entries()) {
+      long paneStart = entry.getKey();
+      if (paneStart >= firstPane && paneStart <= lastPane) {
+        for (int i = 0; i < aggregates.length; i++) {
+          PartialAggregate partial = entry.getValue().get(fieldNames[i]);
+          if (paneStart >= firstPanes[i] && partial != null) {
+            aggregates[i].merge(partial);
+          }
+        }
+      }
+    }
+    return aggregates;
+  }
+
+  @Override
+  public void replay(Rule rule, ContributionSeries series) throws Exception {
+    String fieldName = getAggregateFieldName(rule);
+    SortedMap<Long, PartialAggregate> partials = new TreeMap<>();
+    for (Map.Entry<Long, Pane> entry : paneState.entries()) {
+      PartialAggregate partial = entry.getValue().get(fieldName);
+      if (partial != null) {
+        partials.put(entry.getKey(), partial);
+      }
+    }
+    for (Map.Entry<Long, PartialAggregate> entry : partials.entrySet()) {
+      series.add(entry.getKey(), entry.getValue());
+    }
+  }
+
+  @Override
+  public long evictBefore(long timestamp, Counter evicted) throws Exception {
+    return lastTimestampOf(evictBefore(paneState, align(timestamp), evicted), paneMillis);
+  }
+
+  /** Returns the last timestamp of the pane with the given start, if there is one. */
+  static long lastTimestampOf(long paneStart, long paneMillis) {
+    return paneStart == Long.MAX_VALUE ? Long.MAX_VALUE : paneStart + paneMillis - 1;
+  }
+
+  /**
+   * Removes all panes starting before the given pane start.
+   *
+   * @return the earliest pane start left, {@link Long#MAX_VALUE} if there is none
+   */
+  static long evictBefore(MapState<Long, Pane> paneState, long firstPane, Counter evicted)
+      throws Exception {
+    long earliestPane = Long.MAX_VALUE;
+    Iterator<Long> paneStarts = paneState.keys().iterator();
+    while (paneStarts.hasNext()) {
+      long paneStart = paneStarts.next();
+      if (paneStart < firstPane) {
+        paneStarts.remove();
+        evicted.inc();
+      } else {
+        earliestPane = Math.min(earliestPane, paneStart);
+      }
+    }
+    return earliestPane;
+  }
+
+  @Override
+  public void clear() {
+    paneState.clear();
+  }
+
+  @Override
+  public void clearAll(KeyedBroadcastProcessFunction<?, ?, ?, ?>.Context ctx) throws Exception {
+    ctx.applyToKeyedState(paneStateDescriptor, (key, state) -> state.clear());
+  }
+
+  @Override
+  public void onRuleChange(
+      Rule previous, Rule updated, KeyedBroadcastProcessFunction<?, ?, ?, ?>.Context ctx)
+      throws Exception {
+    removeDroppedField(
+        projection, previous, updated, ctx, Collections.singletonList(paneStateDescriptor));
+  }
+
+  /**
+   * Drops the partial aggregates of the rule's previous field from all panes of the keys of its
+   * previous set of grouping keys, if no other rule of that set aggregates the field any more.
+   */
+  static void removeDroppedField(
+      Projection projection,
+      Rule previous,
+      Rule updated,
+      KeyedBroadcastProcessFunction<?, ?, ?, ?>.Context ctx,
+      List<MapStateDescriptor<Long, Pane>> paneStateDescriptors)
+      throws Exception {
+    if (previous == null || !projection.dropsField(previous, updated)) {
+      return;
+    }
+    RuleFieldAccessors accessors = previous.getFieldAccessors(Transaction.class);
+    long keySetId = accessors.getKeySetId();
+    String fieldName = accessors.getAggregateFieldName();
+    for (MapStateDescriptor<Long, Pane> descriptor : paneStateDescriptors) {
+      ctx.applyToKeyedState(
+          descriptor,
+          (key, state) -> {
+            if (((GroupingKey) key).getKeySetId() == keySetId) {
+              removeField(state, fieldName);
+            }
+          });
+    }
+  }
+
+  /** Drops the partial aggregates of the given field from all panes of the current key. */
+  static void removeField(MapState<Long, Pane> paneState, String fieldName) throws Exception {
+    List<Map.Entry<Long, Pane>> changed = new ArrayList<>();
+    for (Map.Entry<Long, Pane> entry : paneState.entries()) {
+      if (entry.getValue().remove(fieldName)) {
+        changed.add(entry);
+      }
+    }
+    for (Map.Entry<Long, Pane> entry : changed) {
+      if (entry.getValue().isEmpty()) {
+        paneState.remove(entry.getKey());
+      } else {
+        paneState.put(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+}
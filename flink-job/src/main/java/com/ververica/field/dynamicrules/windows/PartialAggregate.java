@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules.windows;
+
+import com.ververica.field.dynamicrules.FixedPoint;
+import com.ververica.field.dynamicrules.Rule.AggregatorFunctionType;
+import com.ververica.field.dynamicrules.serialization.PartialAggregateTypeInfo;
+import org.apache.flink.api.common.typeinfo.TypeInfo;
+import org.apache.flink.util.Preconditions;
+
+/**
+ * Partial SUM, COUNT, MIN and MAX over a subset of the values of a rule's aggregate field, all kept
+ * as primitive {@link FixedPoint} numbers.
+ *
+ * <p>Adding values never fails: a sum leaving the fixed-point range is marked as overflowed, and
+ * only the results of the functions using it fail. Aggregates computed for a single function, see
+ * {@link #forFunction}, do not add up the sum at all unless the function needs it.
+ */
+@TypeInfo(PartialAggregateTypeInfo.Factory.class)
+public class PartialAggregate {
+
+  private long sum;
+  private long count;
+  private long min = Long.MAX_VALUE;
+  private long max = Long.MIN_VALUE;
+  private boolean summing = true;
+  private boolean sumOverflowed;
+
+  public PartialAggregate() {}
+
+  public PartialAggregate(
+      long sum, long count, long min, long max, boolean summing, boolean sumOverflowed) {
+    this.sum = sum;
+    this.count = count;
+    this.min = min;
+    this.max = max;
+    this.summing = summing;
+    this.sumOverflowed = sumOverflowed;
+  }
+
+  public static PartialAggregate of(long value) {
+    PartialAggregate partial = new PartialAggregate();
+    partial.add(value);
+    return partial;
+  }
+
+  /** Creates an empty aggregate which only computes what the given function needs. */
+  public static PartialAggregate forFunction(AggregatorFunctionType aggregatorFunctionType) {
+    PartialAggregate partial = new PartialAggregate();
+    partial.summing = usesSum(aggregatorFunctionType);
+    return partial;
+  }
+
+  private static boolean usesSum(AggregatorFunctionType aggregatorFunctionType) {
+    return aggregatorFunctionType == AggregatorFunctionType.SUM
+        || aggregatorFunctionType == AggregatorFunctionType.AVG;
+  }
+
+  public void add(long value) {
+    addToSum(value);
+    count++;
+    min = Math.min(min, value);
+    max = Math.max(max, value);
+  }
+
+  public void merge(PartialAggregate other) {
+    if (other.count == 0) {
+      return;
+    }
+    summing &= other.summing;
+    if (other.sumOverflowed) {
+      sumOverflowed = true;
+    } else {
+      addToSum(other.sum);
+    }
+    count += other.count;
+    min = Math.min(min, other.min);
+    max = Math.max(max, other.max);
+  }
+
+  private void addToSum(long value) {
+    if (summing && !sumOverflowed) {
+      try {
+        sum = FixedPoint.add(sum, value);
+      } catch (ArithmeticException e) {
+        sumOverflowed = true;
+      }
+    }
+  }
+
+  /** Whether no values were added, in which case there is no result. */
+  public boolean isEmpty() {
+    return count == 0;
+  }
+
+  /**
+   * Returns the value of the given aggregate function over all values added so far.
+   *
+   * @throws IllegalStateException if no values were added, or the function's result was not
+   *     computed
+   * @throws ArithmeticException if the function needs the sum, which overflowed
+   */
+  public long getResult(AggregatorFunctionType aggregatorFunctionType) {
+    Preconditions.checkState(count > 0, "No values to aggregate");
+    switch (aggregatorFunctionType) {
+      case SUM:
+        return getCheckedSum();
+      case AVG:
+        return FixedPoint.average(getCheckedSum(), count);
+      case MIN:
+        return min;
+      case MAX:
+        return max;
+      default:
+        throw new RuntimeException(
+            "Unsupported aggregation function type: " + aggregatorFunctionType);
+    }
+  }
+
+  private long getCheckedSum() {
+    Preconditions.checkState(summing, "The sum was not computed");
+    if (sumOverflowed) {
+      throw new ArithmeticException("Fixed-point overflow of the sum of " + count + " values");
+    }
+    return sum;
+  }
+
+  /** The sum, undefined if it is not {@link #isSumming() computed} or {@link #isSumOverflowed}. */
+  public long getSum() {
+    return sum;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public long getMin() {
+    return min;
+  }
+
+  public long getMax() {
+    return max;
+  }
+
+  /** Whether values are added up to the sum. */
+  public boolean isSumming() {
+    return summing;
+  }
+
+  /** Whether the sum left the fixed-point range. */
+  public boolean isSumOverflowed() {
+    return sumOverflowed;
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules.windows;
+
+import com.ververica.field.dynamicrules.FixedPoint;
+import java.util.Arrays;
+
+/**
+ * Projection of all events of the current key with the same timestamp onto the fields the key's
+ * rules aggregate: for each aggregated field, the {@link FixedPoint} values of the events, and the
+ * number of events counted for rules which count them. The {@link Projection} decides which values
+ * of an event are stored with which of its routes to the key. Fields are only stored while a rule
+ * needs them, so a field's values may cover fewer events than another's.
+ */
+public class ProjectedEvents {
+
+  private long count;
+  private String[] fieldNames;
+  private long[][] values;
+
+  public ProjectedEvents() {
+    this(0, new String[0], new long[0][]);
+  }
+
+  public ProjectedEvents(long count, String[] fieldNames, long[][] values) {
+    this.count = count;
+    this.fieldNames = fieldNames;
+    this.values = values;
+  }
+
+  /** Counts one more event, for the rules which count events instead of aggregating a field. */
+  public void addCount() {
+    count++;
+  }
+
+  public void addValue(String fieldName, long value) {
+    int field = indexOf(fieldName);
+    if (field < 0) {
+      field = fieldNames.length;
+      fieldNames = Arrays.copyOf(fieldNames, field + 1);
+      values = Arrays.copyOf(values, field + 1);
+      fieldNames[field] = fieldName;
+      values[field] = new long[] {value};
+    } else {
+      long[] fieldValues = Arrays.copyOf(values[field], values[field].length + 1);
+      fieldValues[fieldValues.length - 1] = value;
+      values[field] = fieldValues;
+    }
+  }
+
+  /** Returns the values stored for the given field, or {@code null} if there are none. */
+  public long[] getValues(String fieldName) {
+    int field = indexOf(fieldName);
+    return field < 0 ? null : values[field];
+  }
+
+  /**
+   * Adds all values of the given field to the partial aggregate, or a {@link FixedPoint#ONE} per
+   * counted event for a {@code null} field name, as counting rules do.
+   */
+  public void addTo(String fieldName, PartialAggregate aggregate) {
+    if (fieldName == null) {
+      for (long i = 0; i < count; i++) {
+        aggregate.add(FixedPoint.ONE);
+      }
+    } else {
+      long[] fieldValues = getValues(fieldName);
+      if (fieldValues != null) {
+        for (long value : fieldValues) {
+          aggregate.add(value);
+        }
+      }
+    }
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public String[] getFieldNames() {
+    return fieldNames;
+  }
+
+  public long[][] getFieldValues() {
+    return values;
+  }
+
+  private int indexOf(String fieldName) {
+    for (int i = 0; i < fieldNames.length; i++) {
+      if (fieldNames[i].equals(fieldName)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules.windows;
+
+import com.ververica.field.dynamicrules.Rule;
+import com.ververica.field.dynamicrules.RuleFieldAccessors;
+import com.ververica.field.dynamicrules.RuleHelper;
+import com.ververica.field.dynamicrules.Transaction;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Decides which values of an event are stored for a key, computed from all active and paused rules
+ * whenever they change. The window stores keep the values of each field a rule of a key's set of
+ * grouping keys aggregates, and the count of events for counting rules, so that paused rules resume
+ * with complete windows. Nothing is stored for fields no rule aggregates.
+ *
+ * <p>Stored values do not tell transactions apart, so each field of a key set, or its count, is
+ * stored with the route of a single rule: the first active rule of the set aggregating the field,
+ * or the set's first active rule if only paused rules aggregate it. Fanned out by key set, an event
+ * reaches a key once for all rules of the set, which stores all of its fields. Fanned out by rule,
+ * it reaches the key once per rule, in the order of their rule ids, so each field's value is stored
+ * once, before any other rule aggregating it is evaluated.
+ */
+public final class Projection {
+
+  /** Stores nothing. */
+  public static final Projection EMPTY =
+      new Projection(Collections.emptyList(), Collections.emptyMap());
+
+  /* All active and paused rules, by rule id. */
+  private final List<Rule> storedRules;
+  /* For each active rule, the rules extracting the fields and counts its route stores. */
+  private final Map<Integer, List<Rule>> valueRules;
+
+  private Projection(List<Rule> storedRules, Map<Integer, List<Rule>> valueRules) {
+    this.storedRules = storedRules;
+    this.valueRules = valueRules;
+  }
+
+  public static Projection of(Iterable<Rule> rules) throws Exception {
+    List<Rule> storedRules = new ArrayList<>();
+    for (Rule rule : rules) {
+      if (rule.getRuleState() == Rule.RuleState.ACTIVE
+          || rule.getRuleState() == Rule.RuleState.PAUSE) {
+        storedRules.add(rule);
+      }
+    }
+    storedRules.sort(Comparator.comparing(Rule::getRuleId));
+    return new Projection(storedRules, valueRulesOf(storedRules));
+  }
+
+  private static Map<Integer, List<Rule>> valueRulesOf(List<Rule> storedRules) throws Exception {
+    // Counts are keyed by a null field name.
+    Map<List<String>, Map<String, Rule>> extractingRulesOfKeySets = new HashMap<>();
+    Map<List<String>, Rule> firstActiveRules = new HashMap<>();
+    Map<Integer, List<Rule>> valueRules = new HashMap<>();
+    for (Rule rule : storedRules) {
+      RuleFieldAccessors accessors = rule.getFieldAccessors(Transaction.class);
+      Map<String, Rule> extractingRules =
+          extractingRulesOfKeySets.computeIfAbsent(
+              accessors.getGroupingKeyNames(), names -> new LinkedHashMap<>());
+      Rule extractingRule = extractingRules.get(accessors.getAggregateFieldName());
+      if (rule.getRuleState() == Rule.RuleState.ACTIVE) {
+        firstActiveRules.putIfAbsent(accessors.getGroupingKeyNames(), rule);
+        List<Rule> ownRules = valueRules.computeIfAbsent(rule.getRuleId(), id -> new ArrayList<>());
+        if (extractingRule == null || extractingRule.getRuleState() != Rule.RuleState.ACTIVE) {
+          // Takes over fields of paused rules, which would otherwise be added by the first rule.
+          extractingRules.put(accessors.getAggregateFieldName(), rule);
+          ownRules.add(rule);
+        }
+      } else if (extractingRule == null) {
+        extractingRules.put(accessors.getAggregateFieldName(), rule);
+      }
+    }
+    for (Map.Entry<List<String>, Map<String, Rule>> keySet : extractingRulesOfKeySets.entrySet()) {
+      Rule firstActiveRule = firstActiveRules.get(keySet.getKey());
+      if (firstActiveRule != null) {
+        for (Rule extractingRule : keySet.getValue().values()) {
+          if (extractingRule.getRuleState() != Rule.RuleState.ACTIVE) {
+            valueRules.get(firstActiveRule.getRuleId()).add(extractingRule);
+          }
+        }
+      }
+    }
+    return valueRules;
+  }
+
+  /**
+   * Returns the rules whose values of an event routed to a key for the given rules are stored for
+   * the key, at most one for each aggregated field and one for counting. None are returned for the
+   * routes of rules whose fields are all stored with the route of another rule.
+   */
+  public List<Rule> getValueRules(List<Rule> rules) {
+    List<Rule> routedValueRules = Collections.emptyList();
+    for (Rule rule : rules) {
+      List<Rule> ruleValueRules = valueRules.get(rule.getRuleId());
+      if (ruleValueRules != null && !ruleValueRules.isEmpty()) {
+        if (routedValueRules.isEmpty()) {
+          routedValueRules = ruleValueRules;
+        } else {
+          routedValueRules = new ArrayList<>(routedValueRules);
+          routedValueRules.addAll(ruleValueRules);
+        }
+      }
+    }
+    return routedValueRules;
+  }
+
+  /**
+   * Whether a change of a rule leaves no active or paused rule of its previous set of grouping keys
+   * which aggregates its previous field, or counts if the rule counted. What was stored for that
+   * field is then stale, since nothing is stored for it any more.
+   *
+   * @param previous the rule's previous version, which must be part of this projection
+   * @param updated the rule's new version, {@code null} if the rule was deleted
+   */
+  public boolean dropsField(Rule previous, Rule updated) throws Exception {
+    RuleFieldAccessors accessors = previous.getFieldAccessors(Transaction.class);
+    if (updated != null && storesSameField(updated, accessors)) {
+      return false;
+    }
+    for (Rule rule : storedRules) {
+      if (!rule.getRuleId().equals(previous.getRuleId()) && storesSameField(rule, accessors)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean storesSameField(Rule rule, RuleFieldAccessors accessors)
+      throws Exception {
+    RuleFieldAccessors ruleAccessors = rule.getFieldAccessors(Transaction.class);
+    return (rule.getRuleState() == Rule.RuleState.ACTIVE
+            || rule.getRuleState() == Rule.RuleState.PAUSE)
+        && ruleAccessors.getGroupingKeyNames().equals(accessors.getGroupingKeyNames())
+        && Objects.equals(ruleAccessors.getAggregateFieldName(), accessors.getAggregateFieldName());
+  }
+
+  /**
+   * Adds the values the given rules extract from an event to the projected events of the key, as
+   * returned by {@link #getValueRules} for the rules the event was routed for.
+   */
+  public void addTo(ProjectedEvents events, List<Rule> valueRules, Transaction event)
+      throws Exception {
+    for (Rule valueRule : valueRules) {
+      String fieldName = valueRule.getFieldAccessors(Transaction.class).getAggregateFieldName();
+      if (fieldName == null) {
+        events.addCount();
+      } else {
+        events.addValue(fieldName, RuleHelper.getAggregatedValue(valueRule, event));
+      }
+    }
+  }
+}
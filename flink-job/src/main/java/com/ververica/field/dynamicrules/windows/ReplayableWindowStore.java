@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules.windows;
+
+import com.ververica.field.dynamicrules.Rule;
+
+/**
+ * Window store over whose aligned timestamps rules may keep a {@link SlidingWindowAggregate}
+ * instead of calling {@link #aggregate} for every event, reading the {@link ContributionSeries}
+ * replayed from the store.
+ *
+ * <p>The {@link HierarchicalPaneWindowStore} is not one: its queries only touch a bounded number of
+ * panes anyway, while a running aggregate would have to keep one contribution per finest pane of
+ * the window.
+ */
+public interface ReplayableWindowStore extends WindowStore {
+
+  /**
+   * Adds the rule's values of all events stored for the current key to the series of the rule's
+   * field, in order of their aligned timestamps.
+   */
+  void replay(Rule rule, ContributionSeries series) throws Exception;
+}
@@ -0,0 +1,301 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules.windows;
+
+import com.ververica.field.dynamicrules.Rule;
+import com.ververica.field.dynamicrules.Rule.AggregatorFunctionType;
+import com.ververica.field.dynamicrules.RuleHelper;
+import com.ververica.field.dynamicrules.Transaction;
+import com.ververica.field.dynamicrules.serialization.ContributionTypeInfo;
+import com.ververica.field.dynamicrules.serialization.SlidingWindowAggregateTypeInfo;
+import com.ververica.field.dynamicrules.windows.ContributionSeries.Contributions;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.apache.flink.api.common.functions.RuntimeContext;
+import org.apache.flink.api.common.state.MapState;
+import org.apache.flink.api.common.state.MapStateDescriptor;
+import org.apache.flink.api.common.typeinfo.BasicTypeInfo;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.api.java.typeutils.TupleTypeInfo;
+import org.apache.flink.streaming.api.functions.co.KeyedBroadcastProcessFunction;
+
+/**
+ * Keyed state holding the {@link SlidingWindowAggregate}s of the current key's rules, and the
+ * {@link ContributionSeries} they share, with their ends by series name and their {@link
+ * Contribution}s keyed by (series name, timestamp).
+ *
+ * <p>An event adds each stored value once to each series of its field, and then to all aggregates
+ * reading the series. Series are only kept up to date while an aggregate of the current key reads
+ * them, so a series without one is rebuilt from the window store once it is read again. Their
+ * contributions are evicted along with the window store.
+ */
+public class RunningAggregates {
+
+  /* The function types of all kinds of series. */
+  private static final AggregatorFunctionType[] SERIES_FUNCTION_TYPES = {
+    AggregatorFunctionType.SUM, AggregatorFunctionType.MIN, AggregatorFunctionType.MAX
+  };
+
+  private final MapStateDescriptor<Integer, SlidingWindowAggregate> aggregateStateDescriptor =
+      new MapStateDescriptor<>(
+          "aggregateState", BasicTypeInfo.INT_TYPE_INFO, SlidingWindowAggregateTypeInfo.INSTANCE);
+
+  private final MapStateDescriptor<String, Tuple2<Long, Long>> seriesStateDescriptor =
+      new MapStateDescriptor<>(
+          "aggregateSeries",
+          BasicTypeInfo.STRING_TYPE_INFO,
+          new TupleTypeInfo<>(BasicTypeInfo.LONG_TYPE_INFO, BasicTypeInfo.LONG_TYPE_INFO));
+
+  private final MapStateDescriptor<Tuple2<String, Long>, Contribution>
+      contributionStateDescriptor =
+          new MapStateDescriptor<>(
+              "aggregateSeriesContributions",
+              new TupleTypeInfo<>(BasicTypeInfo.STRING_TYPE_INFO, BasicTypeInfo.LONG_TYPE_INFO),
+              ContributionTypeInfo.INSTANCE);
+
+  private final MapState<Integer, SlidingWindowAggregate> aggregateState;
+  private final MapState<String, Tuple2<Long, Long>> seriesState;
+  private final MapState<Tuple2<String, Long>, Contribution> contributionState;
+
+  public RunningAggregates(RuntimeContext runtimeContext) {
+    this.aggregateState = runtimeContext.getMapState(aggregateStateDescriptor);
+    this.seriesState = runtimeContext.getMapState(seriesStateDescriptor);
+    this.contributionState = runtimeContext.getMapState(contributionStateDescriptor);
+  }
+
+  public SlidingWindowAggregate get(int ruleId) throws Exception {
+    return aggregateState.get(ruleId);
+  }
+
+  public void put(int ruleId, SlidingWindowAggregate aggregate) throws Exception {
+    aggregateState.put(ruleId, aggregate);
+  }
+
+  /**
+   * Creates the running aggregate of a rule over the window from {@code windowStart} on, from the
+   * series another aggregate of the current key shares, or else from a replay of all values the
+   * window store keeps for the key into a new series.
+   */
+  public SlidingWindowAggregate create(
+      Rule rule, long windowStart, ReplayableWindowStore windowStore) throws Exception {
+    SlidingWindowAggregate aggregate = SlidingWindowAggregate.forRule(rule);
+    String seriesName = aggregate.getSeriesName();
+    ContributionSeries series = getSeries(seriesName);
+    if (!isRead(seriesName, rule.getRuleId())) {
+      // Not kept up to date without aggregates reading it.
+      series.clear();
+      try {
+        windowStore.replay(rule, series);
+      } catch (ArithmeticException e) {
+        series.clear();
+        throw e;
+      } finally {
+        putSeries(seriesName, series);
+      }
+    }
+    aggregate.addAll(series, windowStart);
+    return aggregate;
+  }
+
+  private boolean isRead(String seriesName, int exceptRuleId) throws Exception {
+    for (Map.Entry<Integer, SlidingWindowAggregate> entry : aggregateState.entries()) {
+      if (entry.getKey() != exceptRuleId
+          && entry.getValue().getSeriesName().equals(seriesName)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Returns the series the given aggregate of the current key reads. */
+  public ContributionSeries getSeries(SlidingWindowAggregate aggregate) throws Exception {
+    return getSeries(aggregate.getSeriesName());
+  }
+
+  private ContributionSeries getSeries(String seriesName) throws Exception {
+    ContributionSeries series =
+        ContributionSeries.create(
+            ContributionSeries.functionTypeOf(seriesName), contributionsOf(seriesName));
+    Tuple2<Long, Long> ends = seriesState.get(seriesName);
+    if (ends != null) {
+      series.restore(ends.f0, ends.f1);
+    }
+    return series;
+  }
+
+  private void putSeries(String seriesName, ContributionSeries series) throws Exception {
+    if (series.isEmpty()) {
+      seriesState.remove(seriesName);
+    } else {
+      seriesState.put(seriesName, Tuple2.of(series.getHead(), series.getTail()));
+    }
+  }
+
+  private Contributions contributionsOf(String seriesName) {
+    return new Contributions() {
+      @Override
+      public Contribution get(long timestamp) throws Exception {
+        return contributionState.get(Tuple2.of(seriesName, timestamp));
+      }
+
+      @Override
+      public void put(long timestamp, Contribution contribution) throws Exception {
+        contributionState.put(Tuple2.of(seriesName, timestamp), contribution);
+      }
+
+      @Override
+      public void remove(long timestamp) throws Exception {
+        contributionState.remove(Tuple2.of(seriesName, timestamp));
+      }
+    };
+  }
+
+  /**
+   * Adds the values of an event which the window store stored at the given timestamp to the series
+   * read by aggregates of the current key, and to those aggregates.
+   *
+   * @param valueRules the rules whose values of the event were stored, one per field
+   */
+  public void add(List<Rule> valueRules, Transaction event, long timestamp) throws Exception {
+    if (valueRules.isEmpty()) {
+      return;
+    }
+    Map<String, Long> values = new HashMap<>();
+    for (Rule valueRule : valueRules) {
+      long value = RuleHelper.getAggregatedValue(valueRule, event);
+      String fieldName = valueRule.getAggregateFieldName();
+      for (AggregatorFunctionType functionType : SERIES_FUNCTION_TYPES) {
+        values.put(ContributionSeries.nameOf(functionType, fieldName), value);
+      }
+    }
+    List<Map.Entry<Integer, SlidingWindowAggregate>> aggregates = new ArrayList<>();
+    for (Map.Entry<Integer, SlidingWindowAggregate> entry : aggregateState.entries()) {
+      if (values.containsKey(entry.getValue().getSeriesName())) {
+        aggregates.add(entry);
+      }
+    }
+    // Whether the values are part of each series, or null if adding them overflowed.
+    Map<String, Boolean> inSeries = new HashMap<>();
+    for (Map.Entry<Integer, SlidingWindowAggregate> entry : aggregates) {
+      SlidingWindowAggregate aggregate = entry.getValue();
+      String seriesName = aggregate.getSeriesName();
+      PartialAggregate partial = PartialAggregate.of(values.get(seriesName));
+      if (!inSeries.containsKey(seriesName)) {
+        inSeries.put(seriesName, addToSeries(seriesName, timestamp, partial));
+      }
+      Boolean added = inSeries.get(seriesName);
+      if (added == null) {
+        aggregateState.remove(entry.getKey());
+        continue;
+      }
+      try {
+        aggregate.add(timestamp, partial, added);
+        aggregateState.put(entry.getKey(), aggregate);
+      } catch (ArithmeticException e) {
+        // Rebuilt from the series when the rule is evaluated next, and skipped if it overflows.
+        aggregateState.remove(entry.getKey());
+      }
+    }
+  }
+
+  private Boolean addToSeries(String seriesName, long timestamp, PartialAggregate partial)
+      throws Exception {
+    ContributionSeries series = getSeries(seriesName);
+    try {
+      boolean added = series.add(timestamp, partial);
+      putSeries(seriesName, series);
+      return added;
+    } catch (ArithmeticException e) {
+      // The series misses the values now, so it is rebuilt along with its aggregates.
+      return null;
+    }
+  }
+
+  /**
+   * Removes everything before the given timestamp from the aggregates of the current key and from
+   * all series, after the window store evicted it.
+   */
+  public void evictBefore(long timestamp) throws Exception {
+    List<Map.Entry<Integer, SlidingWindowAggregate>> aggregates = new ArrayList<>();
+    for (Map.Entry<Integer, SlidingWindowAggregate> entry : aggregateState.entries()) {
+      aggregates.add(entry);
+    }
+    for (Map.Entry<Integer, SlidingWindowAggregate> entry : aggregates) {
+      SlidingWindowAggregate aggregate = entry.getValue();
+      aggregate.evictBefore(getSeries(aggregate), timestamp);
+      aggregateState.put(entry.getKey(), aggregate);
+    }
+    List<String> seriesNames = new ArrayList<>();
+    for (String seriesName : seriesState.keys()) {
+      seriesNames.add(seriesName);
+    }
+    for (String seriesName : seriesNames) {
+      ContributionSeries series = getSeries(seriesName);
+      series.evictBefore(timestamp);
+      putSeries(seriesName, series);
+    }
+  }
+
+  /**
+   * Removes the given rule's aggregate for the current key, even if it is out of sync after a
+   * failed update.
+   */
+  public void discard(int ruleId) throws Exception {
+    aggregateState.remove(ruleId);
+  }
+
+  /** Removes all aggregates and series of the current key. */
+  public void clear() {
+    aggregateState.clear();
+    seriesState.clear();
+    contributionState.clear();
+  }
+
+  /**
+   * Removes the given rule's aggregates of all keys. Series no other aggregate reads are left to be
+   * evicted, or rebuilt once read again.
+   */
+  public void removeAll(KeyedBroadcastProcessFunction<?, ?, ?, ?>.Context ctx, int ruleId)
+      throws Exception {
+    ctx.applyToKeyedState(aggregateStateDescriptor, (key, state) -> state.remove(ruleId));
+  }
+
+  /**
+   * Checks whether a rule change makes the running aggregates kept for the rule stale: they only
+   * stay valid while the rule keeps its keys, aggregate and window, and stays active or paused.
+   */
+  public static boolean invalidatedBy(Rule previous, Rule updated) {
+    return previous != null
+        && (updated == null
+            || previous.getRuleState() != updated.getRuleState()
+            || !Objects.equals(previous.getGroupingKeyNames(), updated.getGroupingKeyNames())
+            || !Objects.equals(previous.getAggregateFieldName(), updated.getAggregateFieldName())
+            || previous.getAggregatorFunctionType() != updated.getAggregatorFunctionType()
+            || !Objects.equals(previous.getWindowMinutes(), updated.getWindowMinutes()));
+  }
+
+  /** Removes the aggregates and series of all keys. */
+  public void clearAll(KeyedBroadcastProcessFunction<?, ?, ?, ?>.Context ctx) throws Exception {
+    ctx.applyToKeyedState(aggregateStateDescriptor, (key, state) -> state.clear());
+    ctx.applyToKeyedState(seriesStateDescriptor, (key, state) -> state.clear());
+    ctx.applyToKeyedState(contributionStateDescriptor, (key, state) -> state.clear());
+  }
+}
@@ -0,0 +1,251 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ververica.field.dynamicrules.windows;
+
+import com.ververica.field.dynamicrules.Rule;
+import com.ververica.field.dynamicrules.Rule.AggregatorFunctionType;
+import com.ververica.field.dynamicrules.serialization.SlidingWindowAggregateTypeInfo;
+import java.util.Objects;
+import org.apache.flink.api.common.typeinfo.TypeInfo;
+import org.apache.flink.util.Preconditions;
+
+/**
+ * Running aggregate of a single rule over the sliding window that ends at the latest event seen for
+ * a key.
+ *
+ * <p>Values are added as events arrive and dropped again once they fall out of the window, so that
+ * evaluating an in-order event does not require a scan over the whole window state. Instances are
+ * kept in keyed state per (grouping key, rule), but only hold the running value, the start of their
+ * window and the oldest {@link Contribution} in it. The contributions themselves are kept in the
+ * {@link ContributionSeries} of the rule's field, which all rules aggregating the field the same
+ * way share, so an event only adds its value once per field, however many rules aggregate it.
+ */
+@TypeInfo(SlidingWindowAggregateTypeInfo.Factory.class)
+public abstract class SlidingWindowAggregate {
+
+  private long windowMillis;
+  private String aggregateFieldName;
+  private AggregatorFunctionType aggregatorFunctionType;
+
+  private long latestTimestamp = Long.MIN_VALUE;
+  /* Values before it are not part of the aggregate. */
+  private long windowStart = Long.MIN_VALUE;
+
+  /* Whether there is no contribution in the window, and the timestamp of the oldest one. */
+  private boolean empty = true;
+  private long head;
+
+  protected SlidingWindowAggregate() {}
+
+  protected SlidingWindowAggregate(Rule rule) {
+    this.windowMillis = rule.getWindowMillis();
+    this.aggregateFieldName = rule.getAggregateFieldName();
+    this.aggregatorFunctionType = rule.getAggregatorFunctionType();
+  }
+
+  protected SlidingWindowAggregate(
+      long windowMillis,
+      String aggregateFieldName,
+      AggregatorFunctionType aggregatorFunctionType,
+      long latestTimestamp,
+      long windowStart,
+      boolean empty,
+      long head) {
+    this.windowMillis = windowMillis;
+    this.aggregateFieldName = aggregateFieldName;
+    this.aggregatorFunctionType = aggregatorFunctionType;
+    this.latestTimestamp = latestTimestamp;
+    this.windowStart = windowStart;
+    this.empty = empty;
+    this.head = head;
+  }
+
+  /** Returns {@code true} if the rule's aggregate can be maintained incrementally. */
+  public static boolean supports(Rule rule) {
+    switch (rule.getAggregatorFunctionType()) {
+      case SUM:
+      case AVG:
+      case MIN:
+      case MAX:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /** Creates an empty running aggregate for the given rule. */
+  public static SlidingWindowAggregate forRule(Rule rule) {
+    switch (rule.getAggregatorFunctionType()) {
+      case SUM:
+      case AVG:
+        return new SlidingWindowSum(rule);
+      case MIN:
+      case MAX:
+        return new SlidingWindowExtremum(rule);
+      default:
+        throw new IllegalArgumentException(
+            "Unsupported incremental aggregation function type: "
+                + rule.getAggregatorFunctionType());
+    }
+  }
+
+  /**
+   * Checks whether this aggregate was built for the given rule definition. Aggregates of rules that
+   * have since been updated have to be rebuilt.
+   */
+  public boolean isFor(Rule rule) {
+    return windowMillis == rule.getWindowMillis()
+        && Objects.equals(aggregateFieldName, rule.getAggregateFieldName())
+        && aggregatorFunctionType == rule.getAggregatorFunctionType();
+  }
+
+  /** Name of the {@link ContributionSeries} this aggregate reads its contributions from. */
+  public String getSeriesName() {
+    return ContributionSeries.nameOf(aggregatorFunctionType, aggregateFieldName);
+  }
+
+  /** Timestamp of the latest value added so far; the window of the aggregate ends here. */
+  public long getLatestTimestamp() {
+    return latestTimestamp;
+  }
+
+  /** Start of the window; values before it are not part of the aggregate. */
+  public long getWindowStart() {
+    return windowStart;
+  }
+
+  public long getWindowMillis() {
+    return windowMillis;
+  }
+
+  public String getAggregateFieldName() {
+    return aggregateFieldName;
+  }
+
+  public AggregatorFunctionType getAggregatorFunctionType() {
+    return aggregatorFunctionType;
+  }
+
+  /**
+   * Adds all contributions of the series from {@code windowStart} on to a new aggregate, once the
+   * series holds the values stored for the key.
+   */
+  public void addAll(ContributionSeries series, long windowStart) throws Exception {
+    this.windowStart = windowStart;
+    if (series.isEmpty()) {
+      return;
+    }
+    latestTimestamp = Math.max(latestTimestamp, series.getTail());
+    // Walks back from the latest contribution, which only visits those in the window.
+    Contribution contribution = series.get(series.getTail());
+    while (contribution.getTimestamp() >= windowStart) {
+      addContribution(contribution);
+      head = contribution.getTimestamp();
+      empty = false;
+      if (head == series.getHead()) {
+        break;
+      }
+      contribution = series.get(contribution.getPrevious());
+    }
+  }
+
+  /**
+   * Adds the partial aggregate of all values stored for the given timestamp, right after it was
+   * added to the series.
+   *
+   * @param inSeries what the series returned, whether the values are part of it
+   */
+  public void add(long timestamp, PartialAggregate partial, boolean inSeries) throws Exception {
+    if (timestamp >= windowStart && inSeries) {
+      // Fails before anything is changed if the aggregate overflows.
+      if (addValues(timestamp, partial)) {
+        head = timestamp;
+        empty = false;
+      }
+    }
+    latestTimestamp = Math.max(latestTimestamp, timestamp);
+  }
+
+  /**
+   * Moves the end of the window to the given timestamp and drops all values of events older than
+   * {@code windowStart}.
+   */
+  public void slideTo(ContributionSeries series, long timestamp, long windowStart)
+      throws Exception {
+    latestTimestamp = Math.max(latestTimestamp, timestamp);
+    evictBefore(series, windowStart);
+  }
+
+  /** Drops all values of events older than {@code windowStart}. */
+  public void evictBefore(ContributionSeries series, long windowStart) throws Exception {
+    this.windowStart = Math.max(this.windowStart, windowStart);
+    boolean evicted = false;
+    while (!empty && head < windowStart) {
+      Contribution oldest = series.get(head);
+      removeContribution(oldest);
+      if (head == series.getTail()) {
+        empty = true;
+      } else {
+        head = oldest.getNext();
+      }
+      evicted = true;
+    }
+    if (evicted && !empty) {
+      onHeadEvicted(series.get(head));
+    }
+  }
+
+  /**
+   * Adds the values of a timestamp in the window to the running value.
+   *
+   * @return whether the timestamp's contribution is the oldest one in the window now
+   */
+  protected abstract boolean addValues(long timestamp, PartialAggregate partial);
+
+  /** Adds an existing contribution of the window to the running value. */
+  protected abstract void addContribution(Contribution contribution);
+
+  /** Removes the oldest contribution of the window from the running value. */
+  protected abstract void removeContribution(Contribution contribution);
+
+  /** Called with the new oldest contribution in the window, once older ones were evicted. */
+  protected void onHeadEvicted(Contribution head) {}
+
+  /**
+   * Returns the fixed-point aggregate of all values currently in the window.
+   *
+   * @throws IllegalStateException if the window is {@link #isEmpty empty}
+   */
+  public long getResult() {
+    Preconditions.checkState(!empty, "No values in the window");
+    return getNonEmptyResult();
+  }
+
+  protected abstract long getNonEmptyResult();
+
+  /** Whether no values are in the window, in which case there is no result. */
+  public boolean isEmpty() {
+    return empty;
+  }
+
+  /** Timestamp of the oldest contribution in the window; undefined if there is none. */
+  public long getHead() {
+    return head;
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ververica.field.dynamicrules.windows;
+
+import com.ververica.field.dynamicrules.Rule;
+import com.ververica.field.dynamicrules.Rule.AggregatorFunctionType;
+
+/**
+ * Sliding window MIN and MAX, read from the monotonic deque of candidates kept by the series.
+ *
+ * <p>The current extremum is the oldest candidate inside the window. A new candidate becomes it if
+ * it is older, or if it dominates the current one, which the series then dropped. Once the oldest
+ * candidate leaves the window, the next one takes over. Every candidate is added and evicted at
+ * most once, which gives amortized O(1) updates and evictions.
+ */
+public class SlidingWindowExtremum extends SlidingWindowAggregate {
+
+  /* The value of the oldest candidate in the window. */
+  private long extremum;
+
+  public SlidingWindowExtremum() {}
+
+  SlidingWindowExtremum(Rule rule) {
+    super(rule);
+  }
+
+  public SlidingWindowExtremum(
+      long windowMillis,
+      String aggregateFieldName,
+      AggregatorFunctionType aggregatorFunctionType,
+      long latestTimestamp,
+      long windowStart,
+      boolean empty,
+      long head,
+      long extremum) {
+    super(
+        windowMillis,
+        aggregateFieldName,
+        aggregatorFunctionType,
+        latestTimestamp,
+        windowStart,
+        empty,
+        head);
+    this.extremum = extremum;
+  }
+
+  public long getExtremum() {
+    return extremum;
+  }
+
+  @Override
+  protected boolean addValues(long timestamp, PartialAggregate partial) {
+    long value = partial.getResult(getAggregatorFunctionType());
+    if (isEmpty()
+        || timestamp < getHead()
+        || isAtLeastAsExtreme(getAggregatorFunctionType(), value, extremum)) {
+      extremum = value;
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  protected void addContribution(Contribution contribution) {
+    // Walking back through the candidates, the oldest one in the window is added last.
+    extremum = contribution.getValue();
+  }
+
+  @Override
+  protected void removeContribution(Contribution contribution) {}
+
+  @Override
+  protected void onHeadEvicted(Contribution head) {
+    extremum = head.getValue();
+  }
+
+  static boolean isAtLeastAsExtreme(
+      AggregatorFunctionType aggregatorFunctionType, long value, long other) {
+    return aggregatorFunctionType == AggregatorFunctionType.MAX ? value >= other : value <= other;
+  }
+
+  @Override
+  protected long getNonEmptyResult() {
+    return extremum;
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ververica.field.dynamicrules.windows;
+
+import com.ververica.field.dynamicrules.FixedPoint;
+import com.ververica.field.dynamicrules.Rule;
+import com.ververica.field.dynamicrules.Rule.AggregatorFunctionType;
+
+/**
+ * Sliding window SUM and AVG (and COUNT, which is a SUM of ones).
+ *
+ * <p>Reads the contributions of the series with one contribution per distinct timestamp. New values
+ * are added to the running sum and count, and contributions are subtracted again when they leave
+ * the window at its start.
+ */
+public class SlidingWindowSum extends SlidingWindowAggregate {
+
+  private long sum;
+  private long count;
+
+  public SlidingWindowSum() {}
+
+  SlidingWindowSum(Rule rule) {
+    super(rule);
+  }
+
+  public SlidingWindowSum(
+      long windowMillis,
+      String aggregateFieldName,
+      AggregatorFunctionType aggregatorFunctionType,
+      long latestTimestamp,
+      long windowStart,
+      boolean empty,
+      long head,
+      long sum,
+      long count) {
+    super(
+        windowMillis,
+        aggregateFieldName,
+        aggregatorFunctionType,
+        latestTimestamp,
+        windowStart,
+        empty,
+        head);
+    this.sum = sum;
+    this.count = count;
+  }
+
+  public long getSum() {
+    return sum;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  @Override
+  protected boolean addValues(long timestamp, PartialAggregate partial) {
+    sum = FixedPoint.add(sum, partial.getResult(AggregatorFunctionType.SUM));
+    count += partial.getCount();
+    return isEmpty() || timestamp < getHead();
+  }
+
+  @Override
+  protected void addContribution(Contribution contribution) {
+    sum = FixedPoint.add(sum, contribution.getValue());
+    count += contribution.getCount();
+  }
+
+  @Override
+  protected void removeContribution(Contribution contribution) {
+    sum = FixedPoint.subtract(sum, contribution.getValue());
+    count -= contribution.getCount();
+  }
+
+  @Override
+  protected long getNonEmptyResult() {
+    if (getAggregatorFunctionType() == AggregatorFunctionType.AVG) {
+      return FixedPoint.average(sum, count);
+    }
+    return sum;
+  }
+}
@@ -0,0 +1,339 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ververica.field.dynamicrules.windows;
+
+import com.ververica.field.dynamicrules.Rule;
+import com.ververica.field.dynamicrules.Transaction;
+import com.ververica.field.dynamicrules.serialization.ProjectedEventsSerializer;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.flink.api.common.functions.RuntimeContext;
+import org.apache.flink.api.common.state.MapState;
+import org.apache.flink.api.common.state.MapStateDescriptor;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeutils.base.LongSerializer;
+import org.apache.flink.api.common.typeutils.base.array.LongPrimitiveArraySerializer;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.streaming.api.functions.co.KeyedBroadcastProcessFunction;
+
+/**
+ * Window store keeping the same projected events as the {@link EventWindowStore}, but indexed in
+ * time order, so that state accesses are proportional to the window instead of everything retained
+ * for the key's widest rule.
+ *
+ * <p>The events of each timestamp are a map entry of their own, so that adding an event to a known
+ * timestamp writes just that entry. Map state has no range scans common to all state backends, so
+ * the timestamps are indexed explicitly, in buckets grouped into chunks:
+ *
+ * <ul>
+ *   <li>Buckets of a fixed length each hold the sorted timestamps within them. A bucket is only
+ *       rewritten for timestamps new to the key, and holds at most one timestamp per millisecond
+ *       of its length.
+ *   <li>Chunks of {@value #BUCKETS_PER_CHUNK} buckets each hold the sorted starts of their
+ *       non-empty buckets, and only change when a bucket is added or emptied.
+ *   <li>Each key keeps the sorted starts of its non-empty chunks, which only changes when a chunk
+ *       is added or emptied. With the default buckets of 10 seconds, a chunk spans over an hour,
+ *       so a 30 day window has a few hundred of them.
+ * </ul>
+ *
+ * <p>Queries seek to the chunk and bucket of the window start and only visit non-empty buckets up
+ * to the window end, and eviction removes a prefix of each level, without iterating over the map
+ * state of the key. No state entry read or written per event grows with the window length beyond
+ * the chunk starts, which are read once per query.
+ */
+public class TimeOrderedWindowStore implements ReplayableWindowStore {
+
+  static final int BUCKETS_PER_CHUNK = 512;
+
+  private final long bucketMillis;
+  private final long chunkMillis;
+
+  private final MapStateDescriptor<Long, ProjectedEvents> eventStateDescriptor =
+      new MapStateDescriptor<>(
+          "orderedEvents", LongSerializer.INSTANCE, ProjectedEventsSerializer.INSTANCE);
+
+  private final MapStateDescriptor<Long, long[]> bucketStateDescriptor =
+      new MapStateDescriptor<>(
+          "eventBucketTimestamps", LongSerializer.INSTANCE, LongPrimitiveArraySerializer.INSTANCE);
+
+  private final MapStateDescriptor<Long, long[]> chunkStateDescriptor =
+      new MapStateDescriptor<>(
+          "eventChunkBuckets", LongSerializer.INSTANCE, LongPrimitiveArraySerializer.INSTANCE);
+
+  private final ValueStateDescriptor<long[]> chunkIndexStateDescriptor =
+      new ValueStateDescriptor<>("eventChunkIndex", LongPrimitiveArraySerializer.INSTANCE);
+
+  private final MapState<Long, ProjectedEvents> eventState;
+  private final MapState<Long, long[]> bucketState;
+  private final MapState<Long, long[]> chunkState;
+  private final ValueState<long[]> chunkIndexState;
+  private Projection projection = Projection.EMPTY;
+
+  public TimeOrderedWindowStore(RuntimeContext runtimeContext, long bucketMillis) {
+    this.bucketMillis = bucketMillis;
+    this.chunkMillis = bucketMillis * BUCKETS_PER_CHUNK;
+    this.eventState = runtimeContext.getMapState(eventStateDescriptor);
+    this.bucketState = runtimeContext.getMapState(bucketStateDescriptor);
+    this.chunkState = runtimeContext.getMapState(chunkStateDescriptor);
+    this.chunkIndexState = runtimeContext.getState(chunkIndexStateDescriptor);
+  }
+
+  @Override
+  public long align(long timestamp) {
+    return timestamp;
+  }
+
+  private long bucketOf(long timestamp) {
+    return timestamp - Math.floorMod(timestamp, bucketMillis);
+  }
+
+  private long chunkOf(long timestamp) {
+    return timestamp - Math.floorMod(timestamp, chunkMillis);
+  }
+
+  /** Returns the position of the first of the sorted timestamps at or after the given one. */
+  private static int positionOf(long[] timestamps, long timestamp) {
+    int position = Arrays.binarySearch(timestamps, timestamp);
+    return position >= 0 ? position : -position - 1;
+  }
+
+  /** Returns the sorted timestamps with the given one inserted. */
+  private static long[] insert(long[] timestamps, long timestamp) {
+    int position = positionOf(timestamps, timestamp);
+    long[] newTimestamps = new long[timestamps.length + 1];
+    System.arraycopy(timestamps, 0, newTimestamps, 0, position);
+    System.arraycopy(
+        timestamps, position, newTimestamps, position + 1, timestamps.length - position);
+    newTimestamps[position] = timestamp;
+    return newTimestamps;
+  }
+
+  private long[] getChunkIndex() throws Exception {
+    long[] chunkIndex = chunkIndexState.value();
+    return chunkIndex == null ? new long[0] : chunkIndex;
+  }
+
+  @Override
+  public List<Rule> add(List<Rule> rules, Transaction event) throws Exception {
+    List<Rule> valueRules = projection.getValueRules(rules);
+    if (valueRules.isEmpty()) {
+      return valueRules;
+    }
+    long eventTime = event.getEventTime();
+    ProjectedEvents events = eventState.get(eventTime);
+    boolean newTimestamp = events == null;
+    if (newTimestamp) {
+      events = new ProjectedEvents();
+    }
+    projection.addTo(events, valueRules, event);
+    eventState.put(eventTime, events);
+    if (newTimestamp) {
+      addToIndex(eventTime);
+    }
+    return valueRules;
+  }
+
+  private void addToIndex(long timestamp) throws Exception {
+    long bucketStart = bucketOf(timestamp);
+    long[] timestamps = bucketState.get(bucketStart);
+    if (timestamps != null) {
+      bucketState.put(bucketStart, insert(timestamps, timestamp));
+      return;
+    }
+    bucketState.put(bucketStart, new long[] {timestamp});
+    long chunkStart = chunkOf(bucketStart);
+    long[] bucketStarts = chunkState.get(chunkStart);
+    if (bucketStarts != null) {
+      chunkState.put(chunkStart, insert(bucketStarts, bucketStart));
+      return;
+    }
+    chunkState.put(chunkStart, new long[] {bucketStart});
+    chunkIndexState.update(insert(getChunkIndex(), chunkStart));
+  }
+
+  /** Passes the events of all timestamps in {@code [start, end]} to the consumer, in time order. */
+  private void forEachEvents(long start, long end, EventsConsumer consumer) throws Exception {
+    long[] chunkIndex = getChunkIndex();
+    for (int c = positionOf(chunkIndex, chunkOf(start));
+        c < chunkIndex.length && chunkIndex[c] <= end;
+        c++) {
+      long[] bucketStarts = chunkState.get(chunkIndex[c]);
+      for (int b = positionOf(bucketStarts, bucketOf(start));
+          b < bucketStarts.length && bucketStarts[b] <= end;
+          b++) {
+        long[] timestamps = bucketState.get(bucketStarts[b]);
+        for (int i = positionOf(timestamps, start);
+            i < timestamps.length && timestamps[i] <= end;
+            i++) {
+          consumer.accept(timestamps[i], eventState.get(timestamps[i]));
+        }
+      }
+    }
+  }
+
+  private interface EventsConsumer {
+    void accept(long timestamp, ProjectedEvents events) throws Exception;
+  }
+
+  @Override
+  public void onRulesUpdate(Iterable<Rule> rules) throws Exception {
+    projection = Projection.of(rules);
+  }
+
+  private static String getAggregateFieldName(Rule rule) throws Exception {
+    return rule.getFieldAccessors(Transaction.class).getAggregateFieldName();
+  }
+
+  @Override
+  public PartialAggregate aggregate(Rule rule, long windowStart, long windowEnd) throws Exception {
+    String fieldName = getAggregateFieldName(rule);
+    PartialAggregate aggregate = PartialAggregate.forFunction(rule.getAggregatorFunctionType());
+    forEachEvents(
+        windowStart, windowEnd, (timestamp, events) -> events.addTo(fieldName, aggregate));
+    return aggregate;
+  }
+
+  @Override
+  public PartialAggregate[] aggregate(List<Rule> rules, long windowEnd) throws Exception {
+    long[] windowStarts = new long[rules.size()];
+    String[] fieldNames = new String[rules.size()];
+    PartialAggregate[] aggregates = new PartialAggregate[rules.size()];
+    long firstWindowStart = windowEnd;
+    for (int r = 0; r < aggregates.length; r++) {
+      windowStarts[r] = rules.get(r).getWindowStartFor(windowEnd);
+      fieldNames[r] = getAggregateFieldName(rules.get(r));
+      aggregates[r] = PartialAggregate.forFunction(rules.get(r).getAggregatorFunctionType());
+      firstWindowStart = Math.min(firstWindowStart, windowStarts[r]);
+    }
+    forEachEvents(
+        firstWindowStart,
+        windowEnd,
+        (timestamp, events) -> {
+          for (int r = 0; r < aggregates.length; r++) {
+            if (timestamp >= windowStarts[r]) {
+              events.addTo(fieldNames[r], aggregates[r]);
+            }
+          }
+        });
+    return aggregates;
+  }
+
+  @Override
+  public void replay(Rule rule, ContributionSeries series) throws Exception {
+    long[] chunkIndex = getChunkIndex();
+    if (chunkIndex.length == 0) {
+      return;
+    }
+    String fieldName = getAggregateFieldName(rule);
+    forEachEvents(
+        chunkIndex[0],
+        Long.MAX_VALUE,
+        (timestamp, events) -> {
+          PartialAggregate partial = PartialAggregate.forFunction(rule.getAggregatorFunctionType());
+          events.addTo(fieldName, partial);
+          if (partial.getCount() > 0) {
+            series.add(timestamp, partial);
+          }
+        });
+  }
+
+  @Override
+  public long evictBefore(long timestamp, Counter evicted) throws Exception {
+    long[] chunkIndex = getChunkIndex();
+    for (int c = 0; c < chunkIndex.length; c++) {
+      long earliestTimestamp = evictChunkBefore(chunkIndex[c], timestamp, evicted);
+      if (earliestTimestamp != Long.MAX_VALUE) {
+        if (c > 0) {
+          chunkIndexState.update(Arrays.copyOfRange(chunkIndex, c, chunkIndex.length));
+        }
+        return earliestTimestamp;
+      }
+    }
+    chunkIndexState.clear();
+    return Long.MAX_VALUE;
+  }
+
+  /**
+   * Evicts the timestamps of a chunk before the given one.
+   *
+   * @return the earliest retained timestamp of the chunk, {@code Long.MAX_VALUE} if it was emptied
+   */
+  private long evictChunkBefore(long chunkStart, long timestamp, Counter evicted)
+      throws Exception {
+    long[] bucketStarts = chunkState.get(chunkStart);
+    for (int b = 0; b < bucketStarts.length; b++) {
+      long earliestTimestamp = evictBucketBefore(bucketStarts[b], timestamp, evicted);
+      if (earliestTimestamp != Long.MAX_VALUE) {
+        if (b > 0) {
+          chunkState.put(chunkStart, Arrays.copyOfRange(bucketStarts, b, bucketStarts.length));
+        }
+        return earliestTimestamp;
+      }
+    }
+    chunkState.remove(chunkStart);
+    return Long.MAX_VALUE;
+  }
+
+  /**
+   * Evicts the timestamps of a bucket before the given one.
+   *
+   * @return the earliest retained timestamp of the bucket, {@code Long.MAX_VALUE} if it was emptied
+   */
+  private long evictBucketBefore(long bucketStart, long timestamp, Counter evicted)
+      throws Exception {
+    long[] timestamps = bucketState.get(bucketStart);
+    int firstRetained = positionOf(timestamps, timestamp);
+    for (int i = 0; i < firstRetained; i++) {
+      eventState.remove(timestamps[i]);
+      evicted.inc();
+    }
+    if (firstRetained == timestamps.length) {
+      bucketState.remove(bucketStart);
+      return Long.MAX_VALUE;
+    }
+    if (firstRetained > 0) {
+      bucketState.put(
+          bucketStart, Arrays.copyOfRange(timestamps, firstRetained, timestamps.length));
+    }
+    return timestamps[firstRetained];
+  }
+
+  @Override
+  public void clear() {
+    eventState.clear();
+    bucketState.clear();
+    chunkState.clear();
+    chunkIndexState.clear();
+  }
+
+  @Override
+  public void clearAll(KeyedBroadcastProcessFunction<?, ?, ?, ?>.Context ctx) throws Exception {
+    ctx.applyToKeyedState(eventStateDescriptor, (key, state) -> state.clear());
+    ctx.applyToKeyedState(bucketStateDescriptor, (key, state) -> state.clear());
+    ctx.applyToKeyedState(chunkStateDescriptor, (key, state) -> state.clear());
+    ctx.applyToKeyedState(chunkIndexStateDescriptor, (key, state) -> state.clear());
+  }
+
+  @Override
+  public void onRuleChange(
+      Rule previous, Rule updated, KeyedBroadcastProcessFunction<?, ?, ?, ?>.Context ctx) {
+    // Events do not depend on rules.
+  }
+}
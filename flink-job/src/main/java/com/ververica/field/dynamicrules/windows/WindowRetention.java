@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules.windows;
+
+import com.ververica.field.dynamicrules.GroupingKey;
+import com.ververica.field.dynamicrules.Rule;
+import com.ververica.field.dynamicrules.RuleFieldAccessors;
+import com.ververica.field.dynamicrules.Transaction;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * How long the window stores must keep events of a key: the widest window of all active and paused
+ * rules with the key's set of grouping fields, so that paused rules resume with complete windows.
+ * Computed from all rules whenever they change, so that deleting or shrinking a rule lowers the
+ * retention of its keys. Two sets of grouping fields sharing a key set id would share keyed state,
+ * which is logged, and their keys are kept as long as the widest window of both needs.
+ */
+@Slf4j
+public final class WindowRetention {
+
+  /** Retains nothing. */
+  public static final WindowRetention NONE = new WindowRetention(Collections.emptyMap());
+
+  /* Indexed by the key set id, which each key starts with. */
+  private final Map<Long, Long> retentionMillis;
+
+  private WindowRetention(Map<Long, Long> retentionMillis) {
+    this.retentionMillis = retentionMillis;
+  }
+
+  public static WindowRetention of(Iterable<Rule> rules) throws Exception {
+    Map<Long, Long> retentionMillis = new HashMap<>();
+    Map<Long, List<String>> keySets = new HashMap<>();
+    for (Rule rule : rules) {
+      if (rule.getRuleState() == Rule.RuleState.ACTIVE
+          || rule.getRuleState() == Rule.RuleState.PAUSE) {
+        RuleFieldAccessors accessors = rule.getFieldAccessors(Transaction.class);
+        List<String> keySet =
+            keySets.putIfAbsent(accessors.getKeySetId(), accessors.getGroupingKeyNames());
+        if (keySet != null && !keySet.equals(accessors.getGroupingKeyNames())) {
+          // Very unlikely with 64-bit ids; keys of both sets then share state if their values encode
+          // alike, and are retained for the wider window.
+          log.warn(
+              "Grouping fields {} of rule {} have the same key set id as {}",
+              accessors.getGroupingKeyNames(),
+              rule.getRuleId(),
+              keySet);
+        }
+        retentionMillis.merge(accessors.getKeySetId(), rule.getWindowMillis(), Math::max);
+      }
+    }
+    return new WindowRetention(retentionMillis);
+  }
+
+  /**
+   * Returns how long events of the given key must be kept, or {@code -1} if no active or paused
+   * rule groups by the key's fields any more.
+   */
+  public long getRetentionMillis(GroupingKey key) {
+    Long millis = retentionMillis.get(key.getKeySetId());
+    return millis == null ? -1 : millis;
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ververica.field.dynamicrules.windows;
+
+import com.ververica.field.dynamicrules.Rule;
+import com.ververica.field.dynamicrules.Transaction;
+import java.util.List;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.streaming.api.functions.co.KeyedBroadcastProcessFunction;
+
+/**
+ * Keyed state holding the contents of the sliding windows of the current key.
+ *
+ * <p>Stores which do not keep single events {@link #align align} event timestamps to the
+ * granularity they keep data at. The window {@code [start, end]} of a rule then covers everything
+ * stored at an aligned timestamp between {@code align(start)} and {@code align(end)}.
+ */
+public interface WindowStore {
+
+  /** Returns the timestamp at which the store keeps data of an event with the given timestamp. */
+  long align(long timestamp);
+
+  /**
+   * Adds an event that was routed to the current key for all the given rules at once.
+   *
+   * @return the rules whose values of the event were stored, see {@link Projection#getValueRules}
+   */
+  List<Rule> add(List<Rule> rules, Transaction event) throws Exception;
+
+  /**
+   * Aggregates the rule's values of all events in the window {@code [windowStart, windowEnd]}. The
+   * aggregate is empty if there are none.
+   */
+  PartialAggregate aggregate(Rule rule, long windowStart, long windowEnd) throws Exception;
+
+  /**
+   * Aggregates the values of several rules over their windows ending at {@code windowEnd}, in the
+   * same order as the rules. Stores override this to compute all aggregates in a single pass.
+   */
+  default PartialAggregate[] aggregate(List<Rule> rules, long windowEnd) throws Exception {
+    PartialAggregate[] aggregates = new PartialAggregate[rules.size()];
+    for (int i = 0; i < aggregates.length; i++) {
+      Rule rule = rules.get(i);
+      aggregates[i] = aggregate(rule, rule.getWindowStartFor(windowEnd), windowEnd);
+    }
+    return aggregates;
+  }
+
+  /**
+   * Removes everything stored for the current key before the given timestamp. Stores keeping
+   * panes only remove the panes which end before it.
+   *
+   * @param evicted counted up by the number of removed entries
+   * @return the latest timestamp the earliest entry still stored for the current key may hold,
+   *     which decides when that entry expires, or {@link Long#MAX_VALUE} if nothing is left
+   */
+  long evictBefore(long timestamp, Counter evicted) throws Exception;
+
+  /** Removes everything stored for the current key. */
+  void clear() throws Exception;
+
+  /** Removes everything stored for all keys. */
+  void clearAll(KeyedBroadcastProcessFunction<?, ?, ?, ?>.Context ctx) throws Exception;
+
+  /**
+   * Called when a rule is added, updated or deleted.
+   *
+   * @param previous the rule's previous version, {@code null} if the rule is new
+   * @param updated the rule's new version, {@code null} if the rule was deleted
+   */
+  void onRuleChange(
+      Rule previous, Rule updated, KeyedBroadcastProcessFunction<?, ?, ?, ?>.Context ctx)
+      throws Exception;
+
+  /**
+   * Called with all rules whenever they changed, and before the first event after a restore. Stores
+   * which only keep the data the current rules need derive what to keep from here.
+   */
+  default void onRulesUpdate(Iterable<Rule> rules) throws Exception {}
+
+  /** Kinds of window stores. */
+  enum Type {
+    /** Keeps every single event. */
+    EVENTS,
+    /** Keeps every single event, indexed by time in fixed-size buckets. */
+    ORDERED_EVENTS,
+    /** Keeps partial aggregates of fixed-size panes of events. */
+    PANES,
+    /** Keeps partial aggregates of panes of several sizes, rolling old data up into coarse ones. */
+    HIERARCHICAL
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ververica.field.dynamicrules.windows;
+
+import java.io.Serializable;
+import org.apache.flink.api.common.functions.RuntimeContext;
+import org.apache.flink.util.Preconditions;
+
+/** Serializable recipe for the {@link WindowStore} of a rule evaluation function. */
+public class WindowStoreFactory implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final WindowStore.Type type;
+  private final long[] levelMillis;
+
+  private WindowStoreFactory(WindowStore.Type type, long... levelMillis) {
+    if (type == WindowStore.Type.HIERARCHICAL) {
+      HierarchicalPaneWindowStore.checkLevels(levelMillis);
+    } else {
+      Preconditions.checkArgument(levelMillis[0] > 0, "Pane and bucket sizes must be positive");
+    }
+    this.type = type;
+    this.levelMillis = levelMillis.clone();
+  }
+
+  /** Creates a factory for an {@link EventWindowStore}. */
+  public static WindowStoreFactory events() {
+    return new WindowStoreFactory(WindowStore.Type.EVENTS, 1);
+  }
+
+  /** Creates a factory for a {@link TimeOrderedWindowStore} with the given bucket size. */
+  public static WindowStoreFactory orderedEvents(long bucketMillis) {
+    return new WindowStoreFactory(WindowStore.Type.ORDERED_EVENTS, bucketMillis);
+  }
+
+  /** Creates a factory for a {@link PaneWindowStore} with the given pane size. */
+  public static WindowStoreFactory panes(long paneMillis) {
+    return new WindowStoreFactory(WindowStore.Type.PANES, paneMillis);
+  }
+
+  /**
+   * Creates a factory for a {@link HierarchicalPaneWindowStore} with the given pane sizes, from
+   * fine to coarse.
+   */
+  public static WindowStoreFactory hierarchicalPanes(long... levelMillis) {
+    return new WindowStoreFactory(WindowStore.Type.HIERARCHICAL, levelMillis);
+  }
+
+  /** Creates the window store in the keyed state of the given runtime context. */
+  public WindowStore create(RuntimeContext runtimeContext) {
+    switch (type) {
+      case EVENTS:
+        return new EventWindowStore(runtimeContext);
+      case ORDERED_EVENTS:
+        return new TimeOrderedWindowStore(runtimeContext, levelMillis[0]);
+      case PANES:
+        return new PaneWindowStore(runtimeContext, levelMillis[0]);
+      case HIERARCHICAL:
+        return new HierarchicalPaneWindowStore(runtimeContext, levelMillis);
+      default:
+        throw new IllegalArgumentException("Unknown window store type: " + type);
+    }
+  }
+}
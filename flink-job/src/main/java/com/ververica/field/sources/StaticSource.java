@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.sources;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.flink.streaming.api.functions.source.SourceFunction;
+
+/**
+ * Emits a fixed list of strings once and then stays idle until cancelled. Unlike a finite source,
+ * it keeps the job eligible for checkpoints after all records were emitted.
+ */
+public class StaticSource implements SourceFunction<String> {
+
+  private static final long serialVersionUID = 1L;
+
+  private final ArrayList<String> records;
+
+  private volatile boolean running = true;
+
+  public StaticSource(List<String> records) {
+    this.records = new ArrayList<>(records);
+  }
+
+  @Override
+  public void run(SourceContext<String> ctx) throws Exception {
+    synchronized (ctx.getCheckpointLock()) {
+      for (String record : records) {
+        ctx.collect(record);
+      }
+    }
+
+    final Object waitLock = new Object();
+    while (running) {
+      synchronized (waitLock) {
+        waitLock.wait(100);
+      }
+    }
+  }
+
+  @Override
+  public void cancel() {
+    running = false;
+  }
+}
@@ -45,4 +45,16 @@ public class ConfigTest {
     final Integer kafkaPort = config.get(KAFKA_PORT);
     assertEquals("Wrong config parameter retrived", new Integer(9092), kafkaPort);
   }
+
+  @Test
+  public void testDurations() {
+    assertEquals(250L, Durations.parseMillis("250ms"));
+    assertEquals(90_000L, Durations.parseMillis(" 90S "));
+    assertEquals(7_200_000L, Durations.parseMillis("2h"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDurationWithoutUnit() {
+    Durations.parseMillis("10");
+  }
 }
@@ -0,0 +1,288 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules;
+
+import com.ververica.field.config.Config;
+import com.ververica.field.config.Parameters;
+import com.ververica.field.dynamicrules.RulesEvaluator.Descriptors;
+import com.ververica.field.dynamicrules.functions.DynamicAlertFunction;
+import com.ververica.field.dynamicrules.serialization.GroupingKeyTypeInfo;
+import com.ververica.field.dynamicrules.util.BroadcastStreamKeyedOperatorTestHarness;
+import java.io.FileWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.apache.flink.api.java.utils.ParameterTool;
+import org.apache.flink.runtime.checkpoint.OperatorSubtaskState;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.util.FileUtils;
+
+/**
+ * Drives a single {@link DynamicAlertFunction} through the keyed broadcast test harness with
+ * synthetic, already keyed events, isolating the rule evaluation from sources, sinks and the
+ * network. Prints one JSON object per state backend with the processing cost per event, the size of
+ * the keyed state snapshot per key and the number of registered timers.
+ *
+ * <p>Besides the job parameters of the evaluation (e.g. {@code --window-store}, {@code
+ * --evaluation-mode} or {@code --rocksdb-options}), accepts {@code --events} (2,000,000), {@code
+ * --keys} (distinct payees and beneficiaries, 10,000), {@code --events-per-second} (event time
+ * density, 1,000), {@code --window-minutes} (10, of the default rule mix), {@code --rules-file}
+ * (one rule per line, replacing the default mix), {@code --state-backends} (filesystem,rocksdb) and
+ * {@code --output} (a file the JSON lines are appended to). The filesystem backend keeps its keyed
+ * state on the heap.
+ */
+public class DynamicAlertFunctionBenchmark {
+
+  /* Limits are out of reach, so that the harness output holds evaluations but no alerts. */
+  private static final String[] DEFAULT_RULES = {
+    "1,(active),(payeeId),,(paymentAmount),(SUM),(>),(100000000),(%d)",
+    "2,(active),(beneficiaryId),,(COUNT_FLINK),(SUM),(>),(100000000),(%d)",
+    "3,(active),(payeeId),,(paymentAmount),(MAX),(>),(100000000),(%d)",
+    "4,(active),(payeeId&beneficiaryId),,(paymentAmount),(AVG),(>),(100000000),(%d)"
+  };
+
+  private static final int CHUNK_SIZE = 10_000;
+  private static final int WATERMARK_INTERVAL = 1_000;
+
+  public static void main(String[] args) throws Exception {
+    ParameterTool tool = ParameterTool.fromArgs(args);
+    long events = tool.getLong("events", 2_000_000);
+    int keys = tool.getInt("keys", 10_000);
+    int eventsPerSecond = tool.getInt("events-per-second", 1_000);
+    List<Rule> rules = readRules(tool);
+    List<String> stateBackends =
+        Arrays.asList(tool.get("state-backends", "filesystem,rocksdb").split(","));
+
+    ObjectMapper mapper = new ObjectMapper();
+    for (String stateBackend : stateBackends) {
+      Path checkpointDir = Files.createTempDirectory("alert-function-benchmark");
+      try {
+        Map<String, String> jobArgs = new HashMap<>(tool.toMap());
+        jobArgs
+            .keySet()
+            .removeAll(
+                Arrays.asList(
+                    "events",
+                    "keys",
+                    "events-per-second",
+                    "window-minutes",
+                    "rules-file",
+                    "state-backends",
+                    "output"));
+        jobArgs.put(Parameters.STATE_BACKEND.getName(), stateBackend);
+        jobArgs.put(Parameters.CHECKPOINT_DIR.getName(), checkpointDir.toUri().toString());
+        Config config = Config.fromParameters(new Parameters(ParameterTool.fromMap(jobArgs)));
+
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("benchmark", "dynamicAlertFunction");
+        line.put("timestamp", System.currentTimeMillis());
+        line.put("stateBackend", stateBackend);
+        line.put("events", events);
+        line.put("keys", keys);
+        line.put("eventsPerSecond", eventsPerSecond);
+        line.put("parameters", new TreeMap<>(jobArgs));
+        line.putAll(runOnce(config, rules, events, keys, eventsPerSecond));
+
+        String json = mapper.writeValueAsString(line);
+        System.out.println(json);
+        if (tool.has("output")) {
+          try (Writer writer = new FileWriter(tool.get("output"), true)) {
+            writer.write(json);
+            writer.write('\n');
+          }
+        }
+      } finally {
+        FileUtils.deleteDirectory(checkpointDir.toFile());
+      }
+    }
+  }
+
+  private static Map<String, Object> runOnce(
+      Config config, List<Rule> rules, long events, int keys, int eventsPerSecond)
+      throws Exception {
+    RulesEvaluator evaluator = new RulesEvaluator(config);
+    List<KeySet> keySets = KeySet.of(rules);
+    SplittableRandom rnd = new SplittableRandom(42);
+    Set<GroupingKey> distinctKeys = new HashSet<>();
+    long records = 0;
+    long processingNanos = 0;
+    long lastTimestamp = 0;
+
+    try (BroadcastStreamKeyedOperatorTestHarness<
+            GroupingKey,
+            Keyed<Transaction, GroupingKey, List<Integer>>,
+            Rule,
+            Alert<Transaction, BigDecimal>>
+        testHarness =
+            BroadcastStreamKeyedOperatorTestHarness.getInitializedTestHarness(
+                new DynamicAlertFunction(
+                    evaluator.getEvaluationMode(),
+                    evaluator.getWindowStoreFactory(),
+                    config.get(Parameters.CLEANUP_GRANULARITY_MILLIS)),
+                in -> (in.getKey()),
+                null,
+                GroupingKeyTypeInfo.INSTANCE,
+                1,
+                1,
+                0,
+                null,
+                StateBackends.createStateBackend(config),
+                Descriptors.rulesDescriptor)) {
+
+      for (Rule rule : rules) {
+        testHarness.processElement2(new StreamRecord<>(rule, 0L));
+      }
+
+      List<StreamRecord<Keyed<Transaction, GroupingKey, List<Integer>>>> chunk =
+          new ArrayList<>(CHUNK_SIZE * keySets.size());
+      for (long first = 0; first < events; first += CHUNK_SIZE) {
+        // Generate the chunk's keyed records outside of the measurement.
+        chunk.clear();
+        long last = Math.min(events, first + CHUNK_SIZE);
+        for (long id = first; id < last; id++) {
+          Transaction transaction = randomTransaction(rnd, id, keys, eventsPerSecond);
+          for (KeySet keySet : keySets) {
+            Keyed<Transaction, GroupingKey, List<Integer>> keyed = keySet.apply(transaction);
+            distinctKeys.add(keyed.getKey());
+            chunk.add(new StreamRecord<>(keyed, transaction.getEventTime()));
+          }
+        }
+
+        long start = System.nanoTime();
+        long id = first;
+        for (int i = 0; i < chunk.size(); i++) {
+          StreamRecord<Keyed<Transaction, GroupingKey, List<Integer>>> record = chunk.get(i);
+          testHarness.processElement1(record);
+          lastTimestamp = record.getTimestamp();
+          if ((i + 1) % keySets.size() == 0 && ++id % WATERMARK_INTERVAL == 0) {
+            testHarness.watermark(lastTimestamp - 1);
+          }
+        }
+        processingNanos += System.nanoTime() - start;
+        records += chunk.size();
+
+        testHarness.getOutput().clear();
+        clear(testHarness.getSideOutput(Descriptors.evaluationTraceTag));
+        clear(testHarness.getSideOutput(Descriptors.latencySinkTag));
+        clear(testHarness.getSideOutput(Descriptors.currentRulesSinkTag));
+      }
+
+      long snapshotStart = System.nanoTime();
+      OperatorSubtaskState snapshot = testHarness.snapshot(1L, lastTimestamp);
+      long snapshotMillis = (System.nanoTime() - snapshotStart) / 1_000_000;
+      long stateBytes = snapshot.getManagedKeyedState().getStateSize();
+      int timers = testHarness.numEventTimeTimers();
+
+      Map<String, Object> result = new LinkedHashMap<>();
+      result.put("rules", rules.size());
+      result.put("keyedRecords", records);
+      result.put("distinctKeys", distinctKeys.size());
+      result.put("nanosPerEvent", processingNanos / events);
+      result.put("nanosPerKeyedRecord", processingNanos / records);
+      result.put("eventsPerSecondProcessed", Math.round(events / (processingNanos / 1e9)));
+      result.put("stateBytes", stateBytes);
+      result.put("stateBytesPerKey", stateBytes / Math.max(1, distinctKeys.size()));
+      result.put("snapshotMillis", snapshotMillis);
+      result.put("eventTimeTimers", timers);
+      result.put("timersPerKey", (double) timers / Math.max(1, distinctKeys.size()));
+      return result;
+    }
+  }
+
+  private static Transaction randomTransaction(
+      SplittableRandom rnd, long id, int keys, int eventsPerSecond) {
+    Transaction transaction = new Transaction();
+    transaction.transactionId = id;
+    transaction.eventTime = id * 1000 / eventsPerSecond;
+    transaction.payeeId = rnd.nextInt(keys);
+    transaction.beneficiaryId = rnd.nextInt(keys);
+    transaction.paymentAmount = FixedPoint.of(rnd.nextInt(1, 1000));
+    transaction.paymentType =
+        rnd.nextBoolean() ? Transaction.PaymentType.CSH : Transaction.PaymentType.CRD;
+    transaction.assignIngestionTimestamp(System.currentTimeMillis());
+    return transaction;
+  }
+
+  private static void clear(ConcurrentLinkedQueue<?> sideOutput) {
+    if (sideOutput != null) {
+      sideOutput.clear();
+    }
+  }
+
+  private static List<Rule> readRules(ParameterTool tool) throws Exception {
+    List<String> lines;
+    if (tool.has("rules-file")) {
+      lines = Files.readAllLines(Paths.get(tool.get("rules-file")), StandardCharsets.UTF_8);
+    } else {
+      lines = new ArrayList<>();
+      int windowMinutes = tool.getInt("window-minutes", 10);
+      for (String rule : DEFAULT_RULES) {
+        lines.add(String.format(rule, windowMinutes));
+      }
+    }
+    RuleParser parser = new RuleParser();
+    List<Rule> rules = new ArrayList<>();
+    for (String line : lines) {
+      if (!line.trim().isEmpty()) {
+        rules.add(parser.fromString(line));
+      }
+    }
+    return rules;
+  }
+
+  /** Rules sharing a set of grouping fields, which the key function routes together. */
+  private static class KeySet {
+    private final RuleFieldAccessors accessors;
+    private final List<Integer> ruleIds = new ArrayList<>();
+
+    private KeySet(RuleFieldAccessors accessors) {
+      this.accessors = accessors;
+    }
+
+    static List<KeySet> of(List<Rule> rules) throws Exception {
+      Map<List<String>, KeySet> keySets = new LinkedHashMap<>();
+      for (Rule rule : rules) {
+        RuleFieldAccessors accessors = rule.getFieldAccessors(Transaction.class);
+        keySets
+            .computeIfAbsent(accessors.getGroupingKeyNames(), names -> new KeySet(accessors))
+            .ruleIds
+            .add(rule.getRuleId());
+      }
+      return new ArrayList<>(keySets.values());
+    }
+
+    Keyed<Transaction, GroupingKey, List<Integer>> apply(Transaction transaction) {
+      return new Keyed<>(transaction, accessors.getKey(transaction), ruleIds);
+    }
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.SplittableRandom;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+  @Test
+  public void shouldCountSmallValuesExactly() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long value = 0; value < 64; value++) {
+      histogram.record(value);
+    }
+
+    assertEquals(64, histogram.getTotalCount());
+    assertEquals(0, histogram.getMin());
+    assertEquals(31, histogram.getValueAtQuantile(0.5));
+    assertEquals(63, histogram.getValueAtQuantile(1.0));
+    assertEquals(63, histogram.getMax());
+  }
+
+  @Test
+  public void shouldBoundTheRelativeErrorOfQuantiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long value = 1; value <= 100_000; value++) {
+      histogram.record(value);
+    }
+
+    for (double quantile : new double[] {0.5, 0.95, 0.99, 0.999}) {
+      long exact = (long) Math.ceil(quantile * 100_000);
+      long estimate = histogram.getValueAtQuantile(quantile);
+      assertTrue(estimate >= exact);
+      assertTrue(estimate <= exact * (1 + 1.0 / LatencyHistogram.SUB_BUCKETS));
+    }
+    assertEquals(100_000, histogram.getMax());
+    assertEquals(50_000.5, histogram.getMean(), 50_000.5 / LatencyHistogram.SUB_BUCKETS);
+  }
+
+  @Test
+  public void shouldMergeLikeRecordingAllValues() {
+    SplittableRandom random = new SplittableRandom(42);
+    LatencyHistogram all = new LatencyHistogram(1000);
+    LatencyHistogram first = new LatencyHistogram(2000);
+    LatencyHistogram second = new LatencyHistogram(1000);
+    for (int i = 0; i < 10_000; i++) {
+      long value = random.nextLong(LatencyHistogram.MAX_VALUE);
+      all.record(value);
+      (i % 3 == 0 ? first : second).record(value);
+    }
+
+    assertEquals(all, new LatencyHistogram().merge(first).merge(second));
+  }
+
+  @Test
+  public void shouldClampValuesOutOfRange() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(-5);
+    histogram.record(Long.MAX_VALUE);
+
+    assertEquals(0, histogram.getValueAtQuantile(0.5));
+    assertEquals(LatencyHistogram.MAX_VALUE, histogram.getValueAtQuantile(1.0));
+    assertEquals(LatencyHistogram.MAX_VALUE, histogram.getMax());
+  }
+}
@@ -0,0 +1,305 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules;
+
+import com.ververica.field.config.Config;
+import com.ververica.field.config.Parameters;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.api.java.utils.ParameterTool;
+import org.apache.flink.configuration.ConfigConstants;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Metric;
+import org.apache.flink.metrics.MetricConfig;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.metrics.reporter.MetricReporter;
+import org.apache.flink.runtime.checkpoint.CheckpointStatsSnapshot;
+import org.apache.flink.runtime.checkpoint.CompletedCheckpointStats;
+import org.apache.flink.runtime.checkpoint.MinMaxAvgStats;
+import org.apache.flink.runtime.jobgraph.JobGraph;
+import org.apache.flink.runtime.minicluster.MiniCluster;
+import org.apache.flink.runtime.minicluster.MiniClusterConfiguration;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.flink.streaming.api.datastream.SingleOutputStreamOperator;
+import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
+import org.apache.flink.streaming.api.functions.sink.SinkFunction;
+
+/**
+ * Runs the whole {@link RulesEvaluator} topology on an embedded MiniCluster, with transactions
+ * generated as fast as possible, a static rule set and all sinks discarding their records. Prints
+ * one JSON object per run with the sustained source throughput, the percentiles of the
+ * ingestion-to-evaluation latency and the checkpoint durations and sizes.
+ *
+ * <p>Besides all job parameters (e.g. {@code --window-store}, {@code --state-backend} or {@code
+ * --checkpoint-interval}), accepts {@code --runs}, {@code --warmup-seconds}, {@code
+ * --measure-seconds}, {@code --parallelism}, {@code --rules-file} (one rule per line) and {@code
+ * --output} (a file the JSON lines are appended to).
+ */
+public class PipelineBenchmark {
+
+  private static final String[] DEFAULT_RULES = {
+    "1,(active),(payeeId),,(paymentAmount),(SUM),(>),(2000),(10)",
+    "2,(active),(beneficiaryId),,(COUNT_FLINK),(SUM),(>=),(50),(5)",
+    "3,(active),(payeeId&beneficiaryId),,(paymentAmount),(MAX),(>),(19),(1)"
+  };
+
+  /* Operator name of the transactions source, as reported in its metrics. */
+  private static final String SOURCE_NAME = "Source: Transactions Source";
+
+  /* Shared with the operators, which run in the same JVM as the MiniCluster. */
+  private static final Object LATENCIES_LOCK = new Object();
+
+  private static LatencyHistogram latencies = new LatencyHistogram();
+
+  public static void main(String[] args) throws Exception {
+    ParameterTool tool = ParameterTool.fromArgs(args);
+    int runs = tool.getInt("runs", 3);
+    int warmupSeconds = tool.getInt("warmup-seconds", 10);
+    int measureSeconds = tool.getInt("measure-seconds", 30);
+    int parallelism = tool.getInt("parallelism", 2);
+
+    Map<String, String> jobArgs = new HashMap<>(tool.toMap());
+    jobArgs
+        .keySet()
+        .removeAll(
+            Arrays.asList(
+                "runs",
+                "warmup-seconds",
+                "measure-seconds",
+                "parallelism",
+                "rules-file",
+                "output"));
+    jobArgs.putIfAbsent(Parameters.CHECKPOINT_INTERVAL.getName(), "10000");
+    jobArgs.putIfAbsent(Parameters.MIN_PAUSE_BETWEEN_CHECKPOINTS.getName(), "0");
+    jobArgs.putIfAbsent(Parameters.SOURCE_PARALLELISM.getName(), String.valueOf(parallelism));
+    jobArgs.putIfAbsent(Parameters.LATENCY_INTERVAL_MILLIS.getName(), "1000");
+    jobArgs.put(Parameters.TRANSACTIONS_SOURCE.getName(), "GENERATOR");
+    jobArgs.put(Parameters.RECORDS_PER_SECOND.getName(), "-1");
+    jobArgs.put(Parameters.RULES_SOURCE.getName(), "STATIC");
+    jobArgs.put(Parameters.STATIC_RULES.getName(), String.join(";", readRules(tool)));
+    jobArgs.put(Parameters.ALERTS_SINK.getName(), "DISCARD");
+    jobArgs.put(Parameters.LATENCY_SINK.getName(), "DISCARD");
+    jobArgs.put(Parameters.RULES_EXPORT_SINK.getName(), "DISCARD");
+    jobArgs.put(Parameters.DEBUG_OUTPUT.getName(), "false");
+    jobArgs.put(Parameters.LOCAL_EXECUTION.getName(), "false");
+    Config config = Config.fromParameters(new Parameters(ParameterTool.fromMap(jobArgs)));
+
+    ObjectMapper mapper = new ObjectMapper();
+    for (int run = 1; run <= runs; run++) {
+      Map<String, Object> result =
+          runOnce(config, parallelism, warmupSeconds * 1000L, measureSeconds * 1000L);
+      Map<String, Object> line = new LinkedHashMap<>();
+      line.put("benchmark", "pipeline");
+      line.put("run", run);
+      line.put("timestamp", System.currentTimeMillis());
+      line.put("parallelism", parallelism);
+      line.put("warmupSeconds", warmupSeconds);
+      line.put("measureSeconds", measureSeconds);
+      line.put("parameters", new TreeMap<>(jobArgs));
+      line.putAll(result);
+
+      String json = mapper.writeValueAsString(line);
+      System.out.println(json);
+      if (tool.has("output")) {
+        try (Writer writer = new FileWriter(tool.get("output"), true)) {
+          writer.write(json);
+          writer.write('\n');
+        }
+      }
+    }
+  }
+
+  private static Map<String, Object> runOnce(
+      Config config, int parallelism, long warmupMillis, long measureMillis) throws Exception {
+    Configuration flinkConfig = new Configuration();
+    flinkConfig.setString(
+        ConfigConstants.METRICS_REPORTER_PREFIX
+            + "benchmark."
+            + ConfigConstants.METRICS_REPORTER_CLASS_SUFFIX,
+        CounterCollector.class.getName());
+    StateBackends.configureLocalCluster(flinkConfig, config);
+
+    MiniCluster cluster =
+        new MiniCluster(
+            new MiniClusterConfiguration.Builder()
+                .setConfiguration(flinkConfig)
+                .setNumTaskManagers(1)
+                .setNumSlotsPerTaskManager(parallelism)
+                .build());
+    cluster.start();
+    try {
+      RulesEvaluator evaluator = new RulesEvaluator(config);
+      StreamExecutionEnvironment env = evaluator.createExecutionEnvironment();
+      env.setParallelism(parallelism);
+      SingleOutputStreamOperator<Alert<Transaction, BigDecimal>> alerts =
+          evaluator.buildPipeline(env);
+      alerts
+          .getSideOutput(RulesEvaluator.Descriptors.latencySinkTag)
+          .addSink(new LatencyCollector())
+          .name("Benchmark Latency Sink");
+      JobGraph jobGraph = env.getStreamGraph().getJobGraph();
+
+      JobID jobId = cluster.submitJob(jobGraph).get().getJobID();
+      Thread.sleep(warmupMillis);
+
+      long recordsBefore = CounterCollector.sum(SOURCE_NAME, "numRecordsOut");
+      long start = System.nanoTime();
+      synchronized (LATENCIES_LOCK) {
+        latencies = new LatencyHistogram();
+      }
+      Thread.sleep(measureMillis);
+      long records = CounterCollector.sum(SOURCE_NAME, "numRecordsOut") - recordsBefore;
+      double seconds = (System.nanoTime() - start) / 1e9;
+      LatencyHistogram measured;
+      synchronized (LATENCIES_LOCK) {
+        measured = latencies;
+        latencies = new LatencyHistogram();
+      }
+
+      CheckpointStatsSnapshot checkpoints =
+          cluster.getExecutionGraph(jobId).get().getCheckpointStatsSnapshot();
+
+      cluster.cancelJob(jobId).get();
+      cluster.requestJobResult(jobId).get();
+
+      Map<String, Object> result = new LinkedHashMap<>();
+      result.put("records", records);
+      result.put("recordsPerSecond", Math.round(records / seconds));
+      result.put("latencyMillis", summarize(measured));
+      result.put("checkpoints", summarize(checkpoints));
+      return result;
+    } finally {
+      cluster.close();
+      CounterCollector.COUNTERS.clear();
+    }
+  }
+
+  private static List<String> readRules(ParameterTool tool) throws IOException {
+    if (!tool.has("rules-file")) {
+      return Arrays.asList(DEFAULT_RULES);
+    }
+    List<String> rules =
+        Files.readAllLines(Paths.get(tool.get("rules-file")), StandardCharsets.UTF_8);
+    rules.removeIf(rule -> rule.trim().isEmpty());
+    return rules;
+  }
+
+  private static Map<String, Object> summarize(CheckpointStatsSnapshot checkpoints) {
+    Map<String, Object> summary = new LinkedHashMap<>();
+    if (checkpoints == null) {
+      summary.put("completed", 0);
+      return summary;
+    }
+    summary.put("completed", checkpoints.getCounts().getNumberOfCompletedCheckpoints());
+    summary.put("failed", checkpoints.getCounts().getNumberOfFailedCheckpoints());
+    summary.put(
+        "durationMillis", minMaxAvg(checkpoints.getSummaryStats().getEndToEndDurationStats()));
+    summary.put("stateSizeBytes", minMaxAvg(checkpoints.getSummaryStats().getStateSizeStats()));
+    CompletedCheckpointStats latest = checkpoints.getHistory().getLatestCompletedCheckpoint();
+    if (latest != null) {
+      summary.put("latestDurationMillis", latest.getEndToEndDuration());
+      summary.put("latestStateSizeBytes", latest.getStateSize());
+    }
+    return summary;
+  }
+
+  private static Map<String, Object> minMaxAvg(MinMaxAvgStats stats) {
+    Map<String, Object> summary = new LinkedHashMap<>();
+    if (stats.getCount() > 0) {
+      summary.put("min", stats.getMinimum());
+      summary.put("avg", stats.getAverage());
+      summary.put("max", stats.getMaximum());
+    }
+    return summary;
+  }
+
+  private static Map<String, Object> summarize(LatencyHistogram latencies) {
+    Map<String, Object> summary = new LinkedHashMap<>();
+    summary.put("count", latencies.getTotalCount());
+    if (!latencies.isEmpty()) {
+      summary.put("p50", latencies.getValueAtQuantile(0.5));
+      summary.put("p95", latencies.getValueAtQuantile(0.95));
+      summary.put("p99", latencies.getValueAtQuantile(0.99));
+      summary.put("p999", latencies.getValueAtQuantile(0.999));
+      summary.put("max", latencies.getMax());
+    }
+    return summary;
+  }
+
+  /** Merges the latency histograms of all subtasks into the benchmark's histogram. */
+  private static class LatencyCollector implements SinkFunction<LatencyHistogram> {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public void invoke(LatencyHistogram histogram, Context context) {
+      synchronized (LATENCIES_LOCK) {
+        latencies.merge(histogram);
+      }
+    }
+  }
+
+  /** Keeps track of the counters of all operators, keyed by operator name and metric name. */
+  public static class CounterCollector implements MetricReporter {
+
+    static final Map<Counter, String> COUNTERS = new ConcurrentHashMap<>();
+
+    static long sum(String operatorName, String metricName) {
+      String id = operatorName + "." + metricName;
+      long sum = 0;
+      for (Map.Entry<Counter, String> counter : COUNTERS.entrySet()) {
+        if (counter.getValue().equals(id)) {
+          sum += counter.getKey().getCount();
+        }
+      }
+      return sum;
+    }
+
+    @Override
+    public void open(MetricConfig config) {}
+
+    @Override
+    public void close() {}
+
+    @Override
+    public void notifyOfAddedMetric(Metric metric, String metricName, MetricGroup group) {
+      String operatorName = group.getAllVariables().get("<operator_name>");
+      if (metric instanceof Counter && operatorName != null) {
+        COUNTERS.put((Counter) metric, operatorName + "." + metricName);
+      }
+    }
+
+    @Override
+    public void notifyOfRemovedMetric(Metric metric, String metricName, MetricGroup group) {
+      COUNTERS.remove(metric);
+    }
+  }
+}
@@ -18,22 +18,46 @@
 
 package com.ververica.field.dynamicrules;
 
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
 import com.ververica.field.dynamicrules.RulesEvaluator.Descriptors;
+import com.ververica.field.dynamicrules.functions.AlertSuppressionFunction;
 import com.ververica.field.dynamicrules.functions.DynamicAlertFunction;
+import com.ververica.field.dynamicrules.functions.DynamicAlertFunction.EvaluationMode;
 import com.ververica.field.dynamicrules.functions.DynamicKeyFunction;
+import com.ververica.field.dynamicrules.functions.DynamicKeyFunction.FanOut;
+import com.ververica.field.dynamicrules.functions.EvaluationTraceSampler;
+import com.ververica.field.dynamicrules.functions.LatencyHistogramMerger;
+import com.ververica.field.dynamicrules.serialization.GroupingKeyTypeInfo;
 import com.ververica.field.dynamicrules.util.AssertUtils;
 import com.ververica.field.dynamicrules.util.BroadcastStreamKeyedOperatorTestHarness;
 import com.ververica.field.dynamicrules.util.BroadcastStreamNonKeyedOperatorTestHarness;
+import com.ververica.field.dynamicrules.windows.HierarchicalPaneWindowStore;
+import com.ververica.field.dynamicrules.windows.WindowStoreFactory;
 import java.math.BigDecimal;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.Random;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
 import org.apache.flink.api.common.state.BroadcastState;
 import org.apache.flink.api.common.typeinfo.BasicTypeInfo;
+import org.apache.flink.api.common.typeinfo.TypeHint;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.streaming.api.operators.KeyedProcessOperator;
 import org.apache.flink.streaming.api.watermark.Watermark;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.streaming.util.KeyedOneInputStreamOperatorTestHarness;
 import org.apache.flink.streaming.util.TestHarnessUtil;
 import org.junit.Test;
 
@@ -48,7 +72,7 @@ public class RulesEvaluatorTest {
     Transaction event1 = Transaction.fromString("1,2013-01-01 00:00:00,1001,1002,CSH,21.5,1");
 
     try (BroadcastStreamNonKeyedOperatorTestHarness<
-            Transaction, Rule, Keyed<Transaction, String, Integer>>
+            Transaction, Rule, Keyed<Transaction, GroupingKey, List<Integer>>>
         testHarness =
             BroadcastStreamNonKeyedOperatorTestHarness.getInitializedTestHarness(
                 new DynamicKeyFunction(), Descriptors.rulesDescriptor)) {
@@ -57,21 +81,110 @@ public class RulesEvaluatorTest {
       testHarness.processElement1(new StreamRecord<>(event1, 15L));
 
       Queue<Object> expectedOutput = new ConcurrentLinkedQueue<>();
+      // Keys only depend on the set of grouping fields, not on their order.
+      Rule sameKeysRule =
+          ruleParser.fromString("2,(active),(payeeId&paymentType),,(totalFare),(SUM),(>),(5),(1)");
       expectedOutput.add(
-          new StreamRecord<>(new Keyed<>(event1, "{paymentType=CSH;payeeId=1001}", 1), 15L));
+          new StreamRecord<>(
+              new Keyed<>(event1, key(sameKeysRule, event1), singletonList(1)), 15L));
+      assertEquals(
+          "{paymentType=CSH;payeeId=1001}",
+          rule1.getFieldAccessors(Transaction.class).renderKey(event1));
 
       TestHarnessUtil.assertOutputEquals(
           "Wrong dynamically keyed output", expectedOutput, testHarness.getOutput());
     }
   }
 
+  @Test
+  public void shouldProduceOneRecordPerGroupingKeySet() throws Exception {
+    RuleParser ruleParser = new RuleParser();
+    Rule rule1 =
+        ruleParser.fromString(
+            "1,(active),(paymentType&payeeId),,(paymentAmount),(SUM),(>),(50),(20)");
+    Rule rule2 =
+        ruleParser.fromString(
+            "2,(active),(payeeId&paymentType),,(paymentAmount),(MAX),(>),(5),(1)");
+    Rule rule3 = ruleParser.fromString("3,(pause),(payeeId),,(paymentAmount),(SUM),(>),(50),(20)");
+    Transaction event1 = Transaction.fromString("1,2013-01-01 00:00:00,1001,1002,CSH,21.5,1");
+
+    try (BroadcastStreamNonKeyedOperatorTestHarness<
+            Transaction, Rule, Keyed<Transaction, GroupingKey, List<Integer>>>
+        testHarness =
+            BroadcastStreamNonKeyedOperatorTestHarness.getInitializedTestHarness(
+                new DynamicKeyFunction(FanOut.KEY_SET), Descriptors.rulesDescriptor)) {
+
+      testHarness.processElement2(new StreamRecord<>(rule1, 12L));
+      testHarness.processElement2(new StreamRecord<>(rule2, 13L));
+      testHarness.processElement2(new StreamRecord<>(rule3, 14L));
+      testHarness.processElement1(new StreamRecord<>(event1, 15L));
+
+      Queue<Object> expectedOutput = new ConcurrentLinkedQueue<>();
+      expectedOutput.add(
+          new StreamRecord<>(new Keyed<>(event1, key(rule1, event1), Arrays.asList(1, 2)), 15L));
+      // The paused rule is not forked to.
+
+      TestHarnessUtil.assertOutputEquals(
+          "Wrong dynamically keyed output", expectedOutput, testHarness.getOutput());
+    }
+  }
+
+  @Test
+  public void shouldSkipRulesGroupingByUnknownFields() throws Exception {
+    RuleParser ruleParser = new RuleParser();
+    Rule rule1 =
+        ruleParser.fromString("1,(active),(paymentType),,(paymentAmount),(SUM),(>),(50),(20)");
+    Rule unknownKeyRule =
+        ruleParser.fromString("2,(active),(payeeName),,(paymentAmount),(SUM),(>),(50),(20)");
+    Transaction event1 = Transaction.fromString("1,2013-01-01 00:00:00,1001,1002,CSH,21.5,1");
+
+    try (BroadcastStreamNonKeyedOperatorTestHarness<
+            Transaction, Rule, Keyed<Transaction, GroupingKey, List<Integer>>>
+        testHarness =
+            BroadcastStreamNonKeyedOperatorTestHarness.getInitializedTestHarness(
+                new DynamicKeyFunction(), Descriptors.rulesDescriptor)) {
+
+      testHarness.processElement2(new StreamRecord<>(rule1, 12L));
+      testHarness.processElement2(new StreamRecord<>(unknownKeyRule, 13L));
+      testHarness.processElement1(new StreamRecord<>(event1, 15L));
+
+      Queue<Object> expectedOutput = new ConcurrentLinkedQueue<>();
+      expectedOutput.add(
+          new StreamRecord<>(new Keyed<>(event1, key(rule1, event1), singletonList(1)), 15L));
+
+      TestHarnessUtil.assertOutputEquals(
+          "Wrong dynamically keyed output", expectedOutput, testHarness.getOutput());
+    }
+  }
+
+  @Test
+  public void shouldStartKeysWithTheirKeySetId() throws Exception {
+    RuleParser ruleParser = new RuleParser();
+    Rule rule1 =
+        ruleParser.fromString(
+            "1,(active),(paymentType&payeeId),,(paymentAmount),(SUM),(>),(50),(20)");
+    Rule rule2 =
+        ruleParser.fromString(
+            "2,(active),(payeeId&paymentType),,(paymentAmount),(MAX),(>),(5),(1)");
+    Rule rule3 = ruleParser.fromString("3,(active),(payeeId),,(paymentAmount),(SUM),(>),(50),(20)");
+    Transaction event1 = Transaction.fromString("1,2013-01-01 00:00:00,1001,1002,CSH,21.5,1");
+
+    assertEquals(
+        rule1.getFieldAccessors(Transaction.class).getKeySetId(),
+        key(rule1, event1).getKeySetId());
+    assertEquals(key(rule1, event1), key(rule2, event1));
+    assertNotEquals(key(rule1, event1).getKeySetId(), key(rule3, event1).getKeySetId());
+    // The key set id replaces the field names, so keys only grow with the values.
+    assertEquals(8 + 2 + 1, key(rule1, event1).getBytes().length);
+  }
+
   @Test
   public void shouldStoreRulesInBroadcastStateDuringDynamicKeying() throws Exception {
     RuleParser ruleParser = new RuleParser();
     Rule rule1 = ruleParser.fromString("1,(active),(paymentType),,(totalFare),(SUM),(>),(50),(20)");
 
     try (BroadcastStreamNonKeyedOperatorTestHarness<
-            Transaction, Rule, Keyed<Transaction, String, Integer>>
+            Transaction, Rule, Keyed<Transaction, GroupingKey, List<Integer>>>
         testHarness =
             BroadcastStreamNonKeyedOperatorTestHarness.getInitializedTestHarness(
                 new DynamicKeyFunction(), Descriptors.rulesDescriptor)) {
@@ -98,18 +211,24 @@ public class RulesEvaluatorTest {
     Transaction event2 = Transaction.fromString("2,2013-01-01 00:00:01,1001,1002,CRD,19,1");
     Transaction event3 = Transaction.fromString("3,2013-01-01 00:00:02,1001,1002,CRD,2,1");
 
-    Keyed<Transaction, String, Integer> keyed1 = new Keyed<>(event1, "CSH", 1);
-    Keyed<Transaction, String, Integer> keyed2 = new Keyed<>(event2, "CRD", 1);
-    Keyed<Transaction, String, Integer> keyed3 = new Keyed<>(event3, "CRD", 1);
+    Keyed<Transaction, GroupingKey, List<Integer>> keyed1 =
+        new Keyed<>(event1, key(rule1, event1), singletonList(1));
+    Keyed<Transaction, GroupingKey, List<Integer>> keyed2 =
+        new Keyed<>(event2, key(rule1, event2), singletonList(1));
+    Keyed<Transaction, GroupingKey, List<Integer>> keyed3 =
+        new Keyed<>(event3, key(rule1, event3), singletonList(1));
 
     try (BroadcastStreamKeyedOperatorTestHarness<
-            String, Keyed<Transaction, String, Integer>, Rule, Alert>
+            GroupingKey,
+            Keyed<Transaction, GroupingKey, List<Integer>>,
+            Rule,
+            Alert<Transaction, BigDecimal>>
         testHarness =
             BroadcastStreamKeyedOperatorTestHarness.getInitializedTestHarness(
                 new DynamicAlertFunction(),
                 in -> (in.getKey()),
                 null,
-                BasicTypeInfo.STRING_TYPE_INFO,
+                GroupingKeyTypeInfo.INSTANCE,
                 Descriptors.rulesDescriptor)) {
 
       testHarness.processElement2(new StreamRecord<>(rule1, 12L));
@@ -120,9 +239,11 @@ public class RulesEvaluatorTest {
 
       ConcurrentLinkedQueue<Object> expectedOutput = new ConcurrentLinkedQueue<>();
       Alert<Transaction, BigDecimal> alert1 =
-          new Alert<>(rule1.getRuleId(), rule1, "CSH", event1, BigDecimal.valueOf(22));
+          new Alert<>(
+              rule1.getRuleId(), rule1, "{paymentType=CSH}", event1, BigDecimal.valueOf(22));
       Alert<Transaction, BigDecimal> alert2 =
-          new Alert<>(rule1.getRuleId(), rule1, "CRD", event3, BigDecimal.valueOf(21));
+          new Alert<>(
+              rule1.getRuleId(), rule1, "{paymentType=CRD}", event3, BigDecimal.valueOf(21));
 
       expectedOutput.add(new StreamRecord<>(alert1, 15L));
       expectedOutput.add(new StreamRecord<>(alert2, 17L));
@@ -132,6 +253,68 @@ public class RulesEvaluatorTest {
     }
   }
 
+  @Test
+  public void shouldSkipOnlyRulesWithOverflowingAggregates() throws Exception {
+    RuleParser ruleParser = new RuleParser();
+    Rule rule1 =
+        ruleParser.fromString(
+            "1,(active),(paymentType),,(paymentAmount),(SUM),(>),(800000000000000),(20)");
+    // The limit is out of the fixed-point range and compared as a decimal.
+    Rule rule2 =
+        ruleParser.fromString(
+            "2,(active),(paymentType),,(paymentAmount),(MAX),(<),(100000000000000000000),(20)");
+
+    Transaction event1 =
+        Transaction.fromString("1,2013-01-01 00:00:00,1001,1002,CSH,900000000000000,1");
+    Transaction event2 =
+        Transaction.fromString("2,2013-01-01 00:00:01,1001,1002,CSH,900000000000000,1");
+
+    Keyed<Transaction, GroupingKey, List<Integer>> keyed1 =
+        new Keyed<>(event1, key(rule1, event1), Arrays.asList(1, 2));
+    Keyed<Transaction, GroupingKey, List<Integer>> keyed2 =
+        new Keyed<>(event2, key(rule1, event2), Arrays.asList(1, 2));
+
+    for (EvaluationMode evaluationMode : EvaluationMode.values()) {
+      try (BroadcastStreamKeyedOperatorTestHarness<
+              GroupingKey,
+              Keyed<Transaction, GroupingKey, List<Integer>>,
+              Rule,
+              Alert<Transaction, BigDecimal>>
+          testHarness =
+              BroadcastStreamKeyedOperatorTestHarness.getInitializedTestHarness(
+                  new DynamicAlertFunction(evaluationMode),
+                  in -> (in.getKey()),
+                  null,
+                  GroupingKeyTypeInfo.INSTANCE,
+                  Descriptors.rulesDescriptor)) {
+
+        testHarness.processElement2(new StreamRecord<>(rule1, 12L));
+        testHarness.processElement2(new StreamRecord<>(rule2, 13L));
+
+        testHarness.processElement1(new StreamRecord<>(keyed1, 15L));
+        testHarness.processElement1(new StreamRecord<>(keyed2, 16L));
+
+        ConcurrentLinkedQueue<Object> expectedOutput = new ConcurrentLinkedQueue<>();
+        BigDecimal amount = new BigDecimal("900000000000000");
+        expectedOutput.add(
+            new StreamRecord<>(
+                new Alert<>(rule1.getRuleId(), rule1, "{paymentType=CSH}", event1, amount), 15L));
+        expectedOutput.add(
+            new StreamRecord<>(
+                new Alert<>(rule2.getRuleId(), rule2, "{paymentType=CSH}", event1, amount), 15L));
+        // The sum of the second event overflows, which does not keep the maximum from alerting.
+        expectedOutput.add(
+            new StreamRecord<>(
+                new Alert<>(rule2.getRuleId(), rule2, "{paymentType=CSH}", event2, amount), 16L));
+
+        TestHarnessUtil.assertOutputEquals(
+            "Output was not correct in " + evaluationMode + " mode.",
+            expectedOutput,
+            testHarness.getOutput());
+      }
+    }
+  }
+
   @Test
   public void shouldHandleSameTimestampEventsCorrectly() throws Exception {
     RuleParser ruleParser = new RuleParser();
@@ -142,17 +325,22 @@ public class RulesEvaluatorTest {
 
     Transaction event2 = Transaction.fromString("2,2013-01-01 00:00:00,1002,1003,CSH,2,1");
 
-    Keyed<Transaction, String, Integer> keyed1 = new Keyed<>(event1, "CSH", 1);
-    Keyed<Transaction, String, Integer> keyed2 = new Keyed<>(event2, "CSH", 1);
+    Keyed<Transaction, GroupingKey, List<Integer>> keyed1 =
+        new Keyed<>(event1, key(rule1, event1), singletonList(1));
+    Keyed<Transaction, GroupingKey, List<Integer>> keyed2 =
+        new Keyed<>(event2, key(rule1, event2), singletonList(1));
 
     try (BroadcastStreamKeyedOperatorTestHarness<
-            String, Keyed<Transaction, String, Integer>, Rule, Alert>
+            GroupingKey,
+            Keyed<Transaction, GroupingKey, List<Integer>>,
+            Rule,
+            Alert<Transaction, BigDecimal>>
         testHarness =
             BroadcastStreamKeyedOperatorTestHarness.getInitializedTestHarness(
                 new DynamicAlertFunction(),
                 in -> (in.getKey()),
                 null,
-                BasicTypeInfo.STRING_TYPE_INFO,
+                GroupingKeyTypeInfo.INSTANCE,
                 Descriptors.rulesDescriptor)) {
 
       testHarness.processElement2(new StreamRecord<>(rule1, 12L));
@@ -162,7 +350,7 @@ public class RulesEvaluatorTest {
 
       ConcurrentLinkedQueue<Object> expectedOutput = new ConcurrentLinkedQueue<>();
       Alert<Transaction, BigDecimal> alert1 =
-          new Alert<>(rule1.getRuleId(), rule1, "CSH", event2, new BigDecimal(21));
+          new Alert<>(rule1.getRuleId(), rule1, "{paymentType=CSH}", event2, new BigDecimal(21));
 
       expectedOutput.add(new StreamRecord<>(alert1, 16L));
 
@@ -171,6 +359,181 @@ public class RulesEvaluatorTest {
     }
   }
 
+  @Test
+  public void shouldStoreTransactionsOnceAndKeepFieldsOfPausedRules() throws Exception {
+    RuleParser ruleParser = new RuleParser();
+    Rule rule1 =
+        ruleParser.fromString("1,(active),(paymentType),,(paymentAmount),(SUM),(>),(15),(20)");
+    Rule pausedRule2 =
+        ruleParser.fromString("2,(pause),(paymentType),,(beneficiaryId),(SUM),(>),(1500),(20)");
+    Rule rule2 =
+        ruleParser.fromString("2,(active),(paymentType),,(beneficiaryId),(SUM),(>),(1500),(20)");
+    Rule rule3 =
+        ruleParser.fromString("3,(active),(paymentType),,(paymentAmount),(SUM),(>),(15),(20)");
+
+    Transaction event1 = Transaction.fromString("1,2013-01-01 00:00:00,1001,1002,CSH,10,1");
+    Transaction event2 = Transaction.fromString("2,2013-01-01 00:00:01,1001,1002,CSH,1,1");
+
+    for (EvaluationMode evaluationMode : EvaluationMode.values()) {
+      for (WindowStoreFactory windowStoreFactory :
+          Arrays.asList(WindowStoreFactory.events(), WindowStoreFactory.orderedEvents(5_000))) {
+        try (BroadcastStreamKeyedOperatorTestHarness<
+                GroupingKey,
+                Keyed<Transaction, GroupingKey, List<Integer>>,
+                Rule,
+                Alert<Transaction, BigDecimal>>
+            testHarness =
+                BroadcastStreamKeyedOperatorTestHarness.getInitializedTestHarness(
+                    new DynamicAlertFunction(evaluationMode, windowStoreFactory),
+                    in -> (in.getKey()),
+                    null,
+                    GroupingKeyTypeInfo.INSTANCE,
+                    Descriptors.rulesDescriptor)) {
+
+          testHarness.processElement2(new StreamRecord<>(rule1, 12L));
+          testHarness.processElement2(new StreamRecord<>(pausedRule2, 13L));
+          testHarness.processElement2(new StreamRecord<>(rule3, 14L));
+
+          // Forked once per rule, the transaction's amount is only stored with the route of the
+          // first rule, so the sum of 20 does not exceed the limit.
+          testHarness.processElement1(
+              new StreamRecord<>(new Keyed<>(event1, key(rule1, event1), singletonList(1)), 15L));
+          testHarness.processElement1(
+              new StreamRecord<>(new Keyed<>(event1, key(rule3, event1), singletonList(3)), 16L));
+
+          // The paused rule resumes with the beneficiary ids of the events it did not see.
+          testHarness.processElement2(new StreamRecord<>(rule2, 17L));
+          testHarness.processElement1(
+              new StreamRecord<>(
+                  new Keyed<>(event2, key(rule1, event2), Arrays.asList(1, 2)), 18L));
+
+          ConcurrentLinkedQueue<Object> expectedOutput = new ConcurrentLinkedQueue<>();
+          expectedOutput.add(
+              new StreamRecord<>(
+                  new Alert<>(
+                      rule2.getRuleId(),
+                      rule2,
+                      "{paymentType=CSH}",
+                      event2,
+                      BigDecimal.valueOf(2004)),
+                  18L));
+
+          TestHarnessUtil.assertOutputEquals(
+              "Output was not correct in " + evaluationMode + " mode.",
+              expectedOutput,
+              testHarness.getOutput());
+        }
+      }
+    }
+  }
+
+  @Test
+  public void shouldTraceSampledEvaluationsOnly() throws Exception {
+    RuleParser ruleParser = new RuleParser();
+    Rule rule1 =
+        ruleParser.fromString("1,(active),(paymentType),,(paymentAmount),(SUM),(>),(20),(20)");
+    Rule rule2 =
+        ruleParser.fromString("2,(active),(paymentType),,(paymentAmount),(MAX),(>),(50),(20)");
+
+    Transaction event1 = Transaction.fromString("1,2013-01-01 00:00:00,1001,1002,CSH,19,1");
+    Transaction event2 = Transaction.fromString("2,2013-01-01 00:00:01,1001,1002,CRD,5,1");
+    Transaction event3 = Transaction.fromString("3,2013-01-01 00:00:02,1001,1002,CSH,2,1");
+
+    EvaluationTraceSampler sampler = EvaluationTraceSampler.of(1, "1", "{paymentType=CSH}");
+
+    try (BroadcastStreamKeyedOperatorTestHarness<
+            GroupingKey,
+            Keyed<Transaction, GroupingKey, List<Integer>>,
+            Rule,
+            Alert<Transaction, BigDecimal>>
+        testHarness =
+            BroadcastStreamKeyedOperatorTestHarness.getInitializedTestHarness(
+                new DynamicAlertFunction(
+                    EvaluationMode.INCREMENTAL,
+                    WindowStoreFactory.events(),
+                    DynamicAlertFunction.DEFAULT_CLEANUP_GRANULARITY_MILLIS,
+                    DynamicAlertFunction.DEFAULT_LATENCY_INTERVAL_MILLIS,
+                    sampler),
+                in -> (in.getKey()),
+                null,
+                GroupingKeyTypeInfo.INSTANCE,
+                Descriptors.rulesDescriptor)) {
+
+      testHarness.processElement2(new StreamRecord<>(rule1, 12L));
+      testHarness.processElement2(new StreamRecord<>(rule2, 12L));
+
+      long timestamp = 15L;
+      for (Transaction event : Arrays.asList(event1, event2, event3)) {
+        testHarness.processElement1(
+            new StreamRecord<>(
+                new Keyed<>(event, key(rule1, event), Arrays.asList(1, 2)), timestamp++));
+      }
+
+      ConcurrentLinkedQueue<StreamRecord<EvaluationTrace>> expectedTraces =
+          new ConcurrentLinkedQueue<>();
+      expectedTraces.add(
+          new StreamRecord<>(
+              new EvaluationTrace(
+                  1, "{paymentType=CSH}", 1, event1.getEventTime(), FixedPoint.of(19L), false),
+              15L));
+      expectedTraces.add(
+          new StreamRecord<>(
+              new EvaluationTrace(
+                  1, "{paymentType=CSH}", 3, event3.getEventTime(), FixedPoint.of(21L), true),
+              17L));
+
+      TestHarnessUtil.assertOutputEquals(
+          "Traces were not correct.",
+          expectedTraces,
+          testHarness.getSideOutput(Descriptors.evaluationTraceTag));
+      assertEquals(1, testHarness.getOutput().size());
+    }
+
+    try (BroadcastStreamKeyedOperatorTestHarness<
+            GroupingKey,
+            Keyed<Transaction, GroupingKey, List<Integer>>,
+            Rule,
+            Alert<Transaction, BigDecimal>>
+        testHarness =
+            BroadcastStreamKeyedOperatorTestHarness.getInitializedTestHarness(
+                new DynamicAlertFunction(),
+                in -> (in.getKey()),
+                null,
+                GroupingKeyTypeInfo.INSTANCE,
+                Descriptors.rulesDescriptor)) {
+
+      testHarness.processElement2(new StreamRecord<>(rule1, 12L));
+      testHarness.processElement1(
+          new StreamRecord<>(new Keyed<>(event1, key(rule1, event1), singletonList(1)), 15L));
+
+      assertNull(testHarness.getSideOutput(Descriptors.evaluationTraceTag));
+    }
+  }
+
+  @Test
+  public void shouldSampleOnlyEvaluationsOfSelectedKeys() throws Exception {
+    RuleParser ruleParser = new RuleParser();
+    Rule rule =
+        ruleParser.fromString(
+            "1,(active),(paymentType&payeeId),,(paymentAmount),(SUM),(>),(20),(20)");
+    RuleFieldAccessors accessors = rule.getFieldAccessors(Transaction.class);
+
+    Transaction selected = Transaction.fromString("1,2013-01-01 00:00:00,1001,1002,CSH,19,1");
+    Transaction other = Transaction.fromString("2,2013-01-01 00:00:01,1001,1002,CRD,5,1");
+    EvaluationTraceSampler sampler =
+        EvaluationTraceSampler.of(2, "", accessors.renderKey(selected) + ",{paymentType=CRD}");
+
+    // Keys of other evaluations do not advance the sampling, nor do keys of other key sets.
+    assertFalse(sampler.sample(1, accessors, key(rule, selected)));
+    assertFalse(sampler.sample(1, accessors, key(rule, other)));
+    assertTrue(sampler.sample(1, accessors, key(rule, selected)));
+    assertFalse(sampler.sample(1, accessors, key(rule, other)));
+    assertFalse(sampler.sample(1, accessors, key(rule, selected)));
+
+    // Rendered keys select the same key whichever order they list the fields in.
+    assertEquals(key(rule, selected), accessors.parseKey("{payeeId=1001;paymentType=CSH}"));
+  }
+
   @Test
   public void shouldCleanupStateBasedOnWatermarks() throws Exception {
     RuleParser ruleParser = new RuleParser();
@@ -185,19 +548,26 @@ public class RulesEvaluatorTest {
 
     Transaction event4 = Transaction.fromString("4,2013-01-01 00:06:00,1007,1008,CSH,3,1");
 
-    Keyed<Transaction, String, Integer> keyed1 = new Keyed<>(event1, "CSH", 1);
-    Keyed<Transaction, String, Integer> keyed2 = new Keyed<>(event2, "CSH", 1);
-    Keyed<Transaction, String, Integer> keyed3 = new Keyed<>(event3, "CSH", 1);
-    Keyed<Transaction, String, Integer> keyed4 = new Keyed<>(event4, "CSH", 1);
+    Keyed<Transaction, GroupingKey, List<Integer>> keyed1 =
+        new Keyed<>(event1, key(rule1, event1), singletonList(1));
+    Keyed<Transaction, GroupingKey, List<Integer>> keyed2 =
+        new Keyed<>(event2, key(rule1, event2), singletonList(1));
+    Keyed<Transaction, GroupingKey, List<Integer>> keyed3 =
+        new Keyed<>(event3, key(rule1, event3), singletonList(1));
+    Keyed<Transaction, GroupingKey, List<Integer>> keyed4 =
+        new Keyed<>(event4, key(rule1, event4), singletonList(1));
 
     try (BroadcastStreamKeyedOperatorTestHarness<
-            String, Keyed<Transaction, String, Integer>, Rule, Alert>
+            GroupingKey,
+            Keyed<Transaction, GroupingKey, List<Integer>>,
+            Rule,
+            Alert<Transaction, BigDecimal>>
         testHarness =
             BroadcastStreamKeyedOperatorTestHarness.getInitializedTestHarness(
                 new DynamicAlertFunction(),
                 in -> (in.getKey()),
                 null,
-                BasicTypeInfo.STRING_TYPE_INFO,
+                GroupingKeyTypeInfo.INSTANCE,
                 Descriptors.rulesDescriptor)) {
 
       //      long halfAMinuteMillis = 30 * 1000l;
@@ -220,7 +590,7 @@ public class RulesEvaluatorTest {
 
       ConcurrentLinkedQueue<Object> expectedOutput = new ConcurrentLinkedQueue<>();
       Alert<Transaction, BigDecimal> alert1 =
-          new Alert<>(rule1.getRuleId(), rule1, "CSH", event3, new BigDecimal(11));
+          new Alert<>(rule1.getRuleId(), rule1, "{paymentType=CSH}", event3, new BigDecimal(11));
 
       expectedOutput.add(new StreamRecord<>(alert1, event3.getEventTime()));
 
@@ -229,8 +599,553 @@ public class RulesEvaluatorTest {
     }
   }
 
-  private StreamRecord<Keyed<Transaction, String, Integer>> toStreamRecord(
-      Keyed<Transaction, String, Integer> keyed) {
+  @Test
+  public void shouldEvictStateOfKeysWithoutActiveRules() throws Exception {
+    RuleParser ruleParser = new RuleParser();
+    Rule rule1 =
+        ruleParser.fromString("1,(active),(paymentType),,(paymentAmount),(SUM),(>),(10),(4)");
+    Rule rule2 = ruleParser.fromString("2,(active),(payeeId),,(paymentAmount),(SUM),(>),(10),(60)");
+    Rule deleteRule1 =
+        ruleParser.fromString("1,(delete),(paymentType),,(paymentAmount),(SUM),(>),(10),(4)");
+
+    Transaction event1 = Transaction.fromString("1,2013-01-01 00:01:00,1001,1002,CSH,3,1");
+
+    try (BroadcastStreamKeyedOperatorTestHarness<
+            GroupingKey,
+            Keyed<Transaction, GroupingKey, List<Integer>>,
+            Rule,
+            Alert<Transaction, BigDecimal>>
+        testHarness =
+            BroadcastStreamKeyedOperatorTestHarness.getInitializedTestHarness(
+                new DynamicAlertFunction(),
+                in -> (in.getKey()),
+                null,
+                GroupingKeyTypeInfo.INSTANCE,
+                Descriptors.rulesDescriptor)) {
+
+      testHarness.processElement2(new StreamRecord<>(rule1, 1L));
+      testHarness.processElement2(new StreamRecord<>(rule2, 2L));
+      testHarness.processElement1(
+          toStreamRecord(new Keyed<>(event1, key(rule1, event1), singletonList(1))));
+      testHarness.processElement1(
+          toStreamRecord(new Keyed<>(event1, key(rule2, event1), singletonList(2))));
+      int entriesOfBothKeys = testHarness.numKeyedStateEntries();
+      assertTrue(entriesOfBothKeys > 0);
+
+      // The other rule's wider window must not keep the state of the deleted rule's key alive.
+      testHarness.processElement2(new StreamRecord<>(deleteRule1, 3L));
+      testHarness.watermark(event1.getEventTime() + 5 * 60_000);
+
+      assertEquals(entriesOfBothKeys / 2, testHarness.numKeyedStateEntries());
+    }
+  }
+
+  @Test
+  public void shouldKeepAtMostOneCleanupTimerPerKey() throws Exception {
+    for (WindowStoreFactory windowStoreFactory :
+        Arrays.asList(WindowStoreFactory.events(), WindowStoreFactory.orderedEvents(7_000))) {
+      verifyCleanupTimers(windowStoreFactory);
+    }
+  }
+
+  private void verifyCleanupTimers(WindowStoreFactory windowStoreFactory) throws Exception {
+    RuleParser ruleParser = new RuleParser();
+    Rule rule1 =
+        ruleParser.fromString("1,(active),(paymentType),,(paymentAmount),(SUM),(>),(100),(1)");
+
+    try (BroadcastStreamKeyedOperatorTestHarness<
+            GroupingKey,
+            Keyed<Transaction, GroupingKey, List<Integer>>,
+            Rule,
+            Alert<Transaction, BigDecimal>>
+        testHarness =
+            BroadcastStreamKeyedOperatorTestHarness.getInitializedTestHarness(
+                new DynamicAlertFunction(EvaluationMode.INCREMENTAL, windowStoreFactory, 10_000),
+                in -> (in.getKey()),
+                null,
+                GroupingKeyTypeInfo.INSTANCE,
+                Descriptors.rulesDescriptor)) {
+
+      testHarness.processElement2(new StreamRecord<>(rule1, 1L));
+      long lastEventTime = 0;
+      for (int second = 0; second < 30; second++) {
+        Transaction event =
+            Transaction.fromString(
+                String.format("%d,2013-01-01 00:01:%02d,1001,1002,CSH,3,1", second, second));
+        lastEventTime = event.getEventTime();
+        testHarness.processElement1(
+            toStreamRecord(new Keyed<>(event, key(rule1, event), singletonList(1))));
+      }
+      assertEquals(1, testHarness.numEventTimeTimers());
+
+      // The first events expired, the pending timer moved on to the remaining ones.
+      testHarness.watermark(lastEventTime + 55_000);
+      assertEquals(1, testHarness.numEventTimeTimers());
+      assertTrue(testHarness.numKeyedStateEntries() > 0);
+
+      testHarness.watermark(lastEventTime + 70_000);
+      assertEquals(0, testHarness.numEventTimeTimers());
+      assertEquals(0, testHarness.numKeyedStateEntries());
+    }
+  }
+
+  @Test
+  public void shouldEvictPanesOnceTheyEndBeforeTheRetention() throws Exception {
+    RuleParser ruleParser = new RuleParser();
+    Rule rule1 =
+        ruleParser.fromString("1,(active),(paymentType),,(paymentAmount),(SUM),(>),(100),(1)");
+
+    // Panes longer than the cleanup granularity, and a level of a whole day.
+    for (WindowStoreFactory windowStoreFactory :
+        Arrays.asList(
+            WindowStoreFactory.panes(60_000),
+            WindowStoreFactory.hierarchicalPanes(
+                HierarchicalPaneWindowStore.parseLevels("10s,1m,1d")))) {
+      try (BroadcastStreamKeyedOperatorTestHarness<
+              GroupingKey,
+              Keyed<Transaction, GroupingKey, List<Integer>>,
+              Rule,
+              Alert<Transaction, BigDecimal>>
+          testHarness =
+              BroadcastStreamKeyedOperatorTestHarness.getInitializedTestHarness(
+                  new DynamicAlertFunction(EvaluationMode.INCREMENTAL, windowStoreFactory, 10_000),
+                  in -> (in.getKey()),
+                  null,
+                  GroupingKeyTypeInfo.INSTANCE,
+                  Descriptors.rulesDescriptor)) {
+
+        testHarness.processElement2(new StreamRecord<>(rule1, 1L));
+        long lastEventTime = 0;
+        for (int second = 0; second < 30; second++) {
+          Transaction event =
+              Transaction.fromString(
+                  String.format("%d,2013-01-01 00:01:%02d,1001,1002,CSH,3,1", second, second));
+          lastEventTime = event.getEventTime();
+          testHarness.processElement1(
+              toStreamRecord(new Keyed<>(event, key(rule1, event), singletonList(1))));
+        }
+
+        // Past the retention of the events, but not yet past the end of all their panes.
+        testHarness.watermark(lastEventTime + 5 * 60_000);
+        assertTrue(testHarness.numEventTimeTimers() <= 1);
+
+        testHarness.watermark(lastEventTime + 24 * 60 * 60_000 + 2 * 60_000);
+        assertEquals(0, testHarness.numEventTimeTimers());
+        assertEquals(0, testHarness.numKeyedStateEntries());
+      }
+    }
+  }
+
+  @Test
+  public void shouldProduceSameAlertsIncrementallyAsWithRescan() throws Exception {
+    RuleParser ruleParser = new RuleParser();
+    Rule sumRule =
+        ruleParser.fromString("1,(active),(paymentType),,(paymentAmount),(SUM),(>),(40),(1)");
+    Rule avgRule =
+        ruleParser.fromString("2,(active),(paymentType),,(paymentAmount),(AVG),(>),(6),(2)");
+    Rule countRule =
+        ruleParser.fromString("3,(active),(paymentType),,(COUNT_FLINK),(SUM),(>=),(5),(1)");
+    Rule maxRule =
+        ruleParser.fromString("4,(active),(paymentType),,(paymentAmount),(MAX),(>),(9),(1)");
+    Rule minRule =
+        ruleParser.fromString("5,(active),(paymentType),,(paymentAmount),(MIN),(<),(1),(2)");
+    Rule[] rules = {sumRule, avgRule, countRule, maxRule, minRule};
+
+    Random rnd = new Random(42);
+    Queue<StreamRecord<Keyed<Transaction, GroupingKey, List<Integer>>>> input = new LinkedList<>();
+    Queue<StreamRecord<Keyed<Transaction, GroupingKey, List<Integer>>>> keySetInput =
+        new LinkedList<>();
+    long eventTime = Transaction.fromString("0,2013-01-01 00:00:00,1,1,CSH,1,1").getEventTime();
+    for (int i = 0; i < 300; i++) {
+      // Mostly increasing timestamps, with every fifth event arriving out of order.
+      eventTime += rnd.nextInt(10_000);
+      long shiftedEventTime = i % 5 == 0 ? eventTime - rnd.nextInt(30_000) : eventTime;
+      Transaction event =
+          Transaction.builder()
+              .transactionId(i)
+              .eventTime(shiftedEventTime)
+              .paymentType(Transaction.PaymentType.CSH)
+              .paymentAmount(FixedPoint.of(BigDecimal.valueOf(rnd.nextInt(1000) + 1, 2)))
+              .ingestionTimestamp(0L)
+              .build();
+      for (Rule rule : rules) {
+        input.add(
+            new StreamRecord<>(
+                new Keyed<>(event, key(rule, event), singletonList(rule.getRuleId())), i));
+      }
+      keySetInput.add(
+          new StreamRecord<>(
+              new Keyed<>(event, key(sumRule, event), Arrays.asList(1, 2, 3, 4, 5)), i));
+    }
+
+    Queue<Object> rescanOutput =
+        evaluate(new DynamicAlertFunction(EvaluationMode.RESCAN), input, rules);
+    Queue<Object> incrementalOutput =
+        evaluate(new DynamicAlertFunction(EvaluationMode.INCREMENTAL), input, rules);
+
+    TestHarnessUtil.assertOutputEquals(
+        "Incremental evaluation differs from rescan.", rescanOutput, incrementalOutput);
+
+    // Time-ordered buckets hold the same events as the single events store, also with windows
+    // spanning many chunks of buckets.
+    for (EvaluationMode evaluationMode : EvaluationMode.values()) {
+      for (long bucketMillis : new long[] {5_000, 10}) {
+        Queue<Object> orderedOutput =
+            evaluate(
+                new DynamicAlertFunction(
+                    evaluationMode, WindowStoreFactory.orderedEvents(bucketMillis)),
+                input,
+                rules);
+        TestHarnessUtil.assertOutputEquals(
+            "Time-ordered store evaluation differs from events store.",
+            rescanOutput,
+            orderedOutput);
+      }
+    }
+
+    // Panes of one millisecond hold the same events as the single events store.
+    for (EvaluationMode evaluationMode : EvaluationMode.values()) {
+      Queue<Object> panesOutput =
+          evaluate(
+              new DynamicAlertFunction(evaluationMode, WindowStoreFactory.panes(1)), input, rules);
+      TestHarnessUtil.assertOutputEquals(
+          "Pane store evaluation differs from events store.", rescanOutput, panesOutput);
+    }
+
+    // All rules of a grouping key set evaluated in a single pass over the window.
+    for (EvaluationMode evaluationMode : EvaluationMode.values()) {
+      for (WindowStoreFactory windowStoreFactory :
+          Arrays.asList(
+              WindowStoreFactory.events(),
+              WindowStoreFactory.orderedEvents(5_000),
+              WindowStoreFactory.panes(1))) {
+        Queue<Object> keySetOutput =
+            evaluate(
+                new DynamicAlertFunction(evaluationMode, windowStoreFactory), keySetInput, rules);
+        TestHarnessUtil.assertOutputEquals(
+            "Evaluation of key set records differs from single rule records.",
+            rescanOutput,
+            keySetOutput);
+      }
+    }
+  }
+
+  @Test
+  public void shouldAlignWindowsToPanes() throws Exception {
+    RuleParser ruleParser = new RuleParser();
+    Rule rule1 =
+        ruleParser.fromString("1,(active),(paymentType),,(paymentAmount),(SUM),(>),(7),(1)");
+
+    Transaction event1 = Transaction.fromString("1,2013-01-01 00:00:02,1001,1002,CSH,5,1");
+    Transaction event2 = Transaction.fromString("2,2013-01-01 00:01:05,1001,1002,CSH,5,1");
+
+    Queue<StreamRecord<Keyed<Transaction, GroupingKey, List<Integer>>>> input = new LinkedList<>();
+    input.add(toStreamRecord(new Keyed<>(event1, key(rule1, event1), singletonList(1))));
+    input.add(toStreamRecord(new Keyed<>(event2, key(rule1, event2), singletonList(1))));
+
+    // The window [00:00:05, 00:01:05] of event2 excludes event1, but the pane of one minute which
+    // contains the window start also contains event1.
+    Queue<Object> eventsOutput = evaluate(new DynamicAlertFunction(), input, rule1);
+    Queue<Object> panesOutput =
+        evaluate(
+            new DynamicAlertFunction(EvaluationMode.INCREMENTAL, WindowStoreFactory.panes(60_000)),
+            input,
+            rule1);
+
+    ConcurrentLinkedQueue<Object> expectedPanesOutput = new ConcurrentLinkedQueue<>();
+    expectedPanesOutput.add(
+        new StreamRecord<>(
+            new Alert<>(
+                rule1.getRuleId(), rule1, "{paymentType=CSH}", event2, BigDecimal.valueOf(10)),
+            event2.getEventTime()));
+
+    TestHarnessUtil.assertOutputEquals(
+        "Events store output was not correct.", new LinkedList<>(), eventsOutput);
+    TestHarnessUtil.assertOutputEquals(
+        "Pane store output was not correct.", expectedPanesOutput, panesOutput);
+  }
+
+  @Test
+  public void shouldShareFieldPartialsOfRulesInPanes() throws Exception {
+    RuleParser ruleParser = new RuleParser();
+    Rule rule1 =
+        ruleParser.fromString("1,(active),(paymentType),,(paymentAmount),(SUM),(>),(20),(20)");
+    Rule rule2 =
+        ruleParser.fromString("2,(active),(paymentType),,(paymentAmount),(MAX),(>),(18),(20)");
+
+    Transaction event1 = Transaction.fromString("1,2013-01-01 00:00:00,1001,1002,CSH,19,1");
+    Transaction event2 = Transaction.fromString("2,2013-01-01 00:00:01,1001,1002,CSH,5,1");
+
+    try (BroadcastStreamKeyedOperatorTestHarness<
+            GroupingKey,
+            Keyed<Transaction, GroupingKey, List<Integer>>,
+            Rule,
+            Alert<Transaction, BigDecimal>>
+        testHarness =
+            BroadcastStreamKeyedOperatorTestHarness.getInitializedTestHarness(
+                new DynamicAlertFunction(EvaluationMode.RESCAN, WindowStoreFactory.panes(1_000)),
+                in -> (in.getKey()),
+                null,
+                GroupingKeyTypeInfo.INSTANCE,
+                Descriptors.rulesDescriptor)) {
+
+      testHarness.processElement2(new StreamRecord<>(rule1, 12L));
+      testHarness.processElement1(
+          toStreamRecord(new Keyed<>(event1, key(rule1, event1), singletonList(1))));
+      // The rule added later aggregates the same field, so it sees event1 as well.
+      testHarness.processElement2(new StreamRecord<>(rule2, 13L));
+      // Forked once per rule, but its amount is only added to the panes once.
+      testHarness.processElement1(
+          toStreamRecord(new Keyed<>(event2, key(rule1, event2), singletonList(1))));
+      testHarness.processElement1(
+          toStreamRecord(new Keyed<>(event2, key(rule2, event2), singletonList(2))));
+
+      ConcurrentLinkedQueue<Object> expectedOutput = new ConcurrentLinkedQueue<>();
+      expectedOutput.add(
+          new StreamRecord<>(
+              new Alert<>(
+                  rule1.getRuleId(), rule1, "{paymentType=CSH}", event2, BigDecimal.valueOf(24)),
+              event2.getEventTime()));
+      expectedOutput.add(
+          new StreamRecord<>(
+              new Alert<>(
+                  rule2.getRuleId(), rule2, "{paymentType=CSH}", event2, BigDecimal.valueOf(19)),
+              event2.getEventTime()));
+
+      TestHarnessUtil.assertOutputEquals(
+          "Output was not correct.", expectedOutput, filterOutWatermarks(testHarness.getOutput()));
+    }
+  }
+
+  @Test
+  public void shouldRollUpOldPanesIntoCoarserLevels() throws Exception {
+    RuleParser ruleParser = new RuleParser();
+    Rule rule1 =
+        ruleParser.fromString("1,(active),(paymentType),,(paymentAmount),(SUM),(>),(25),(5)");
+    Rule rule2 =
+        ruleParser.fromString("2,(active),(paymentType),,(paymentAmount),(SUM),(>),(25),(120)");
+
+    Transaction event1 = Transaction.fromString("1,2013-01-01 00:00:00,1001,1002,CSH,10,1");
+    Transaction event2 = Transaction.fromString("2,2013-01-01 00:03:20,1001,1002,CSH,10,1");
+    Transaction event3 = Transaction.fromString("3,2013-01-01 00:05:30,1001,1002,CSH,10,1");
+    Transaction event4 = Transaction.fromString("4,2013-01-01 01:00:00,1001,1002,CSH,10,1");
+    Transaction event5 = Transaction.fromString("5,2013-01-01 02:00:30,1001,1002,CSH,10,1");
+
+    Queue<StreamRecord<Keyed<Transaction, GroupingKey, List<Integer>>>> input1 =
+        new LinkedList<>();
+    for (Transaction event : Arrays.asList(event1, event2, event3)) {
+      input1.add(toStreamRecord(new Keyed<>(event, key(rule1, event), singletonList(1))));
+    }
+    Queue<StreamRecord<Keyed<Transaction, GroupingKey, List<Integer>>>> input2 =
+        new LinkedList<>();
+    for (Transaction event : Arrays.asList(event1, event4, event5)) {
+      input2.add(toStreamRecord(new Keyed<>(event, key(rule2, event), singletonList(2))));
+    }
+
+    // Second panes are only kept for the last two minutes and the 5 minute window, whose left
+    // edge they resolve, so the window [00:00:30, 00:05:30] of event3 excludes event1.
+    Queue<Object> secondPanesOutput =
+        evaluate(
+            new DynamicAlertFunction(EvaluationMode.INCREMENTAL, WindowStoreFactory.panes(1_000)),
+            input1,
+            rule1);
+    Queue<Object> hierarchicalOutput1 =
+        evaluate(
+            new DynamicAlertFunction(
+                EvaluationMode.INCREMENTAL,
+                WindowStoreFactory.hierarchicalPanes(
+                    HierarchicalPaneWindowStore.parseLevels("1s,1m"))),
+            input1,
+            rule1);
+    TestHarnessUtil.assertOutputEquals(
+        "Pane store output was not correct.", new LinkedList<>(), secondPanesOutput);
+    TestHarnessUtil.assertOutputEquals(
+        "Hierarchical pane store output was not correct.", secondPanesOutput, hierarchicalOutput1);
+
+    // The left edge of the 2 hour window is resolved at the minute level, so the window
+    // [00:00:30, 02:00:30] of event5 starts at 00:00 and includes event1. Its middle is read from
+    // hour panes, its right edge from second panes.
+    Queue<Object> hierarchicalOutput2 =
+        evaluate(
+            new DynamicAlertFunction(
+                EvaluationMode.RESCAN,
+                WindowStoreFactory.hierarchicalPanes(
+                    HierarchicalPaneWindowStore.parseLevels("1s,1m,1h"))),
+            input2,
+            rule2);
+
+    ConcurrentLinkedQueue<Object> expectedHierarchicalOutput = new ConcurrentLinkedQueue<>();
+    expectedHierarchicalOutput.add(
+        new StreamRecord<>(
+            new Alert<>(
+                rule2.getRuleId(), rule2, "{paymentType=CSH}", event5, BigDecimal.valueOf(30)),
+            event5.getEventTime()));
+
+    TestHarnessUtil.assertOutputEquals(
+        "Hierarchical pane store output was not correct.",
+        expectedHierarchicalOutput,
+        hierarchicalOutput2);
+  }
+
+  private Queue<Object> evaluate(
+      DynamicAlertFunction function,
+      Queue<StreamRecord<Keyed<Transaction, GroupingKey, List<Integer>>>> input,
+      Rule... rules)
+      throws Exception {
+    try (BroadcastStreamKeyedOperatorTestHarness<
+            GroupingKey,
+            Keyed<Transaction, GroupingKey, List<Integer>>,
+            Rule,
+            Alert<Transaction, BigDecimal>>
+        testHarness =
+            BroadcastStreamKeyedOperatorTestHarness.getInitializedTestHarness(
+                function,
+                in -> (in.getKey()),
+                null,
+                GroupingKeyTypeInfo.INSTANCE,
+                Descriptors.rulesDescriptor)) {
+
+      for (Rule rule : rules) {
+        testHarness.processElement2(new StreamRecord<>(rule, 1L));
+      }
+      for (StreamRecord<Keyed<Transaction, GroupingKey, List<Integer>>> record : input) {
+        testHarness.processElement1(record);
+      }
+      return new LinkedList<>(testHarness.getOutput());
+    }
+  }
+
+  @Test
+  public void shouldSuppressRepeatedAlertsPerRuleAndKey() throws Exception {
+    AlertSuppressionFunction<Transaction, BigDecimal> function =
+        AlertSuppressionFunction.of(
+            TypeInformation.of(new TypeHint<Alert<Transaction, BigDecimal>>() {}), "10ms,2:0ms");
+
+    try (KeyedOneInputStreamOperatorTestHarness<
+            Tuple2<Integer, String>, Alert<Transaction, BigDecimal>, Alert<Transaction, BigDecimal>>
+        testHarness =
+            new KeyedOneInputStreamOperatorTestHarness<>(
+                new KeyedProcessOperator<>(function),
+                AlertSuppressionFunction.keySelector(),
+                AlertSuppressionFunction.KEY_TYPE)) {
+      testHarness.open();
+
+      testHarness.processElement(new StreamRecord<>(alert(1, "A", 1, null), 15L));
+      testHarness.processElement(new StreamRecord<>(alert(1, "A", 2, null), 16L));
+      testHarness.processElement(new StreamRecord<>(alert(1, "B", 3, null), 17L));
+      testHarness.processElement(new StreamRecord<>(alert(1, "A", 4, null), 18L));
+      // The window of A ends with a summary and a new window, the one of B without alerts.
+      testHarness.processWatermark(30L);
+      testHarness.processElement(new StreamRecord<>(alert(1, "B", 5, null), 31L));
+      testHarness.processElement(new StreamRecord<>(alert(1, "A", 6, null), 32L));
+      testHarness.processElement(new StreamRecord<>(alert(2, "A", 7, null), 33L));
+      testHarness.processElement(new StreamRecord<>(alert(2, "A", 8, null), 34L));
+      testHarness.processWatermark(50L);
+      testHarness.processElement(new StreamRecord<>(alert(1, "A", 9, null), 51L));
+
+      Queue<Object> expectedOutput = new LinkedList<>();
+      expectedOutput.add(new StreamRecord<>(alert(1, "A", 1, null), 15L));
+      expectedOutput.add(new StreamRecord<>(alert(1, "B", 3, null), 17L));
+      expectedOutput.add(new StreamRecord<>(alert(1, "A", 4, 2), 25L));
+      expectedOutput.add(new StreamRecord<>(alert(1, "B", 5, null), 31L));
+      expectedOutput.add(new StreamRecord<>(alert(2, "A", 7, null), 33L));
+      expectedOutput.add(new StreamRecord<>(alert(2, "A", 8, null), 34L));
+      expectedOutput.add(new StreamRecord<>(alert(1, "A", 6, 1), 35L));
+      expectedOutput.add(new StreamRecord<>(alert(1, "A", 9, null), 51L));
+
+      TestHarnessUtil.assertOutputEquals(
+          "Wrong suppressed alerts", expectedOutput, filterOutWatermarks(testHarness.getOutput()));
+    }
+  }
+
+  @Test
+  public void shouldCompleteLatencyIntervalsWhileIdle() throws Exception {
+    Rule rule1 =
+        new RuleParser()
+            .fromString("1,(active),(paymentType),,(paymentAmount),(SUM),(>),(20),(20)");
+    Transaction event1 = Transaction.fromString("1,2013-01-01 00:00:00,1001,1002,CSH,22,1");
+
+    try (BroadcastStreamKeyedOperatorTestHarness<
+            GroupingKey,
+            Keyed<Transaction, GroupingKey, List<Integer>>,
+            Rule,
+            Alert<Transaction, BigDecimal>>
+        testHarness =
+            BroadcastStreamKeyedOperatorTestHarness.getInitializedTestHarness(
+                new DynamicAlertFunction(
+                    EvaluationMode.INCREMENTAL,
+                    WindowStoreFactory.events(),
+                    DynamicAlertFunction.DEFAULT_CLEANUP_GRANULARITY_MILLIS,
+                    1_000),
+                in -> (in.getKey()),
+                null,
+                GroupingKeyTypeInfo.INSTANCE,
+                Descriptors.rulesDescriptor)) {
+
+      testHarness.processElement2(new StreamRecord<>(rule1, 12L));
+      testHarness.processElement1(
+          new StreamRecord<>(new Keyed<>(event1, key(rule1, event1), singletonList(1)), 15L));
+      assertNull(testHarness.getSideOutput(Descriptors.latencySinkTag));
+
+      // Without any further events.
+      testHarness.setProcessingTime(System.currentTimeMillis() + 1_000);
+
+      Queue<StreamRecord<LatencyHistogram>> latencies =
+          testHarness.getSideOutput(Descriptors.latencySinkTag);
+      assertEquals(1, latencies.size());
+      assertEquals(1, latencies.peek().getValue().getTotalCount());
+    }
+  }
+
+  @Test
+  public void shouldMergeLatencyHistogramsOfTheSameInterval() throws Exception {
+    try (KeyedOneInputStreamOperatorTestHarness<Long, LatencyHistogram, String> testHarness =
+        new KeyedOneInputStreamOperatorTestHarness<>(
+            new KeyedProcessOperator<>(new LatencyHistogramMerger(1_000)),
+            LatencyHistogram::getIntervalStart,
+            BasicTypeInfo.LONG_TYPE_INFO)) {
+      testHarness.open();
+
+      testHarness.setProcessingTime(1_000);
+      testHarness.processElement(new StreamRecord<>(latencies(0, 5, 7)));
+      testHarness.processElement(new StreamRecord<>(latencies(1_000, 3)));
+      testHarness.setProcessingTime(1_999);
+      testHarness.processElement(new StreamRecord<>(latencies(0, 11)));
+      assertTrue(testHarness.getOutput().isEmpty());
+
+      testHarness.setProcessingTime(2_000);
+      // Too late to be merged.
+      testHarness.processElement(new StreamRecord<>(latencies(0, 13)));
+      testHarness.setProcessingTime(3_000);
+
+      assertEquals(
+          Arrays.asList(
+              latencies(0, 5, 7, 11).toSummaryJson(), latencies(1_000, 3).toSummaryJson()),
+          testHarness.extractOutputStreamRecords().stream()
+              .map(StreamRecord::getValue)
+              .collect(Collectors.toList()));
+    }
+  }
+
+  private static LatencyHistogram latencies(long intervalStart, long... values) {
+    LatencyHistogram histogram = new LatencyHistogram(intervalStart);
+    for (long value : values) {
+      histogram.record(value);
+    }
+    return histogram;
+  }
+
+  private static Alert<Transaction, BigDecimal> alert(
+      int ruleId, String key, long value, Integer suppressedCount) {
+    return new Alert<>(ruleId, null, key, null, BigDecimal.valueOf(value), suppressedCount);
+  }
+
+  private GroupingKey key(Rule rule, Transaction event) throws Exception {
+    return rule.getFieldAccessors(Transaction.class).getKey(event);
+  }
+
+  private StreamRecord<Keyed<Transaction, GroupingKey, List<Integer>>> toStreamRecord(
+      Keyed<Transaction, GroupingKey, List<Integer>> keyed) {
     return new StreamRecord<>(keyed, keyed.getWrapped().getEventTime());
   }
 
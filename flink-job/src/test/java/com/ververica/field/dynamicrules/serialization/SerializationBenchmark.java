@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules.serialization;
+
+import com.ververica.field.dynamicrules.Alert;
+import com.ververica.field.dynamicrules.GroupingKey;
+import com.ververica.field.dynamicrules.JsonMapper;
+import com.ververica.field.dynamicrules.Keyed;
+import com.ververica.field.dynamicrules.Rule;
+import com.ververica.field.dynamicrules.RuleParser;
+import com.ververica.field.dynamicrules.Transaction;
+import com.ververica.field.dynamicrules.functions.DynamicKeyFunction;
+import com.ververica.field.dynamicrules.functions.TransactionsGenerator;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.typeinfo.TypeHint;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.java.typeutils.ListTypeInfo;
+import org.apache.flink.api.java.typeutils.runtime.kryo.KryoSerializer;
+import org.apache.flink.core.memory.DataInputDeserializer;
+import org.apache.flink.core.memory.DataOutputSerializer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+/**
+ * Compares the dedicated serializers with the generic Kryo serialization the pipeline's records and
+ * window state fell back to before: prints the serialized bytes per record and the time of a
+ * serialization round trip. Also compares the JSON and binary formats of the transactions topic by
+ * bytes per record and decoding time.
+ */
+public class SerializationBenchmark {
+
+  private static final int RECORDS = 10_000;
+  private static final int ROUNDS = 50;
+
+  public static void main(String[] args) throws Exception {
+    ExecutionConfig config = new ExecutionConfig();
+    Rule rule =
+        new RuleParser()
+            .fromString("1,(active),(payeeId&beneficiaryId),,(paymentAmount),(SUM),(>),(50),(20)");
+
+    List<Transaction> transactions = new ArrayList<>(RECORDS);
+    List<Keyed<Transaction, GroupingKey, List<Integer>>> keyed = new ArrayList<>(RECORDS);
+    List<Alert<Transaction, BigDecimal>> alerts = new ArrayList<>(RECORDS);
+    List<Set<Transaction>> windowEntries = new ArrayList<>(RECORDS);
+    TransactionsGenerator generator = new TransactionsGenerator(1);
+    SplittableRandom rnd = new SplittableRandom(42);
+    for (int i = 0; i < RECORDS; i++) {
+      Transaction transaction = generator.randomEvent(rnd, i);
+      transactions.add(transaction);
+      keyed.add(
+          new Keyed<>(
+              transaction,
+              rule.getFieldAccessors(Transaction.class).getKey(transaction),
+              new ArrayList<>(Arrays.asList(1, 2))));
+      alerts.add(
+          new Alert<>(
+              1,
+              rule,
+              rule.getFieldAccessors(Transaction.class).renderKey(transaction),
+              transaction,
+              BigDecimal.TEN));
+      windowEntries.add(new HashSet<>(Arrays.asList(transaction, generator.randomEvent(rnd, i))));
+    }
+
+    run(
+        "Transaction",
+        transactions,
+        new KryoSerializer<>(Transaction.class, config),
+        TransactionSerializer.INSTANCE);
+    run(
+        "Keyed",
+        keyed,
+        kryo(Keyed.class, config),
+        new DynamicKeyFunction().getProducedType().createSerializer(config));
+    run(
+        "Alert",
+        alerts,
+        kryo(Alert.class, config),
+        TypeInformation.of(new TypeHint<Alert<Transaction, BigDecimal>>() {})
+            .createSerializer(config));
+    List<List<Transaction>> windowLists = new ArrayList<>(RECORDS);
+    for (Set<Transaction> entry : windowEntries) {
+      windowLists.add(new ArrayList<>(entry));
+    }
+    run("Window state (Kryo set)", windowEntries, kryo(Set.class, config), null);
+    run(
+        "Window state (list)",
+        windowLists,
+        null,
+        new ListTypeInfo<>(TransactionTypeInfo.INSTANCE).createSerializer(config));
+    reportWireFormats(transactions);
+  }
+
+  private static void reportWireFormats(List<Transaction> transactions) throws Exception {
+    JsonMapper<Transaction> mapper = new JsonMapper<>(Transaction.class);
+    List<ConsumerRecord<byte[], byte[]>> json = new ArrayList<>(transactions.size());
+    List<ConsumerRecord<byte[], byte[]>> binary = new ArrayList<>(transactions.size());
+    for (Transaction transaction : transactions) {
+      json.add(record(mapper.toString(transaction).getBytes(StandardCharsets.UTF_8)));
+      binary.add(record(TransactionWireFormat.encode(transaction)));
+    }
+    reportDecoding(
+        "Transactions topic, JSON",
+        json,
+        new TransactionDeserializationSchema(TransactionDeserializationSchema.Format.JSON));
+    reportDecoding(
+        "Transactions topic, binary",
+        binary,
+        new TransactionDeserializationSchema(TransactionDeserializationSchema.Format.BINARY));
+  }
+
+  private static ConsumerRecord<byte[], byte[]> record(byte[] value) {
+    return new ConsumerRecord<>("transactions", 0, 0L, null, value);
+  }
+
+  private static void reportDecoding(
+      String name,
+      List<ConsumerRecord<byte[], byte[]>> records,
+      TransactionDeserializationSchema schema) {
+    long bytes = 0;
+    for (ConsumerRecord<byte[], byte[]> record : records) {
+      bytes += record.value().length;
+    }
+    long nanos = 0;
+    for (int round = 0; round < ROUNDS; round++) {
+      long start = System.nanoTime();
+      for (ConsumerRecord<byte[], byte[]> record : records) {
+        schema.deserialize(record);
+      }
+      // The first half of the rounds warms up the JIT.
+      if (round >= ROUNDS / 2) {
+        nanos += System.nanoTime() - start;
+      }
+    }
+    System.out.printf(
+        "%-32s %6.1f bytes/record %8.1f ns/decode%n",
+        name,
+        (double) bytes / records.size(),
+        (double) nanos / (ROUNDS - ROUNDS / 2) / records.size());
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> TypeSerializer<T> kryo(Class<?> type, ExecutionConfig config) {
+    return (TypeSerializer<T>) new KryoSerializer<>(type, config);
+  }
+
+  private static <T> void run(
+      String name, List<T> records, TypeSerializer<T> generic, TypeSerializer<T> dedicated)
+      throws Exception {
+    if (generic != null) {
+      report(name + ", Kryo", records, generic);
+    }
+    if (dedicated != null) {
+      report(name + ", dedicated", records, dedicated);
+    }
+  }
+
+  private static <T> void report(String name, List<T> records, TypeSerializer<T> serializer)
+      throws Exception {
+    DataOutputSerializer out = new DataOutputSerializer(1 << 20);
+    DataInputDeserializer in = new DataInputDeserializer();
+    long bytes = 0;
+    long nanos = 0;
+    for (int round = 0; round < ROUNDS; round++) {
+      long start = System.nanoTime();
+      for (T record : records) {
+        out.clear();
+        serializer.serialize(record, out);
+        in.setBuffer(out.getSharedBuffer(), 0, out.length());
+        serializer.deserialize(in);
+      }
+      // The first half of the rounds warms up the JIT.
+      if (round >= ROUNDS / 2) {
+        nanos += System.nanoTime() - start;
+      }
+      bytes = 0;
+      for (T record : records) {
+        out.clear();
+        serializer.serialize(record, out);
+        bytes += out.length();
+      }
+    }
+    System.out.printf(
+        "%-32s %6.1f bytes/record %8.1f ns/round trip%n",
+        name,
+        (double) bytes / records.size(),
+        (double) nanos / (ROUNDS - ROUNDS / 2) / records.size());
+  }
+}
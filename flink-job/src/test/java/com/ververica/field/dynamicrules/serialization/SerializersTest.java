@@ -0,0 +1,358 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules.serialization;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.ververica.field.dynamicrules.Alert;
+import com.ververica.field.dynamicrules.EvaluationTrace;
+import com.ververica.field.dynamicrules.FixedPoint;
+import com.ververica.field.dynamicrules.GroupingKey;
+import com.ververica.field.dynamicrules.JsonMapper;
+import com.ververica.field.dynamicrules.Keyed;
+import com.ververica.field.dynamicrules.LatencyHistogram;
+import com.ververica.field.dynamicrules.Rule;
+import com.ververica.field.dynamicrules.Rule.AggregatorFunctionType;
+import com.ververica.field.dynamicrules.RuleParser;
+import com.ververica.field.dynamicrules.Transaction;
+import com.ververica.field.dynamicrules.windows.Contribution;
+import com.ververica.field.dynamicrules.windows.Pane;
+import com.ververica.field.dynamicrules.windows.PartialAggregate;
+import com.ververica.field.dynamicrules.windows.SlidingWindowAggregate;
+import com.ververica.field.dynamicrules.windows.SlidingWindowExtremum;
+import com.ververica.field.dynamicrules.windows.SlidingWindowSum;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.typeinfo.TypeHint;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.TypeSerializerSnapshot;
+import org.apache.flink.api.common.typeutils.TypeSerializerSnapshotSerializationUtil;
+import org.apache.flink.api.java.typeutils.GenericTypeInfo;
+import org.apache.flink.api.java.typeutils.PojoTypeInfo;
+import org.apache.flink.core.memory.DataInputDeserializer;
+import org.apache.flink.core.memory.DataOutputSerializer;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.JsonNode;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.Test;
+
+public class SerializersTest {
+
+  @Test
+  public void shouldExtractDedicatedTypeInformation() {
+    TypeInformation<Keyed<Transaction, GroupingKey, List<Integer>>> keyedType =
+        TypeInformation.of(new TypeHint<Keyed<Transaction, GroupingKey, List<Integer>>>() {});
+    TypeInformation<Alert<Transaction, BigDecimal>> alertType =
+        TypeInformation.of(new TypeHint<Alert<Transaction, BigDecimal>>() {});
+
+    assertEquals(TransactionTypeInfo.INSTANCE, TypeInformation.of(Transaction.class));
+    assertEquals(RuleTypeInfo.INSTANCE, TypeInformation.of(Rule.class));
+    assertTrue(keyedType instanceof KeyedTypeInfo);
+    assertEquals(TransactionTypeInfo.INSTANCE, keyedType.getGenericParameters().get("IN"));
+    assertTrue(alertType instanceof AlertTypeInfo);
+    assertEquals(TransactionTypeInfo.INSTANCE, alertType.getGenericParameters().get("Event"));
+    assertTrue(TypeInformation.of(LatencyHistogram.class) instanceof PojoTypeInfo);
+    assertTrue(TypeInformation.of(EvaluationTrace.class) instanceof PojoTypeInfo);
+    for (Class<?> windowStateClass :
+        Arrays.asList(
+            Pane.class, PartialAggregate.class, SlidingWindowAggregate.class, Contribution.class)) {
+      assertFalse(TypeInformation.of(windowStateClass) instanceof GenericTypeInfo);
+    }
+  }
+
+  @Test
+  public void shouldParseTransactionsFromJsonBytes() throws Exception {
+    Transaction transaction =
+        Transaction.fromString("1,2013-01-01 00:00:00,1001,1002,CSH,21.5,1569000000000");
+    byte[] json = new JsonMapper<>(Transaction.class).toString(transaction).getBytes(UTF_8);
+    byte[] withUnknownFields =
+        ("{\"payeeId\":\"7\",\"extra\":{\"nested\":[1,2]},\"paymentAmount\":\"0.125\","
+                + "\"paymentType\":null,\"eventTime\":3}")
+            .getBytes(UTF_8);
+    TransactionDeserializationSchema schema = new TransactionDeserializationSchema();
+
+    Transaction parsed = schema.deserialize(record(json));
+    long now = System.currentTimeMillis();
+    assertTrue(now - parsed.getIngestionTimestamp() < 60_000);
+    parsed.setIngestionTimestamp(transaction.getIngestionTimestamp());
+    assertEquals(transaction, parsed);
+
+    Transaction lenient = schema.parse(withUnknownFields, 0, withUnknownFields.length);
+    assertEquals(
+        Transaction.builder().payeeId(7).paymentAmount(1250).eventTime(3).build(), lenient);
+  }
+
+  @Test
+  public void shouldSkipMalformedTransactions() {
+    TransactionDeserializationSchema schema = new TransactionDeserializationSchema();
+
+    assertNull(schema.deserialize(record("[1,2]".getBytes(UTF_8))));
+    assertNull(schema.deserialize(record("{\"paymentType\":\"XYZ\"}".getBytes(UTF_8))));
+    assertNull(schema.deserialize(record("{\"payeeId\":true}".getBytes(UTF_8))));
+    assertNull(schema.deserialize(record("{\"paymentAmount\":1.00001}".getBytes(UTF_8))));
+    assertNull(schema.deserialize(record(null)));
+  }
+
+  @Test
+  public void shouldEncodeTransactionsInWireFormat() throws Exception {
+    Transaction transaction =
+        Transaction.fromString("1,2013-01-01 00:00:00,1001,1002,CSH,21.5,1569000000000");
+    Transaction withNulls =
+        Transaction.builder().transactionId(-2).paymentAmount(FixedPoint.of(-1L)).build();
+    for (Transaction record : Arrays.asList(transaction, withNulls)) {
+      byte[] encoded = TransactionWireFormat.encode(record);
+      assertEquals(record, TransactionWireFormat.read(new DataInputDeserializer(encoded)));
+    }
+
+    // The webapp's encoder produces the same bytes for this transaction.
+    transaction.setIngestionTimestamp(null);
+    assertEquals(
+        "0108021080e0c2b6fe4e18d20f20d40f28b09f1a3002",
+        hex(TransactionWireFormat.encode(transaction)));
+  }
+
+  @Test
+  public void shouldSkipUnknownWireFormatFields() throws Exception {
+    Transaction transaction = Transaction.builder().payeeId(7).build();
+    DataOutputSerializer out = new DataOutputSerializer(32);
+    TransactionWireFormat.write(transaction, out);
+    // A varint field 15 and a length-delimited field 16 of a newer producer.
+    out.write(new byte[] {0x78, 0x7f, (byte) 0x82, 0x01, 0x02, 0x41, 0x42});
+    TransactionDeserializationSchema schema =
+        new TransactionDeserializationSchema(TransactionDeserializationSchema.Format.BINARY);
+
+    Transaction parsed = schema.deserialize(record(out.getCopyOfBuffer()));
+    parsed.setIngestionTimestamp(null);
+    assertEquals(transaction, parsed);
+    assertNull(schema.deserialize(record(new byte[] {2, 0x18, 0x0e})));
+  }
+
+  @Test
+  public void shouldWriteAlertsAsObjectMapperWould() throws Exception {
+    Rule rule =
+        new RuleParser().fromString("1,(active),(payeeId),,(paymentAmount),(SUM),(>),(20.50),(20)");
+    ObjectMapper mapper = new ObjectMapper();
+    AlertSerializationSchema<Transaction, BigDecimal> schema = new AlertSerializationSchema<>();
+    AlertSerializationSchema<Transaction, BigDecimal> references =
+        new AlertSerializationSchema<>(true);
+
+    for (String amount : new String[] {"21.5", "30", "-0.0625", "0.0001", "-1234567.8"}) {
+      Transaction transaction =
+          Transaction.fromString("1,2013-01-01 00:00:00,1001,1002,CRD," + amount + ",7");
+      Alert<Transaction, BigDecimal> alert =
+          new Alert<>(1, rule, "{payeeId=1001}", transaction, new BigDecimal(amount));
+
+      JsonNode expected = mapper.readTree(mapper.writeValueAsBytes(alert));
+      assertEquals(expected, mapper.readTree(schema.serialize(alert)));
+
+      ((ObjectNode) expected).remove("violatedRule");
+      ((ObjectNode) expected).put("ruleVersion", rule.getVersion());
+      assertEquals(expected, mapper.readTree(references.serialize(alert)));
+    }
+    Alert<Transaction, BigDecimal> empty = new Alert<>();
+    assertEquals(
+        mapper.readTree(mapper.writeValueAsBytes(empty)),
+        mapper.readTree(schema.serializeValue(empty)));
+  }
+
+  @Test
+  public void shouldVersionRulesByDefinition() throws Exception {
+    RuleParser parser = new RuleParser();
+    Rule rule = parser.fromString("1,(active),(payeeId),,(paymentAmount),(SUM),(>),(20),(20)");
+
+    assertEquals(
+        rule.getVersion(),
+        parser
+            .fromString("1,(active),(payeeId),,(paymentAmount),(SUM),(>),(20),(20)")
+            .getVersion());
+    assertNotEquals(
+        rule.getVersion(),
+        parser
+            .fromString("1,(active),(payeeId),,(paymentAmount),(SUM),(>),(25),(20)")
+            .getVersion());
+  }
+
+  private static String hex(byte[] bytes) {
+    StringBuilder hex = new StringBuilder();
+    for (byte b : bytes) {
+      hex.append(String.format("%02x", b));
+    }
+    return hex.toString();
+  }
+
+  private static ConsumerRecord<byte[], byte[]> record(byte[] value) {
+    return new ConsumerRecord<>("transactions", 0, 0L, null, value);
+  }
+
+  @Test
+  public void shouldSerializeTransactions() throws Exception {
+    Transaction transaction =
+        Transaction.fromString("1,2013-01-01 00:00:00,1001,1002,CSH,21.5,1569000000000");
+    Transaction withNulls =
+        Transaction.builder().transactionId(-2).paymentAmount(FixedPoint.of(-1L)).build();
+
+    verifySerializer(TransactionSerializer.INSTANCE, transaction, withNulls);
+  }
+
+  @Test
+  public void shouldSerializeRules() throws Exception {
+    Rule rule =
+        new RuleParser()
+            .fromString("1,(active),(paymentType&payeeId),,(paymentAmount),(SUM),(>),(50.5),(20)");
+
+    verifySerializer(RuleSerializer.INSTANCE, rule, new Rule());
+  }
+
+  @Test
+  public void shouldSerializeKeyedAndAlerts() throws Exception {
+    Rule rule =
+        new RuleParser().fromString("1,(active),(paymentType),,(paymentAmount),(SUM),(>),(5),(20)");
+    Transaction transaction = Transaction.fromString("1,2013-01-01 00:00:00,1001,1002,CSH,21.5,1");
+    GroupingKey key = rule.getFieldAccessors(Transaction.class).getKey(transaction);
+
+    verifySerializer(
+        TypeInformation.of(new TypeHint<Keyed<Transaction, GroupingKey, List<Integer>>>() {})
+            .createSerializer(new ExecutionConfig()),
+        new Keyed<>(transaction, key, Arrays.asList(1, 2)));
+    verifySerializer(
+        TypeInformation.of(new TypeHint<Alert<Transaction, BigDecimal>>() {})
+            .createSerializer(new ExecutionConfig()),
+        new Alert<>(1, rule, "{paymentType=CSH}", transaction, new BigDecimal("21.5")),
+        new Alert<>(1, rule, "{paymentType=CSH}", transaction, new BigDecimal("21.5"), 300),
+        new Alert<>());
+  }
+
+  @Test
+  public void shouldSerializeWindowState() throws Exception {
+    PartialAggregate partial = PartialAggregate.of(FixedPoint.of(-3L));
+    partial.add(FixedPoint.of(5L));
+    Pane pane = new Pane(new HashMap<>(), null);
+    pane.add("paymentAmount", FixedPoint.of(2L));
+    pane.add("paymentAmount", FixedPoint.of(Long.MAX_VALUE / FixedPoint.ONE));
+    pane.add(null, FixedPoint.ONE);
+
+    PartialAggregate overflowed = PartialAggregate.of(Long.MAX_VALUE);
+    overflowed.add(FixedPoint.ONE);
+
+    verifyStateSerializer(
+        PartialAggregateSerializer.INSTANCE,
+        partial,
+        overflowed,
+        PartialAggregate.forFunction(AggregatorFunctionType.MAX),
+        new PartialAggregate());
+    verifyStateSerializer(PaneSerializer.INSTANCE, pane, new Pane());
+    verifyStateSerializer(
+        ContributionSerializer.INSTANCE,
+        new Contribution(1_000, FixedPoint.of(4L), 2, 0, 5_000),
+        new Contribution());
+    verifyStateSerializer(
+        SlidingWindowAggregateSerializer.INSTANCE,
+        new SlidingWindowSum(
+            60_000, "paymentAmount", AggregatorFunctionType.AVG, 5_000, 0, false, 1_000, 10, 3),
+        new SlidingWindowExtremum(
+            60_000, "paymentAmount", AggregatorFunctionType.MAX, 5_000, 0, false, 5_000, -1),
+        new SlidingWindowSum());
+  }
+
+  @Test
+  public void shouldNotReadOlderFormatsWithoutASerializerForThem() throws Exception {
+    DataOutputSerializer out = new DataOutputSerializer(4);
+    // A format version before the first one, which no serializer can read.
+    out.writeInt(0);
+    TypeSerializerSnapshot<PartialAggregate> snapshot =
+        new PartialAggregateSerializer.PartialAggregateSerializerSnapshot();
+    snapshot.readSnapshot(
+        snapshot.getCurrentVersion(),
+        new DataInputDeserializer(out.getCopyOfBuffer()),
+        SerializersTest.class.getClassLoader());
+
+    assertTrue(
+        snapshot.resolveSchemaCompatibility(PartialAggregateSerializer.INSTANCE).isIncompatible());
+  }
+
+  /* Compares the bytes of copies, for window state without equals. */
+  @SafeVarargs
+  private static <T> void verifyStateSerializer(TypeSerializer<T> serializer, T... records)
+      throws Exception {
+    for (T record : records) {
+      byte[] bytes = serialize(serializer, record);
+
+      assertEquals(
+          Arrays.toString(bytes),
+          Arrays.toString(
+              serialize(serializer, serializer.deserialize(new DataInputDeserializer(bytes)))));
+      assertEquals(
+          Arrays.toString(bytes), Arrays.toString(serialize(serializer, serializer.copy(record))));
+
+      DataOutputSerializer copied = new DataOutputSerializer(64);
+      serializer.copy(new DataInputDeserializer(bytes), copied);
+      assertEquals(Arrays.toString(bytes), Arrays.toString(copied.getCopyOfBuffer()));
+    }
+    verifySnapshot(serializer);
+  }
+
+  private static <T> byte[] serialize(TypeSerializer<T> serializer, T record) throws Exception {
+    DataOutputSerializer out = new DataOutputSerializer(64);
+    serializer.serialize(record, out);
+    return out.getCopyOfBuffer();
+  }
+
+  @SafeVarargs
+  private static <T> void verifySerializer(TypeSerializer<T> serializer, T... records)
+      throws Exception {
+    for (T record : records) {
+      DataOutputSerializer out = new DataOutputSerializer(64);
+      serializer.serialize(record, out);
+      byte[] bytes = out.getCopyOfBuffer();
+
+      assertEquals(record, serializer.deserialize(new DataInputDeserializer(bytes)));
+      assertEquals(
+          record,
+          serializer.deserialize(serializer.createInstance(), new DataInputDeserializer(bytes)));
+      assertEquals(record, serializer.copy(record));
+
+      DataOutputSerializer copied = new DataOutputSerializer(64);
+      serializer.copy(new DataInputDeserializer(bytes), copied);
+      assertEquals(Arrays.toString(bytes), Arrays.toString(copied.getCopyOfBuffer()));
+    }
+    verifySnapshot(serializer);
+  }
+
+  private static <T> void verifySnapshot(TypeSerializer<T> serializer) throws Exception {
+    DataOutputSerializer out = new DataOutputSerializer(64);
+    TypeSerializerSnapshotSerializationUtil.writeSerializerSnapshot(
+        out, serializer.snapshotConfiguration(), serializer);
+    TypeSerializerSnapshot<T> restored =
+        TypeSerializerSnapshotSerializationUtil.readSerializerSnapshot(
+            new DataInputDeserializer(out.getCopyOfBuffer()),
+            SerializersTest.class.getClassLoader(),
+            null);
+    assertTrue(restored.resolveSchemaCompatibility(serializer).isCompatibleAsIs());
+    assertEquals(serializer, restored.restoreSerializer());
+  }
+}
@@ -26,6 +26,9 @@ import org.apache.flink.api.common.typeinfo.TypeInformation;
 import org.apache.flink.api.java.ClosureCleaner;
 import org.apache.flink.api.java.functions.KeySelector;
 import org.apache.flink.runtime.checkpoint.OperatorSubtaskState;
+import org.apache.flink.runtime.state.KeyedStateBackend;
+import org.apache.flink.runtime.state.StateBackend;
+import org.apache.flink.runtime.state.heap.HeapKeyedStateBackend;
 import org.apache.flink.streaming.api.functions.co.KeyedBroadcastProcessFunction;
 import org.apache.flink.streaming.api.operators.TwoInputStreamOperator;
 import org.apache.flink.streaming.api.operators.co.CoBroadcastWithKeyedOperator;
@@ -148,6 +151,37 @@ public class BroadcastStreamKeyedOperatorTestHarness<K, IN1, IN2, OUT>
           final MapStateDescriptor<?, ?>... descriptors)
           throws Exception {
 
+    return getInitializedTestHarness(
+        function,
+        keySelector1,
+        keySelector2,
+        keyType,
+        maxParallelism,
+        numTasks,
+        taskIdx,
+        initState,
+        null,
+        descriptors);
+  }
+
+  /**
+   * Creates an initialized harness whose operator keeps its state in the given state backend, or in
+   * the harness' default backend if {@code stateBackend} is null.
+   */
+  public static <K, IN1, IN2, OUT>
+      BroadcastStreamKeyedOperatorTestHarness<K, IN1, IN2, OUT> getInitializedTestHarness(
+          final KeyedBroadcastProcessFunction<K, IN1, IN2, OUT> function,
+          final KeySelector<IN1, K> keySelector1,
+          final KeySelector<IN2, K> keySelector2,
+          final TypeInformation<K> keyType,
+          final int maxParallelism,
+          final int numTasks,
+          final int taskIdx,
+          final OperatorSubtaskState initState,
+          final StateBackend stateBackend,
+          final MapStateDescriptor<?, ?>... descriptors)
+          throws Exception {
+
     BroadcastStreamKeyedOperatorTestHarness<K, IN1, IN2, OUT> testHarness =
         new BroadcastStreamKeyedOperatorTestHarness<>(
             new CoBroadcastWithKeyedOperator<>(
@@ -158,6 +192,9 @@ public class BroadcastStreamKeyedOperatorTestHarness<K, IN1, IN2, OUT>
             maxParallelism,
             numTasks,
             taskIdx);
+    if (stateBackend != null) {
+      testHarness.setStateBackend(stateBackend);
+    }
     testHarness.setup();
     testHarness.initializeState(initState);
     testHarness.open();
@@ -169,4 +206,14 @@ public class BroadcastStreamKeyedOperatorTestHarness<K, IN1, IN2, OUT>
     processWatermark1(new Watermark(timestamp));
     processWatermark2(new Watermark(timestamp));
   }
+
+  /** Returns the number of non-empty keyed states, over all keys. */
+  public int numKeyedStateEntries() {
+    KeyedStateBackend<Object> keyedStateBackend = twoInputOperator.getKeyedStateBackend();
+    if (keyedStateBackend instanceof HeapKeyedStateBackend) {
+      return ((HeapKeyedStateBackend<?>) keyedStateBackend).numKeyValueStateEntries();
+    }
+    throw new UnsupportedOperationException(
+        "Only supported for the heap state backend, not for " + keyedStateBackend);
+  }
 }
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ververica.field.dynamicrules.windows;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.ververica.field.dynamicrules.FixedPoint;
+import com.ververica.field.dynamicrules.Rule;
+import com.ververica.field.dynamicrules.Rule.AggregatorFunctionType;
+import com.ververica.field.dynamicrules.RuleParser;
+import com.ververica.field.dynamicrules.windows.ContributionSeries.Contributions;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class SlidingWindowAggregateTest {
+
+  @Test
+  public void shouldOnlyTouchTheEndsOfTheWindowPerInOrderEvent() throws Exception {
+    RuleParser ruleParser = new RuleParser();
+    for (String aggregate : new String[] {"SUM", "MAX"}) {
+      Rule rule =
+          ruleParser.fromString(
+              "1,(active),(paymentType),,(paymentAmount),(" + aggregate + "),(>),(20),(60)");
+      SlidingWindowAggregate runningAggregate = SlidingWindowAggregate.forRule(rule);
+      CountingContributions contributions = new CountingContributions();
+      ContributionSeries series =
+          ContributionSeries.create(rule.getAggregatorFunctionType(), contributions);
+
+      // Decreasing values keep every single one a candidate for the MAX.
+      int events = 10_000;
+      for (int i = 0; i < events; i++) {
+        long timestamp = i * 1_000L;
+        add(series, runningAggregate, timestamp, events - i);
+        runningAggregate.slideTo(series, timestamp, rule.getWindowStartFor(timestamp));
+        series.evictBefore(rule.getWindowStartFor(timestamp));
+      }
+
+      // A one hour window of events one second apart holds 3601 of them.
+      assertEquals(3601, contributions.values.size());
+      assertTrue(contributions.accesses < 8L * events);
+    }
+  }
+
+  @Test
+  public void shouldHaveNoResultOnceAllValuesExpired() throws Exception {
+    RuleParser ruleParser = new RuleParser();
+    for (String aggregate : new String[] {"SUM", "AVG", "MIN", "MAX"}) {
+      Rule rule =
+          ruleParser.fromString(
+              "1,(active),(paymentType),,(paymentAmount),(" + aggregate + "),(>),(20),(1)");
+      SlidingWindowAggregate runningAggregate = SlidingWindowAggregate.forRule(rule);
+      CountingContributions contributions = new CountingContributions();
+      ContributionSeries series =
+          ContributionSeries.create(rule.getAggregatorFunctionType(), contributions);
+
+      add(series, runningAggregate, 0, FixedPoint.of(7L));
+      add(series, runningAggregate, 1_000, FixedPoint.of(3L));
+      runningAggregate.slideTo(series, 600_000L, rule.getWindowStartFor(600_000L));
+
+      assertTrue(runningAggregate.isEmpty());
+      series.evictBefore(rule.getWindowStartFor(600_000L));
+      assertTrue(contributions.values.isEmpty());
+      try {
+        runningAggregate.getResult();
+        fail("Expected no result for " + aggregate);
+      } catch (IllegalStateException expected) {
+      }
+
+      add(series, runningAggregate, 600_000, FixedPoint.of(5L));
+      assertEquals(FixedPoint.of(5L), runningAggregate.getResult());
+    }
+  }
+
+  @Test
+  public void shouldShareTheSeriesOfAFieldAcrossWindows() throws Exception {
+    RuleParser ruleParser = new RuleParser();
+    for (String aggregate : new String[] {"SUM", "MAX"}) {
+      Rule shortRule =
+          ruleParser.fromString(
+              "1,(active),(paymentType),,(paymentAmount),(" + aggregate + "),(>),(20),(1)");
+      Rule longRule =
+          ruleParser.fromString(
+              "2,(active),(paymentType),,(paymentAmount),(" + aggregate + "),(>),(20),(10)");
+      SlidingWindowAggregate shortAggregate = SlidingWindowAggregate.forRule(shortRule);
+      SlidingWindowAggregate longAggregate = SlidingWindowAggregate.forRule(longRule);
+      assertEquals(shortAggregate.getSeriesName(), longAggregate.getSeriesName());
+      CountingContributions contributions = new CountingContributions();
+      ContributionSeries series =
+          ContributionSeries.create(shortRule.getAggregatorFunctionType(), contributions);
+
+      long[] values = {FixedPoint.of(9L), FixedPoint.of(4L), FixedPoint.of(6L)};
+      for (int i = 0; i < values.length; i++) {
+        long timestamp = i * 60_000L;
+        long value = values[i];
+        boolean inSeries = series.add(timestamp, PartialAggregate.of(value));
+        shortAggregate.add(timestamp, PartialAggregate.of(value), inSeries);
+        longAggregate.add(timestamp, PartialAggregate.of(value), inSeries);
+        shortAggregate.slideTo(series, timestamp, shortRule.getWindowStartFor(timestamp));
+        longAggregate.slideTo(series, timestamp, longRule.getWindowStartFor(timestamp));
+      }
+
+      boolean sum = "SUM".equals(aggregate);
+      assertEquals(FixedPoint.of(sum ? 10L : 6L), shortAggregate.getResult());
+      assertEquals(FixedPoint.of(sum ? 19L : 9L), longAggregate.getResult());
+    }
+  }
+
+  @Test
+  public void shouldHaveNoMinOrMaxOfNoValues() {
+    PartialAggregate partial = new PartialAggregate();
+    partial.merge(new PartialAggregate());
+
+    assertTrue(partial.isEmpty());
+    for (AggregatorFunctionType aggregatorFunctionType : AggregatorFunctionType.values()) {
+      try {
+        partial.getResult(aggregatorFunctionType);
+        fail("Expected no " + aggregatorFunctionType + " of no values");
+      } catch (IllegalStateException expected) {
+      }
+    }
+
+    partial.add(FixedPoint.of(-2L));
+    assertFalse(partial.isEmpty());
+    assertEquals(FixedPoint.of(-2L), partial.getResult(AggregatorFunctionType.MIN));
+    assertEquals(FixedPoint.of(-2L), partial.getResult(AggregatorFunctionType.MAX));
+  }
+
+  private static void add(
+      ContributionSeries series, SlidingWindowAggregate aggregate, long timestamp, long value)
+      throws Exception {
+    PartialAggregate partial = PartialAggregate.of(value);
+    aggregate.add(timestamp, partial, series.add(timestamp, partial));
+  }
+
+  /** Contributions in a hash map, counting all accesses. */
+  private static class CountingContributions implements Contributions {
+    private final Map<Long, Contribution> values = new HashMap<>();
+    private long accesses;
+
+    @Override
+    public Contribution get(long timestamp) {
+      accesses++;
+      return values.get(timestamp);
+    }
+
+    @Override
+    public void put(long timestamp, Contribution contribution) {
+      accesses++;
+      values.put(timestamp, contribution);
+    }
+
+    @Override
+    public void remove(long timestamp) {
+      accesses++;
+      values.remove(timestamp);
+    }
+  }
+}
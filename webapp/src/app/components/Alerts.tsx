@@ -4,7 +4,9 @@ import styled from "styled-components/macro";
 import { faArrowRight } from "@fortawesome/free-solid-svg-icons";
 import { FontAwesomeIcon } from "@fortawesome/react-fontawesome";
 
-import { Alert } from "../interfaces";
+import { find } from "lodash/fp";
+
+import { Alert, Rule, RulePayload } from "../interfaces";
 import { CenteredContainer } from "./CenteredContainer";
 import { ScrollingCol } from "./App";
 import { Payment, Payee, Details, Beneficiary, paymentTypeMap } from "./Transactions";
@@ -36,6 +38,15 @@ const AlertTable = styled(Table)`
   }
 `;
 
+// Alerts referencing their rule by id and version do not embed it, so it is looked up instead.
+const violatedRuleOf = (alert: Alert, rules: Rule[]): RulePayload | undefined => {
+  if (alert.violatedRule) {
+    return alert.violatedRule;
+  }
+  const rule = find(r => r.id === alert.ruleId, rules);
+  return rule && JSON.parse(rule.rulePayload);
+};
+
 export const Alerts: FC<Props> = props => {
   const tooManyAlerts = props.alerts.length > 4;
 
@@ -47,6 +58,8 @@ export const Alerts: FC<Props> = props => {
     <ScrollingCol xs={{ size: 3, offset: 1 }} onScroll={handleScroll}>
       {props.alerts.map((alert, idx) => {
         const t = alert.triggeringEvent;
+        const violatedRule = violatedRuleOf(alert, props.rules);
+        const aggregateFieldName = violatedRule ? violatedRule.aggregateFieldName : "";
         return (
           <CenteredContainer
             key={idx}
@@ -91,7 +104,7 @@ export const Alerts: FC<Props> = props => {
                   </tr>
                   <tr>
                     <td>Of</td>
-                    <td>{alert.violatedRule.aggregateFieldName}</td>
+                    <td>{aggregateFieldName}</td>
                   </tr>
                 </tbody>
               </AlertTable>
@@ -99,7 +112,7 @@ export const Alerts: FC<Props> = props => {
             <CardFooter style={{ padding: "0.3rem" }}>
               Alert for Rule <em>{alert.ruleId}</em> caused by Transaction{" "}
               <em>{alert.triggeringEvent.transactionId}</em> with Amount <em>{alert.triggeringValue}</em> of{" "}
-              <em>{alert.violatedRule.aggregateFieldName}</em>.
+              <em>{aggregateFieldName}</em>.
             </CardFooter>
           </CenteredContainer>
         );
@@ -110,6 +123,7 @@ export const Alerts: FC<Props> = props => {
 
 interface Props {
   alerts: Alert[];
+  rules: Rule[];
   clearAlert: any;
   lines: Line[];
   // handleScroll: () => void;
@@ -149,7 +149,7 @@ export const App: FC = () => {
           <Row className="flex-grow-1 overflow-hidden">
             <Transactions ref={transactionsRef} />
             <Rules clearRule={clearRule} rules={rules} alerts={alerts} ruleLines={ruleLines} alertLines={alertLines} />
-            <Alerts alerts={alerts} clearAlert={clearAlert} lines={alertLines} />
+            <Alerts alerts={alerts} rules={rules} clearAlert={clearAlert} lines={alertLines} />
           </Row>
         </Container>
       </LayoutContainer>
@@ -5,7 +5,9 @@ import { RulePayload } from "./Rule";
 export interface Alert {
   alertId: string;
   ruleId: number;
-  violatedRule: RulePayload;
+  // Left out by jobs referencing rules by id and version, see alerts-rule-references.
+  violatedRule?: RulePayload;
+  ruleVersion?: number;
   triggeringValue: number;
   triggeringEvent: Transaction;
   ref: RefObject<HTMLDivElement>;
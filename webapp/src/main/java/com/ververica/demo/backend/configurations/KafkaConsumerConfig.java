@@ -20,6 +20,7 @@ package com.ververica.demo.backend.configurations;
 import java.util.HashMap;
 import java.util.Map;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -66,4 +67,21 @@ public class KafkaConsumerConfig {
     factory.setConsumerFactory(consumerFactory());
     return factory;
   }
+
+  // Transactions may be binary, see kafka.format.transactions
+  @Bean
+  public ConsumerFactory<String, byte[]> transactionsConsumerFactory() {
+    Map<String, Object> props = new HashMap<>(consumerConfigs());
+    props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+    return new DefaultKafkaConsumerFactory<>(props);
+  }
+
+  @Bean
+  public KafkaListenerContainerFactory<ConcurrentMessageListenerContainer<String, byte[]>>
+      transactionsListenerContainerFactory() {
+    ConcurrentKafkaListenerContainerFactory<String, byte[]> factory =
+        new ConcurrentKafkaListenerContainerFactory<>();
+    factory.setConsumerFactory(transactionsConsumerFactory());
+    return factory;
+  }
 }
@@ -20,6 +20,7 @@ package com.ververica.demo.backend.configurations;
 import java.util.HashMap;
 import java.util.Map;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -53,6 +54,15 @@ public class KafkaProducerConfig {
     return props;
   }
 
+  @Bean
+  public Map<String, Object> producerConfigsBytes() {
+    Map<String, Object> props = new HashMap<>();
+    props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+    props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+    props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+    return props;
+  }
+
   // Transactions
   @Bean
   public ProducerFactory<String, Object> producerFactoryForJson() {
@@ -64,6 +74,17 @@ public class KafkaProducerConfig {
     return new KafkaTemplate<>(producerFactoryForJson());
   }
 
+  // Binary transactions
+  @Bean
+  public ProducerFactory<String, byte[]> producerFactoryForBytes() {
+    return new DefaultKafkaProducerFactory<>(producerConfigsBytes());
+  }
+
+  @Bean
+  public KafkaTemplate<String, byte[]> kafkaTemplateForBytes() {
+    return new KafkaTemplate<>(producerFactoryForBytes());
+  }
+
   // Strings
   @Bean
   public ProducerFactory<String, String> producerFactoryForString() {
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ververica.demo.backend.datasource;
+
+import com.ververica.demo.backend.datasource.Transaction.PaymentType;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Compact binary encoding of transactions on the transactions topic, the same as the Flink job's
+ * {@code TransactionWireFormat}. A record is a version byte followed by tagged fields: a
+ * variable-length tag of {@code fieldNumber << 3 | wireType}, then a zig-zag encoded
+ * variable-length integer (wire type 0) or a length and that many bytes (wire type 2). Fields are 1
+ * transaction id, 2 event time, 3 payee id, 4 beneficiary id, 5 payment amount with 4 decimal
+ * digits, 6 payment type (1 CSH, 2 CRD) and 7 the ingestion timestamp, which is not written here.
+ * Fields holding zero or null are left out, unknown fields are skipped when reading. Like the Flink
+ * job, which treats them as invalid records, amounts are never rounded: those with more than 4
+ * decimal digits or out of range cannot be encoded.
+ */
+public final class TransactionWireFormat {
+
+  public static final int VERSION = 1;
+
+  private static final int VARINT = 0;
+  private static final int LENGTH_DELIMITED = 2;
+  private static final int AMOUNT_SCALE = 4;
+
+  private TransactionWireFormat() {}
+
+  /**
+   * Encodes a transaction.
+   *
+   * @throws IllegalArgumentException if the payment amount cannot be represented exactly
+   */
+  public static byte[] encode(Transaction transaction) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(32);
+    out.write(VERSION);
+    writeField(out, 1, transaction.getTransactionId());
+    writeField(out, 2, transaction.getEventTime());
+    writeField(out, 3, transaction.getPayeeId());
+    writeField(out, 4, transaction.getBeneficiaryId());
+    if (transaction.getPaymentAmount() != null) {
+      writeField(out, 5, toMinorUnits(transaction.getPaymentAmount()));
+    }
+    if (transaction.getPaymentType() != null) {
+      writeField(out, 6, transaction.getPaymentType() == PaymentType.CSH ? 1 : 2);
+    }
+    return out.toByteArray();
+  }
+
+  private static long toMinorUnits(BigDecimal amount) {
+    try {
+      return amount
+          .setScale(AMOUNT_SCALE, RoundingMode.UNNECESSARY)
+          .unscaledValue()
+          .longValueExact();
+    } catch (ArithmeticException e) {
+      throw new IllegalArgumentException("Invalid payment amount: " + amount.toPlainString(), e);
+    }
+  }
+
+  public static Transaction decode(byte[] bytes) {
+    if (bytes.length == 0 || bytes[0] != VERSION) {
+      throw new IllegalArgumentException("Unsupported transaction wire format version");
+    }
+    Transaction transaction = new Transaction();
+    int[] position = {1};
+    while (position[0] < bytes.length) {
+      long tag = readUnsigned(bytes, position);
+      int wireType = (int) (tag & 0x7);
+      if (wireType == LENGTH_DELIMITED) {
+        position[0] += (int) readUnsigned(bytes, position);
+        continue;
+      } else if (wireType != VARINT) {
+        throw new IllegalArgumentException("Unknown wire type " + wireType);
+      }
+      long unsigned = readUnsigned(bytes, position);
+      long value = (unsigned >>> 1) ^ -(unsigned & 1);
+      switch ((int) (tag >>> 3)) {
+        case 1:
+          transaction.setTransactionId(value);
+          break;
+        case 2:
+          transaction.setEventTime(value);
+          break;
+        case 3:
+          transaction.setPayeeId(value);
+          break;
+        case 4:
+          transaction.setBeneficiaryId(value);
+          break;
+        case 5:
+          transaction.setPaymentAmount(toDecimal(value));
+          break;
+        case 6:
+          transaction.setPaymentType(
+              value == 1 ? PaymentType.CSH : value == 2 ? PaymentType.CRD : null);
+          break;
+        default:
+          // A field of a newer producer, or the ingestion timestamp.
+      }
+    }
+    return transaction;
+  }
+
+  /* Without trailing zeros in the fraction, as the producer most likely wrote it. */
+  private static BigDecimal toDecimal(long unscaled) {
+    BigDecimal decimal = BigDecimal.valueOf(unscaled, AMOUNT_SCALE).stripTrailingZeros();
+    return decimal.scale() < 0 ? decimal.setScale(0) : decimal;
+  }
+
+  private static void writeField(ByteArrayOutputStream out, int fieldNumber, long value) {
+    if (value != 0) {
+      writeUnsigned(out, fieldNumber << 3 | VARINT);
+      writeUnsigned(out, (value << 1) ^ (value >> 63));
+    }
+  }
+
+  private static void writeUnsigned(ByteArrayOutputStream out, long value) {
+    while ((value & ~0x7FL) != 0) {
+      out.write(((int) value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.write((int) value);
+  }
+
+  private static long readUnsigned(byte[] bytes, int[] position) {
+    long value = 0;
+    for (int shift = 0; ; shift += 7) {
+      byte b = bytes[position[0]++];
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+  }
+}
@@ -18,6 +18,9 @@
 package com.ververica.demo.backend.services;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ververica.demo.backend.datasource.TransactionWireFormat;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.common.TopicPartition;
@@ -39,6 +42,9 @@ public class KafkaTransactionsConsumerService implements ConsumerSeekAware {
   @Value("${web-socket.topic.transactions}")
   private String transactionsWebSocketTopic;
 
+  @Value("${kafka.format.transactions:json}")
+  private String format;
+
   @Autowired
   public KafkaTransactionsConsumerService(SimpMessagingTemplate simpTemplate) {
     this.simpTemplate = simpTemplate;
@@ -47,8 +53,13 @@ public class KafkaTransactionsConsumerService implements ConsumerSeekAware {
   @KafkaListener(
       id = "${kafka.listeners.transactions.id}",
       topics = "${kafka.topic.transactions}",
-      groupId = "transactions")
-  public void consumeTransactions(@Payload String message) {
+      groupId = "transactions",
+      containerFactory = "transactionsListenerContainerFactory")
+  public void consumeTransactions(@Payload byte[] payload) throws IOException {
+    String message =
+        "binary".equalsIgnoreCase(format)
+            ? mapper.writeValueAsString(TransactionWireFormat.decode(payload))
+            : new String(payload, StandardCharsets.UTF_8);
     log.debug("{}", message);
     simpTemplate.convertAndSend(transactionsWebSocketTopic, message);
   }
@@ -18,6 +18,7 @@
 package com.ververica.demo.backend.services;
 
 import com.ververica.demo.backend.datasource.Transaction;
+import com.ververica.demo.backend.datasource.TransactionWireFormat;
 import java.util.function.Consumer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -30,21 +31,40 @@ import org.springframework.stereotype.Service;
 public class KafkaTransactionsPusher implements Consumer<Transaction> {
 
   private KafkaTemplate<String, Object> kafkaTemplate;
+  private KafkaTemplate<String, byte[]> binaryKafkaTemplate;
   private Transaction lastTransaction;
 
   @Value("${kafka.topic.transactions}")
   private String topic;
 
+  @Value("${kafka.format.transactions:json}")
+  private String format;
+
   @Autowired
-  public KafkaTransactionsPusher(KafkaTemplate<String, Object> kafkaTemplateForJson) {
+  public KafkaTransactionsPusher(
+      KafkaTemplate<String, Object> kafkaTemplateForJson,
+      KafkaTemplate<String, byte[]> kafkaTemplateForBytes) {
     this.kafkaTemplate = kafkaTemplateForJson;
+    this.binaryKafkaTemplate = kafkaTemplateForBytes;
   }
 
   @Override
   public void accept(Transaction transaction) {
     lastTransaction = transaction;
     log.debug("{}", transaction);
-    kafkaTemplate.send(topic, transaction);
+    if ("binary".equalsIgnoreCase(format)) {
+      byte[] record;
+      try {
+        record = TransactionWireFormat.encode(transaction);
+      } catch (IllegalArgumentException e) {
+        // The Flink job would drop it as an invalid record anyway.
+        log.warn("Skipping transaction {}: {}", transaction.getTransactionId(), e.getMessage());
+        return;
+      }
+      binaryKafkaTemplate.send(topic, record);
+    } else {
+      kafkaTemplate.send(topic, transaction);
+    }
   }
 
   public Transaction getLastTransaction() {